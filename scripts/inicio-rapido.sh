@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Modo de início rápido: AOT do Spring + arquivo CDS gerado numa subida de treino.
+#
+#   ./mvnw -Pinicio-rapido package -DskipTests
+#   scripts/inicio-rapido.sh preparar       # extrai o jar e gera target/rapido/app.jsa
+#   scripts/inicio-rapido.sh executar [--args do Spring]
+#
+# O CDS só aceita jars no classpath (nada de jar dentro de jar nem diretório de
+# classes), então o fat jar é aberto em target/rapido: as classes da aplicação
+# viram aplicacao.jar e as dependências ficam em BOOT-INF/lib, na ordem do
+# classpath.idx. O classpath da execução precisa ser o mesmo do treino.
+set -euo pipefail
+
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+DESTINO="$RAIZ/target/rapido"
+PRINCIPAL=com.tcc.antifraude_seguro.DemoApplication
+
+classpath() {
+    echo "aplicacao.jar:$(sed -n 's/^- "\(.*\)"$/\1/p' BOOT-INF/classpath.idx | paste -sd:)"
+}
+
+case "${1:-}" in
+    preparar)
+        JAR=$(ls "$RAIZ"/target/antifraude-seguro-*.jar | head -1)
+        unzip -l "$JAR" | grep '__ApplicationContextInitializer' > /dev/null \
+            || { echo "Jar sem AOT: rode ./mvnw -Pinicio-rapido package -DskipTests" >&2; exit 1; }
+        rm -rf "$DESTINO" && mkdir -p "$DESTINO" && cd "$DESTINO"
+        unzip -q "$JAR"
+        jar cf aplicacao.jar -C BOOT-INF/classes .
+        # Treino: sobe o contexto inteiro e sai logo depois do refresh (Spring 6.1),
+        # gravando no arquivo as classes carregadas até ali
+        java -XX:ArchiveClassesAtExit=app.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+            -cp "$(classpath)" "$PRINCIPAL" --spring.jpa.show-sql=false > treino.log 2>&1 || true
+        [ -f app.jsa ] || { echo "Falha no treino do CDS, veja $DESTINO/treino.log" >&2; exit 1; }
+        echo "CDS gerado: $DESTINO/app.jsa"
+        ;;
+    executar)
+        shift
+        cd "$DESTINO"
+        # aquecimento como propriedade de sistema: um --antifraude.aquecimento.habilitado
+        # nos argumentos ainda pode desligá-lo
+        exec java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+            -Dantifraude.aquecimento.habilitado=true ${JAVA_OPTS:-} \
+            -cp "$(classpath)" "$PRINCIPAL" "$@"
+        ;;
+    *)
+        echo "uso: $0 preparar | executar [args]" >&2
+        exit 2
+        ;;
+esac
@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Tempo até a primeira decisão e RSS, com e sem o modo de início rápido.
+#
+#   ./mvnw -Pinicio-rapido package -DskipTests && scripts/inicio-rapido.sh preparar
+#   scripts/medir-inicio.sh [rodadas]
+#
+# "pronto" = readiness UP (/actuator/health/readiness); "1a decisão" = primeiro
+# POST /api/transacoes respondido, contado do início do processo; "latência" =
+# tempo dessa primeira requisição sozinha. RSS lido do /proc logo depois.
+set -euo pipefail
+
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+RODADAS=${1:-3}
+URL=http://localhost:8080
+CORPO='{"usuarioId":"user123","valor":150.0,"tipo":"BOLETO"}'
+
+agora_ms() { date +%s%3N; }
+
+medir() {
+    local nome=$1; shift
+    local inicio pid pronto=0 primeira=0 latencia rss
+    inicio=$(agora_ms)
+    "$@" --spring.jpa.show-sql=false --logging.level.root=WARN > "/tmp/medir-inicio-$nome.log" 2>&1 &
+    pid=$!
+    # o Tomcat aceita conexões antes do readiness: espera o readiness, como o balanceador faria
+    until curl -sf "$URL/actuator/health/readiness" > /dev/null 2>&1; do sleep 0.02; done
+    pronto=$(( $(agora_ms) - inicio ))
+    local t0; t0=$(agora_ms)
+    curl -sf -o /dev/null -X POST -H 'Content-Type: application/json' -d "$CORPO" "$URL/api/transacoes"
+    primeira=$(( $(agora_ms) - inicio ))
+    latencia=$(( $(agora_ms) - t0 ))
+    rss=$(awk '/VmRSS/ {print int($2 / 1024)}' "/proc/$pid/status")
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    printf "%-10s pronto %6d ms   1a decisão %6d ms   latência %5d ms   RSS %5d MB\n" \
+        "$nome" "$pronto" "$primeira" "$latencia" "$rss"
+}
+
+JAR=$(ls "$RAIZ"/target/antifraude-seguro-*.jar | head -1)
+for _ in $(seq "$RODADAS"); do
+    medir padrao java -jar "$JAR"
+    medir rapido "$RAIZ/scripts/inicio-rapido.sh" executar
+done
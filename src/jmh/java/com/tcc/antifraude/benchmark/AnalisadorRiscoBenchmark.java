@@ -0,0 +1,90 @@
+package com.tcc.antifraude.benchmark;
+
+import com.tcc.antifraude_seguro.dto.ExplicacaoTransacao;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.ComportamentoUsuarioService;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+// Caminho quente das regras: calcularScore (via aplicarRegras), a decisão
+// completa com o fallback da zona cinzenta e a explicação.
+// calcularScoreInstrumentado - calcularScore = custo das métricas por transação.
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnalisadorRiscoBenchmark {
+
+    private static final int TAMANHO_MIX = 4096;
+
+    private AnalisadorRiscoService soRegras;
+    private AnalisadorRiscoService comComportamento;
+    private AnalisadorRiscoService instrumentado;
+    private Transacao[] mix;
+    private Transacao[] analisadas;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        soRegras = new AnalisadorRiscoService();
+
+        comComportamento = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(comComportamento, "comportamento",
+                new ComportamentoUsuarioService(null, new TransactionTemplate(), 100_000));
+
+        // Mesmas regras, com as métricas gravando num registro Prometheus de verdade
+        instrumentado = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(instrumentado, "metricas",
+                new MetricasDecisao(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+
+        mix = MixTransacoes.gerar(TAMANHO_MIX, 42);
+        analisadas = MixTransacoes.gerar(TAMANHO_MIX, 42);
+        for (Transacao t : analisadas) {
+            soRegras.analisar(t);
+        }
+    }
+
+    private Transacao proxima(Transacao[] origem) {
+        Transacao t = origem[i];
+        i = (i + 1) & (TAMANHO_MIX - 1);
+        return t;
+    }
+
+    @Benchmark
+    public boolean calcularScore() {
+        return soRegras.aplicarRegras(proxima(mix));
+    }
+
+    @Benchmark
+    public boolean calcularScoreInstrumentado() {
+        return instrumentado.aplicarRegras(proxima(mix));
+    }
+
+    @Benchmark
+    public void analisar(Blackhole bh) {
+        Transacao t = proxima(mix);
+        soRegras.analisar(t);
+        bh.consume(t.getStatus());
+    }
+
+    @Benchmark
+    public void analisarComComportamento(Blackhole bh) {
+        Transacao t = proxima(mix);
+        comComportamento.analisar(t);
+        bh.consume(t.getStatus());
+    }
+
+    @Benchmark
+    public ExplicacaoTransacao explicar() {
+        return soRegras.explicar(proxima(analisadas));
+    }
+}
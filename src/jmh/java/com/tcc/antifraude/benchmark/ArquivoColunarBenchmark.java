@@ -0,0 +1,96 @@
+package com.tcc.antifraude.benchmark;
+
+import com.tcc.antifraude_seguro.config.ArquivoColunarProperties;
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.dto.GrupoArquivo;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.ArquivoColunar;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Agregação por status sobre o arquivo colunar (colunas mapeadas) contra a
+// mesma conta sobre entidades Transacao no heap, que é o custo mínimo de
+// qualquer caminho que passe pelo JPA (sem contar a leitura do banco)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArquivoColunarBenchmark {
+
+    private static final String[] STATUS = {"APROVADA", "REVISAO", "BLOQUEADA"};
+    private static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+
+    @Param("2000000")
+    public int linhas;
+
+    private Path diretorio;
+    private ArquivoColunar arquivo;
+    private List<Transacao> entidades;
+    private final FiltroTransacoes semFiltro = new FiltroTransacoes(null, null, null, null, null);
+    private final FiltroTransacoes umUsuario = new FiltroTransacoes("user123", null, null, null, null);
+
+    @Setup
+    public void setUp() throws IOException {
+        diretorio = Files.createTempDirectory("arquivo-bench");
+        arquivo = new ArquivoColunar(new ArquivoColunarProperties(diretorio, 1 << 20, Duration.ofMinutes(1)),
+                null, null);
+        arquivo.abrir();
+
+        Random random = new Random(7);
+        entidades = new ArrayList<>(linhas);
+        LocalDateTime dataHora = LocalDateTime.of(2026, 1, 1, 0, 0);
+        for (int i = 0; i < linhas; i++) {
+            dataHora = dataHora.plusNanos(random.nextInt(2_000) * 1_000_000L);
+            Transacao t = new Transacao();
+            t.setId(i + 1L);
+            t.setUsuarioId("user" + random.nextInt(50_000));
+            t.setValor((100 + random.nextInt(500_000)) / 100.0);
+            t.setTipo(TIPOS[random.nextInt(TIPOS.length)]);
+            t.setStatus(STATUS[random.nextInt(STATUS.length)]);
+            t.setScoreRisco((double) random.nextInt(101));
+            t.setDataHora(dataHora);
+            entidades.add(t);
+        }
+        arquivo.arquivar(entidades);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(diretorio);
+    }
+
+    @Benchmark
+    public List<GrupoArquivo> agregarArquivoPorStatus() {
+        return arquivo.agregar(semFiltro, ArquivoColunar.Agrupamento.STATUS, 10);
+    }
+
+    @Benchmark
+    public List<GrupoArquivo> agregarArquivoUmUsuario() {
+        return arquivo.agregar(umUsuario, ArquivoColunar.Agrupamento.NENHUM, 10);
+    }
+
+    @Benchmark
+    public Map<String, double[]> agregarEntidadesPorStatus() {
+        Map<String, double[]> grupos = new HashMap<>();
+        for (Transacao t : entidades) {
+            double[] g = grupos.computeIfAbsent(t.getStatus(), s -> new double[3]);
+            g[0]++;
+            g[1] += t.getValor();
+            g[2] += t.getScoreRisco();
+        }
+        return grupos;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tcc.antifraude.benchmark;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.controller.TransacaoController;
+import com.tcc.antifraude_seguro.model.Transacao;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// Caminho completo do POST /api/transacoes (regras + feature store + H2/JPA +
+// estatísticas) chamando o controller direto, sem a camada HTTP.
+// Com gravação diferida a fila enche se o gravador não acompanhar e o
+// criar() passa a lançar SobrecargaException, o que aparece como erro no JMH.
+// O ML aponta para uma porta fechada: o disjuntor abre e a zona cinzenta usa o fallback.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CriarTransacaoBenchmark {
+
+    private static final int TAMANHO_MIX = 4096;
+
+    // sincrona: save + commit por transação; diferida: fila + INSERTs em lote (write-behind)
+    @Param({"sincrona", "diferida"})
+    public String gravacao;
+
+    private ConfigurableApplicationContext contexto;
+    private TransacaoController controller;
+    private Transacao[] mix;
+
+    @Setup
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "antifraude.ml.url=http://127.0.0.1:9",
+                        "antifraude.gravacao.modo=" + gravacao,
+                        "antifraude.gravacao.diretorio-diario=target/jmh-diario")
+                .run();
+        controller = contexto.getBean(TransacaoController.class);
+        mix = MixTransacoes.gerar(TAMANHO_MIX, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+    }
+
+    @Benchmark
+    public Transacao criar(Cursor cursor) {
+        Transacao t = MixTransacoes.copia(mix[cursor.i]);
+        cursor.i = (cursor.i + 1) & (TAMANHO_MIX - 1);
+        return controller.criar(t, null).join();
+    }
+}
@@ -0,0 +1,110 @@
+package com.tcc.antifraude.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tcc.antifraude_seguro.cliente.ClienteAntifraude;
+import com.tcc.antifraude_seguro.cliente.ClienteAntifraude.Pedido;
+import com.tcc.antifraude_seguro.dto.RespostaLote;
+import com.tcc.antifraude_seguro.dto.ResultadoLote;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.CodecLoteBinario;
+import com.tcc.antifraude_seguro.service.ValidadorTransacao;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Lote de 1000 transações pelo caminho JSON (Jackson + Bean Validation, como
+// o POST /api/transacoes/lote) e pelo binário (CodecLoteBinario +
+// ValidadorTransacao, como o POST /api/transacoes/binario). Só a
+// (de)serialização e a validação: regras, ML e banco são iguais nos dois.
+// Com -prof gc o gc.alloc.rate.norm mostra os bytes alocados por lote.
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IngestaoBinariaBenchmark {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    private ValidatorFactory fabrica;
+    private Validator validator;
+    private ObjectReader leitor;
+    private ObjectWriter escritor;
+
+    private byte[] pedidoJson;
+    private byte[] pedidoBinario;
+    private RespostaLote resposta;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        leitor = mapper.readerForListOf(Transacao.class);
+        escritor = mapper.writerFor(RespostaLote.class);
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+
+        Transacao[] mix = MixTransacoes.gerar(TAMANHO_LOTE, 11);
+        List<Map<String, Object>> json = new ArrayList<>();
+        List<Pedido> pedidos = new ArrayList<>();
+        List<ResultadoLote> resultados = new ArrayList<>();
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        for (int i = 0; i < mix.length; i++) {
+            Transacao t = mix[i];
+            json.add(Map.of("usuarioId", t.getUsuarioId(), "valor", t.getValor(), "tipo", t.getTipo()));
+            pedidos.add(new Pedido(t.getUsuarioId(), t.getValor(), t.getTipo()));
+            analisador.analisar(t);
+            resultados.add(ResultadoLote.aceita(i, 1_000_000L + i, t.getStatus(), t.getScoreRisco()));
+        }
+        pedidoJson = mapper.writeValueAsBytes(json);
+        pedidoBinario = ClienteAntifraude.codificar(pedidos, TAMANHO_LOTE);
+        resposta = new RespostaLote(TAMANHO_LOTE, TAMANHO_LOTE, 0, 12, resultados);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fabrica.close();
+    }
+
+    @Benchmark
+    public int jsonLerEValidar() throws IOException {
+        List<Transacao> transacoes = leitor.readValue(pedidoJson);
+        int erros = 0;
+        for (Transacao t : transacoes) {
+            erros += validator.validate(t).size();
+        }
+        return erros;
+    }
+
+    @Benchmark
+    public int binarioLerEValidar() {
+        // o servidor lê o quadro para um ByteBuffer sem o int do tamanho
+        List<Transacao> transacoes = CodecLoteBinario.lerPedidos(ByteBuffer.wrap(pedidoBinario, 4, pedidoBinario.length - 4));
+        int erros = 0;
+        for (Transacao t : transacoes) {
+            erros += ValidadorTransacao.validar(t).size();
+        }
+        return erros;
+    }
+
+    @Benchmark
+    public byte[] jsonEscreverResposta() throws IOException {
+        return escritor.writeValueAsBytes(resposta);
+    }
+
+    @Benchmark
+    public ByteBuffer binarioEscreverResposta() {
+        return CodecLoteBinario.escreverDecisoes(resposta.resultados());
+    }
+}
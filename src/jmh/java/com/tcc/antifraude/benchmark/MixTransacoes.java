@@ -0,0 +1,65 @@
+package com.tcc.antifraude.benchmark;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+// Mistura de transações parecida com a produção: maioria de valores baixos,
+// PIX e cartão predominantes, horário concentrado no comercial e uma cauda
+// de madrugada/fim de semana para exercitar todas as faixas das regras
+final class MixTransacoes {
+
+    private static final String[] TIPOS = {"PIX", "CARTAO", "BOLETO", "TED", "DOC"};
+    private static final int[] PESO_TIPO = {40, 25, 15, 12, 8};
+
+    private MixTransacoes() {
+    }
+
+    static Transacao[] gerar(int quantidade, long semente) {
+        SplittableRandom r = new SplittableRandom(semente);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 12, 0, 0); // segunda-feira
+        Transacao[] mix = new Transacao[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            Transacao t = new Transacao();
+            t.setUsuarioId("usuario" + r.nextInt(10_000));
+            t.setValor(valor(r));
+            t.setTipo(tipo(r));
+            t.setDataHora(base.plusDays(r.nextInt(7)).plusHours(hora(r)).plusMinutes(r.nextInt(60)));
+            mix[i] = t;
+        }
+        return mix;
+    }
+
+    static Transacao copia(Transacao original) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(original.getUsuarioId());
+        t.setValor(original.getValor());
+        t.setTipo(original.getTipo());
+        t.setDataHora(original.getDataHora());
+        return t;
+    }
+
+    private static double valor(SplittableRandom r) {
+        int faixa = r.nextInt(100);
+        if (faixa < 70) return 10 + r.nextDouble() * 490;      // < R$ 500
+        if (faixa < 90) return 500 + r.nextDouble() * 4500;    // R$ 500 - 5.000
+        return 5000 + r.nextDouble() * 20000;                 // > R$ 5.000
+    }
+
+    private static String tipo(SplittableRandom r) {
+        int x = r.nextInt(100);
+        for (int i = 0; i < TIPOS.length; i++) {
+            x -= PESO_TIPO[i];
+            if (x < 0) return TIPOS[i];
+        }
+        return TIPOS[0];
+    }
+
+    private static int hora(SplittableRandom r) {
+        int x = r.nextInt(100);
+        if (x < 75) return 9 + r.nextInt(11);   // 09h-19h
+        if (x < 90) return 20 + r.nextInt(4);   // noite
+        return r.nextInt(9);                    // madrugada / manhã cedo
+    }
+}
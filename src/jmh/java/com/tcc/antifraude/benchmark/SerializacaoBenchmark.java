@@ -0,0 +1,49 @@
+package com.tcc.antifraude.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// (De)serialização JSON da Transacao com um ObjectMapper configurado como o do Spring Boot
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializacaoBenchmark {
+
+    private ObjectReader leitor;
+    private ObjectWriter escritor;
+    private byte[] requisicao;
+    private Transacao resposta;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        leitor = mapper.readerFor(Transacao.class);
+        escritor = mapper.writerFor(Transacao.class);
+
+        requisicao = "{\"usuarioId\": \"maria_silva\", \"valor\": 1500.00, \"tipo\": \"PIX\"}".getBytes();
+
+        resposta = MixTransacoes.gerar(1, 7)[0];
+        resposta.setId(123456L);
+        new AnalisadorRiscoService().analisar(resposta);
+    }
+
+    @Benchmark
+    public Transacao lerRequisicao() throws IOException {
+        return leitor.readValue(requisicao);
+    }
+
+    @Benchmark
+    public byte[] escreverResposta() throws IOException {
+        return escritor.writeValueAsBytes(resposta);
+    }
+}
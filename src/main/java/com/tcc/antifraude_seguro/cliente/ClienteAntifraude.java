@@ -0,0 +1,173 @@
+package com.tcc.antifraude_seguro.cliente;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.*;
+
+// Cliente do POST /api/transacoes/binario para quem manda volume alto. Só
+// depende do JDK: este pacote pode ir para o projeto do cliente como está.
+//
+//   try (ClienteAntifraude cliente = new ClienteAntifraude(URI.create("http://localhost:8080"))) {
+//       List<Decisao> decisoes = cliente.enviar(pedidos);
+//   }
+public final class ClienteAntifraude implements AutoCloseable {
+
+    public record Pedido(String usuarioId, double valor, String tipo, String beneficiarioId,
+                         String chaveIdempotencia) {
+
+        public Pedido(String usuarioId, double valor, String tipo) {
+            this(usuarioId, valor, tipo, null, null);
+        }
+    }
+
+    // Rejeitada pela validação (ou por falha ao gravar): status null e erro preenchido
+    public record Decisao(long id, String status, double scoreRisco, String erro) {
+
+        public boolean aceita() {
+            return status != null;
+        }
+    }
+
+    private final HttpClient http;
+    private final URI destino;
+    private final int porQuadro;
+    private final Duration tempoLimite;
+
+    public ClienteAntifraude(URI base) {
+        this(base, 1000, Duration.ofSeconds(30));
+    }
+
+    // porQuadro: transações por quadro; o servidor processa e responde quadro a quadro
+    public ClienteAntifraude(URI base, int porQuadro, Duration tempoLimite) {
+        if (porQuadro < 1 || porQuadro > MAXIMO_POR_QUADRO) {
+            throw new IllegalArgumentException("porQuadro deve estar entre 1 e " + MAXIMO_POR_QUADRO);
+        }
+        this.http = HttpClient.newBuilder().connectTimeout(tempoLimite).build();
+        this.destino = base.resolve("/api/transacoes/binario");
+        this.porQuadro = porQuadro;
+        this.tempoLimite = tempoLimite;
+    }
+
+    // Uma requisição só; as decisões voltam na ordem dos pedidos
+    public List<Decisao> enviar(List<Pedido> pedidos) throws IOException, InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(destino)
+                .timeout(tempoLimite)
+                .header("Content-Type", MEDIA)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(codificar(pedidos, porQuadro)))
+                .build();
+        HttpResponse<byte[]> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+        if (resposta.statusCode() != 200) {
+            throw new IOException("HTTP " + resposta.statusCode() + ": "
+                    + new String(resposta.body(), StandardCharsets.UTF_8));
+        }
+        return decodificar(ByteBuffer.wrap(resposta.body()));
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+
+    // Corpo da requisição: os pedidos em quadros de até porQuadro
+    public static byte[] codificar(List<Pedido> pedidos, int porQuadro) {
+        int quadros = (pedidos.size() + porQuadro - 1) / porQuadro;
+        byte[][] textos = new byte[pedidos.size() * 3][];
+        int total = 0;
+        for (int q = 0; q < quadros; q++) {
+            long bytes = CABECALHO_QUADRO;
+            for (int i = q * porQuadro; i < Math.min(pedidos.size(), (q + 1) * porQuadro); i++) {
+                Pedido p = pedidos.get(i);
+                textos[3 * i] = texto(p.usuarioId(), "usuarioId", i);
+                textos[3 * i + 1] = texto(p.beneficiarioId(), "beneficiarioId", i);
+                textos[3 * i + 2] = texto(p.chaveIdempotencia(), "chaveIdempotencia", i);
+                bytes += CABECALHO_PEDIDO + textos[3 * i].length + textos[3 * i + 1].length + textos[3 * i + 2].length;
+            }
+            if (bytes > TAMANHO_MAXIMO_QUADRO) {
+                throw new IllegalArgumentException("Quadro " + q + " passa de " + TAMANHO_MAXIMO_QUADRO
+                        + " bytes; use menos transações por quadro");
+            }
+            total += 4 + (int) bytes;
+        }
+
+        ByteBuffer corpo = ByteBuffer.allocate(total);
+        for (int q = 0; q < quadros; q++) {
+            int inicio = q * porQuadro;
+            int fim = Math.min(pedidos.size(), inicio + porQuadro);
+            int posicaoTamanho = corpo.position();
+            corpo.putInt(0).put(VERSAO).putInt(fim - inicio);
+            for (int i = inicio; i < fim; i++) {
+                Pedido p = pedidos.get(i);
+                int tipo = codigoTipo(p.tipo());
+                if (tipo < 0) {
+                    throw new IllegalArgumentException("Pedido " + i + ": tipo fora do dicionário: " + p.tipo());
+                }
+                byte[] usuario = textos[3 * i];
+                byte[] beneficiario = textos[3 * i + 1];
+                byte[] chave = textos[3 * i + 2];
+                corpo.putDouble(p.valor()).put((byte) tipo)
+                        .put((byte) usuario.length).put((byte) beneficiario.length).put((byte) chave.length)
+                        .put(usuario).put(beneficiario).put(chave);
+            }
+            corpo.putInt(posicaoTamanho, corpo.position() - posicaoTamanho - 4);
+        }
+        return corpo.array();
+    }
+
+    // Corpo da resposta: decisões de todos os quadros, em ordem
+    public static List<Decisao> decodificar(ByteBuffer resposta) throws IOException {
+        List<Decisao> decisoes = new ArrayList<>();
+        for (int q = 0; resposta.hasRemaining(); q++) {
+            int tamanho = resposta.getInt();
+            int fim = resposta.position() + tamanho;
+            byte versao = resposta.get();
+            if (versao != VERSAO) {
+                throw new IOException("Versão de resposta não suportada: " + versao);
+            }
+            int quantidade = resposta.getInt();
+            if (quantidade == QUADRO_INVALIDO) {
+                throw new IOException("Quadro " + q + " recusado pelo servidor (" + decisoes.size()
+                        + " decisões antes dele): " + lerTexto(resposta));
+            }
+            for (int i = 0; i < quantidade; i++) {
+                byte status = resposta.get();
+                if (status == REJEITADA) {
+                    decisoes.add(new Decisao(0, null, 0, lerTexto(resposta)));
+                } else {
+                    decisoes.add(new Decisao(resposta.getLong(), STATUS.get(status), resposta.getShort() / 100.0, null));
+                }
+            }
+            if (resposta.position() != fim) {
+                throw new IOException("Quadro de resposta " + q + " com tamanho inconsistente");
+            }
+        }
+        return decisoes;
+    }
+
+    private static byte[] texto(String valor, String campo, int indice) {
+        if (valor == null) {
+            return new byte[0];
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > TAMANHO_MAXIMO_TEXTO) {
+            throw new IllegalArgumentException("Pedido " + indice + ": " + campo + " passa de "
+                    + TAMANHO_MAXIMO_TEXTO + " bytes em UTF-8");
+        }
+        return bytes;
+    }
+
+    private static String lerTexto(ByteBuffer b) {
+        int bytes = b.getShort() & 0xFFFF;
+        String texto = new String(b.array(), b.arrayOffset() + b.position(), bytes, StandardCharsets.UTF_8);
+        b.position(b.position() + bytes);
+        return texto;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tcc.antifraude_seguro.cliente;
+
+import java.util.List;
+
+// Formato binário do POST /api/transacoes/binario (Content-Type MEDIA). O
+// corpo é uma sequência de quadros; a resposta traz um quadro por quadro
+// recebido, na mesma ordem. Tudo big-endian; textos em UTF-8.
+//
+// Quadro:    [int tamanho (bytes depois deste int)][byte VERSAO][int quantidade][registros]
+//
+// Pedido (12 bytes fixos + textos):
+//   [double valor][byte tipo (índice em TIPOS)][byte bytes usuarioId]
+//   [byte bytes beneficiarioId, 0 = sem][byte bytes chave de idempotência, 0 = sem]
+//   [usuarioId][beneficiarioId][chave]
+//
+// Decisão:
+//   aceita:    [byte status (índice em STATUS)][long id][short score em centésimos]
+//   rejeitada: [byte REJEITADA][short bytes][erros separados por "; "]
+//
+// Quadro de resposta com quantidade QUADRO_INVALIDO ([short bytes][mensagem]
+// em vez dos registros) encerra a resposta: aquele quadro do pedido estava
+// malformado e nada dele nem dos seguintes foi processado.
+public final class FormatoBinario {
+
+    public static final String MEDIA = "application/x-antifraude-binario";
+    public static final byte VERSAO = 1;
+
+    // Dicionários: a posição é o código no fio. Só se acrescenta no fim.
+    public static final List<String> TIPOS = List.of("PIX", "TED", "DOC", "BOLETO", "CARTAO");
+    public static final List<String> STATUS = List.of("APROVADA", "REVISAO", "BLOQUEADA");
+    public static final byte REJEITADA = (byte) 0xFF;
+
+    public static final int CABECALHO_QUADRO = 1 + 4;
+    public static final int CABECALHO_PEDIDO = 8 + 1 + 1 + 1 + 1;
+    public static final int TAMANHO_DECISAO = 1 + 8 + 2;
+    public static final int QUADRO_INVALIDO = -1;
+
+    // Limites por quadro; textos maiores que 255 bytes não cabem no formato
+    public static final int MAXIMO_POR_QUADRO = 10_000;
+    public static final int TAMANHO_MAXIMO_QUADRO = 4 * 1024 * 1024;
+    public static final int TAMANHO_MAXIMO_TEXTO = 255;
+
+    private FormatoBinario() {
+    }
+
+    // -1 se o tipo não estiver no dicionário
+    public static int codigoTipo(String tipo) {
+        return TIPOS.indexOf(tipo);
+    }
+
+    public static int codigoStatus(String status) {
+        return STATUS.indexOf(status);
+    }
+}
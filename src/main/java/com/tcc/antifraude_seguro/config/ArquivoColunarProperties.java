@@ -0,0 +1,19 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Arquivo colunar para consultas históricas (prefixo antifraude.arquivo)
+@ConfigurationProperties(prefix = "antifraude.arquivo")
+public record ArquivoColunarProperties(
+        @DefaultValue("data/arquivo") Path diretorio,
+        // Linhas por segmento; cada coluna de um segmento é um arquivo mapeado
+        @DefaultValue("1048576") int linhasPorSegmento,
+        // Só arquiva o que tem dataHora anterior a agora - margem, para não
+        // passar na frente de transações que ainda estão sendo gravadas
+        @DefaultValue("1m") Duration margem
+) {
+}
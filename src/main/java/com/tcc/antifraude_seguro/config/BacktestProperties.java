@@ -0,0 +1,17 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Backtest de regras sobre o histórico (prefixo antifraude.backtest)
+@ConfigurationProperties(prefix = "antifraude.backtest")
+public record BacktestProperties(
+        // Threads do pool fork/join; 0 = uma por núcleo
+        @DefaultValue("0") int paralelismo,
+        // Limites por execução (memória: ~40 bytes por linha carregada)
+        @DefaultValue("10000") int maximoConfiguracoes,
+        @DefaultValue("10000000") int maximoLinhas,
+        // Linhas por tarefa fork/join, no mínimo
+        @DefaultValue("8192") int tamanhoBloco
+) {
+}
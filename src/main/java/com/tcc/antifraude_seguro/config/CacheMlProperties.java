@@ -0,0 +1,18 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Cache das previsões do ML na zona cinzenta (prefixo antifraude.ml.cache)
+@ConfigurationProperties(prefix = "antifraude.ml.cache")
+public record CacheMlProperties(
+        @DefaultValue("true") boolean habilitado,
+        // Valores na mesma faixa de "passo" reais recebem a mesma previsão
+        @DefaultValue("1.0") double passo,
+        @DefaultValue("50000") long maximoEntradas,
+        // Tempo de vida de uma previsão, mesmo sem troca de modelo
+        @DefaultValue("10m") Duration validade
+) {
+}
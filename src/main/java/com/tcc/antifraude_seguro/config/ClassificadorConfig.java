@@ -0,0 +1,27 @@
+package com.tcc.antifraude_seguro.config;
+
+import com.tcc.antifraude_seguro.service.CacheClassificador;
+import com.tcc.antifraude_seguro.service.ClassificadorFraude;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// Coloca o cache de previsões na frente do classificador escolhido em
+// antifraude.ml.modo. Quem injeta ClassificadorFraude recebe o cache;
+// o classificador original continua sendo um bean (só deixa de ser o primário).
+@Configuration
+public class ClassificadorConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnBean(ClassificadorFraude.class)
+    @ConditionalOnProperty(name = "antifraude.ml.cache.habilitado", havingValue = "true", matchIfMissing = true)
+    public CacheClassificador cacheClassificador(ClassificadorFraude modelo,
+                                                 CacheMlProperties props,
+                                                 MetricasDecisao metricas) {
+        return new CacheClassificador(modelo, props, metricas);
+    }
+}
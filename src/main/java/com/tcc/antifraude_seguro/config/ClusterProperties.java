@@ -0,0 +1,35 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Modo cluster: usuários divididos entre nós por hash consistente (prefixo antifraude.cluster)
+@ConfigurationProperties(prefix = "antifraude.cluster")
+public record ClusterProperties(
+        @DefaultValue("false") boolean habilitado,
+        // Id deste nó no anel; o mesmo id em membros diz onde ele escuta
+        @DefaultValue("no1") String no,
+        // Membros iniciais como "id=host:porta" (porta do protocolo interno).
+        // Vazio = só este nó; depois se muda por PUT /api/admin/cluster/membros
+        List<String> membros,
+        // Porta do protocolo interno; 0 = uma livre (testes com vários nós na mesma máquina)
+        @DefaultValue("9090") int porta,
+        // Pontos de cada nó no anel: mais pontos, divisão mais uniforme
+        @DefaultValue("128") int nosVirtuais,
+        // Conexões abertas para cada outro nó (uma requisição por vez em cada)
+        @DefaultValue("8") int conexoesPorNo,
+        // Para conectar, esperar conexão livre e esperar a resposta do dono
+        @DefaultValue("2s") Duration tempoLimite,
+        // Eventos por mensagem ao passar o comportamento dos usuários para o novo dono
+        @DefaultValue("500") int loteRebalanceamento
+) {
+    public ClusterProperties {
+        membros = membros == null ? List.of() : List.copyOf(membros);
+        if (no.isBlank() || nosVirtuais < 1 || conexoesPorNo < 1 || loteRebalanceamento < 1) {
+            throw new IllegalArgumentException("antifraude.cluster: no obrigatório, nos-virtuais, conexoes-por-no e lote >= 1");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Grafo de transferências entre usuários (prefixo antifraude.grafo)
+@ConfigurationProperties(prefix = "antifraude.grafo")
+public record GrafoProperties(
+        // Ligações mais velhas que isso saem do grafo
+        @DefaultValue("24h") Duration janela,
+        // Contas no índice; cheio, contas novas ficam de fora até a próxima
+        // compactação liberar espaço
+        @DefaultValue("500000") int maximoContas,
+        // Ligações guardadas por conta e sentido; acima disso sai a mais antiga
+        @DefaultValue("1000") int maximoVizinhos,
+        // Teto de ligações lidas por consulta de remetentes compartilhados
+        @DefaultValue("2000") int limiteVarredura,
+        // Compactação + componentes conexos; 0 desliga a tarefa periódica
+        @DefaultValue("1m") Duration intervaloAneis,
+        // Threads do pool fork/join dos componentes; 0 = uma por núcleo
+        @DefaultValue("0") int paralelismo,
+        // Componente marcado: entre minimoAnel e maximoAnel contas e com ciclo
+        // (ligações >= contas: o dinheiro volta para alguém do grupo)
+        @DefaultValue("3") int minimoAnel,
+        @DefaultValue("50") int maximoAnel
+) {
+    public GrafoProperties {
+        if (janela.toMinutes() < 1 || maximoContas < 1 || maximoVizinhos < 1 || minimoAnel < 2
+                || maximoAnel < minimoAnel) {
+            throw new IllegalArgumentException("antifraude.grafo: janela >= 1m, maximos >= 1, 2 <= minimoAnel <= maximoAnel");
+        }
+    }
+}
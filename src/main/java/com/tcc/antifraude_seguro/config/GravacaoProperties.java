@@ -0,0 +1,25 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Gravação das transações do POST /api/transacoes (prefixo antifraude.gravacao)
+@ConfigurationProperties(prefix = "antifraude.gravacao")
+public record GravacaoProperties(
+        // sincrona: save na requisição; diferida: fila + gravador em lote (write-behind)
+        @DefaultValue("sincrona") String modo,
+        // Transações aceitas e ainda não gravadas no banco; passou disso, 503
+        @DefaultValue("10000") int capacidadeFila,
+        // Máximo de INSERTs por commit
+        @DefaultValue("500") int loteMaximo,
+        // Diário local (append-only) que cobre o que está na fila em caso de queda
+        @DefaultValue("data/diario") Path diretorioDiario,
+        @DefaultValue("64MB") DataSize tamanhoSegmento,
+        // No desligamento, quanto esperar a fila esvaziar; o resto fica no diário
+        @DefaultValue("30s") Duration esperaEncerramento
+) {
+}
@@ -0,0 +1,21 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Índice de chaves de idempotência do POST /api/transacoes (prefixo antifraude.idempotencia)
+@ConfigurationProperties(prefix = "antifraude.idempotencia")
+public record IdempotenciaProperties(
+        // Por quanto tempo um reenvio é reconhecido sem depender da restrição do banco
+        @DefaultValue("24h") Duration janela,
+        // O filtro de Bloom é dividido em partições de janela/particoes; a mais velha é zerada ao girar
+        @DefaultValue("4") int particoes,
+        @DefaultValue("250000") int chavesPorParticao,
+        @DefaultValue("0.01") double taxaFalsoPositivo,
+        // Mapa exato das chaves recentes, com a decisão (ou a análise em andamento)
+        @DefaultValue("50000") long recentesMaximo,
+        @DefaultValue("10m") Duration recentesValidade
+) {
+}
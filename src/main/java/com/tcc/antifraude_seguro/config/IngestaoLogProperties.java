@@ -0,0 +1,26 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Ingestão por log local particionado (prefixo antifraude.ingestao)
+@ConfigurationProperties(prefix = "antifraude.ingestao")
+public record IngestaoLogProperties(
+        @DefaultValue("false") boolean habilitada,
+        // entrada/<p>, saida/<p> e o arquivo "log.meta" com o número de partições
+        @DefaultValue("data/ingestao") Path diretorio,
+        // 0 = um por núcleo; fixado na criação do log (mudar depois não reparticiona)
+        @DefaultValue("0") int particoes,
+        // Eventos lidos, analisados e gravados por vez em cada partição
+        @DefaultValue("500") int loteMaximo,
+        @DefaultValue("64MB") DataSize tamanhoSegmento,
+        // Log de saída, por partição: segmentos inteiros além disso são apagados
+        @DefaultValue("1GB") DataSize retencaoSaida,
+        // Partição sem eventos novos: espera no máximo isso antes de olhar de novo
+        @DefaultValue("100ms") Duration esperaVazia
+) {
+}
@@ -0,0 +1,26 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Configuração do cliente do serviço ML (prefixo antifraude.ml)
+@ConfigurationProperties(prefix = "antifraude.ml")
+public record MlProperties(
+        @DefaultValue("http://localhost:5001") String url,
+        // Tempo máximo para abrir a conexão TCP
+        @DefaultValue("200ms") Duration timeoutConexao,
+        // Orçamento de latência de uma consulta; estourou, vale o fallback
+        @DefaultValue("100ms") Duration orcamento,
+        // Orçamento de uma consulta agrupada (/predict_batch)
+        @DefaultValue("2s") Duration orcamentoLote,
+        // Bulkhead: consultas simultâneas permitidas
+        @DefaultValue("32") int maxConcorrentes,
+        // Disjuntor: falhas seguidas até abrir e tempo aberto antes de testar de novo
+        @DefaultValue("5") int falhasParaAbrir,
+        @DefaultValue("5s") Duration esperaAberto,
+        // Threads que tratam as respostas do cliente HTTP
+        @DefaultValue("4") int threads
+) {
+}
@@ -0,0 +1,25 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Séries temporais das decisões em memória (prefixo antifraude.series)
+@ConfigurationProperties(prefix = "antifraude.series")
+public record SeriesProperties(
+        // Períodos guardados por camada (mínimo 120 em segundos e minutos):
+        // 10 min segundo a segundo, 24 h minuto a minuto, 30 dias hora a hora.
+        // Cada período ocupa ~1,5 KB (15 combinações status x tipo)
+        @DefaultValue("600") int segundos,
+        @DefaultValue("1440") int minutos,
+        @DefaultValue("720") int horas,
+        // Conexões SSE simultâneas em /api/transacoes/estatisticas/stream
+        @DefaultValue("100") int maximoAssinantes,
+        // Deltas (segundos) esperando envio por assinante; cheia, o cliente é desligado
+        @DefaultValue("30") int filaAssinante
+) {
+    public SeriesProperties {
+        if (segundos < 120 || minutos < 120 || horas < 1 || filaAssinante < 1) {
+            throw new IllegalArgumentException("antifraude.series: segundos e minutos >= 120, horas e fila-assinante >= 1");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.tcc.antifraude_seguro.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+// Modo sombra: regras desafiantes avaliadas sobre o tráfego real sem
+// decidir nada (prefixo antifraude.sombra)
+@ConfigurationProperties(prefix = "antifraude.sombra")
+public record SombraProperties(
+        @DefaultValue("false") boolean habilitado,
+        // Desafiantes carregados na partida: nome -> local do JSON no formato
+        // do regras.json (classpath:, file:). Depois, PUT /api/admin/sombra/desafiantes/{nome}
+        Map<String, String> desafiantes,
+        @DefaultValue("1") int threads,
+        // Decisões esperando avaliação; fila cheia = a amostra é descartada
+        @DefaultValue("10000") int capacidadeFila,
+        // Log das divergências (campeão x desafiante)
+        @DefaultValue("data/sombra") Path diretorio,
+        @DefaultValue("16MB") DataSize tamanhoSegmento,
+        // Passou disso, os segmentos mais antigos são apagados
+        @DefaultValue("256MB") DataSize retencao
+) {
+    public SombraProperties {
+        desafiantes = desafiantes == null ? Map.of() : Map.copyOf(desafiantes);
+        if (threads < 1 || capacidadeFila < 1) {
+            throw new IllegalArgumentException("antifraude.sombra: threads e capacidade-fila >= 1");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tcc.antifraude_seguro.config;
+
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// O @Valid do POST /api/transacoes roda no Spring MVC, antes do controller.
+// Aqui o validador do MVC é o mesmo Bean Validation de sempre, só cronometrado
+// (etapa "validacao").
+@Configuration
+public class ValidacaoMedidaConfig implements WebMvcConfigurer {
+
+    private final jakarta.validation.Validator validator;
+    private final MetricasDecisao metricas;
+
+    public ValidacaoMedidaConfig(jakarta.validation.Validator validator, MetricasDecisao metricas) {
+        this.validator = validator;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public org.springframework.validation.Validator getValidator() {
+        return new ValidadorMedido(new SpringValidatorAdapter(validator), metricas);
+    }
+
+    private record ValidadorMedido(SmartValidator alvo, MetricasDecisao metricas) implements SmartValidator {
+
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return alvo.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            long inicio = System.nanoTime();
+            alvo.validate(target, errors);
+            metricas.validacao(System.nanoTime() - inicio);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            long inicio = System.nanoTime();
+            alvo.validate(target, errors, validationHints);
+            metricas.validacao(System.nanoTime() - inicio);
+        }
+    }
+}
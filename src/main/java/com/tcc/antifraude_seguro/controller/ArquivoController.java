@@ -0,0 +1,69 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.dto.GrupoArquivo;
+import com.tcc.antifraude_seguro.dto.PaginaArquivo;
+import com.tcc.antifraude_seguro.service.ArquivoColunar;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Arquivo colunar: exportação a partir do banco e consultas sobre o histórico
+@RestController
+@RequestMapping("/api/arquivo")
+public class ArquivoController {
+
+    private static final int LIMITE_BUSCA = 1000;
+    private static final int LIMITE_GRUPOS = 10_000;
+
+    private final ArquivoColunar arquivo;
+
+    public ArquivoController(ArquivoColunar arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    @GetMapping
+    public Map<String, Object> resumo() {
+        return arquivo.resumo();
+    }
+
+    // Incremental: só o que entrou no banco desde a última exportação
+    @PostMapping("/exportar")
+    public Map<String, Object> exportar() {
+        long inicio = System.nanoTime();
+        long linhas = arquivo.exportarDoBanco();
+        return Map.of("linhas", linhas, "duracaoMs", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @GetMapping("/agregar")
+    public List<GrupoArquivo> agregar(@RequestParam(defaultValue = "STATUS") ArquivoColunar.Agrupamento agrupamento,
+                                      @RequestParam(defaultValue = "100") int limite,
+                                      @RequestParam(required = false) String usuarioId,
+                                      @RequestParam(required = false) String status,
+                                      @RequestParam(required = false) String tipo,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        return arquivo.agregar(new FiltroTransacoes(usuarioId, status, tipo, de, ate), agrupamento,
+                Math.max(1, Math.min(limite, LIMITE_GRUPOS)));
+    }
+
+    // Paginação por posição no arquivo: passe o proximoCursor em "apos"
+    @GetMapping("/buscar")
+    public PaginaArquivo buscar(@RequestParam(defaultValue = "0") long apos,
+                                @RequestParam(defaultValue = "50") int limite,
+                                @RequestParam(required = false) String usuarioId,
+                                @RequestParam(required = false) String status,
+                                @RequestParam(required = false) String tipo,
+                                @RequestParam(required = false)
+                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+                                @RequestParam(required = false)
+                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        return arquivo.buscar(new FiltroTransacoes(usuarioId, status, tipo, de, ate), apos,
+                Math.max(1, Math.min(limite, LIMITE_BUSCA)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.RequisicaoBacktest;
+import com.tcc.antifraude_seguro.dto.RespostaBacktest;
+import com.tcc.antifraude_seguro.service.BacktestService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Backtest de configurações de regras sobre o histórico gravado
+@RestController
+@RequestMapping("/api/admin/backtest")
+public class BacktestController {
+
+    private final BacktestService backtest;
+
+    public BacktestController(BacktestService backtest) {
+        this.backtest = backtest;
+    }
+
+    @PostMapping
+    public RespostaBacktest executar(@RequestBody RequisicaoBacktest requisicao) {
+        return backtest.executar(requisicao);
+    }
+
+    // {"fraude": [ids], "legitima": [ids]}: desfechos conhecidos depois da decisão
+    @PostMapping("/rotulos")
+    public Map<String, Object> rotular(@RequestBody Map<String, List<Long>> rotulos) {
+        return Map.of("atualizadas", backtest.rotular(rotulos.get("fraude"), rotulos.get("legitima")));
+    }
+}
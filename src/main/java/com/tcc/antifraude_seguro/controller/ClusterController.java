@@ -0,0 +1,46 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.EstadoCluster;
+import com.tcc.antifraude_seguro.service.ClusterService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// Membros do cluster e dono de cada usuário (modo cluster)
+@RestController
+@RequestMapping("/api/admin/cluster")
+@ConditionalOnProperty(name = "antifraude.cluster.habilitado", havingValue = "true")
+public class ClusterController {
+
+    private final ClusterService cluster;
+
+    public ClusterController(ClusterService cluster) {
+        this.cluster = cluster;
+    }
+
+    @GetMapping
+    public EstadoCluster estado() {
+        return cluster.estado();
+    }
+
+    // Para um balanceador mandar a transação direto ao dono e evitar o salto
+    @GetMapping("/dono")
+    public Map<String, Object> dono(@RequestParam String usuarioId) {
+        return Map.of("usuarioId", usuarioId,
+                "dono", cluster.dono(usuarioId),
+                "local", cluster.local(usuarioId));
+    }
+
+    // Lista completa de membros ("id=host:porta"); este nó propaga para os demais
+    @PutMapping("/membros")
+    public EstadoCluster membros(@RequestBody List<String> membros) {
+        return cluster.atualizarMembros(membros);
+    }
+}
@@ -0,0 +1,34 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.service.DiagnosticoPinagem;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class DiagnosticoController {
+
+    private final ObjectProvider<DiagnosticoPinagem> pinagem;
+
+    public DiagnosticoController(ObjectProvider<DiagnosticoPinagem> pinagem) {
+        this.pinagem = pinagem;
+    }
+
+    // Pinagens de threads virtuais por ponto de origem (só no perfil "virtual")
+    @GetMapping("/pinagem")
+    public Map<String, Object> pinagem() {
+        DiagnosticoPinagem diagnostico = pinagem.getIfAvailable();
+        Map<String, Object> resposta = new HashMap<>();
+        resposta.put("threadsVirtuais", diagnostico != null);
+        if (diagnostico != null) {
+            resposta.put("total", diagnostico.total());
+            resposta.put("porOrigem", diagnostico.porOrigem());
+        }
+        return resposta;
+    }
+}
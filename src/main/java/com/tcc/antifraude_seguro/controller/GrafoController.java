@@ -0,0 +1,35 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.AnaliseAneis;
+import com.tcc.antifraude_seguro.service.GrafoTransferencias;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Agrupamentos suspeitos no grafo de transferências entre usuários
+@RestController
+@RequestMapping("/api/admin/grafo")
+@ConditionalOnProperty(name = "antifraude.grafo.habilitado", havingValue = "true", matchIfMissing = true)
+public class GrafoController {
+
+    private final GrafoTransferencias grafo;
+
+    public GrafoController(GrafoTransferencias grafo) {
+        this.grafo = grafo;
+    }
+
+    // Resultado da última passada periódica (roda uma agora se ainda não houve)
+    @GetMapping("/aneis")
+    public AnaliseAneis aneis() {
+        AnaliseAneis ultima = grafo.ultimaAnalise();
+        return ultima != null ? ultima : grafo.detectarAneis();
+    }
+
+    // Força uma passada fora do intervalo
+    @PostMapping("/aneis/analisar")
+    public AnaliseAneis analisar() {
+        return grafo.detectarAneis();
+    }
+}
@@ -0,0 +1,75 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.IngestaoLogService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Publicação no log de ingestão (antifraude.ingestao.habilitada=true).
+// A resposta só confirma que os eventos estão no log (com fsync); as
+// decisões saem no log de saída e no banco, na ordem de cada usuário.
+@RestController
+@RequestMapping("/api/ingestao")
+@ConditionalOnProperty(name = "antifraude.ingestao.habilitada", havingValue = "true")
+public class IngestaoController {
+
+    private final IngestaoLogService ingestao;
+    private final ObjectReader leitorNdjson;
+
+    public IngestaoController(IngestaoLogService ingestao, ObjectMapper objectMapper) {
+        this.ingestao = ingestao;
+        this.leitorNdjson = objectMapper.readerFor(Transacao.class);
+    }
+
+    @PostMapping(value = "/eventos", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> publicar(@RequestBody List<Transacao> eventos) {
+        return publicar(eventos.iterator());
+    }
+
+    // NDJSON: uma transação por linha, lida conforme chega
+    @PostMapping(value = "/eventos", consumes = "application/x-ndjson")
+    public Map<String, Object> publicarNdjson(InputStream corpo) throws IOException {
+        try (MappingIterator<Transacao> linhas = leitorNdjson.readValues(corpo)) {
+            return publicar(linhas);
+        }
+    }
+
+    // Fim do log e offset já processado, por partição
+    @GetMapping("/estado")
+    public List<IngestaoLogService.EstadoParticao> estado() {
+        return ingestao.estado();
+    }
+
+    private Map<String, Object> publicar(Iterator<Transacao> eventos) {
+        int publicados = 0;
+        List<String> rejeitados = new ArrayList<>();
+        for (int i = 0; eventos.hasNext(); i++) {
+            Transacao t = eventos.next();
+            List<String> erros = ingestao.validar(t);
+            if (!erros.isEmpty()) {
+                rejeitados.add(i + ": " + String.join(", ", erros));
+                continue;
+            }
+            ingestao.publicar(t);
+            publicados++;
+        }
+        ingestao.forcar();
+
+        Map<String, Object> resposta = new HashMap<>();
+        resposta.put("publicados", publicados);
+        resposta.put("rejeitados", rejeitados);
+        return resposta;
+    }
+}
@@ -0,0 +1,38 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.service.ConjuntoRegras;
+import com.tcc.antifraude_seguro.service.MotorRegras;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Administração das regras de score: consulta e troca em execução
+@RestController
+@RequestMapping("/api/admin/regras")
+public class RegrasController {
+
+    private final MotorRegras motor;
+
+    public RegrasController(MotorRegras motor) {
+        this.motor = motor;
+    }
+
+    @GetMapping
+    public Map<String, Object> atual() {
+        ConjuntoRegras regras = motor.atual();
+        return Map.of("versao", regras.versao(), "definicao", regras.definicao());
+    }
+
+    // Publica uma definição nova; se for inválida responde 400 e nada muda
+    @PutMapping
+    public Map<String, Object> publicar(@RequestBody DefinicaoRegras definicao) {
+        return Map.of("versao", motor.publicar(definicao).versao());
+    }
+
+    // Relê antifraude.regras.arquivo
+    @PostMapping("/recarregar")
+    public Map<String, Object> recarregar() {
+        return Map.of("versao", motor.recarregar().versao());
+    }
+}
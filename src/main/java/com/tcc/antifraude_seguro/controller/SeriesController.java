@@ -0,0 +1,78 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.JanelaEstatisticas;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.service.SeriesTemporais;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// Janelas recentes das decisões, em memória (sem consultar o banco)
+@RestController
+@RequestMapping("/api/transacoes/estatisticas")
+public class SeriesController {
+
+    private final SeriesTemporais series;
+
+    public SeriesController(SeriesTemporais series) {
+        this.series = series;
+    }
+
+    // Ex.: ?janela=15m&por=TIPO (janela em s, m, h ou d)
+    @GetMapping("/janela")
+    public JanelaEstatisticas janela(@RequestParam(defaultValue = "5m") String janela,
+                                     @RequestParam(defaultValue = "NENHUM") SeriesTemporais.Agrupamento por) {
+        return series.consultar(duracao(janela), por);
+    }
+
+    // Um evento "delta" por segundo fechado, com os grupos status x tipo que
+    // tiveram decisões; o painel soma os deltas em vez de consultar de novo.
+    // Cliente que não acompanha (fila cheia) tem a conexão encerrada
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<JanelaEstatisticas> assinante = new Consumer<>() {
+            @Override
+            public void accept(JanelaEstatisticas delta) {
+                try {
+                    emitter.send(SseEmitter.event().name("delta").data(delta, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // cliente desconectou
+                    series.cancelar(this);
+                }
+            }
+        };
+        series.assinar(assinante, emitter::complete);
+        emitter.onCompletion(() -> series.cancelar(assinante));
+        emitter.onTimeout(() -> series.cancelar(assinante));
+        emitter.onError(e -> series.cancelar(assinante));
+        return emitter;
+    }
+
+    private static Duration duracao(String texto) {
+        String t = texto.trim().toLowerCase();
+        if (t.length() < 2) {
+            throw new RequisicaoInvalidaException("Janela inválida: " + texto);
+        }
+        long n;
+        try {
+            n = Long.parseLong(t.substring(0, t.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new RequisicaoInvalidaException("Janela inválida: " + texto);
+        }
+        return switch (t.charAt(t.length() - 1)) {
+            case 's' -> Duration.ofSeconds(n);
+            case 'm' -> Duration.ofMinutes(n);
+            case 'h' -> Duration.ofHours(n);
+            case 'd' -> Duration.ofDays(n);
+            default -> throw new RequisicaoInvalidaException("Janela inválida: " + texto);
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.tcc.antifraude_seguro.controller;
+
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.DivergenciaSombra;
+import com.tcc.antifraude_seguro.dto.EstadoSombra;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.service.PontuacaoSombra;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Desafiantes do modo sombra: cadastro, agregados, divergências e promoção
+@RestController
+@RequestMapping("/api/admin/sombra")
+@ConditionalOnProperty(name = "antifraude.sombra.habilitado", havingValue = "true")
+public class SombraController {
+
+    private static final int LIMITE_MAXIMO = 10_000;
+
+    private final PontuacaoSombra sombra;
+
+    public SombraController(PontuacaoSombra sombra) {
+        this.sombra = sombra;
+    }
+
+    @GetMapping
+    public EstadoSombra estado() {
+        return sombra.estado();
+    }
+
+    @GetMapping("/desafiantes/{nome}")
+    public DefinicaoRegras definicao(@PathVariable String nome) {
+        return sombra.definicao(nome);
+    }
+
+    // Mesmo formato do PUT /api/admin/regras; substituir zera os contadores
+    @PutMapping("/desafiantes/{nome}")
+    public EstadoSombra.Desafiante registrar(@PathVariable String nome, @RequestBody DefinicaoRegras definicao) {
+        return sombra.registrar(nome, definicao);
+    }
+
+    @DeleteMapping("/desafiantes/{nome}")
+    public Map<String, Object> remover(@PathVariable String nome) {
+        sombra.remover(nome);
+        return Map.of("removido", nome);
+    }
+
+    // Publica as regras do desafiante no MotorRegras (passam a decidir)
+    @PostMapping("/desafiantes/{nome}/promover")
+    public Map<String, Object> promover(@PathVariable String nome) {
+        return Map.of("versao", sombra.promover(nome).versao());
+    }
+
+    // desde: 0 ou o "proximo" do último registro lido
+    @GetMapping("/divergencias")
+    public List<DivergenciaSombra> divergencias(@RequestParam(defaultValue = "0") long desde,
+                                                @RequestParam(defaultValue = "100") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new RequisicaoInvalidaException("limite deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        return sombra.divergencias(desde, limite);
+    }
+}
@@ -1,15 +1,34 @@
 package com.tcc.antifraude_seguro.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import com.tcc.antifraude_seguro.cliente.FormatoBinario;
+import com.tcc.antifraude_seguro.dto.ExplicacaoTransacao;
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.dto.PaginaTransacoes;
+import com.tcc.antifraude_seguro.dto.RespostaLote;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
 import com.tcc.antifraude_seguro.model.Transacao;
 import com.tcc.antifraude_seguro.repository.TransacaoRepository;
 import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.EstatisticasService;
+import com.tcc.antifraude_seguro.service.ExportacaoService;
+import com.tcc.antifraude_seguro.service.LoteService;
+import com.tcc.antifraude_seguro.service.TransacaoService;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/transacoes")
@@ -17,12 +36,27 @@ public class TransacaoController {
 
     private final TransacaoRepository repository;
     private final AnalisadorRiscoService analisador;  // ← NOVO!
+    private final EstatisticasService estatisticas;
+    private final ExportacaoService exportacao;
+    private final LoteService lote;
+    private final TransacaoService transacaoService;
 
-    // Spring injeta AMBOS automaticamente
+    private static final int LIMITE_MAXIMO = 500;
+    private static final int TAMANHO_MAXIMO_CHAVE = 64;
+
+    // Spring injeta todos automaticamente
     public TransacaoController(TransacaoRepository repository,
-                               AnalisadorRiscoService analisador) {
+                               AnalisadorRiscoService analisador,
+                               EstatisticasService estatisticas,
+                               ExportacaoService exportacao,
+                               LoteService lote,
+                               TransacaoService transacaoService) {
         this.repository = repository;
         this.analisador = analisador;  // ← NOVO!
+        this.estatisticas = estatisticas;
+        this.exportacao = exportacao;
+        this.lote = lote;
+        this.transacaoService = transacaoService;
     }
 
     @GetMapping("/status")
@@ -30,53 +64,95 @@ public class TransacaoController {
         return "Sistema Anti-Fraude Operacional - TCC 2025";
     }
 
+    // Header Idempotency-Key (ou campo chaveIdempotencia): um reenvio com a
+    // mesma chave devolve a transação já decidida, sem analisar de novo
     @PostMapping
-    public Transacao criar(@Valid @RequestBody Transacao transacao) {
-        // Define data/hora atual
-        transacao.setDataHora(LocalDateTime.now());
+    public CompletableFuture<Transacao> criar(@Valid @RequestBody Transacao transacao,
+                                              @RequestHeader(value = "Idempotency-Key", required = false)
+                                              String chave) {
+        if (chave != null) {
+            if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+                throw new RequisicaoInvalidaException(
+                        "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            }
+            transacao.setChaveIdempotencia(chave);
+        }
+        return transacaoService.criar(transacao);
+    }
+
+    // Lote em JSON (array de transações)
+    @PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public RespostaLote criarLote(@RequestBody List<Transacao> transacoes) {
+        return lote.processar(transacoes.iterator());
+    }
 
-        // Analisa fraude
-        analisador.analisar(transacao);
+    // Lote em NDJSON (uma transação por linha), lido conforme chega
+    @PostMapping(value = "/lote", consumes = "application/x-ndjson")
+    public RespostaLote criarLoteNdjson(InputStream corpo) throws IOException {
+        return lote.processarNdjson(corpo);
+    }
 
-        // Salva no banco e retorna
-        return repository.save(transacao);
+    // Lote no formato binário (FormatoBinario / ClienteAntifraude): quadros com
+    // muitas transações, decisões compactas na resposta, um quadro por quadro
+    @PostMapping(value = "/binario", consumes = FormatoBinario.MEDIA)
+    public void criarLoteBinario(InputStream corpo, HttpServletResponse resposta) throws IOException {
+        resposta.setContentType(FormatoBinario.MEDIA);
+        lote.processarBinario(corpo, resposta.getOutputStream());
     }
 
+    // Listagem paginada por cursor: passe o proximoCursor da resposta em "aposId"
     @GetMapping
-    public List<Transacao> listar() {
-        return repository.findAll();
+    public PaginaTransacoes listar(@RequestParam(defaultValue = "0") long aposId,
+                                   @RequestParam(defaultValue = "50") int limite,
+                                   @RequestParam(required = false) String usuarioId,
+                                   @RequestParam(required = false) String status,
+                                   @RequestParam(required = false) String tipo,
+                                   @RequestParam(required = false)
+                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+                                   @RequestParam(required = false)
+                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        // Busca um a mais só para saber se existe próxima página
+        List<Transacao> itens = repository.buscarPagina(
+                aposId, usuarioId, status, tipo, de, ate, Limit.of(tamanho + 1));
+
+        Long proximoCursor = null;
+        if (itens.size() > tamanho) {
+            itens = itens.subList(0, tamanho);
+            proximoCursor = itens.get(tamanho - 1).getId();
+        }
+        return new PaginaTransacoes(itens, proximoCursor);
+    }
+
+    // Exportação completa em NDJSON, escrita direto do cursor do banco
+    @GetMapping(value = "/exportar", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(required = false) String usuarioId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        FiltroTransacoes filtro = new FiltroTransacoes(usuarioId, status, tipo, de, ate);
+        StreamingResponseBody corpo = saida -> exportacao.exportar(filtro, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(corpo);
     }
 
     @GetMapping("/estatisticas")
     public Map<String, Object> estatisticas() {
-        List<Transacao> todas = repository.findAll();
-
-        long total = todas.size();
-        long bloqueadas = todas.stream()
-                .filter(t -> "BLOQUEADO".equals(t.getStatus()))
-                .count();
-        long aprovadas = todas.stream()
-                .filter(t -> "APROVADO".equals(t.getStatus()))
-                .count();
-        long revisao = todas.stream()
-                .filter(t -> "REVISAO".equals(t.getStatus()))
-                .count();
-
-        // Calcula valores
-        double valorTotal = todas.stream()
-                .mapToDouble(t -> t.getValor() != null ? t.getValor() : 0)
-                .sum();
-
-        double valorBloqueado = todas.stream()
-                .filter(t -> "BLOQUEADO".equals(t.getStatus()))
-                .mapToDouble(t -> t.getValor() != null ? t.getValor() : 0)
-                .sum();
-
-        // Score médio
-        double scoreMedia = todas.stream()
-                .mapToDouble(t -> t.getScoreRisco() != null ? t.getScoreRisco() : 0)
-                .average()
-                .orElse(0.0);
+        // Lê os contadores em memória: custo constante, sem consultar o banco
+        long total = estatisticas.total();
+        long bloqueadas = estatisticas.quantidade(AnalisadorRiscoService.BLOQUEADA);
+        long aprovadas = estatisticas.quantidade(AnalisadorRiscoService.APROVADA);
+        long revisao = estatisticas.quantidade(AnalisadorRiscoService.REVISAO);
+
+        double valorTotal = estatisticas.valorTotal();
+        double valorBloqueado = estatisticas.valor(AnalisadorRiscoService.BLOQUEADA);
+        double scoreMedia = estatisticas.scoreMedio();
 
         Map<String, Object> stats = new HashMap<>();
         stats.put("total", total);
@@ -86,6 +162,7 @@ public class TransacaoController {
         stats.put("valorTotal", String.format("R$ %.2f", valorTotal));
         stats.put("valorBloqueado", String.format("R$ %.2f", valorBloqueado));
         stats.put("scoreMedia", String.format("%.1f%%", scoreMedia));
+        stats.put("porTipo", estatisticas.resumoPorTipo());
 
         // Taxa de bloqueio
         double taxaBloqueio = total > 0 ? (bloqueadas * 100.0 / total) : 0;
@@ -96,18 +173,10 @@ public class TransacaoController {
 
     // ========== NOVO ENDPOINT: Explicar decisão ==========
     @GetMapping("/{id}/explicacao")
-    public Map<String, Object> explicarDecisao(@PathVariable Long id) {
+    public ExplicacaoTransacao explicarDecisao(@PathVariable Long id) {
+        // Busca pela chave: os componentes já estão na linha da transação
         Transacao transacao = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
-
-        String explicacao = analisador.explicarScore(transacao);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("transacaoId", id);
-        response.put("status", transacao.getStatus());
-        response.put("scoreRisco", transacao.getScoreRisco());
-        response.put("explicacao", explicacao);
-
-        return response;
+        return analisador.explicar(transacao);
     }
 }
\ No newline at end of file
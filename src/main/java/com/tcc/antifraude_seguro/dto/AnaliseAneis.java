@@ -0,0 +1,16 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Resultado da última passada de componentes conexos sobre o grafo
+// (GET /api/admin/grafo/aneis). aneis em ordem decrescente de tamanho
+public record AnaliseAneis(
+        LocalDateTime analisadoEm,
+        int contas,
+        int ligacoes,
+        int componentes,
+        long duracaoMs,
+        List<AnelSuspeito> aneis
+) {
+}
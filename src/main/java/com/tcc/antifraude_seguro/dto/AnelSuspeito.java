@@ -0,0 +1,12 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.util.List;
+
+// Componente conexo do grafo de transferências marcado como suspeito.
+// membros vem limitado (as primeiras contas do componente)
+public record AnelSuspeito(
+        int contas,
+        int ligacoes,
+        List<String> membros
+) {
+}
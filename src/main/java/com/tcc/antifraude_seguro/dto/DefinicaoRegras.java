@@ -0,0 +1,46 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+
+// Formato do regras.json (e do corpo de PUT /api/admin/regras).
+// É só a descrição; o MotorRegras compila isso em tabelas antes de usar.
+public record DefinicaoRegras(
+        Integer versao,
+        List<FaixaValor> valor,
+        List<FaixaHorario> horario,
+        Map<String, Double> tipo,
+        Map<DayOfWeek, Double> diaSemana,
+        Comportamento comportamento,
+        Rede rede,
+        Decisao decisao) {
+
+    // Pontua quando valor >= minimo (inclusivo) ou valor > minimo; vale a maior faixa atingida
+    public record FaixaValor(double minimo, boolean inclusivo, double pontos) {}
+
+    // Horas [de, ate) do dia
+    public record FaixaHorario(int de, int ate, double pontos) {}
+
+    public record Comportamento(
+            int rajadaForte, double pontosRajadaForte,
+            int rajadaMedia, double pontosRajadaMedia,
+            int volumeHora, double pontosVolumeHora,
+            double valorMinimoHabitual, double multiploHabitual, double pontosValorHabitual,
+            long intervaloCurtoSegundos, double pontosIntervaloCurto,
+            double teto) {}
+
+    // Vizinhança no grafo de transferências. Opcional: sem a seção a rede não pontua.
+    // leque*: contas distintas que enviaram ao beneficiário (entrada) ou para
+    // as quais o remetente enviou (saída); compartilhados: outros remetentes que
+    // pagaram algum beneficiário do remetente; anel: conta num agrupamento marcado
+    public record Rede(
+            int lequeEntrada, double pontosLequeEntrada,
+            int lequeSaida, double pontosLequeSaida,
+            int compartilhados, double pontosCompartilhados,
+            double pontosAnel,
+            double teto) {}
+
+    // Cortes do score e pesos da combinação regras x ML
+    public record Decisao(double limiteBloqueio, double limiteRevisao, double pesoRegras, double pesoMl) {}
+}
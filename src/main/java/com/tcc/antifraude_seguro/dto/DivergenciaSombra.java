@@ -0,0 +1,21 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+
+// Um registro do log de divergências do modo sombra. proximo: offset para
+// continuar a leitura (GET /api/admin/sombra/divergencias?desde=proximo)
+public record DivergenciaSombra(
+        long offset,
+        long proximo,
+        String desafiante,
+        String usuarioId,
+        double valor,
+        String tipo,
+        LocalDateTime dataHora,
+        String statusCampeao,
+        double scoreCampeao,
+        String statusDesafiante,
+        double scoreDesafiante,
+        boolean semMl
+) {
+}
@@ -0,0 +1,15 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.util.List;
+
+// Visão do cluster por um nó (GET /api/admin/cluster). membros como
+// "id=host:porta"; versao cresce a cada troca de membros
+public record EstadoCluster(
+        String no,
+        int porta,
+        long versao,
+        List<String> membros,
+        long usuariosEmMemoria,
+        long usuariosTransferidos
+) {
+}
@@ -0,0 +1,28 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Agregados do modo sombra (GET /api/admin/sombra). descartadas: decisões
+// que encontraram a fila cheia e não foram avaliadas por nenhum desafiante
+public record EstadoSombra(
+        long avaliadas,
+        long descartadas,
+        int fila,
+        long divergencias,
+        List<Desafiante> desafiantes
+) {
+    // matriz: status do campeão -> status do desafiante -> quantidade.
+    // semMl: caíram na zona cinzenta do desafiante sem probabilidade do
+    // campeão para combinar (ficaram em REVISAO, como no fallback)
+    public record Desafiante(
+            String nome,
+            LocalDateTime desde,
+            long comparadas,
+            long concordancias,
+            double taxaConcordancia,
+            long semMl,
+            Map<String, Map<String, Long>> matriz
+    ) {}
+}
@@ -0,0 +1,26 @@
+package com.tcc.antifraude_seguro.dto;
+
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+
+// Resposta do GET /api/transacoes/{id}/explicacao
+public record ExplicacaoTransacao(
+        Long transacaoId,
+        String status,
+        Double scoreRisco,
+        Integer versaoRegras,
+        // false: transação anterior à explicação gravada; componentes
+        // recalculados com as regras atuais
+        boolean registradaNaDecisao,
+        Componentes componentes,
+        // null fora da zona cinzenta ou sem resposta do modelo
+        Ml ml,
+        CaracteristicasUsuario caracteristicas
+) {
+    // rede: 0 em transações anteriores ao grafo de transferências
+    public record Componentes(double valor, double horario, double dia, double tipo, double comportamento,
+                              double rede) {
+    }
+
+    public record Ml(double probabilidade, double scoreCombinado, String versaoModelo) {
+    }
+}
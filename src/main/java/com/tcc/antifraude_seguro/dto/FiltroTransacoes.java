@@ -0,0 +1,13 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+
+// Filtros opcionais da listagem/exportação (null = não filtra)
+public record FiltroTransacoes(
+        String usuarioId,
+        String status,
+        String tipo,
+        LocalDateTime de,
+        LocalDateTime ate
+) {
+}
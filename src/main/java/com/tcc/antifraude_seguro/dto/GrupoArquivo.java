@@ -0,0 +1,13 @@
+package com.tcc.antifraude_seguro.dto;
+
+// Um grupo da agregação sobre o arquivo colunar (scoreMedio null se nenhuma
+// linha do grupo tinha score)
+public record GrupoArquivo(
+        String grupo,
+        long quantidade,
+        double valorTotal,
+        double valorMinimo,
+        double valorMaximo,
+        Double scoreMedio
+) {
+}
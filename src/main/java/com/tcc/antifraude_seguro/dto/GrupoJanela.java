@@ -0,0 +1,14 @@
+package com.tcc.antifraude_seguro.dto;
+
+// Um grupo de uma janela das séries temporais. status/tipo null quando a
+// consulta não agrupa por eles; faixasScore[i] = decisões com score em
+// [10i, 10i + 10), a última inclui o 100
+public record GrupoJanela(
+        String status,
+        String tipo,
+        long quantidade,
+        double valor,
+        Double scoreMedio,
+        long[] faixasScore
+) {
+}
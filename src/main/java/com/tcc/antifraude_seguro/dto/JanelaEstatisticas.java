@@ -0,0 +1,13 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Agregado das decisões em [desde, ate). Janelas que passam do que a camada
+// de segundos guarda começam no minuto (ou hora) cheio: desde mostra o início real
+public record JanelaEstatisticas(
+        LocalDateTime desde,
+        LocalDateTime ate,
+        List<GrupoJanela> grupos
+) {
+}
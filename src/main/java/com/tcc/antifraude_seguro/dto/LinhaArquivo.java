@@ -0,0 +1,15 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+
+// Uma transação lida do arquivo colunar (dataHora com precisão de milissegundo)
+public record LinhaArquivo(
+        long id,
+        String usuarioId,
+        Double valor,
+        String tipo,
+        LocalDateTime dataHora,
+        String status,
+        Double scoreRisco
+) {
+}
@@ -0,0 +1,11 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.util.List;
+
+// Página da busca no arquivo: proximoCursor é o "apos" da próxima chamada
+// (posição da linha no arquivo; null quando não há mais resultados)
+public record PaginaArquivo(
+        List<LinhaArquivo> itens,
+        Long proximoCursor
+) {
+}
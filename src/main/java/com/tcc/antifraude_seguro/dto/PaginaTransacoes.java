@@ -0,0 +1,13 @@
+package com.tcc.antifraude_seguro.dto;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.util.List;
+
+// Página da listagem por cursor: proximoCursor é o "aposId" da próxima chamada
+// (null quando não há mais resultados)
+public record PaginaTransacoes(
+        List<Transacao> itens,
+        Long proximoCursor
+) {
+}
@@ -0,0 +1,24 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Corpo de POST /api/admin/backtest. As configurações avaliadas são:
+//   - a grade: produto cartesiano das listas sobre a "base" (regras em uso se
+//     vier null); lista ausente usa o valor da base
+//   - os candidatos, cada um uma definição completa
+// de/ate: período das transações (ate exclusivo; padrão = últimos 30 dias)
+public record RequisicaoBacktest(
+        LocalDateTime de,
+        LocalDateTime ate,
+        Boolean usarMl,
+        DefinicaoRegras base,
+        Grade grade,
+        List<DefinicaoRegras> candidatos) {
+
+    public record Grade(
+            List<Double> limiteBloqueio,
+            List<Double> limiteRevisao,
+            List<Double> pesoRegras,
+            List<Double> pesoMl) {}
+}
@@ -0,0 +1,12 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.util.List;
+
+public record RespostaBacktest(
+        long linhas,
+        long rotuladas,
+        long fraudes,
+        boolean ml,
+        long duracaoMs,
+        List<ResultadoBacktest> resultados) {
+}
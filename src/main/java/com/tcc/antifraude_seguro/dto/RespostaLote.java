@@ -0,0 +1,12 @@
+package com.tcc.antifraude_seguro.dto;
+
+import java.util.List;
+
+public record RespostaLote(
+        int total,
+        int aceitas,
+        int rejeitadas,
+        long duracaoMs,
+        List<ResultadoLote> resultados
+) {
+}
@@ -0,0 +1,28 @@
+package com.tcc.antifraude_seguro.dto;
+
+// Resultado de uma configuração. "Positivo" é bloquear: a revisão fica fora
+// da matriz e tem contagem própria por rótulo. precisao/recall são null sem
+// transações rotuladas no denominador
+public record ResultadoBacktest(
+        int indice,
+        String origem,
+        DefinicaoRegras.Decisao decisao,
+        long aprovadas,
+        long revisao,
+        long bloqueadas,
+        double taxaBloqueio,
+        double taxaRevisao,
+        double valorBloqueado,
+        double valorFraudeBloqueado,
+        MatrizConfusao matriz,
+        Double precisao,
+        Double recall) {
+
+    public record MatrizConfusao(
+            long verdadeirosPositivos,
+            long falsosPositivos,
+            long falsosNegativos,
+            long verdadeirosNegativos,
+            long fraudesEmRevisao,
+            long legitimasEmRevisao) {}
+}
@@ -0,0 +1,24 @@
+package com.tcc.antifraude_seguro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Resultado de uma linha do lote, na mesma posição (indice) em que ela foi enviada
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultadoLote(
+        int indice,
+        Long id,
+        String status,
+        Double scoreRisco,
+        List<String> erros
+) {
+
+    public static ResultadoLote aceita(int indice, Long id, String status, Double scoreRisco) {
+        return new ResultadoLote(indice, id, status, scoreRisco, null);
+    }
+
+    public static ResultadoLote rejeitada(int indice, List<String> erros) {
+        return new ResultadoLote(indice, null, null, null, erros);
+    }
+}
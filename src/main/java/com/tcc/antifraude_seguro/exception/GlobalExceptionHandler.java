@@ -1,12 +1,14 @@
 package com.tcc.antifraude_seguro.exception;
 
 import com.tcc.antifraude_seguro.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -35,6 +37,57 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
+    // Fila de gravação cheia: o cliente deve tentar de novo em instantes
+    @ExceptionHandler(SobrecargaException.class)
+    public ResponseEntity<ErrorResponse> handleSobrecarga(
+            SobrecargaException ex,
+            WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Serviço sobrecarregado",
+                List.of(ex.getMessage()),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    // Ex.: definição de regras inválida em PUT /api/admin/regras. Só a exceção
+    // de entrada do cliente; IllegalArgumentException de dentro do serviço cai no 500
+    @ExceptionHandler(RequisicaoInvalidaException.class)
+    public ResponseEntity<ErrorResponse> handleRequisicaoInvalida(
+            RequisicaoInvalidaException ex,
+            WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Requisição inválida",
+                List.of(ex.getMessage()),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    // Parâmetro de URL que não converte (ex.: agrupamento=XX em /api/arquivo/agregar)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleParametroInvalido(
+            MethodArgumentTypeMismatchException ex,
+            WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Requisição inválida",
+                List.of("Parâmetro '" + ex.getName() + "' inválido: " + ex.getValue()),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericError(
             Exception ex,
@@ -0,0 +1,10 @@
+package com.tcc.antifraude_seguro.exception;
+
+// Entrada do cliente recusada (definição de regras, quadro binário, parâmetro
+// fora da faixa); vira 400. IllegalArgumentException comum é erro nosso e vira 500
+public class RequisicaoInvalidaException extends IllegalArgumentException {
+
+    public RequisicaoInvalidaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.tcc.antifraude_seguro.exception;
+
+// Sistema sem folga para aceitar mais trabalho agora; vira 503 com Retry-After
+public class SobrecargaException extends RuntimeException {
+
+    public SobrecargaException(String message) {
+        super(message);
+    }
+}
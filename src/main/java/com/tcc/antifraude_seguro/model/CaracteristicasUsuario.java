@@ -0,0 +1,77 @@
+package com.tcc.antifraude_seguro.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+// Retrato do comportamento recente do usuário no momento da decisão
+// (não inclui a própria transação). Fica gravado junto com a transação
+// para a explicação e a auditoria mostrarem o que o motor viu.
+@Embeddable
+public class CaracteristicasUsuario {
+
+    @Column(name = "qtd_ultimo_minuto")
+    private Integer qtdUltimoMinuto;
+
+    @Column(name = "qtd_ultima_hora")
+    private Integer qtdUltimaHora;
+
+    @Column(name = "qtd_ultimas_24h")
+    private Integer qtdUltimas24h;
+
+    @Column(name = "valor_ultima_hora")
+    private Double valorUltimaHora;
+
+    @Column(name = "valor_ultimas_24h")
+    private Double valorUltimas24h;
+
+    // Média móvel (exponencial) dos valores do usuário; null sem histórico suficiente
+    @Column(name = "valor_habitual")
+    private Double valorHabitual;
+
+    // null quando é a primeira transação conhecida do usuário
+    @Column(name = "segundos_desde_ultima")
+    private Long segundosDesdeUltima;
+
+    public CaracteristicasUsuario() {
+    }
+
+    public CaracteristicasUsuario(int qtdUltimoMinuto, int qtdUltimaHora, int qtdUltimas24h,
+                                  double valorUltimaHora, double valorUltimas24h,
+                                  Double valorHabitual, Long segundosDesdeUltima) {
+        this.qtdUltimoMinuto = qtdUltimoMinuto;
+        this.qtdUltimaHora = qtdUltimaHora;
+        this.qtdUltimas24h = qtdUltimas24h;
+        this.valorUltimaHora = valorUltimaHora;
+        this.valorUltimas24h = valorUltimas24h;
+        this.valorHabitual = valorHabitual;
+        this.segundosDesdeUltima = segundosDesdeUltima;
+    }
+
+    public Integer getQtdUltimoMinuto() {
+        return qtdUltimoMinuto;
+    }
+
+    public Integer getQtdUltimaHora() {
+        return qtdUltimaHora;
+    }
+
+    public Integer getQtdUltimas24h() {
+        return qtdUltimas24h;
+    }
+
+    public Double getValorUltimaHora() {
+        return valorUltimaHora;
+    }
+
+    public Double getValorUltimas24h() {
+        return valorUltimas24h;
+    }
+
+    public Double getValorHabitual() {
+        return valorHabitual;
+    }
+
+    public Long getSegundosDesdeUltima() {
+        return segundosDesdeUltima;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tcc.antifraude_seguro.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+// Contribuição de cada componente no momento da decisão, gravada junto com a
+// transação. A explicação lê daqui em vez de recalcular com as regras atuais,
+// então continua certa depois de um hot reload.
+@Embeddable
+public class ExplicacaoDecisao {
+
+    @Column(name = "pontos_valor")
+    private Double pontosValor;
+
+    @Column(name = "pontos_horario")
+    private Double pontosHorario;
+
+    @Column(name = "pontos_dia")
+    private Double pontosDia;
+
+    @Column(name = "pontos_tipo")
+    private Double pontosTipo;
+
+    @Column(name = "pontos_comportamento")
+    private Double pontosComportamento;
+
+    // Vizinhança no grafo de transferências; null em transações anteriores a ela
+    @Column(name = "pontos_rede")
+    private Double pontosRede;
+
+    @Column(name = "versao_regras")
+    private Integer versaoRegras;
+
+    // Só na zona cinzenta e com resposta do modelo; senão ficam null
+    @Column(name = "probabilidade_ml")
+    private Double probabilidadeMl;
+
+    @Column(name = "score_combinado")
+    private Double scoreCombinado;
+
+    @Column(name = "versao_modelo", length = 64)
+    private String versaoModelo;
+
+    public ExplicacaoDecisao() {
+    }
+
+    public ExplicacaoDecisao(double pontosValor, double pontosHorario, double pontosDia, double pontosTipo,
+                             double pontosComportamento, Double pontosRede, int versaoRegras) {
+        this.pontosValor = pontosValor;
+        this.pontosHorario = pontosHorario;
+        this.pontosDia = pontosDia;
+        this.pontosTipo = pontosTipo;
+        this.pontosComportamento = pontosComportamento;
+        this.pontosRede = pontosRede;
+        this.versaoRegras = versaoRegras;
+    }
+
+    // O score combinado sai do mesmo conjunto de versaoRegras (o que pontuou a
+    // transação), mesmo que as regras tenham sido trocadas durante a consulta
+    public void registrarMl(double probabilidade, double scoreCombinado, String versaoModelo) {
+        this.probabilidadeMl = probabilidade;
+        this.scoreCombinado = scoreCombinado;
+        this.versaoModelo = versaoModelo;
+    }
+
+    public Double getPontosValor() {
+        return pontosValor;
+    }
+
+    public Double getPontosHorario() {
+        return pontosHorario;
+    }
+
+    public Double getPontosDia() {
+        return pontosDia;
+    }
+
+    public Double getPontosTipo() {
+        return pontosTipo;
+    }
+
+    public Double getPontosComportamento() {
+        return pontosComportamento;
+    }
+
+    public Double getPontosRede() {
+        return pontosRede;
+    }
+
+    public Integer getVersaoRegras() {
+        return versaoRegras;
+    }
+
+    public Double getProbabilidadeMl() {
+        return probabilidadeMl;
+    }
+
+    public Double getScoreCombinado() {
+        return scoreCombinado;
+    }
+
+    public String getVersaoModelo() {
+        return versaoModelo;
+    }
+}
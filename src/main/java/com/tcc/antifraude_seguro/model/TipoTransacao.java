@@ -0,0 +1,25 @@
+package com.tcc.antifraude_seguro.model;
+
+public enum TipoTransacao {
+    PIX, TED, DOC, BOLETO, CARTAO;
+
+    private static final TipoTransacao[] VALORES = values();
+
+    // Sem toUpperCase no caminho comum: a validação já exige maiúsculas,
+    // o equalsIgnoreCase só roda para o que vier de fora (ex.: backtest)
+    public static TipoTransacao deCodigo(String codigo) {
+        if (codigo == null) return null;
+        switch (codigo) {
+            case "PIX": return PIX;
+            case "TED": return TED;
+            case "DOC": return DOC;
+            case "BOLETO": return BOLETO;
+            case "CARTAO": return CARTAO;
+            default:
+                for (TipoTransacao tipo : VALORES) {
+                    if (tipo.name().equalsIgnoreCase(codigo)) return tipo;
+                }
+                return null;
+        }
+    }
+}
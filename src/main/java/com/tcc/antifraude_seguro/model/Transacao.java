@@ -1,21 +1,47 @@
 package com.tcc.antifraude_seguro.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tcc.antifraude_seguro.service.ConjuntoRegras;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transacoes")
+@Table(name = "transacoes", uniqueConstraints = {
+        // Última defesa contra reenvios: o IndiceIdempotencia barra quase todos antes
+        @UniqueConstraint(name = "uk_transacoes_chave_idempotencia", columnNames = "chaveIdempotencia")
+}, indexes = {
+        // Filtro + id: atende a paginação por cursor já na ordem certa
+        @Index(name = "idx_transacoes_usuario_id", columnList = "usuarioId, id"),
+        @Index(name = "idx_transacoes_status_id", columnList = "status, id"),
+        @Index(name = "idx_transacoes_tipo_id", columnList = "tipo, id"),
+        @Index(name = "idx_transacoes_data_hora", columnList = "dataHora"),
+        // Filtro + período (mesmos da migração V2 do perfil prod)
+        @Index(name = "idx_transacoes_usuario_data", columnList = "usuarioId, dataHora"),
+        @Index(name = "idx_transacoes_status_data", columnList = "status, dataHora")
+})
 public class Transacao {
 
+    // Sequence com alocação em blocos (em vez de IDENTITY) para o Hibernate
+    // conseguir agrupar os INSERTs em lotes JDBC
+    public static final int TAMANHO_ALOCACAO_ID = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacoes_seq")
+    @SequenceGenerator(name = "transacoes_seq", sequenceName = "transacoes_seq",
+            allocationSize = TAMANHO_ALOCACAO_ID)
     private Long id;
 
     @NotBlank(message = "Usuário ID é obrigatório")
     @Size(min = 3, max = 50, message = "Usuário ID deve ter entre 3 e 50 caracteres")
     private String usuarioId;
 
+    // Conta que recebe (transferências PIX/TED/DOC); opcional. Alimenta o
+    // grafo de transferências entre usuários
+    @Size(min = 3, max = 50, message = "Beneficiário ID deve ter entre 3 e 50 caracteres")
+    private String beneficiarioId;
+
     @NotNull(message = "Valor é obrigatório")
     @Positive(message = "Valor deve ser positivo")
     @Max(value = 1000000, message = "Valor não pode exceder R$ 1.000.000")
@@ -36,6 +62,39 @@ public class Transacao {
     @Max(value = 100, message = "Score de risco não pode exceder 100")
     private Double scoreRisco;
 
+    // Opcional, definida pelo cliente (ou header Idempotency-Key): um reenvio
+    // com a mesma chave recebe a decisão já tomada, sem nova análise
+    @Size(max = 64, message = "Chave de idempotência deve ter até 64 caracteres")
+    private String chaveIdempotencia;
+
+    // Preenchido pelo motor na análise; ignorado se vier na requisição
+    @Embedded
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private CaracteristicasUsuario caracteristicas;
+
+    // Componentes do score e resposta do ML na hora da decisão; exposto só
+    // pelo GET /{id}/explicacao
+    @Embedded
+    @JsonIgnore
+    private ExplicacaoDecisao explicacao;
+
+    // Desfecho conhecido depois (chargeback, contestação); null = sem rótulo.
+    // Base das matrizes de confusão do backtest
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean fraudeConfirmada;
+
+    // Vizinhança no grafo vista na decisão; não é gravada (só o modo sombra
+    // usa, para recalcular os pontos de rede com as regras dos desafiantes)
+    @Transient
+    @JsonIgnore
+    private VizinhancaRede rede;
+
+    // Conjunto que pontuou a transação; a zona cinzenta combina com o ML por
+    // ele mesmo, ainda que as regras sejam trocadas durante a consulta
+    @Transient
+    @JsonIgnore
+    private ConjuntoRegras regras;
+
     // Construtor vazio (obrigatório pro JPA)
     public Transacao() {
     }
@@ -57,6 +116,14 @@ public class Transacao {
         this.usuarioId = usuarioId;
     }
 
+    public String getBeneficiarioId() {
+        return beneficiarioId;
+    }
+
+    public void setBeneficiarioId(String beneficiarioId) {
+        this.beneficiarioId = beneficiarioId;
+    }
+
     public Double getValor() {
         return valor;
     }
@@ -96,4 +163,52 @@ public class Transacao {
     public void setScoreRisco(Double scoreRisco) {
         this.scoreRisco = scoreRisco;
     }
-}
\ No newline at end of file
+
+    public CaracteristicasUsuario getCaracteristicas() {
+        return caracteristicas;
+    }
+
+    public void setCaracteristicas(CaracteristicasUsuario caracteristicas) {
+        this.caracteristicas = caracteristicas;
+    }
+
+    public ExplicacaoDecisao getExplicacao() {
+        return explicacao;
+    }
+
+    public void setExplicacao(ExplicacaoDecisao explicacao) {
+        this.explicacao = explicacao;
+    }
+
+    public VizinhancaRede getRede() {
+        return rede;
+    }
+
+    public void setRede(VizinhancaRede rede) {
+        this.rede = rede;
+    }
+
+    public ConjuntoRegras getRegras() {
+        return regras;
+    }
+
+    public void setRegras(ConjuntoRegras regras) {
+        this.regras = regras;
+    }
+
+    public Boolean getFraudeConfirmada() {
+        return fraudeConfirmada;
+    }
+
+    public void setFraudeConfirmada(Boolean fraudeConfirmada) {
+        this.fraudeConfirmada = fraudeConfirmada;
+    }
+
+    public String getChaveIdempotencia() {
+        return chaveIdempotencia;
+    }
+
+    public void setChaveIdempotencia(String chaveIdempotencia) {
+        this.chaveIdempotencia = chaveIdempotencia;
+    }
+}
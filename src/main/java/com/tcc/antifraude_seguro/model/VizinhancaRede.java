@@ -0,0 +1,14 @@
+package com.tcc.antifraude_seguro.model;
+
+// Vizinhança da transferência no grafo no momento da decisão (sem a própria
+// transação): quantas contas o remetente pagou, quantas pagaram o
+// beneficiário, quantos outros remetentes dividem beneficiários com ele e se
+// alguma das duas pontas está num agrupamento marcado como anel
+public record VizinhancaRede(
+        int lequeSaidaRemetente,
+        int lequeEntradaBeneficiario,
+        int remetentesCompartilhados,
+        boolean anelSuspeito
+) {
+    public static final VizinhancaRede VAZIA = new VizinhancaRede(0, 0, 0, false);
+}
@@ -0,0 +1,9 @@
+package com.tcc.antifraude_seguro.repository;
+
+import java.time.LocalDateTime;
+
+// Projeção usada para reconstruir o índice de idempotência na subida
+public interface ChaveIdempotencia {
+    String getChave();
+    LocalDateTime getDataHora();
+}
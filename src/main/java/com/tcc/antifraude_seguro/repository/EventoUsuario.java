@@ -0,0 +1,10 @@
+package com.tcc.antifraude_seguro.repository;
+
+import java.time.LocalDateTime;
+
+// Projeção enxuta usada para reconstruir estado em memória sem carregar entidades
+public interface EventoUsuario {
+    String getUsuarioId();
+    LocalDateTime getDataHora();
+    Double getValor();
+}
@@ -0,0 +1,10 @@
+package com.tcc.antifraude_seguro.repository;
+
+// Projeção do GROUP BY usado para reconstruir as estatísticas
+public interface ResumoAgregado {
+    String getStatus();
+    String getTipo();
+    long getQuantidade();
+    double getValor();
+    double getSomaScore();
+}
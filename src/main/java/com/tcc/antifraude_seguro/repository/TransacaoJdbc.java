@@ -0,0 +1,146 @@
+package com.tcc.antifraude_seguro.repository;
+
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.ExplicacaoDecisao;
+import com.tcc.antifraude_seguro.model.Transacao;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Acesso JDBC direto à tabela transacoes para a gravação em lote: INSERT
+// explícito (sem contexto de persistência nem log do Hibernate) e os ids
+// vindos da mesma sequence que o @SequenceGenerator da entidade usa.
+@Repository
+public class TransacaoJdbc {
+
+    public static final String SEQUENCIA = "transacoes_seq";
+
+    private static final String INSERT = """
+            INSERT INTO transacoes (id, usuario_id, valor, tipo, data_hora, status, score_risco,
+                qtd_ultimo_minuto, qtd_ultima_hora, qtd_ultimas_24h, valor_ultima_hora,
+                valor_ultimas_24h, valor_habitual, segundos_desde_ultima, chave_idempotencia,
+                pontos_valor, pontos_horario, pontos_dia, pontos_tipo, pontos_comportamento,
+                versao_regras, probabilidade_ml, score_combinado, versao_modelo, beneficiario_id,
+                pontos_rede)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Depois do cursor (dataHora, id) e antes de "ate", na ordem do cursor
+    private static final String SELECT_ARQUIVO = """
+            SELECT id, usuario_id, valor, tipo, data_hora, status, score_risco
+            FROM transacoes
+            WHERE (data_hora > ? OR (data_hora = ? AND id > ?)) AND data_hora < ?
+            ORDER BY data_hora, id
+            """;
+
+    // Só o que o score usa, mais o rótulo. A vizinhança no grafo não é
+    // reconstruída: vale a pontuação de rede gravada na decisão
+    private static final String SELECT_BACKTEST = """
+            SELECT valor, tipo, data_hora, qtd_ultimo_minuto, qtd_ultima_hora, valor_habitual,
+                segundos_desde_ultima, fraude_confirmada, pontos_rede
+            FROM transacoes
+            WHERE data_hora >= ? AND data_hora < ?
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final String sqlProximoValor;
+
+    public TransacaoJdbc(JdbcTemplate jdbc, EntityManagerFactory emf) {
+        this.jdbc = jdbc;
+        // nextval no dialeto do banco em uso (H2: NEXT VALUE FOR, PostgreSQL: nextval(...))
+        Dialect dialeto = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.sqlProximoValor = dialeto.getSequenceSupport().getSequenceNextValString(SEQUENCIA);
+    }
+
+    public long proximoValorSequencia() {
+        Long valor = jdbc.queryForObject(sqlProximoValor, Long.class);
+        return valor != null ? valor : 0;
+    }
+
+    // Faz o próximo nextval devolver "valor" (ALTER SEQUENCE ... RESTART: H2 e PostgreSQL)
+    public void reiniciarSequencia(long valor) {
+        jdbc.execute("ALTER SEQUENCE " + SEQUENCIA + " RESTART WITH " + valor);
+    }
+
+    // Um único executeBatch; a transação (e o commit) fica por conta de quem chama
+    public void inserir(List<Transacao> transacoes) {
+        jdbc.batchUpdate(INSERT, transacoes, transacoes.size(), TransacaoJdbc::preencher);
+    }
+
+    public Set<Long> idsExistentes(long de, long ate) {
+        return new HashSet<>(jdbc.queryForList(
+                "SELECT id FROM transacoes WHERE id BETWEEN ? AND ?", Long.class, de, ate));
+    }
+
+    // Leitura para o arquivo colunar: linha a linha do cursor do banco, sem
+    // entidades. Precisa rodar dentro de uma transação (PostgreSQL só usa o
+    // fetch size fora do autocommit)
+    public void percorrerParaArquivo(LocalDateTime desde, long aposId, LocalDateTime ate,
+                                     RowCallbackHandler linha) {
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ARQUIVO);
+            ps.setFetchSize(1000);
+            ps.setTimestamp(1, Timestamp.valueOf(desde));
+            ps.setTimestamp(2, Timestamp.valueOf(desde));
+            ps.setLong(3, aposId);
+            ps.setTimestamp(4, Timestamp.valueOf(ate));
+            return ps;
+        }, linha);
+    }
+
+    // Leitura para o backtest, também sem entidades (mesma observação sobre transação)
+    public void percorrerParaBacktest(LocalDateTime de, LocalDateTime ate, RowCallbackHandler linha) {
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_BACKTEST);
+            ps.setFetchSize(1000);
+            ps.setTimestamp(1, Timestamp.valueOf(de));
+            ps.setTimestamp(2, Timestamp.valueOf(ate));
+            return ps;
+        }, linha);
+    }
+
+    private static void preencher(PreparedStatement ps, Transacao t) throws SQLException {
+        ps.setLong(1, t.getId());
+        ps.setString(2, t.getUsuarioId());
+        ps.setObject(3, t.getValor(), Types.DOUBLE);
+        ps.setString(4, t.getTipo());
+        ps.setTimestamp(5, t.getDataHora() != null ? Timestamp.valueOf(t.getDataHora()) : null);
+        ps.setString(6, t.getStatus());
+        ps.setObject(7, t.getScoreRisco(), Types.DOUBLE);
+
+        CaracteristicasUsuario c = t.getCaracteristicas();
+        ps.setObject(8, c != null ? c.getQtdUltimoMinuto() : null, Types.INTEGER);
+        ps.setObject(9, c != null ? c.getQtdUltimaHora() : null, Types.INTEGER);
+        ps.setObject(10, c != null ? c.getQtdUltimas24h() : null, Types.INTEGER);
+        ps.setObject(11, c != null ? c.getValorUltimaHora() : null, Types.DOUBLE);
+        ps.setObject(12, c != null ? c.getValorUltimas24h() : null, Types.DOUBLE);
+        ps.setObject(13, c != null ? c.getValorHabitual() : null, Types.DOUBLE);
+        ps.setObject(14, c != null ? c.getSegundosDesdeUltima() : null, Types.BIGINT);
+        ps.setString(15, t.getChaveIdempotencia());
+
+        ExplicacaoDecisao e = t.getExplicacao();
+        ps.setObject(16, e != null ? e.getPontosValor() : null, Types.DOUBLE);
+        ps.setObject(17, e != null ? e.getPontosHorario() : null, Types.DOUBLE);
+        ps.setObject(18, e != null ? e.getPontosDia() : null, Types.DOUBLE);
+        ps.setObject(19, e != null ? e.getPontosTipo() : null, Types.DOUBLE);
+        ps.setObject(20, e != null ? e.getPontosComportamento() : null, Types.DOUBLE);
+        ps.setObject(21, e != null ? e.getVersaoRegras() : null, Types.INTEGER);
+        ps.setObject(22, e != null ? e.getProbabilidadeMl() : null, Types.DOUBLE);
+        ps.setObject(23, e != null ? e.getScoreCombinado() : null, Types.DOUBLE);
+        ps.setString(24, e != null ? e.getVersaoModelo() : null);
+        ps.setString(25, t.getBeneficiarioId());
+        ps.setObject(26, e != null ? e.getPontosRede() : null, Types.DOUBLE);
+    }
+}
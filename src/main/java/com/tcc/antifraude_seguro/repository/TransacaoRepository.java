@@ -1,10 +1,87 @@
 package com.tcc.antifraude_seguro.repository;
 
 import com.tcc.antifraude_seguro.model.Transacao;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
-    // PRONTO! Spring cria tudo automaticamente!
-}
\ No newline at end of file
+
+    String FILTROS =
+            "(:usuarioId IS NULL OR t.usuarioId = :usuarioId) " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "AND (:tipo IS NULL OR t.tipo = :tipo) " +
+            "AND (:de IS NULL OR t.dataHora >= :de) " +
+            "AND (:ate IS NULL OR t.dataHora < :ate) ";
+
+    // Uma linha por (status, tipo): o banco agrega, a aplicação não carrega as transações
+    @Query("SELECT t.status AS status, t.tipo AS tipo, COUNT(t) AS quantidade, " +
+           "COALESCE(SUM(t.valor), 0) AS valor, COALESCE(SUM(t.scoreRisco), 0) AS somaScore " +
+           "FROM Transacao t GROUP BY t.status, t.tipo")
+    List<ResumoAgregado> agregarPorStatusETipo();
+
+    // Paginação por chave (keyset): "id > cursor" usa o índice e não degrada
+    // com o número da página como o OFFSET
+    @Query("SELECT t FROM Transacao t WHERE t.id > :aposId AND " + FILTROS + "ORDER BY t.id")
+    List<Transacao> buscarPagina(@Param("aposId") long aposId,
+                                 @Param("usuarioId") String usuarioId,
+                                 @Param("status") String status,
+                                 @Param("tipo") String tipo,
+                                 @Param("de") LocalDateTime de,
+                                 @Param("ate") LocalDateTime ate,
+                                 Limit limite);
+
+    // Cursor do banco para exportação: precisa rodar dentro de uma transação
+    // e o Stream deve ser fechado por quem consome
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transacao t WHERE " + FILTROS + "ORDER BY t.id")
+    Stream<Transacao> streamFiltradas(@Param("usuarioId") String usuarioId,
+                                      @Param("status") String status,
+                                      @Param("tipo") String tipo,
+                                      @Param("de") LocalDateTime de,
+                                      @Param("ate") LocalDateTime ate);
+
+    Optional<Transacao> findByChaveIdempotencia(String chaveIdempotencia);
+
+    List<Transacao> findByChaveIdempotenciaIn(Collection<String> chaves);
+
+    // Rótulos vindos depois da decisão (chargeback, contestação) para o backtest
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transacao t SET t.fraudeConfirmada = :fraude WHERE t.id IN :ids")
+    int rotular(@Param("ids") Collection<Long> ids, @Param("fraude") boolean fraude);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.chaveIdempotencia AS chave, t.dataHora AS dataHora " +
+           "FROM Transacao t WHERE t.dataHora >= :desde AND t.chaveIdempotencia IS NOT NULL")
+    Stream<ChaveIdempotencia> streamChavesDesde(@Param("desde") LocalDateTime desde);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.usuarioId AS usuarioId, t.dataHora AS dataHora, t.valor AS valor " +
+           "FROM Transacao t WHERE t.dataHora >= :desde ORDER BY t.dataHora, t.id")
+    Stream<EventoUsuario> streamEventosDesde(@Param("desde") LocalDateTime desde);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.usuarioId AS usuarioId, t.beneficiarioId AS beneficiarioId, t.dataHora AS dataHora " +
+           "FROM Transacao t WHERE t.dataHora >= :desde AND t.beneficiarioId IS NOT NULL ORDER BY t.dataHora, t.id")
+    Stream<TransferenciaUsuario> streamTransferenciasDesde(@Param("desde") LocalDateTime desde);
+}
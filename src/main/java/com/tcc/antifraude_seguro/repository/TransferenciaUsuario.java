@@ -0,0 +1,10 @@
+package com.tcc.antifraude_seguro.repository;
+
+import java.time.LocalDateTime;
+
+// Projeção para reconstruir o grafo de transferências na subida
+public interface TransferenciaUsuario {
+    String getUsuarioId();
+    String getBeneficiarioId();
+    LocalDateTime getDataHora();
+}
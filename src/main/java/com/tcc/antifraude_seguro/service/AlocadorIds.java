@@ -0,0 +1,54 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Distribui ids da sequence em blocos, como o otimizador "pooled" do Hibernate:
+// cada nextval v reserva [v - bloco + 1, v]. Assim os ids gerados aqui e os do
+// @SequenceGenerator da entidade (LoteService) nunca se cruzam.
+final class AlocadorIds {
+
+    private final LongSupplier proximoValor;
+    private final int bloco;
+    // ReentrantLock: o nextval é JDBC e pode rodar em thread virtual
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long proximo = 1;
+    private long limite = 0;
+
+    AlocadorIds(LongSupplier proximoValor, int bloco) {
+        this.proximoValor = proximoValor;
+        this.bloco = bloco;
+    }
+
+    // Chamado antes de qualquer INSERT: se a sequence ainda está no valor
+    // inicial (1), consome esse valor. O Hibernate trata o primeiro nextval
+    // igual ao valor inicial de forma especial (reserva de 1 até o nextval
+    // seguinte), o que poderia cruzar com um bloco reservado aqui.
+    void iniciar() {
+        lock.lock();
+        try {
+            reservar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long proximo() {
+        lock.lock();
+        try {
+            if (proximo > limite) {
+                reservar();
+            }
+            return proximo++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reservar() {
+        long v = proximoValor.getAsLong();
+        limite = v;
+        proximo = Math.max(1, v - bloco + 1);
+    }
+}
@@ -1,127 +1,252 @@
 package com.tcc.antifraude_seguro.service;
 
+import com.tcc.antifraude_seguro.dto.ExplicacaoTransacao;
+import com.tcc.antifraude_seguro.model.ExplicacaoDecisao;
+import com.tcc.antifraude_seguro.model.TipoTransacao;
 import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.model.VizinhancaRede;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AnalisadorRiscoService {
 
+    // Status gravados na transação (usados também nas estatísticas)
+    public static final String APROVADA = "APROVADA";
+    public static final String REVISAO = "REVISAO";
+    public static final String BLOQUEADA = "BLOQUEADA";
+
+    // Máximo de transações por requisição ao serviço ML no modo lote
+    private static final int TAMANHO_GRUPO_ML = 256;
+
+    // HTTP (MlFraudeClient) ou na JVM (ModeloFlorestaLocal), conforme antifraude.ml.modo
     @Autowired(required = false)
-    private MlFraudeClient mlFraudeClient;
+    private ClassificadorFraude classificador;
 
-    public void analisar(Transacao transacao) {
-        double score = calcularScore(transacao);
-        transacao.setScoreRisco(score);
+    @Autowired(required = false)
+    private ComportamentoUsuarioService comportamento;
 
-        if (score >= 70) {
-            transacao.setStatus("BLOQUEADA");
-        } else if (score >= 40) {
-            // Zona cinzenta: consulta o modelo ML para refinar
-            String statusMl = consultarML(transacao.getValor(), score);
-            transacao.setStatus(statusMl);
-        } else {
-            transacao.setStatus("APROVADA");
-        }
-    }
+    // Vizinhança no grafo de transferências (antifraude.grafo.habilitado)
+    @Autowired(required = false)
+    private GrafoTransferencias grafo;
 
-    private String consultarML(double valor, double scoreRegras) {
-        if (mlFraudeClient == null) {
-            return "REVISAO"; // fallback: sem ML, mantém revisão
-        }
+    // Limiares e pesos compilados do regras.json, trocáveis em execução
+    @Autowired(required = false)
+    private MotorRegras motorRegras;
 
-        Double probFraude = mlFraudeClient.obterProbabilidadeFraude(valor);
+    @Autowired(required = false)
+    private MetricasDecisao metricas = MetricasDecisao.NOOP;
 
-        if (probFraude == null) {
-            return "REVISAO"; // fallback: ML indisponível
-        }
+    // Desafiantes avaliados fora da requisição (antifraude.sombra.habilitado)
+    @Autowired(required = false)
+    private PontuacaoSombra sombra;
 
-        // Combina score de regras (60%) com ML (40%)
-        double scoreFinal = (scoreRegras * 0.6) + (probFraude * 100 * 0.4);
+    public AnalisadorRiscoService() {
+    }
 
-        if (scoreFinal >= 70) return "BLOQUEADA";
-        if (scoreFinal >= 40) return "REVISAO";
-        return "APROVADA";
+    // Instância avulsa para o aquecimento: mesmas regras, janela de
+    // comportamento própria e sem métricas nem ML
+    AnalisadorRiscoService(MotorRegras motorRegras, ComportamentoUsuarioService comportamento) {
+        this.motorRegras = motorRegras;
+        this.comportamento = comportamento;
     }
 
-    private double calcularScore(Transacao transacao) {
-        double score = 0;
-        score += calcularScoreValor(transacao.getValor());
-        score += calcularScoreHorario(transacao.getDataHora().toLocalTime());
-        score += calcularScoreTipo(transacao.getTipo());
-        score += calcularScoreDiaSemana(transacao.getDataHora().getDayOfWeek());
-        return Math.min(score, 100.0);
+    public void analisar(Transacao transacao) {
+        analisarAsync(transacao).join();
     }
 
-    private double calcularScoreValor(Double valor) {
-        if (valor == null || valor <= 0) return 0;
-        if (valor > 15000) return 50;
-        else if (valor > 10000) return 45;
-        else if (valor > 5000) return 40;
-        else if (valor > 2000) return 30;
-        else if (valor >= 1000) return 20;
-        else if (valor >= 500) return 10;
-        return 0;
+    // Regras na hora; na zona cinzenta a consulta ao ML é assíncrona e o
+    // futuro completa quando o modelo responde (ou com o fallback REVISAO)
+    public CompletableFuture<Transacao> analisarAsync(Transacao transacao) {
+        if (!aplicarRegras(transacao)) {
+            return CompletableFuture.completedFuture(transacao);
+        }
+        if (classificador == null) {
+            metricas.decididaPeloMl(false); // sem classificador: fica em REVISAO
+            decidida(transacao);
+            return CompletableFuture.completedFuture(transacao);
+        }
+        // Zona cinzenta: consulta o modelo ML para refinar
+        long inicio = System.nanoTime();
+        return classificador.obterProbabilidadeFraudeAsync(transacao.getValor())
+                .thenApply(probFraude -> {
+                    metricas.ml(System.nanoTime() - inicio);
+                    if (probFraude != null) {
+                        combinarComML(transacao, probFraude);
+                    }
+                    // null = ML indisponível, fica em REVISAO
+                    metricas.decididaPeloMl(probFraude != null);
+                    decidida(transacao);
+                    return transacao;
+                });
     }
 
-    private double calcularScoreHorario(LocalTime hora) {
-        if (hora == null) return 0;
-        int h = hora.getHour();
-        if (h >= 0 && h < 6) return 30;
-        if (h >= 22) return 20;
-        if (h >= 17 && h < 20) return 0;
-        if (h >= 9 && h < 17) return 0;
-        if (h >= 6 && h < 9) return 5;
-        return 10;
+    // Calcula o score de regras e decide os casos claros.
+    // Retorna true quando a transação caiu na zona cinzenta (40-69 no padrão) e ainda depende do ML.
+    public boolean aplicarRegras(Transacao transacao) {
+        // Os componentes levam dezenas de ns: cronometrar todos custaria mais
+        // que as próprias regras, então só uma amostra passa pelos timers
+        boolean medir = metricas.amostrarRegras();
+        long inicio = medir ? System.nanoTime() : 0;
+        if (comportamento != null) {
+            // Retrato do usuário antes desta transação (que já fica registrada na janela)
+            transacao.setCaracteristicas(comportamento.observar(transacao));
+        }
+        // Idem no grafo: vizinhança antes desta transferência
+        VizinhancaRede rede = grafo != null ? grafo.observar(transacao) : null;
+        transacao.setRede(rede);
+
+        // Um único conjunto por transação, mesmo que um reload aconteça no meio
+        ConjuntoRegras regras = regras();
+        double score = medir
+                ? calcularScoreMedido(regras, transacao, rede, System.nanoTime() - inicio)
+                : calcularScore(regras, transacao, rede);
+        transacao.setScoreRisco(score);
+        transacao.setStatus(regras.decidir(score));
+        transacao.setRegras(regras);
+
+        boolean cinzenta = regras.zonaCinzenta(score);
+        if (cinzenta) {
+            metricas.zonaCinzenta();
+        } else {
+            decidida(transacao);
+        }
+        return cinzenta;
     }
 
-    private double calcularScoreTipo(String tipo) {
-        if (tipo == null) return 0;
-        switch (tipo.toUpperCase()) {
-            case "PIX": return 25;
-            case "TED": return 15;
-            case "CARTAO": return 12;
-            case "DOC": return 8;
-            case "BOLETO": return 5;
-            default: return 0;
+    // Versão em lote da zona cinzenta: as transações vão ao ML em grupos,
+    // uma requisição por grupo em vez de uma por transação
+    public void decidirZonaCinzenta(List<Transacao> cinzentas) {
+        if (cinzentas.isEmpty()) {
+            return;
+        }
+        if (classificador == null) {
+            // fallback: ficam em REVISAO
+            for (Transacao t : cinzentas) {
+                metricas.decididaPeloMl(false);
+                decidida(t);
+            }
+            return;
+        }
+        for (int inicio = 0; inicio < cinzentas.size(); inicio += TAMANHO_GRUPO_ML) {
+            List<Transacao> grupo = cinzentas.subList(inicio, Math.min(inicio + TAMANHO_GRUPO_ML, cinzentas.size()));
+            double[] valores = new double[grupo.size()];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = grupo.get(i).getValor();
+            }
+
+            long consulta = System.nanoTime();
+            double[] probabilidades = classificador.obterProbabilidadesFraude(valores);
+            metricas.ml(System.nanoTime() - consulta);
+            for (int i = 0; i < valores.length; i++) {
+                Transacao t = grupo.get(i);
+                // null = ML indisponível, grupo fica em REVISAO
+                if (probabilidades != null) {
+                    combinarComML(t, probabilidades[i]);
+                }
+                metricas.decididaPeloMl(probabilidades != null);
+                decidida(t);
+            }
         }
     }
 
-    private double calcularScoreDiaSemana(DayOfWeek diaSemana) {
-        if (diaSemana == null) return 0;
-        if (diaSemana == DayOfWeek.SATURDAY || diaSemana == DayOfWeek.SUNDAY) return 10;
-        if (diaSemana == DayOfWeek.FRIDAY) return 5;
-        return 0;
+    // Decisão final (com ou sem ML): métricas e cópia para os desafiantes
+    private void decidida(Transacao transacao) {
+        metricas.decisao(transacao.getStatus());
+        if (sombra != null) {
+            sombra.submeter(transacao);
+        }
     }
 
-    public String explicarScore(Transacao transacao) {
-        StringBuilder explicacao = new StringBuilder();
-        explicacao.append("Score: ").append(transacao.getScoreRisco()).append("%\n");
-        explicacao.append("Motivos:\n");
+    private void combinarComML(Transacao transacao, double probFraude) {
+        // Combina score de regras com ML (60%/40% no regras.json padrão), com
+        // o mesmo conjunto que calculou o score
+        ConjuntoRegras regras = transacao.getRegras() != null ? transacao.getRegras() : regras();
+        double combinado = regras.combinar(transacao.getScoreRisco(), probFraude);
+        transacao.setStatus(regras.decidir(combinado));
+        transacao.getExplicacao().registrarMl(probFraude, combinado, classificador.versaoModelo());
+    }
 
-        double scoreValor = calcularScoreValor(transacao.getValor());
-        if (scoreValor > 0)
-            explicacao.append("- Valor: R$ ").append(transacao.getValor())
-                    .append(" (+").append(scoreValor).append("%)\n");
+    private ConjuntoRegras regras() {
+        return motorRegras != null ? motorRegras.atual() : RegrasPadrao.REGRAS;
+    }
 
-        double scoreHorario = calcularScoreHorario(transacao.getDataHora().toLocalTime());
-        if (scoreHorario > 0)
-            explicacao.append("- Horário: ").append(transacao.getDataHora().toLocalTime())
-                    .append(" (+").append(scoreHorario).append("%)\n");
+    // Os componentes ficam gravados na transação (ExplicacaoDecisao) para a explicação
+    private double calcularScore(ConjuntoRegras regras, Transacao transacao, VizinhancaRede rede) {
+        double valor = transacao.getValor() != null ? transacao.getValor() : 0;
+        LocalDateTime dataHora = transacao.getDataHora();
+        double pontosValor = regras.pontosValor(valor);
+        double pontosHora = 0, pontosDia = 0;
+        if (dataHora != null) {
+            pontosHora = regras.pontosHora(dataHora.getHour());
+            pontosDia = regras.pontosDia(dataHora.getDayOfWeek());
+        }
+        double pontosTipo = regras.pontosTipo(TipoTransacao.deCodigo(transacao.getTipo()));
+        double pontosComportamento = regras.pontosComportamento(valor, transacao.getCaracteristicas());
+        double pontosRede = regras.pontosRede(rede);
+        transacao.setExplicacao(new ExplicacaoDecisao(pontosValor, pontosHora, pontosDia, pontosTipo,
+                pontosComportamento, pontosRede, regras.versao()));
+        return Math.min(pontosValor + pontosHora + pontosDia + pontosTipo + pontosComportamento + pontosRede, 100.0);
+    }
 
-        double scoreTipo = calcularScoreTipo(transacao.getTipo());
-        if (scoreTipo > 0)
-            explicacao.append("- Tipo: ").append(transacao.getTipo())
-                    .append(" (+").append(scoreTipo).append("%)\n");
+    // Mesmo cálculo, com um nanoTime entre cada componente ("comportamento"
+    // inclui a consulta à janela do usuário, ao grafo e os pontos de rede)
+    private double calcularScoreMedido(ConjuntoRegras regras, Transacao transacao, VizinhancaRede rede,
+                                       long nanosJanela) {
+        double valor = transacao.getValor() != null ? transacao.getValor() : 0;
+        LocalDateTime dataHora = transacao.getDataHora();
+
+        long t0 = System.nanoTime();
+        double pontosValor = regras.pontosValor(valor);
+        long t1 = System.nanoTime();
+        double pontosHora = dataHora != null ? regras.pontosHora(dataHora.getHour()) : 0;
+        long t2 = System.nanoTime();
+        double pontosTipo = regras.pontosTipo(TipoTransacao.deCodigo(transacao.getTipo()));
+        long t3 = System.nanoTime();
+        double pontosDia = dataHora != null ? regras.pontosDia(dataHora.getDayOfWeek()) : 0;
+        long t4 = System.nanoTime();
+        double pontosComportamento = regras.pontosComportamento(valor, transacao.getCaracteristicas());
+        double pontosRede = regras.pontosRede(rede);
+        long t5 = System.nanoTime();
+
+        metricas.regras(t1 - t0, t2 - t1, t3 - t2, t4 - t3, nanosJanela + t5 - t4);
+        transacao.setExplicacao(new ExplicacaoDecisao(pontosValor, pontosHora, pontosDia, pontosTipo,
+                pontosComportamento, pontosRede, regras.versao()));
+        return Math.min(pontosValor + pontosHora + pontosTipo + pontosDia + pontosComportamento + pontosRede, 100.0);
+    }
 
-        double scoreDia = calcularScoreDiaSemana(transacao.getDataHora().getDayOfWeek());
-        if (scoreDia > 0)
-            explicacao.append("- Dia: ").append(transacao.getDataHora().getDayOfWeek())
-                    .append(" (+").append(scoreDia).append("%)\n");
+    // Explicação gravada na decisão: só lê a transação, sem reavaliar regras.
+    // Transações anteriores a ela são recalculadas com as regras atuais.
+    public ExplicacaoTransacao explicar(Transacao transacao) {
+        ExplicacaoDecisao e = transacao.getExplicacao();
+        boolean registrada = e != null && e.getVersaoRegras() != null;
+        if (!registrada) {
+            Transacao copia = new Transacao();
+            copia.setValor(transacao.getValor());
+            copia.setTipo(transacao.getTipo());
+            copia.setDataHora(transacao.getDataHora());
+            copia.setCaracteristicas(transacao.getCaracteristicas());
+            // o grafo da época não existe mais: a rede não pontua
+            calcularScore(regras(), copia, null);
+            e = copia.getExplicacao();
+        }
+        ExplicacaoTransacao.Ml ml = e.getProbabilidadeMl() != null
+                ? new ExplicacaoTransacao.Ml(e.getProbabilidadeMl(), e.getScoreCombinado(), e.getVersaoModelo())
+                : null;
+        return new ExplicacaoTransacao(transacao.getId(), transacao.getStatus(), transacao.getScoreRisco(),
+                e.getVersaoRegras(), registrada,
+                new ExplicacaoTransacao.Componentes(e.getPontosValor(), e.getPontosHorario(), e.getPontosDia(),
+                        e.getPontosTipo(), e.getPontosComportamento(),
+                        e.getPontosRede() != null ? e.getPontosRede() : 0),
+                ml, transacao.getCaracteristicas());
+    }
 
-        return explicacao.toString();
+    // Sem Spring (new AnalisadorRiscoService()) vale o regras.json empacotado
+    private static final class RegrasPadrao {
+        static final ConjuntoRegras REGRAS = MotorRegras.padrao();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Anel de hash consistente: cada nó ocupa nosVirtuais pontos no espaço de 64
+// bits e o dono de um usuarioId é o primeiro ponto a partir do hash dele.
+// Entrar ou sair um nó só muda o dono de ~1/N dos usuários. Imutável: uma
+// troca de membros monta outro anel. Todos os nós montam o mesmo anel a partir
+// da mesma lista, porque a ordem dos pontos não depende da ordem dos membros.
+final class AnelHash {
+
+    record No(String id, String host, int porta) {
+
+        // "id=host:porta"
+        static No de(String texto) {
+            int igual = texto.indexOf('=');
+            int doisPontos = texto.lastIndexOf(':');
+            if (igual < 1 || doisPontos < igual + 2 || doisPontos == texto.length() - 1) {
+                throw new RequisicaoInvalidaException("Membro inválido (esperado id=host:porta): " + texto);
+            }
+            try {
+                return new No(texto.substring(0, igual).trim(), texto.substring(igual + 1, doisPontos).trim(),
+                        Integer.parseInt(texto.substring(doisPontos + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new RequisicaoInvalidaException("Porta inválida: " + texto);
+            }
+        }
+
+        String endereco() {
+            return host + ":" + porta;
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + endereco();
+        }
+    }
+
+    private final List<No> nos;
+    private final long[] pontos;
+    private final int[] donos;
+
+    AnelHash(List<No> membros, int nosVirtuais) {
+        if (membros.isEmpty()) {
+            throw new RequisicaoInvalidaException("Cluster sem membros");
+        }
+        this.nos = membros.stream().sorted(Comparator.comparing(No::id)).toList();
+        if (nos.stream().map(No::id).distinct().count() != nos.size()) {
+            throw new RequisicaoInvalidaException("Ids de nó repetidos: " + membros);
+        }
+
+        // ponto e índice do nó empacotados para ordenar juntos; empate (raro)
+        // fica com o menor índice, igual em todos os nós
+        int total = nos.size() * nosVirtuais;
+        long[][] pares = new long[total][];
+        for (int i = 0, k = 0; i < nos.size(); i++) {
+            for (int v = 0; v < nosVirtuais; v++) {
+                pares[k++] = new long[]{hash(nos.get(i).id() + "#" + v), i};
+            }
+        }
+        Arrays.sort(pares, Comparator.<long[]>comparingLong(p -> p[0]).thenComparingLong(p -> p[1]));
+        this.pontos = new long[total];
+        this.donos = new int[total];
+        for (int k = 0; k < total; k++) {
+            pontos[k] = pares[k][0];
+            donos[k] = (int) pares[k][1];
+        }
+    }
+
+    No dono(String usuarioId) {
+        int i = Arrays.binarySearch(pontos, hash(usuarioId));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return nos.get(donos[i == pontos.length ? 0 : i]);
+    }
+
+    List<No> nos() {
+        return nos;
+    }
+
+    // FNV-1a nos bytes UTF-8 + finalizador do MurmurHash3 para espalhar bem
+    // ids parecidos ("usuario1", "usuario2", ...) pelo anel
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,117 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+// Exercita o caminho quente da decisão (JSON -> validação -> regras ->
+// comportamento -> JSON) antes de a aplicação se declarar pronta: o Spring só
+// publica o readiness (ACCEPTING_TRAFFIC) depois dos ApplicationRunner, então
+// as primeiras requisições reais já encontram esse código compilado pelo JIT.
+// Roda numa instância avulsa do analisador: não toca nas métricas nem nas
+// janelas dos usuários de verdade, e não consulta o ML. No fim grava algumas
+// transações numa transação desfeita com rollback: o primeiro persist do
+// Hibernate carrega muitas classes e custava quase 1 s à primeira requisição.
+// Pelo mesmo motivo abre aqui o HttpClient do ML, que é preguiçoso.
+// O bean existe sempre e a propriedade é lida na execução: no build AOT um
+// @ConditionalOnProperty seria avaliado uma vez só, com os valores do build.
+@Service
+public class AquecimentoJit implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AquecimentoJit.class);
+    private static final int GRAVACOES = 50;
+    private static final String[] TIPOS = {"PIX", "CARTAO", "BOLETO", "TED", "DOC"};
+
+    private final boolean habilitado;
+    private final AnalisadorRiscoService analisador;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MlFraudeClient mlClient;
+    private final int iteracoes;
+    private final Duration tempoMaximo;
+
+    public AquecimentoJit(@Value("${antifraude.aquecimento.habilitado:false}") boolean habilitado,
+                          @Autowired(required = false) MotorRegras motorRegras,
+                          ObjectMapper objectMapper,
+                          Validator validator,
+                          TransacaoRepository repository,
+                          TransactionTemplate transactionTemplate,
+                          @Autowired(required = false) MlFraudeClient mlClient,
+                          @Value("${antifraude.aquecimento.iteracoes:20000}") int iteracoes,
+                          @Value("${antifraude.aquecimento.tempo-maximo:10s}") Duration tempoMaximo) {
+        this.habilitado = habilitado;
+        this.analisador = new AnalisadorRiscoService(motorRegras,
+                new ComportamentoUsuarioService(null, new TransactionTemplate(), 1_000));
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.mlClient = mlClient;
+        this.iteracoes = iteracoes;
+        this.tempoMaximo = tempoMaximo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        if (mlClient != null) {
+            mlClient.abrirConexao();
+        }
+        long limite = inicio + tempoMaximo.toNanos();
+        SplittableRandom r = new SplittableRandom(42);
+        LocalDateTime base = LocalDateTime.now().minusDays(7);
+        int feitas = 0;
+        for (; feitas < iteracoes && System.nanoTime() < limite; feitas++) {
+            decidir(r, base.plusSeconds(feitas * 30L + r.nextInt(30)));
+        }
+
+        // só o rollback: a sequência avança, mas nenhuma linha fica gravada
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < GRAVACOES; i++) {
+                repository.save(decidir(r, LocalDateTime.now()));
+            }
+            repository.flush();
+            status.setRollbackOnly();
+        });
+        log.info("Aquecimento do JIT: {} decisões em {} ms", feitas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Valores e horários espalhados por todas as faixas das regras;
+    // 500 usuários para a janela de comportamento pontuar também
+    private Transacao decidir(SplittableRandom r, LocalDateTime dataHora) {
+        Transacao t = new Transacao();
+        t.setUsuarioId("aquecimento" + r.nextInt(500));
+        t.setValor(r.nextInt(100) < 70 ? 10 + r.nextDouble() * 490 : 500 + r.nextDouble() * 24_500);
+        t.setTipo(TIPOS[r.nextInt(TIPOS.length)]);
+        try {
+            Transacao lida = objectMapper.readValue(objectMapper.writeValueAsBytes(t), Transacao.class);
+            validator.validate(lida);
+            lida.setDataHora(dataHora);
+            analisador.analisar(lida);
+            objectMapper.writeValueAsBytes(lida);
+            return lida;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
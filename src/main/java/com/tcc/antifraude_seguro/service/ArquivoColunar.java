@@ -0,0 +1,501 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.config.ArquivoColunarProperties;
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.dto.GrupoArquivo;
+import com.tcc.antifraude_seguro.dto.LinhaArquivo;
+import com.tcc.antifraude_seguro.dto.PaginaArquivo;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoJdbc;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Arquivo histórico em colunas para consultas analíticas e reavaliações, fora
+// do caminho do JPA. A exportação lê o banco pelo cursor (dataHora, id) e
+// grava segmentos de até linhasPorSegmento linhas (ver EscritorSegmento);
+// as consultas varrem os segmentos mapeados em memória, em paralelo, sem
+// criar objeto por linha. usuarioId vira um id do dicionário global
+// usuarios.dic, que só cresce.
+// Um segmento só aparece depois de gravado por inteiro (diretório .tmp
+// renomeado no fim), então uma exportação interrompida não deixa nada pela metade.
+@Service
+public class ArquivoColunar {
+
+    private static final Logger log = LoggerFactory.getLogger(ArquivoColunar.class);
+    private static final Pattern NOME_SEGMENTO = Pattern.compile("segmento-\\d{6}");
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final long MS_DIA = 86_400_000L;
+    private static final String DICIONARIO = "usuarios.dic";
+
+    public enum Agrupamento { NENHUM, STATUS, TIPO, USUARIO, DIA }
+
+    // Varredura em processo (ex.: reavaliar regras sobre o histórico).
+    // valor/score NaN = null; tipo e status vêm dos dicionários (sem cópia)
+    public interface VisitanteLinha {
+        void linha(long id, int usuario, long dataHoraMs, double valor, double score, String tipo, String status);
+    }
+
+    // Filtro já traduzido: usuario -1 = qualquer um, -2 = não está no arquivo
+    private record Consulta(int usuario, String status, String tipo, long deMs, long ateMs) {}
+
+    private final ArquivoColunarProperties props;
+    private final TransacaoJdbc jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    // Só a exportação escreve (sob o lock do objeto); as consultas leem os snapshots voláteis
+    private final Map<String, Integer> idsUsuarios = new ConcurrentHashMap<>();
+    private final List<String> nomesUsuarios = new ArrayList<>();
+    private int usuariosGravados;
+    private volatile String[] usuarios = new String[0];
+    private volatile List<SegmentoColunar> segmentos = List.of();
+    private LocalDateTime cursorDataHora = INICIO;
+    private long cursorId;
+
+    public ArquivoColunar(ArquivoColunarProperties props,
+                          TransacaoJdbc jdbc,
+                          TransactionTemplate transactionTemplate) {
+        this.props = props;
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public synchronized void abrir() throws IOException {
+        idsUsuarios.clear();
+        nomesUsuarios.clear();
+        segmentos = List.of();
+        usuarios = new String[0];
+        cursorDataHora = INICIO;
+        cursorId = 0;
+        Path diretorio = props.diretorio();
+        if (!Files.isDirectory(diretorio)) {
+            return;
+        }
+
+        List<Path> encontrados = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path p : (Iterable<Path>) arquivos::iterator) {
+                String nome = p.getFileName().toString();
+                if (nome.endsWith(".tmp")) apagar(p);
+                else if (NOME_SEGMENTO.matcher(nome).matches()) encontrados.add(p);
+            }
+        }
+        encontrados.sort(Comparator.naturalOrder());
+        lerDicionario(diretorio.resolve(DICIONARIO));
+
+        List<SegmentoColunar> abertos = new ArrayList<>();
+        for (Path p : encontrados) {
+            abertos.add(new SegmentoColunar(p));
+        }
+        segmentos = List.copyOf(abertos);
+        if (!abertos.isEmpty()) {
+            SegmentoColunar ultimo = abertos.get(abertos.size() - 1);
+            cursorDataHora = ultimo.cursorDataHora;
+            cursorId = ultimo.cursorId;
+        }
+        log.info("Arquivo colunar com {} segmentos e {} linhas", abertos.size(), linhas());
+    }
+
+    // Arquiva o que entrou no banco desde a última exportação (até agora - margem)
+    public synchronized long exportarDoBanco() {
+        LocalDateTime ate = LocalDateTime.now().minus(props.margem());
+        EscritorSegmento escritor = new EscritorSegmento(props.linhasPorSegmento());
+        long[] total = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbc.percorrerParaArquivo(
+                    cursorDataHora, cursorId, ate, rs -> {
+                        LocalDateTime dataHora = rs.getTimestamp(5).toLocalDateTime();
+                        adicionar(escritor, rs.getLong(1), rs.getString(2), dataHora,
+                                decimal(rs, 3), decimal(rs, 7), rs.getString(4), rs.getString(6));
+                        total[0]++;
+                    }));
+            if (escritor.linhas() > 0) {
+                fecharSegmento(escritor);
+            }
+        } catch (RuntimeException e) {
+            recarregar();
+            throw e;
+        }
+        return total[0];
+    }
+
+    // Arquiva transações de outra fonte; precisam vir na ordem (dataHora, id),
+    // depois de tudo que já está no arquivo
+    public synchronized long arquivar(Iterable<Transacao> transacoes) {
+        EscritorSegmento escritor = new EscritorSegmento(props.linhasPorSegmento());
+        long total = 0;
+        try {
+            for (Transacao t : transacoes) {
+                if (t.getId() == null || t.getDataHora() == null) {
+                    throw new IllegalArgumentException("Transação sem id ou dataHora não pode ser arquivada");
+                }
+                adicionar(escritor, t.getId(), t.getUsuarioId(), t.getDataHora(),
+                        t.getValor() != null ? t.getValor() : Double.NaN,
+                        t.getScoreRisco() != null ? t.getScoreRisco() : Double.NaN,
+                        t.getTipo(), t.getStatus());
+                total++;
+            }
+            if (escritor.linhas() > 0) {
+                fecharSegmento(escritor);
+            }
+        } catch (RuntimeException e) {
+            recarregar();
+            throw e;
+        }
+        return total;
+    }
+
+    public List<GrupoArquivo> agregar(FiltroTransacoes filtro, Agrupamento agrupamento, int limite) {
+        Consulta consulta = compilar(filtro);
+        String[] nomes = usuarios;
+        record Parcial(SegmentoColunar segmento, MapaGrupos grupos) {}
+        List<Parcial> parciais = segmentos.parallelStream()
+                .map(s -> new Parcial(s, agregarSegmento(s, consulta, agrupamento)))
+                .toList();
+
+        Map<String, double[]> grupos = new HashMap<>();
+        for (Parcial p : parciais) {
+            p.grupos().percorrer((chave, quantidade, valorTotal, valorMinimo, valorMaximo, somaScore, quantidadeScore) -> {
+                String rotulo = switch (agrupamento) {
+                    case NENHUM -> "total";
+                    case STATUS -> p.segmento().nomeStatus((int) chave);
+                    case TIPO -> p.segmento().nomeTipo((int) chave);
+                    case USUARIO -> nomes[(int) chave];
+                    case DIA -> LocalDate.ofEpochDay(chave).toString();
+                };
+                double[] g = grupos.computeIfAbsent(rotulo, r -> new double[]{
+                        0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0});
+                g[0] += quantidade;
+                g[1] += valorTotal;
+                g[2] = Math.min(g[2], valorMinimo);
+                g[3] = Math.max(g[3], valorMaximo);
+                g[4] += somaScore;
+                g[5] += quantidadeScore;
+            });
+        }
+
+        Comparator<GrupoArquivo> ordem = agrupamento == Agrupamento.DIA
+                ? Comparator.comparing(GrupoArquivo::grupo)
+                : Comparator.comparingLong(GrupoArquivo::quantidade).reversed()
+                        .thenComparing(GrupoArquivo::grupo, Comparator.nullsFirst(Comparator.naturalOrder()));
+        return grupos.entrySet().stream()
+                .map(e -> {
+                    double[] g = e.getValue();
+                    boolean temValor = g[2] <= g[3];
+                    return new GrupoArquivo(e.getKey(), (long) g[0], g[1],
+                            temValor ? g[2] : 0, temValor ? g[3] : 0, g[5] > 0 ? g[4] / g[5] : null);
+                })
+                .sorted(ordem)
+                .limit(limite)
+                .toList();
+    }
+
+    // Linhas na ordem do arquivo; "apos" é a posição da última linha já vista (0 = início)
+    public PaginaArquivo buscar(FiltroTransacoes filtro, long apos, int limite) {
+        Consulta consulta = compilar(filtro);
+        String[] nomes = usuarios;
+        List<LinhaArquivo> itens = new ArrayList<>();
+        long[] ultimaPosicao = {apos};
+        boolean haMais = false;
+        long base = 0;
+        for (SegmentoColunar s : segmentos) {
+            if (base + s.linhas > apos) {
+                long inicioSegmento = base;
+                // Busca uma linha a mais só para saber se existe próxima página
+                haMais = !varrerSegmento(s, consulta, (int) Math.max(0, apos - base), i -> {
+                    if (itens.size() == limite) return false;
+                    itens.add(linha(s, i, nomes));
+                    ultimaPosicao[0] = inicioSegmento + i + 1;
+                    return true;
+                });
+                if (haMais) break;
+            }
+            base += s.linhas;
+        }
+        return new PaginaArquivo(itens, haMais ? ultimaPosicao[0] : null);
+    }
+
+    // Percorre, na ordem do arquivo, as linhas que passam no filtro
+    public long varrer(FiltroTransacoes filtro, VisitanteLinha visitante) {
+        Consulta consulta = compilar(filtro);
+        long[] total = {0};
+        for (SegmentoColunar s : segmentos) {
+            varrerSegmento(s, consulta, 0, i -> {
+                visitante.linha(s.id(i), s.usuario(i), s.dataHora(i), s.valor(i), s.score(i),
+                        s.nomeTipo(s.tipo(i)), s.nomeStatus(s.status(i)));
+                total[0]++;
+                return true;
+            });
+        }
+        return total[0];
+    }
+
+    public String usuario(int id) {
+        return usuarios[id];
+    }
+
+    public Map<String, Object> resumo() {
+        List<SegmentoColunar> atuais = segmentos;
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("segmentos", atuais.size());
+        resumo.put("linhas", atuais.stream().mapToLong(s -> s.linhas).sum());
+        resumo.put("bytes", atuais.stream().mapToLong(SegmentoColunar::bytes).sum());
+        resumo.put("usuarios", usuarios.length);
+        if (!atuais.isEmpty()) {
+            SegmentoColunar ultimo = atuais.get(atuais.size() - 1);
+            resumo.put("arquivadoAte", Map.of("dataHora", ultimo.cursorDataHora, "id", ultimo.cursorId));
+        }
+        return resumo;
+    }
+
+    public long linhas() {
+        return segmentos.stream().mapToLong(s -> s.linhas).sum();
+    }
+
+    // Laço próprio (sem lambda por linha); status, tipo e "total" somam direto
+    // em arrays indexados pelo código do dicionário
+    private MapaGrupos agregarSegmento(SegmentoColunar s, Consulta consulta, Agrupamento agrupamento) {
+        MapaGrupos grupos = switch (agrupamento) {
+            case NENHUM -> MapaGrupos.direto(1);
+            case STATUS -> MapaGrupos.direto(s.tamanhoDicionarioStatus());
+            case TIPO -> MapaGrupos.direto(s.tamanhoDicionarioTipo());
+            case USUARIO, DIA -> new MapaGrupos();
+        };
+        Recorte r = recortar(s, consulta, 0);
+        if (r == null) {
+            return grupos;
+        }
+        for (int i = r.inicio(); i < r.fim(); i++) {
+            if (!r.passa(s, i)) continue;
+            long chave = switch (agrupamento) {
+                case NENHUM -> 0;
+                case STATUS -> s.status(i);
+                case TIPO -> s.tipo(i);
+                case USUARIO -> s.usuario(i);
+                case DIA -> Math.floorDiv(s.dataHora(i), MS_DIA);
+            };
+            grupos.somar(chave, s.valor(i), s.score(i));
+        }
+        return grupos;
+    }
+
+    // Faixa de linhas de um segmento e filtros traduzidos para os códigos dele
+    // (-1 = não filtra), comparados sem decodificar strings
+    private record Recorte(int inicio, int fim, int usuario, int status, int tipo) {
+        boolean passa(SegmentoColunar s, int i) {
+            return (usuario < 0 || s.usuario(i) == usuario)
+                    && (status < 0 || s.status(i) == status)
+                    && (tipo < 0 || s.tipo(i) == tipo);
+        }
+    }
+
+    // O período vira uma faixa de linhas por busca binária (a coluna está
+    // ordenada); null se nada do segmento pode passar no filtro
+    private static Recorte recortar(SegmentoColunar s, Consulta consulta, int primeira) {
+        if (consulta.usuario() == -2 || consulta.ateMs() <= s.dataMinima || consulta.deMs() > s.dataMaxima) {
+            return null;
+        }
+        int status = consulta.status() == null ? -1 : s.codigoStatus(consulta.status());
+        int tipo = consulta.tipo() == null ? -1 : s.codigoTipo(consulta.tipo());
+        if ((consulta.status() != null && status < 0) || (consulta.tipo() != null && tipo < 0)) {
+            return null;
+        }
+        int inicio = Math.max(primeira, consulta.deMs() == Long.MIN_VALUE ? 0 : s.primeiraLinhaDesde(consulta.deMs()));
+        int fim = consulta.ateMs() == Long.MAX_VALUE ? s.linhas : s.primeiraLinhaDesde(consulta.ateMs());
+        return new Recorte(inicio, fim, consulta.usuario(), status, tipo);
+    }
+
+    // A ação devolve false para parar; o retorno diz se a varredura foi até o fim
+    private static boolean varrerSegmento(SegmentoColunar s, Consulta consulta, int primeira, IntPredicate acao) {
+        Recorte r = recortar(s, consulta, primeira);
+        if (r == null) {
+            return true;
+        }
+        for (int i = r.inicio(); i < r.fim(); i++) {
+            if (r.passa(s, i) && !acao.test(i)) return false;
+        }
+        return true;
+    }
+
+    private Consulta compilar(FiltroTransacoes filtro) {
+        int usuario = -1;
+        if (filtro.usuarioId() != null) {
+            Integer id = idsUsuarios.get(filtro.usuarioId());
+            usuario = id != null && id < usuarios.length ? id : -2;
+        }
+        return new Consulta(usuario, filtro.status(), filtro.tipo(),
+                filtro.de() != null ? emMs(filtro.de()) : Long.MIN_VALUE,
+                filtro.ate() != null ? emMs(filtro.ate()) : Long.MAX_VALUE);
+    }
+
+    private void adicionar(EscritorSegmento escritor, long id, String usuarioId, LocalDateTime dataHora,
+                           double valor, double score, String tipo, String status) {
+        int ordem = dataHora.compareTo(cursorDataHora);
+        if (ordem < 0 || (ordem == 0 && id <= cursorId)) {
+            throw new IllegalArgumentException("Transação " + id + " fora da ordem (dataHora, id) do arquivo");
+        }
+        if (escritor.cheio()) {
+            fecharSegmento(escritor);
+            escritor.limpar();
+        }
+        escritor.adicionar(id, internar(usuarioId != null ? usuarioId : ""), dataHora, emMs(dataHora),
+                valor, score, tipo, status);
+        cursorDataHora = dataHora;
+        cursorId = id;
+    }
+
+    private int internar(String usuarioId) {
+        Integer id = idsUsuarios.get(usuarioId);
+        if (id == null) {
+            id = nomesUsuarios.size();
+            nomesUsuarios.add(usuarioId);
+            idsUsuarios.put(usuarioId, id);
+        }
+        return id;
+    }
+
+    // Dicionário primeiro (com fsync), segmento depois: um segmento nunca
+    // referencia usuário que não esteja no disco
+    private void fecharSegmento(EscritorSegmento escritor) {
+        try {
+            Path diretorio = props.diretorio();
+            Files.createDirectories(diretorio);
+            gravarDicionario(diretorio.resolve(DICIONARIO));
+
+            String nome = String.format("segmento-%06d", segmentos.size() + 1);
+            Path temporario = diretorio.resolve(nome + ".tmp");
+            Path destino = diretorio.resolve(nome);
+            escritor.gravar(temporario, nomesUsuarios.size());
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+
+            List<SegmentoColunar> novos = new ArrayList<>(segmentos);
+            novos.add(new SegmentoColunar(destino));
+            usuarios = nomesUsuarios.toArray(String[]::new);
+            segmentos = List.copyOf(novos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Registros [tamanho u16][UTF-8], só anexados
+    private void gravarDicionario(Path arquivo) throws IOException {
+        if (usuariosGravados == nomesUsuarios.size()) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)))) {
+            for (int i = usuariosGravados; i < nomesUsuarios.size(); i++) {
+                byte[] nome = nomesUsuarios.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(nome.length);
+                out.write(nome);
+            }
+            out.flush();
+            canal.force(false);
+        }
+        usuariosGravados = nomesUsuarios.size();
+    }
+
+    // Um registro cortado no fim (queda no meio da gravação) é descartado:
+    // nenhum segmento confirmado chegou a usá-lo
+    private void lerDicionario(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return;
+        }
+        long valido = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            while (true) {
+                int tamanho;
+                try {
+                    tamanho = in.readUnsignedShort();
+                } catch (EOFException fim) {
+                    break;
+                }
+                byte[] nome = new byte[tamanho];
+                try {
+                    in.readFully(nome);
+                } catch (EOFException cortado) {
+                    break;
+                }
+                internar(new String(nome, StandardCharsets.UTF_8));
+                valido += 2 + tamanho;
+            }
+        }
+        if (valido < Files.size(arquivo)) {
+            log.warn("Dicionário {} com registro incompleto no fim, descartado", arquivo);
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                canal.truncate(valido);
+            }
+        }
+        usuariosGravados = nomesUsuarios.size();
+        usuarios = nomesUsuarios.toArray(String[]::new);
+    }
+
+    private void recarregar() {
+        try {
+            abrir();
+        } catch (IOException e) {
+            log.error("Falha ao reabrir o arquivo colunar", e);
+        }
+    }
+
+    private static LinhaArquivo linha(SegmentoColunar s, int i, String[] nomes) {
+        double valor = s.valor(i);
+        double score = s.score(i);
+        return new LinhaArquivo(s.id(i), nomes[s.usuario(i)], Double.isNaN(valor) ? null : valor,
+                s.nomeTipo(s.tipo(i)), LocalDateTime.ofInstant(Instant.ofEpochMilli(s.dataHora(i)), ZoneOffset.UTC),
+                s.nomeStatus(s.status(i)), Double.isNaN(score) ? null : score);
+    }
+
+    private static double decimal(ResultSet rs, int coluna) throws SQLException {
+        double v = rs.getDouble(coluna);
+        return rs.wasNull() ? Double.NaN : v;
+    }
+
+    // dataHora é LocalDateTime sem fuso: guardada como se fosse UTC, ida e volta sem ambiguidade
+    private static long emMs(LocalDateTime dataHora) {
+        return dataHora.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void apagar(Path caminho) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(caminho)) {
+            for (Path p : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
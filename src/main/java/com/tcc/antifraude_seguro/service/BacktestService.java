@@ -0,0 +1,375 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.config.BacktestProperties;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.RequisicaoBacktest;
+import com.tcc.antifraude_seguro.dto.RespostaBacktest;
+import com.tcc.antifraude_seguro.dto.ResultadoBacktest;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.TipoTransacao;
+import com.tcc.antifraude_seguro.repository.TransacaoJdbc;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+// Reavalia o histórico com N configurações de regras numa única passada:
+// o período é carregado uma vez em colunas (DadosBacktest) e dividido em
+// blocos num pool fork/join; cada bloco avalia todas as configurações sobre
+// as suas linhas e devolve contadores, somados na volta.
+// Configurações que só mudam a seção "decisao" (a grade) compartilham o
+// score das regras: ele é calculado uma vez por linha e só os cortes e a
+// combinação com o ML variam.
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+    private static final int GRUPO_ML = 1024;
+    private static final int TAMANHO_UPDATE = 1000;
+    // contadores por configuração: 3 decisões x 3 rótulos
+    private static final int CONTADORES = 9;
+
+    private final TransacaoJdbc jdbc;
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MotorRegras motorRegras;
+    private final ObjectProvider<ClassificadorFraude> classificador;
+    private final BacktestProperties props;
+    private final ForkJoinPool pool;
+    private final Semaphore emExecucao = new Semaphore(1);
+
+    public BacktestService(TransacaoJdbc jdbc,
+                           TransacaoRepository repository,
+                           TransactionTemplate transactionTemplate,
+                           MotorRegras motorRegras,
+                           ObjectProvider<ClassificadorFraude> classificador,
+                           BacktestProperties props) {
+        this.jdbc = jdbc;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.motorRegras = motorRegras;
+        this.classificador = classificador;
+        this.props = props;
+        this.pool = new ForkJoinPool(props.paralelismo() > 0
+                ? props.paralelismo() : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pool.shutdownNow();
+    }
+
+    private record Configuracao(String origem, ConjuntoRegras regras) {}
+
+    // Configurações com as mesmas regras de pontuação (só a decisão muda)
+    private record Grupo(ConjuntoRegras regras, ConjuntoRegras[] variantes, int[] indices) {}
+
+    public RespostaBacktest executar(RequisicaoBacktest requisicao) {
+        // O pool já usa todos os núcleos: um segundo backtest só dividiria a máquina
+        if (!emExecucao.tryAcquire()) {
+            throw new SobrecargaException("Já existe um backtest em execução");
+        }
+        try {
+            long inicio = System.nanoTime();
+            List<Configuracao> configuracoes = montarConfiguracoes(requisicao);
+            List<Grupo> grupos = agrupar(configuracoes);
+
+            LocalDateTime ate = requisicao.ate() != null ? requisicao.ate() : LocalDateTime.now();
+            LocalDateTime de = requisicao.de() != null ? requisicao.de() : ate.minusDays(30);
+            DadosBacktest dados = carregar(de, ate);
+
+            ClassificadorFraude modelo = classificador.getIfAvailable();
+            boolean ml = !Boolean.FALSE.equals(requisicao.usarMl()) && modelo != null;
+            if (ml) {
+                consultarMl(modelo, dados);
+            }
+
+            int folha = Math.max(props.tamanhoBloco(), dados.linhas / (pool.getParallelism() * 8) + 1);
+            Acumulado total = dados.linhas == 0
+                    ? new Acumulado(configuracoes.size())
+                    : pool.invoke(new Bloco(dados, grupos, configuracoes.size(), 0, dados.linhas, folha));
+
+            long rotuladas = 0, fraudes = 0;
+            for (int i = 0; i < dados.linhas; i++) {
+                if (dados.rotulo[i] != DadosBacktest.SEM_ROTULO) rotuladas++;
+                if (dados.rotulo[i] == DadosBacktest.FRAUDE) fraudes++;
+            }
+            List<ResultadoBacktest> resultados = new ArrayList<>(configuracoes.size());
+            for (int k = 0; k < configuracoes.size(); k++) {
+                resultados.add(resultado(k, configuracoes.get(k), total, dados.linhas, fraudes));
+            }
+            long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+            log.info("Backtest: {} configurações x {} linhas em {} ms", configuracoes.size(), dados.linhas, duracaoMs);
+            return new RespostaBacktest(dados.linhas, rotuladas, fraudes, ml, duracaoMs, resultados);
+        } finally {
+            emExecucao.release();
+        }
+    }
+
+    // Grava os rótulos (desfecho conhecido) em blocos, para não estourar o IN
+    public int rotular(List<Long> fraudes, List<Long> legitimas) {
+        int atualizadas = 0;
+        for (int i = 0; fraudes != null && i < fraudes.size(); i += TAMANHO_UPDATE) {
+            atualizadas += repository.rotular(fraudes.subList(i, Math.min(i + TAMANHO_UPDATE, fraudes.size())), true);
+        }
+        for (int i = 0; legitimas != null && i < legitimas.size(); i += TAMANHO_UPDATE) {
+            atualizadas += repository.rotular(legitimas.subList(i, Math.min(i + TAMANHO_UPDATE, legitimas.size())), false);
+        }
+        return atualizadas;
+    }
+
+    private List<Configuracao> montarConfiguracoes(RequisicaoBacktest requisicao) {
+        DefinicaoRegras base = requisicao.base() != null ? requisicao.base() : motorRegras.atual().definicao();
+        List<DefinicaoRegras> candidatos = requisicao.candidatos() != null ? requisicao.candidatos() : List.of();
+        RequisicaoBacktest.Grade grade = requisicao.grade();
+        if (base.decisao() == null) {
+            throw new RequisicaoInvalidaException("Seção 'decisao' ausente na base");
+        }
+
+        List<Configuracao> configuracoes = new ArrayList<>();
+        if (grade == null && candidatos.isEmpty()) {
+            configuracoes.add(new Configuracao("base", ConjuntoRegras.compilar(base, 1)));
+            return configuracoes;
+        }
+        if (grade != null) {
+            DefinicaoRegras.Decisao d = base.decisao();
+            List<Double> bloqueios = valores(grade.limiteBloqueio(), d.limiteBloqueio());
+            List<Double> revisoes = valores(grade.limiteRevisao(), d.limiteRevisao());
+            List<Double> pesosRegras = valores(grade.pesoRegras(), d.pesoRegras());
+            List<Double> pesosMl = valores(grade.pesoMl(), d.pesoMl());
+            long combinacoes = (long) bloqueios.size() * revisoes.size() * pesosRegras.size() * pesosMl.size();
+            verificarLimite(combinacoes + candidatos.size());
+            for (double bloqueio : bloqueios) {
+                for (double revisao : revisoes) {
+                    // corte de revisão acima do de bloqueio não é configuração válida
+                    if (revisao > bloqueio) continue;
+                    for (double pesoRegras : pesosRegras) {
+                        for (double pesoMl : pesosMl) {
+                            DefinicaoRegras.Decisao decisao = new DefinicaoRegras.Decisao(bloqueio, revisao, pesoRegras, pesoMl);
+                            configuracoes.add(new Configuracao("grade", ConjuntoRegras.compilar(comDecisao(base, decisao), 1)));
+                        }
+                    }
+                }
+            }
+        }
+        verificarLimite(configuracoes.size() + candidatos.size());
+        for (int i = 0; i < candidatos.size(); i++) {
+            try {
+                configuracoes.add(new Configuracao("candidato", ConjuntoRegras.compilar(candidatos.get(i), 1)));
+            } catch (IllegalArgumentException e) {
+                throw new RequisicaoInvalidaException("Candidato " + i + ": " + e.getMessage());
+            }
+        }
+        if (configuracoes.isEmpty()) {
+            throw new RequisicaoInvalidaException("Nenhuma configuração válida na grade");
+        }
+        return configuracoes;
+    }
+
+    private void verificarLimite(long configuracoes) {
+        if (configuracoes > props.maximoConfiguracoes()) {
+            throw new RequisicaoInvalidaException("Configurações demais: " + configuracoes
+                    + " (máximo " + props.maximoConfiguracoes() + ")");
+        }
+    }
+
+    private static List<Double> valores(List<Double> lista, double padrao) {
+        return lista == null || lista.isEmpty() ? List.of(padrao) : lista;
+    }
+
+    private static DefinicaoRegras comDecisao(DefinicaoRegras d, DefinicaoRegras.Decisao decisao) {
+        return new DefinicaoRegras(d.versao(), d.valor(), d.horario(), d.tipo(), d.diaSemana(), d.comportamento(),
+                d.rede(), decisao);
+    }
+
+    // Chave do grupo: a definição sem versão e sem a seção de decisão
+    private static List<Grupo> agrupar(List<Configuracao> configuracoes) {
+        Map<DefinicaoRegras, List<Integer>> porPontuacao = new LinkedHashMap<>();
+        for (int k = 0; k < configuracoes.size(); k++) {
+            DefinicaoRegras d = configuracoes.get(k).regras().definicao();
+            DefinicaoRegras chave = new DefinicaoRegras(null, d.valor(), d.horario(), d.tipo(),
+                    d.diaSemana(), d.comportamento(), d.rede(), null);
+            porPontuacao.computeIfAbsent(chave, c -> new ArrayList<>()).add(k);
+        }
+        List<Grupo> grupos = new ArrayList<>();
+        for (List<Integer> indices : porPontuacao.values()) {
+            ConjuntoRegras[] variantes = new ConjuntoRegras[indices.size()];
+            int[] posicoes = new int[indices.size()];
+            for (int v = 0; v < variantes.length; v++) {
+                posicoes[v] = indices.get(v);
+                variantes[v] = configuracoes.get(posicoes[v]).regras();
+            }
+            grupos.add(new Grupo(variantes[0], variantes, posicoes));
+        }
+        return grupos;
+    }
+
+    private DadosBacktest carregar(LocalDateTime de, LocalDateTime ate) {
+        DadosBacktest dados = new DadosBacktest();
+        transactionTemplate.executeWithoutResult(status -> jdbc.percorrerParaBacktest(de, ate, rs -> {
+            if (dados.linhas == props.maximoLinhas()) {
+                throw new RequisicaoInvalidaException("Mais de " + props.maximoLinhas()
+                        + " transações no período; reduza o intervalo");
+            }
+            LocalDateTime dataHora = rs.getTimestamp(3).toLocalDateTime();
+            TipoTransacao tipo = TipoTransacao.deCodigo(rs.getString(2));
+            int ultimoMinuto = inteiro(rs, 4, Integer.MIN_VALUE);
+            int ultimaHora = inteiro(rs, 5, -1);
+            double habitual = rs.getDouble(6);
+            if (rs.wasNull()) habitual = Double.NaN;
+            long segundos = rs.getLong(7);
+            if (rs.wasNull()) segundos = Long.MAX_VALUE;
+            boolean fraude = rs.getBoolean(8);
+            byte rotulo = rs.wasNull() ? DadosBacktest.SEM_ROTULO : fraude ? DadosBacktest.FRAUDE : DadosBacktest.LEGITIMA;
+            double rede = rs.getDouble(9); // null vira 0
+
+            // Sem nenhuma característica o Hibernate carrega o retrato como null
+            // e o comportamento não pontua; com só algumas, minuto ausente vale 0
+            boolean semCaracteristicas = ultimoMinuto == Integer.MIN_VALUE && ultimaHora < 0
+                    && Double.isNaN(habitual) && segundos == Long.MAX_VALUE;
+            if (!semCaracteristicas && ultimoMinuto == Integer.MIN_VALUE) ultimoMinuto = 0;
+
+            dados.adicionar(rs.getDouble(1), dataHora.getHour(), dataHora.getDayOfWeek().ordinal(),
+                    tipo != null ? tipo.ordinal() : -1,
+                    semCaracteristicas ? DadosBacktest.SEM_CARACTERISTICAS : ultimoMinuto,
+                    ultimaHora, habitual, segundos, rede, rotulo);
+        }));
+        return dados;
+    }
+
+    private static int inteiro(ResultSet rs, int coluna, int seNulo) throws SQLException {
+        int v = rs.getInt(coluna);
+        return rs.wasNull() ? seNulo : v;
+    }
+
+    // A probabilidade só depende da transação (não da configuração): uma
+    // consulta por linha, em grupos, antes da passada. Grupo sem resposta
+    // fica NaN e cai em REVISAO, como na decisão em produção
+    private static void consultarMl(ClassificadorFraude modelo, DadosBacktest dados) {
+        for (int inicio = 0; inicio < dados.linhas; inicio += GRUPO_ML) {
+            int n = Math.min(GRUPO_ML, dados.linhas - inicio);
+            double[] valores = new double[n];
+            System.arraycopy(dados.valor, inicio, valores, 0, n);
+            double[] probabilidades = modelo.obterProbabilidadesFraude(valores);
+            if (probabilidades != null) {
+                System.arraycopy(probabilidades, 0, dados.probabilidade, inicio, n);
+            }
+        }
+    }
+
+    private static ResultadoBacktest resultado(int k, Configuracao configuracao, Acumulado total,
+                                               long linhas, long fraudes) {
+        long[] c = total.contagens;
+        int b = k * CONTADORES;
+        long aprovadas = c[b] + c[b + 1] + c[b + 2];
+        long revisao = c[b + 3] + c[b + 4] + c[b + 5];
+        long bloqueadas = c[b + 6] + c[b + 7] + c[b + 8];
+        ResultadoBacktest.MatrizConfusao matriz = new ResultadoBacktest.MatrizConfusao(
+                c[b + 6 + DadosBacktest.FRAUDE], c[b + 6 + DadosBacktest.LEGITIMA],
+                c[b + DadosBacktest.FRAUDE], c[b + DadosBacktest.LEGITIMA],
+                c[b + 3 + DadosBacktest.FRAUDE], c[b + 3 + DadosBacktest.LEGITIMA]);
+        long positivos = matriz.verdadeirosPositivos() + matriz.falsosPositivos();
+        return new ResultadoBacktest(k, configuracao.origem(), configuracao.regras().definicao().decisao(),
+                aprovadas, revisao, bloqueadas,
+                linhas > 0 ? (double) bloqueadas / linhas : 0,
+                linhas > 0 ? (double) revisao / linhas : 0,
+                total.valores[k * 2], total.valores[k * 2 + 1], matriz,
+                positivos > 0 ? (double) matriz.verdadeirosPositivos() / positivos : null,
+                fraudes > 0 ? (double) matriz.verdadeirosPositivos() / fraudes : null);
+    }
+
+    // Contadores de um bloco: [config * 9 + decisão * 3 + rótulo] e, por
+    // configuração, valor bloqueado e valor de fraude bloqueado
+    private static final class Acumulado {
+        final long[] contagens;
+        final double[] valores;
+
+        Acumulado(int configuracoes) {
+            contagens = new long[configuracoes * CONTADORES];
+            valores = new double[configuracoes * 2];
+        }
+
+        Acumulado somar(Acumulado outro) {
+            for (int i = 0; i < contagens.length; i++) contagens[i] += outro.contagens[i];
+            for (int i = 0; i < valores.length; i++) valores[i] += outro.valores[i];
+            return this;
+        }
+    }
+
+    private static final class Bloco extends RecursiveTask<Acumulado> {
+        private final DadosBacktest dados;
+        private final List<Grupo> grupos;
+        private final int configuracoes;
+        private final int inicio;
+        private final int fim;
+        private final int folha;
+
+        Bloco(DadosBacktest dados, List<Grupo> grupos, int configuracoes, int inicio, int fim, int folha) {
+            this.dados = dados;
+            this.grupos = grupos;
+            this.configuracoes = configuracoes;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.folha = folha;
+        }
+
+        @Override
+        protected Acumulado compute() {
+            if (fim - inicio <= folha) {
+                return avaliar();
+            }
+            int meio = (inicio + fim) >>> 1;
+            Bloco esquerda = new Bloco(dados, grupos, configuracoes, inicio, meio, folha);
+            esquerda.fork();
+            Acumulado direita = new Bloco(dados, grupos, configuracoes, meio, fim, folha).compute();
+            return direita.somar(esquerda.join());
+        }
+
+        // Mesma decisão do AnalisadorRiscoService: corte pelo score das regras
+        // e, na zona cinzenta com probabilidade, corte pelo score combinado
+        private Acumulado avaliar() {
+            Acumulado a = new Acumulado(configuracoes);
+            long[] contagens = a.contagens;
+            double[] valores = a.valores;
+            for (Grupo g : grupos) {
+                ConjuntoRegras[] variantes = g.variantes();
+                int[] indices = g.indices();
+                for (int i = inicio; i < fim; i++) {
+                    double score = dados.pontuar(g.regras(), i);
+                    double probabilidade = dados.probabilidade[i];
+                    double valor = dados.valor[i];
+                    int rotulo = dados.rotulo[i];
+                    for (int v = 0; v < variantes.length; v++) {
+                        ConjuntoRegras r = variantes[v];
+                        int decisao = r.indiceDecisao(score);
+                        if (decisao == 1 && !Double.isNaN(probabilidade)) {
+                            decisao = r.indiceDecisao(r.combinar(score, probabilidade));
+                        }
+                        int k = indices[v];
+                        contagens[k * CONTADORES + decisao * 3 + rotulo]++;
+                        if (decisao == 2) {
+                            valores[k * 2] += valor;
+                            if (rotulo == DadosBacktest.FRAUDE) valores[k * 2 + 1] += valor;
+                        }
+                    }
+                }
+            }
+            return a;
+        }
+    }
+}
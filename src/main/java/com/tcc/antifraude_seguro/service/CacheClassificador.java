@@ -0,0 +1,115 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcc.antifraude_seguro.config.CacheMlProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Cache das previsões na frente do classificador (HTTP ou local).
+// Das 29 features só o Amount varia (V1-V28 vão zerados), então a chave é o
+// valor arredondado para a faixa de "passo" reais, e o modelo recebe sempre
+// o valor da faixa: a previsão não depende de qual transação chegou primeiro.
+//   - limite de entradas + validade (Caffeine)
+//   - consultas simultâneas da mesma faixa viram uma só (o futuro é compartilhado)
+//   - null (fallback) não fica no cache: a próxima transação tenta de novo
+//   - troca da versão do modelo descarta tudo
+public class CacheClassificador implements ClassificadorFraude {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheClassificador.class);
+
+    private final ClassificadorFraude modelo;
+    private final double passo;
+    private final AsyncCache<Long, Double> previsoes;
+    private final AtomicReference<String> versao;
+
+    public CacheClassificador(ClassificadorFraude modelo, CacheMlProperties props, MetricasDecisao metricas) {
+        if (!(props.passo() > 0)) {
+            throw new IllegalArgumentException("antifraude.ml.cache.passo deve ser positivo");
+        }
+        this.modelo = modelo;
+        this.passo = props.passo();
+        this.versao = new AtomicReference<>(modelo.versaoModelo());
+        this.previsoes = Caffeine.newBuilder()
+                .maximumSize(props.maximoEntradas())
+                .expireAfterWrite(props.validade())
+                .recordStats()
+                .buildAsync();
+        metricas.registrarCache("ml.previsoes", previsoes);
+    }
+
+    @Override
+    public CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor) {
+        conferirVersao();
+        return previsoes.get(faixa(valor), (faixa, executor) -> modelo.obterProbabilidadeFraudeAsync(faixa * passo));
+    }
+
+    // As faixas que faltam vão numa única consulta em lote ao modelo; se ela
+    // falhar, o grupo todo fica no fallback, como sem cache
+    @Override
+    public double[] obterProbabilidadesFraude(double[] valores) {
+        conferirVersao();
+        List<Long> faixas = new ArrayList<>(valores.length);
+        for (double v : valores) {
+            faixas.add(faixa(v));
+        }
+        Map<Long, Double> encontradas = previsoes.getAll(faixas, (faltando, executor) ->
+                CompletableFuture.completedFuture(consultarLote(faltando))).join();
+
+        double[] resultado = new double[valores.length];
+        for (int i = 0; i < resultado.length; i++) {
+            Double p = encontradas.get(faixas.get(i));
+            if (p == null) {
+                return null;
+            }
+            resultado[i] = p;
+        }
+        return resultado;
+    }
+
+    @Override
+    public String versaoModelo() {
+        return modelo.versaoModelo();
+    }
+
+    // Faixas ausentes do mapa não entram no cache
+    private Map<Long, Double> consultarLote(Set<? extends Long> faltando) {
+        List<Long> faixas = new ArrayList<>(faltando);
+        double[] valores = new double[faixas.size()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = faixas.get(i) * passo;
+        }
+        double[] probabilidades = modelo.obterProbabilidadesFraude(valores);
+        if (probabilidades == null) {
+            return Map.of();
+        }
+        Map<Long, Double> resultado = new HashMap<>(faixas.size() * 2);
+        for (int i = 0; i < valores.length; i++) {
+            resultado.put(faixas.get(i), probabilidades[i]);
+        }
+        return resultado;
+    }
+
+    // O cliente HTTP só descobre a versão nas respostas, então ela é conferida
+    // a cada consulta; a primeira thread que vê a troca esvazia o cache
+    private void conferirVersao() {
+        String atual = modelo.versaoModelo();
+        String anterior = versao.get();
+        if (!atual.equals(anterior) && versao.compareAndSet(anterior, atual)) {
+            previsoes.synchronous().invalidateAll();
+            log.info("Modelo ML mudou de {} para {}: cache de previsões descartado", anterior, atual);
+        }
+    }
+
+    private long faixa(double valor) {
+        return Math.round(valor / passo);
+    }
+}
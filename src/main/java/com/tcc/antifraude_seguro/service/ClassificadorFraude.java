@@ -0,0 +1,20 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.util.concurrent.CompletableFuture;
+
+// Quem calcula a probabilidade de fraude da zona cinzenta.
+// Implementações: MlFraudeClient (HTTP para o Flask) e ModeloFlorestaLocal (na JVM).
+// null em qualquer método significa "sem resposta, use o fallback".
+public interface ClassificadorFraude {
+
+    CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor);
+
+    default Double obterProbabilidadeFraude(double valor) {
+        return obterProbabilidadeFraudeAsync(valor).join();
+    }
+
+    double[] obterProbabilidadesFraude(double[] valores);
+
+    // Identifica o modelo treinado que respondeu (hash do fraud_model.pkl)
+    String versaoModelo();
+}
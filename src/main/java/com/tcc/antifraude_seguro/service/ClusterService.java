@@ -0,0 +1,501 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.config.ClusterProperties;
+import com.tcc.antifraude_seguro.dto.EstadoCluster;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.EventoUsuario;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.AnelHash.No;
+import com.tcc.antifraude_seguro.service.ProtocoloCluster.Evento;
+import com.tcc.antifraude_seguro.service.ProtocoloCluster.Membros;
+import com.tcc.antifraude_seguro.service.ProtocoloCluster.Quadro;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.tcc.antifraude_seguro.service.ProtocoloCluster.*;
+
+// Modo cluster: cada usuarioId tem um nó dono, escolhido pelo anel de hash
+// consistente. O dono guarda o comportamento do usuário e decide as
+// transações dele; quem recebe uma transação de usuário alheio encaminha pelo
+// protocolo binário (ProtocoloCluster) e devolve a decisão do dono. O dono
+// nunca reencaminha, então é no máximo um salto.
+//
+// Troca de membros (PUT /api/admin/cluster/membros em qualquer nó): o nó monta
+// o anel novo, avisa os demais e cada um manda para o novo dono os eventos
+// das últimas 24 h dos usuários que deixaram de ser seus, depois os esquece.
+@Service
+@ConditionalOnProperty(name = "antifraude.cluster.habilitado", havingValue = "true")
+public class ClusterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    private static final byte[] VAZIO = new byte[0];
+
+    private record Visao(long versao, List<String> membros, AnelHash anel) {
+    }
+
+    private final ClusterProperties props;
+    // Provider: o TransacaoService também depende deste serviço
+    private final ObjectProvider<TransacaoService> transacoes;
+    private final ComportamentoUsuarioService comportamento;
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricasDecisao metricas;
+
+    // Quem espera a resposta do dono: threads virtuais, bloquear no socket é barato
+    private final ExecutorService encaminhamento =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cluster-encaminhamento-", 0).factory());
+    // Rebalanceamentos, um por vez e na ordem das trocas de membros
+    private final ExecutorService rebalanceamento = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("cluster-rebalanceamento").daemon(true).factory());
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong transferidos = new AtomicLong();
+
+    private volatile Visao visao;
+    private ServerSocket servidor;
+
+    public ClusterService(ClusterProperties props,
+                          ObjectProvider<TransacaoService> transacoes,
+                          ComportamentoUsuarioService comportamento,
+                          TransacaoRepository repository,
+                          TransactionTemplate transactionTemplate,
+                          MetricasDecisao metricas) {
+        this.props = props;
+        this.transacoes = transacoes;
+        this.comportamento = comportamento;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.metricas = metricas;
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        servidor = new ServerSocket(props.porta());
+        List<String> membros = props.membros().isEmpty()
+                ? List.of(props.no() + "=127.0.0.1:" + servidor.getLocalPort())
+                : props.membros();
+        visao = new Visao(0, membros, anel(membros));
+        Thread.ofPlatform().name("cluster-servidor").daemon(true).start(this::aceitar);
+        log.info("Nó {} do cluster escutando na porta {} ({} membros)",
+                props.no(), servidor.getLocalPort(), membros.size());
+    }
+
+    @PreDestroy
+    void parar() throws IOException {
+        servidor.close();
+        encaminhamento.shutdownNow();
+        rebalanceamento.shutdownNow();
+        pools.values().forEach(Pool::fechar);
+    }
+
+    public boolean local(String usuarioId) {
+        return visao.anel().dono(usuarioId).id().equals(props.no());
+    }
+
+    // "id=host:porta" do dono; um roteador na frente pode mandar direto para ele
+    public String dono(String usuarioId) {
+        return visao.anel().dono(usuarioId).toString();
+    }
+
+    public CompletableFuture<Transacao> encaminhar(Transacao transacao) {
+        No dono = visao.anel().dono(transacao.getUsuarioId());
+        byte[] pedido = carga(d -> escreverPedido(d, transacao));
+        return CompletableFuture.supplyAsync(() -> {
+            Quadro resposta;
+            try {
+                resposta = pool(dono).pedir(ANALISAR, pedido);
+            } catch (SemResposta e) {
+                // O pedido já saiu: o dono pode ter decidido e gravado. Decidir
+                // aqui também duplicaria a transação (e a contaria duas vezes na
+                // janela do usuário); o cliente tenta de novo depois do 503.
+                metricas.clusterEncaminhada(false);
+                log.warn("Nó {} não respondeu ao pedido ({}); transação de {} recusada",
+                        dono, e.getMessage(), transacao.getUsuarioId());
+                throw new SobrecargaException("Nó dono " + dono.id() + " não respondeu a tempo");
+            } catch (PoolEsgotado e) {
+                // O dono está no ar, só ocupado: decidir aqui espalharia o
+                // comportamento do usuário entre dois nós
+                metricas.clusterEncaminhada(false);
+                log.warn("{}; transação de {} recusada", e.getMessage(), transacao.getUsuarioId());
+                throw new SobrecargaException("Sem conexão livre para o nó dono " + dono.id());
+            } catch (IOException e) {
+                // Dono fora do ar e nada enviado (não conectou ou a conexão
+                // caiu no envio): decide aqui para não perder a transação. O
+                // comportamento do usuário neste nó fica incompleto até o
+                // dono voltar ou sair do anel.
+                metricas.clusterEncaminhada(false);
+                log.warn("Nó {} não respondeu ({}); transação de {} decidida localmente",
+                        dono, e.getMessage(), transacao.getUsuarioId());
+                return transacoes.getObject().criarLocal(transacao).join();
+            }
+            metricas.clusterEncaminhada(true);
+            return decisao(resposta);
+        }, encaminhamento);
+    }
+
+    public EstadoCluster estado() {
+        Visao v = visao;
+        return new EstadoCluster(props.no(), servidor.getLocalPort(), v.versao(), v.membros(),
+                comportamento.usuariosEmMemoria(), transferidos.get());
+    }
+
+    // Troca de membros pedida a este nó: aplica e avisa os membros antigos e
+    // novos (quem saiu também precisa saber, para passar seus usuários adiante).
+    // Uma troca por vez no cluster; a versão maior vence.
+    public EstadoCluster atualizarMembros(List<String> membros) {
+        Visao antiga;
+        Visao nova;
+        synchronized (this) {
+            antiga = visao;
+            aplicar(antiga.versao() + 1, membros);
+            nova = visao;
+        }
+        byte[] aviso = carga(d -> escreverMembros(d, nova.versao(), nova.membros()));
+        Set<No> avisar = new LinkedHashSet<>(antiga.anel().nos());
+        avisar.addAll(nova.anel().nos());
+        for (No no : avisar) {
+            if (no.id().equals(props.no())) {
+                continue;
+            }
+            try {
+                esperarOk(pool(no).pedir(MEMBROS, aviso));
+            } catch (IOException e) {
+                log.warn("Nó {} não recebeu a versão {} dos membros: {}", no, nova.versao(), e.getMessage());
+            }
+        }
+        return estado();
+    }
+
+    // Versão igual ou menor já foi aplicada (o mesmo aviso pode chegar de novo)
+    private synchronized void aplicar(long versao, List<String> membros) {
+        if (versao <= visao.versao()) {
+            return;
+        }
+        Visao nova = new Visao(versao, List.copyOf(membros), anel(membros));
+        visao = nova;
+        log.info("Membros do cluster, versão {}: {}", versao, nova.membros());
+
+        Set<String> enderecos = new HashSet<>();
+        nova.anel().nos().forEach(no -> enderecos.add(no.endereco()));
+        pools.entrySet().removeIf(e -> {
+            boolean saiu = !enderecos.contains(e.getKey());
+            if (saiu) {
+                e.getValue().fechar();
+            }
+            return saiu;
+        });
+        rebalanceamento.execute(this::rebalancear);
+    }
+
+    private AnelHash anel(List<String> membros) {
+        return new AnelHash(membros.stream().map(No::de).toList(), props.nosVirtuais());
+    }
+
+    // ---- rebalanceamento ----
+
+    // Usuários com estado aqui mas de outro dono: manda os eventos recentes
+    // deles (do banco deste nó, na ordem em que aconteceram) e esquece o estado.
+    // Se um destino falhar, os usuários dele ficam aqui até a próxima troca.
+    private void rebalancear() {
+        AnelHash anel = visao.anel();
+        Map<String, No> destinos = new HashMap<>();
+        for (String usuario : comportamento.usuarios()) {
+            No dono = anel.dono(usuario);
+            if (!dono.id().equals(props.no())) {
+                destinos.put(usuario, dono);
+            }
+        }
+        if (destinos.isEmpty()) {
+            return;
+        }
+
+        Map<No, List<Evento>> lotes = new HashMap<>();
+        Set<No> falharam = new HashSet<>();
+        LocalDateTime desde = LocalDateTime.now().minusHours(24);
+        long enviados = transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<EventoUsuario> stream = repository.streamEventosDesde(desde)) {
+                for (EventoUsuario e : (Iterable<EventoUsuario>) stream::iterator) {
+                    No destino = e.getUsuarioId() != null ? destinos.get(e.getUsuarioId()) : null;
+                    if (destino == null || falharam.contains(destino) || e.getDataHora() == null || e.getValor() == null) {
+                        continue;
+                    }
+                    List<Evento> lote = lotes.computeIfAbsent(destino, k -> new ArrayList<>());
+                    lote.add(new Evento(e.getUsuarioId(), e.getDataHora().atZone(ZONA).toInstant().toEpochMilli(),
+                            e.getValor()));
+                    n++;
+                    if (lote.size() >= props.loteRebalanceamento()) {
+                        enviarEventos(destino, lote, falharam);
+                    }
+                }
+            }
+            return n;
+        });
+        lotes.forEach((destino, lote) -> enviarEventos(destino, lote, falharam));
+
+        int esquecidos = 0;
+        for (Map.Entry<String, No> d : destinos.entrySet()) {
+            if (!falharam.contains(d.getValue())) {
+                comportamento.esquecer(d.getKey());
+                esquecidos++;
+            }
+        }
+        transferidos.addAndGet(esquecidos);
+        log.info("Rebalanceamento: {} usuários ({} eventos) passados para outros nós, {} destinos com falha",
+                esquecidos, enviados, falharam.size());
+    }
+
+    private void enviarEventos(No destino, List<Evento> lote, Set<No> falharam) {
+        if (lote.isEmpty() || falharam.contains(destino)) {
+            lote.clear();
+            return;
+        }
+        try {
+            esperarOk(pool(destino).pedir(EVENTOS, carga(d -> escreverEventos(d, lote))));
+        } catch (IOException e) {
+            log.warn("Falha ao passar eventos para {}: {}", destino, e.getMessage());
+            falharam.add(destino);
+        }
+        lote.clear();
+    }
+
+    // ---- servidor ----
+
+    private void aceitar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                socket.setTcpNoDelay(true);
+                Thread.ofVirtual().name("cluster-conexao").start(() -> atender(socket));
+            } catch (IOException e) {
+                if (!servidor.isClosed()) {
+                    log.warn("Falha ao aceitar conexão do cluster: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                Quadro pedido;
+                try {
+                    pedido = receber(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                responder(pedido, out);
+            }
+        } catch (IOException e) {
+            log.debug("Conexão do cluster encerrada: {}", e.getMessage());
+        }
+    }
+
+    private void responder(Quadro pedido, DataOutputStream out) throws IOException {
+        try {
+            switch (pedido.tipo()) {
+                case ANALISAR -> {
+                    metricas.clusterRecebida();
+                    // criarLocal: aqui é o dono, nunca reencaminha
+                    Transacao decidida = transacoes.getObject().criarLocal(lerPedido(pedido.leitor())).join();
+                    enviar(out, DECISAO, carga(d -> CodecTransacao.escrever(d, decidida)));
+                }
+                case EVENTOS -> {
+                    for (Evento e : lerEventos(pedido.leitor())) {
+                        comportamento.reaplicar(e.usuarioId(), e.instanteMs(), e.valor());
+                    }
+                    enviar(out, OK, VAZIO);
+                }
+                case MEMBROS -> {
+                    Membros m = lerMembros(pedido.leitor());
+                    aplicar(m.versao(), m.membros());
+                    enviar(out, OK, VAZIO);
+                }
+                default -> enviar(out, ERRO, erro(ERRO_REQUISICAO, "Tipo de quadro desconhecido: " + pedido.tipo()));
+            }
+        } catch (RuntimeException e) {
+            Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            byte codigo;
+            if (causa instanceof RequisicaoInvalidaException) {
+                codigo = ERRO_REQUISICAO;
+            } else if (causa instanceof SobrecargaException) {
+                codigo = ERRO_SOBRECARGA;
+            } else {
+                codigo = ERRO_INTERNO;
+                log.error("Falha ao atender pedido do cluster", causa);
+            }
+            enviar(out, ERRO, erro(codigo, causa.getMessage()));
+        }
+    }
+
+    // ---- cliente ----
+
+    // Erro do dono vira a mesma exceção aqui, para o nó de entrada devolver o
+    // mesmo status HTTP
+    private static Transacao decisao(Quadro resposta) {
+        try {
+            return switch (resposta.tipo()) {
+                case DECISAO -> CodecTransacao.ler(resposta.leitor());
+                case ERRO -> throw excecao(lerErro(resposta.leitor()));
+                default -> throw new IllegalStateException("Resposta inesperada do cluster: " + resposta.tipo());
+            };
+        } catch (IOException e) {
+            throw new IllegalStateException("Decisão ilegível do nó dono", e);
+        }
+    }
+
+    private static void esperarOk(Quadro resposta) throws IOException {
+        if (resposta.tipo() == ERRO) {
+            throw new IOException(lerErro(resposta.leitor()).mensagem());
+        }
+        if (resposta.tipo() != OK) {
+            throw new IOException("Resposta inesperada do cluster: " + resposta.tipo());
+        }
+    }
+
+    private static RuntimeException excecao(Erro erro) {
+        return switch (erro.codigo()) {
+            case ERRO_REQUISICAO -> new RequisicaoInvalidaException(erro.mensagem());
+            case ERRO_SOBRECARGA -> new SobrecargaException(erro.mensagem());
+            default -> new IllegalStateException("Falha no nó dono: " + erro.mensagem());
+        };
+    }
+
+    private Pool pool(No no) {
+        return pools.computeIfAbsent(no.endereco(), k -> new Pool(no));
+    }
+
+    // Conexões abertas para um nó, reaproveitadas entre pedidos. Conexão com
+    // erro é descartada; a próxima abre outra.
+    private final class Pool {
+        private final No no;
+        private final Semaphore vagas = new Semaphore(props.conexoesPorNo());
+        private final ConcurrentLinkedQueue<Conexao> livres = new ConcurrentLinkedQueue<>();
+
+        Pool(No no) {
+            this.no = no;
+        }
+
+        Quadro pedir(byte tipo, byte[] carga) throws IOException {
+            long limite = props.tempoLimite().toMillis();
+            try {
+                if (!vagas.tryAcquire(limite, TimeUnit.MILLISECONDS)) {
+                    throw new PoolEsgotado("Sem conexão livre para " + no);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PoolEsgotado("Interrompido esperando conexão para " + no);
+            }
+            try {
+                Conexao conexao = livres.poll();
+                if (conexao == null) {
+                    conexao = Conexao.abrir(no, (int) limite);
+                }
+                try {
+                    enviar(conexao.out(), tipo, carga);
+                } catch (IOException e) {
+                    conexao.fechar();
+                    throw e;
+                }
+                try {
+                    Quadro resposta = receber(conexao.in());
+                    livres.offer(conexao);
+                    return resposta;
+                } catch (IOException e) {
+                    conexao.fechar();
+                    throw new SemResposta(e);
+                }
+            } finally {
+                vagas.release();
+            }
+        }
+
+        void fechar() {
+            Conexao c;
+            while ((c = livres.poll()) != null) {
+                c.fechar();
+            }
+        }
+    }
+
+    // Falha depois de o quadro ter sido enviado (tempo esgotado, conexão caiu
+    // no meio da resposta): não dá para saber se o nó executou o pedido
+    private static final class SemResposta extends IOException {
+        SemResposta(IOException causa) {
+            super(causa.getMessage(), causa);
+        }
+    }
+
+    // Todas as conexões com o nó ocupadas até o tempo-limite: nada foi enviado,
+    // mas o nó está no ar
+    private static final class PoolEsgotado extends IOException {
+        PoolEsgotado(String mensagem) {
+            super(mensagem);
+        }
+    }
+
+    private record Conexao(Socket socket, DataInputStream in, DataOutputStream out) {
+
+        static Conexao abrir(No no, int limiteMs) throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(no.host(), no.porta()), limiteMs);
+                socket.setSoTimeout(limiteMs);
+                socket.setTcpNoDelay(true);
+                return new Conexao(socket,
+                        new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void fechar() {
+            try {
+                socket.close();
+            } catch (IOException ignorada) {
+                // já fechado
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.dto.ResultadoLote;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.*;
+
+// Lado do servidor do FormatoBinario. A leitura trabalha direto no ByteBuffer
+// do quadro, com gets absolutos: nada de tokens nem buffers intermediários,
+// só a Transacao e as Strings dos ids (decodificadas do próprio array do
+// buffer). O tipo vem das constantes do dicionário, sem alocar.
+public final class CodecLoteBinario {
+
+    private CodecLoteBinario() {
+    }
+
+    // "quadro" vai da versão até o fim do quadro (sem o int do tamanho).
+    // Estrutura errada lança RequisicaoInvalidaException; código de tipo fora do
+    // dicionário vira um tipo inválido, e a transação é rejeitada pelo
+    // validador na posição dela, como no lote JSON.
+    public static List<Transacao> lerPedidos(ByteBuffer quadro) {
+        int p = quadro.position();
+        int fim = quadro.limit();
+        exigir(fim - p >= CABECALHO_QUADRO, "quadro menor que o cabeçalho");
+        byte versao = quadro.get(p);
+        exigir(versao == VERSAO, "versão " + versao + " não suportada");
+        int quantidade = quadro.getInt(p + 1);
+        exigir(quantidade >= 0 && quantidade <= MAXIMO_POR_QUADRO,
+                "quantidade fora de 0.." + MAXIMO_POR_QUADRO + ": " + quantidade);
+        p += CABECALHO_QUADRO;
+
+        List<Transacao> pedidos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            exigir(fim - p >= CABECALHO_PEDIDO, "registro " + i + " truncado");
+            double valor = quadro.getDouble(p);
+            int tipo = quadro.get(p + 8) & 0xFF;
+            int usuario = quadro.get(p + 9) & 0xFF;
+            int beneficiario = quadro.get(p + 10) & 0xFF;
+            int chave = quadro.get(p + 11) & 0xFF;
+            p += CABECALHO_PEDIDO;
+            exigir(fim - p >= usuario + beneficiario + chave, "registro " + i + " truncado");
+
+            Transacao t = new Transacao();
+            t.setValor(valor);
+            t.setTipo(tipo < TIPOS.size() ? TIPOS.get(tipo) : "#" + tipo);
+            t.setUsuarioId(texto(quadro, p, usuario));
+            p += usuario;
+            if (beneficiario > 0) {
+                t.setBeneficiarioId(texto(quadro, p, beneficiario));
+                p += beneficiario;
+            }
+            if (chave > 0) {
+                t.setChaveIdempotencia(texto(quadro, p, chave));
+                p += chave;
+            }
+            pedidos.add(t);
+        }
+        exigir(p == fim, (fim - p) + " bytes sobrando depois do último registro");
+        return pedidos;
+    }
+
+    // Quadro completo (com o int do tamanho), pronto para escrever
+    public static ByteBuffer escreverDecisoes(List<ResultadoLote> resultados) {
+        byte[][] erros = new byte[resultados.size()][];
+        int tamanho = CABECALHO_QUADRO;
+        for (int i = 0; i < resultados.size(); i++) {
+            ResultadoLote r = resultados.get(i);
+            if (r.id() != null) {
+                tamanho += TAMANHO_DECISAO;
+            } else {
+                erros[i] = utf8(String.join("; ", r.erros()), 0xFFFF);
+                tamanho += 1 + 2 + erros[i].length;
+            }
+        }
+
+        ByteBuffer quadro = ByteBuffer.allocate(4 + tamanho);
+        quadro.putInt(tamanho).put(VERSAO).putInt(resultados.size());
+        for (int i = 0; i < resultados.size(); i++) {
+            ResultadoLote r = resultados.get(i);
+            if (r.id() != null) {
+                int status = codigoStatus(r.status());
+                if (status < 0) {
+                    throw new IllegalStateException("Status fora do dicionário: " + r.status());
+                }
+                quadro.put((byte) status).putLong(r.id()).putShort((short) Math.round(r.scoreRisco() * 100));
+            } else {
+                quadro.put(REJEITADA).putShort((short) erros[i].length).put(erros[i]);
+            }
+        }
+        return quadro.flip();
+    }
+
+    public static ByteBuffer quadroInvalido(String mensagem) {
+        byte[] texto = utf8(mensagem != null ? mensagem : "", 0xFFFF);
+        ByteBuffer quadro = ByteBuffer.allocate(4 + CABECALHO_QUADRO + 2 + texto.length);
+        quadro.putInt(CABECALHO_QUADRO + 2 + texto.length).put(VERSAO).putInt(QUADRO_INVALIDO)
+                .putShort((short) texto.length).put(texto);
+        return quadro.flip();
+    }
+
+    private static String texto(ByteBuffer quadro, int posicao, int bytes) {
+        if (quadro.hasArray()) {
+            return new String(quadro.array(), quadro.arrayOffset() + posicao, bytes, StandardCharsets.UTF_8);
+        }
+        byte[] copia = new byte[bytes];
+        quadro.get(posicao, copia);
+        return new String(copia, StandardCharsets.UTF_8);
+    }
+
+    // Corta no limite (pode partir um caractere; só acontece em mensagens enormes)
+    private static byte[] utf8(String texto, int maximo) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= maximo ? bytes : Arrays.copyOf(bytes, maximo);
+    }
+
+    private static void exigir(boolean condicao, String problema) {
+        if (!condicao) {
+            throw new RequisicaoInvalidaException("Quadro binário inválido: " + problema);
+        }
+    }
+}
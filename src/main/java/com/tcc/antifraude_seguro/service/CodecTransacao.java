@@ -0,0 +1,124 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.ExplicacaoDecisao;
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Formato binário de uma transação já decidida (id, decisão, retrato do
+// usuário e explicação). Usado pelo diário da gravação diferida e pelas
+// respostas encaminhadas entre nós do cluster. Campos novos entram sempre no
+// fim, para registros antigos continuarem legíveis.
+final class CodecTransacao {
+
+    private CodecTransacao() {
+    }
+
+    static void escrever(DataOutputStream dados, Transacao t) throws IOException {
+        dados.writeLong(t.getId());
+        dados.writeUTF(t.getUsuarioId());
+        dados.writeDouble(t.getValor());
+        dados.writeUTF(t.getTipo());
+        dados.writeLong(t.getDataHora().toEpochSecond(ZoneOffset.UTC));
+        dados.writeInt(t.getDataHora().getNano());
+        dados.writeUTF(t.getStatus());
+        dados.writeDouble(t.getScoreRisco());
+
+        CaracteristicasUsuario c = t.getCaracteristicas();
+        dados.writeBoolean(c != null);
+        if (c != null) {
+            dados.writeInt(c.getQtdUltimoMinuto());
+            dados.writeInt(c.getQtdUltimaHora());
+            dados.writeInt(c.getQtdUltimas24h());
+            dados.writeDouble(c.getValorUltimaHora());
+            dados.writeDouble(c.getValorUltimas24h());
+            // opcionais: NaN / -1 significam "sem valor"
+            dados.writeDouble(c.getValorHabitual() != null ? c.getValorHabitual() : Double.NaN);
+            dados.writeLong(c.getSegundosDesdeUltima() != null ? c.getSegundosDesdeUltima() : -1);
+        }
+        // No fim do registro: diários gravados antes desse campo continuam legíveis
+        dados.writeBoolean(t.getChaveIdempotencia() != null);
+        if (t.getChaveIdempotencia() != null) {
+            dados.writeUTF(t.getChaveIdempotencia());
+        }
+        // Também no fim, pelo mesmo motivo; opcionais do ML: NaN / "" = sem valor
+        ExplicacaoDecisao e = t.getExplicacao();
+        dados.writeBoolean(e != null);
+        if (e != null) {
+            dados.writeDouble(e.getPontosValor());
+            dados.writeDouble(e.getPontosHorario());
+            dados.writeDouble(e.getPontosDia());
+            dados.writeDouble(e.getPontosTipo());
+            dados.writeDouble(e.getPontosComportamento());
+            dados.writeInt(e.getVersaoRegras());
+            dados.writeDouble(e.getProbabilidadeMl() != null ? e.getProbabilidadeMl() : Double.NaN);
+            dados.writeDouble(e.getScoreCombinado() != null ? e.getScoreCombinado() : Double.NaN);
+            dados.writeUTF(e.getVersaoModelo() != null ? e.getVersaoModelo() : "");
+        }
+        // Beneficiário e pontos de rede: de novo no fim, NaN = sem valor
+        dados.writeBoolean(t.getBeneficiarioId() != null);
+        if (t.getBeneficiarioId() != null) {
+            dados.writeUTF(t.getBeneficiarioId());
+        }
+        dados.writeDouble(e != null && e.getPontosRede() != null ? e.getPontosRede() : Double.NaN);
+    }
+
+    // Campos do fim do registro só são lidos se existirem (in.available()):
+    // "in" precisa ser limitado ao registro, ex. um ByteArrayInputStream
+    static Transacao ler(DataInputStream in) throws IOException {
+        Transacao t = new Transacao();
+        t.setId(in.readLong());
+        t.setUsuarioId(in.readUTF());
+        t.setValor(in.readDouble());
+        t.setTipo(in.readUTF());
+        t.setDataHora(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+        t.setStatus(in.readUTF());
+        t.setScoreRisco(in.readDouble());
+        if (in.readBoolean()) {
+            int minuto = in.readInt();
+            int hora = in.readInt();
+            int dia = in.readInt();
+            double valorHora = in.readDouble();
+            double valorDia = in.readDouble();
+            double habitual = in.readDouble();
+            long desdeUltima = in.readLong();
+            t.setCaracteristicas(new CaracteristicasUsuario(minuto, hora, dia, valorHora, valorDia,
+                    Double.isNaN(habitual) ? null : habitual, desdeUltima < 0 ? null : desdeUltima));
+        }
+        if (in.available() > 0 && in.readBoolean()) {
+            t.setChaveIdempotencia(in.readUTF());
+        }
+        boolean comExplicacao = in.available() > 0 && in.readBoolean();
+        double[] pontos = new double[5];
+        int versaoRegras = 0;
+        double probabilidade = Double.NaN, combinado = Double.NaN;
+        String modelo = "";
+        if (comExplicacao) {
+            for (int i = 0; i < pontos.length; i++) {
+                pontos[i] = in.readDouble();
+            }
+            versaoRegras = in.readInt();
+            probabilidade = in.readDouble();
+            combinado = in.readDouble();
+            modelo = in.readUTF();
+        }
+        if (in.available() > 0 && in.readBoolean()) {
+            t.setBeneficiarioId(in.readUTF());
+        }
+        double rede = in.available() > 0 ? in.readDouble() : Double.NaN;
+        if (comExplicacao) {
+            ExplicacaoDecisao e = new ExplicacaoDecisao(pontos[0], pontos[1], pontos[2], pontos[3], pontos[4],
+                    Double.isNaN(rede) ? null : rede, versaoRegras);
+            if (!Double.isNaN(probabilidade)) {
+                e.registrarMl(probabilidade, combinado, modelo.isEmpty() ? null : modelo);
+            }
+            t.setExplicacao(e);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,221 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.EventoUsuario;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Feature store em memória: janelas deslizantes por usuarioId (1 min, 1 h, 24 h),
+// valor habitual e tempo desde a última transação.
+//
+// O mapa é um cache Caffeine limitado (expulsa os usuários menos usados quando
+// enche) e cada usuário tem seu próprio lock, então usuários diferentes não
+// disputam nada entre si. Cada atualização mexe em poucos slots de array.
+@Service
+public class ComportamentoUsuarioService {
+
+    private static final Logger log = LoggerFactory.getLogger(ComportamentoUsuarioService.class);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, JanelaUsuario> janelas;
+
+    public ComportamentoUsuarioService(TransacaoRepository repository,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${antifraude.comportamento.max-usuarios:100000}") long maxUsuarios) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.janelas = Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                // depois de 24h sem transações não sobra nada útil na janela
+                .expireAfterAccess(Duration.ofHours(25))
+                .build();
+    }
+
+    // Na subida, reaplica as transações das últimas 24h na ordem em que aconteceram
+    @PostConstruct
+    public void reconstruir() {
+        janelas.invalidateAll();
+        LocalDateTime desde = LocalDateTime.now().minusHours(24);
+        long total = transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<EventoUsuario> stream = repository.streamEventosDesde(desde)) {
+                for (EventoUsuario e : (Iterable<EventoUsuario>) stream::iterator) {
+                    if (e.getUsuarioId() != null && e.getDataHora() != null && e.getValor() != null) {
+                        janelas.get(e.getUsuarioId(), k -> new JanelaUsuario())
+                                .observar(epochMilli(e.getDataHora()), e.getValor());
+                        n++;
+                    }
+                }
+            }
+            return n;
+        });
+        log.info("Feature store reconstruída com {} transações ({} usuários)", total, janelas.estimatedSize());
+    }
+
+    // Devolve as características do usuário ANTES desta transação e já a registra
+    public CaracteristicasUsuario observar(Transacao transacao) {
+        JanelaUsuario janela = janelas.get(transacao.getUsuarioId(), k -> new JanelaUsuario());
+        return janela.observar(epochMilli(transacao.getDataHora()), transacao.getValor());
+    }
+
+    // Só consulta, sem registrar nada
+    public CaracteristicasUsuario consultar(String usuarioId, LocalDateTime dataHora) {
+        JanelaUsuario janela = janelas.getIfPresent(usuarioId);
+        if (janela == null) {
+            return JanelaUsuario.VAZIO;
+        }
+        return janela.consultar(epochMilli(dataHora));
+    }
+
+    public long usuariosEmMemoria() {
+        return janelas.estimatedSize();
+    }
+
+    // Rebalanceamento do cluster: o nó que passa a ser dono do usuário recebe
+    // os eventos recentes dele, e o antigo dono esquece o estado
+    public void reaplicar(String usuarioId, long instanteMs, double valor) {
+        janelas.get(usuarioId, k -> new JanelaUsuario()).observar(instanteMs, valor);
+    }
+
+    public void esquecer(String usuarioId) {
+        janelas.invalidate(usuarioId);
+    }
+
+    public Set<String> usuarios() {
+        return Set.copyOf(janelas.asMap().keySet());
+    }
+
+    private static long epochMilli(LocalDateTime dataHora) {
+        return dataHora.atZone(ZONA).toInstant().toEpochMilli();
+    }
+
+    // Estado de um usuário. Três anéis de baldes (o da janela de 1 min com
+    // baldes de 5 s, o de 1 h com baldes de 5 min e o de 24 h com baldes de 1 h),
+    // então as janelas têm a precisão do tamanho do balde.
+    static final class JanelaUsuario {
+
+        static final CaracteristicasUsuario VAZIO =
+                new CaracteristicasUsuario(0, 0, 0, 0, 0, null, null);
+
+        private static final double ALFA_HABITUAL = 0.1;
+        private static final int MINIMO_PARA_HABITUAL = 3;
+
+        private final Anel minuto = new Anel(12, 5_000L);
+        private final Anel hora = new Anel(12, 300_000L);
+        private final Anel dia = new Anel(24, 3_600_000L);
+
+        // ReentrantLock em vez de synchronized: com threads virtuais quem
+        // espera pelo lock desmonta da carrier em vez de prendê-la (Java 21)
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private long ultimaTransacao = Long.MIN_VALUE;
+        private long totalTransacoes;
+        private double mediaValor;
+
+        CaracteristicasUsuario observar(long instante, double valor) {
+            lock.lock();
+            try {
+                CaracteristicasUsuario antes = consultarSemLock(instante);
+
+                minuto.somar(instante, valor);
+                hora.somar(instante, valor);
+                dia.somar(instante, valor);
+
+                mediaValor = totalTransacoes == 0 ? valor : mediaValor + ALFA_HABITUAL * (valor - mediaValor);
+                totalTransacoes++;
+                if (instante > ultimaTransacao) {
+                    ultimaTransacao = instante;
+                }
+                return antes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CaracteristicasUsuario consultar(long instante) {
+            lock.lock();
+            try {
+                return consultarSemLock(instante);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private CaracteristicasUsuario consultarSemLock(long instante) {
+            Double habitual = totalTransacoes >= MINIMO_PARA_HABITUAL ? mediaValor : null;
+            Long desdeUltima = ultimaTransacao == Long.MIN_VALUE
+                    ? null : Math.max(0, (instante - ultimaTransacao) / 1000);
+            return new CaracteristicasUsuario(
+                    minuto.contar(instante), hora.contar(instante), dia.contar(instante),
+                    hora.somarValores(instante), dia.somarValores(instante),
+                    habitual, desdeUltima);
+        }
+    }
+
+    // Anel de baldes de tempo: o slot é (instante / largura) % tamanho e guarda
+    // a qual balde pertence para saber quando foi "atropelado" pela volta do anel
+    static final class Anel {
+        private final long largura;
+        private final long[] balde;
+        private final int[] quantidade;
+        private final double[] valor;
+
+        Anel(int tamanho, long larguraMs) {
+            this.largura = larguraMs;
+            this.balde = new long[tamanho];
+            this.quantidade = new int[tamanho];
+            this.valor = new double[tamanho];
+            Arrays.fill(balde, Long.MIN_VALUE);
+        }
+
+        void somar(long instante, double v) {
+            long b = instante / largura;
+            int i = (int) (b % balde.length);
+            if (balde[i] == b) {
+                quantidade[i]++;
+                valor[i] += v;
+            } else if (balde[i] < b) {
+                balde[i] = b;
+                quantidade[i] = 1;
+                valor[i] = v;
+            }
+            // balde[i] > b: evento mais velho que a janela inteira, ignora
+        }
+
+        int contar(long instante) {
+            long atual = instante / largura;
+            int n = 0;
+            for (int i = 0; i < balde.length; i++) {
+                if (balde[i] > atual - balde.length && balde[i] <= atual) n += quantidade[i];
+            }
+            return n;
+        }
+
+        double somarValores(long instante) {
+            long atual = instante / largura;
+            double s = 0;
+            for (int i = 0; i < balde.length; i++) {
+                if (balde[i] > atual - balde.length && balde[i] <= atual) s += valor[i];
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.TipoTransacao;
+import com.tcc.antifraude_seguro.model.VizinhancaRede;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Regras compiladas em tabelas primitivas. Imutável: o MotorRegras troca a
+// instância inteira no hot reload, então quem pegou uma referência avalia
+// a transação toda com o mesmo conjunto. Nenhum método de avaliação aloca.
+public final class ConjuntoRegras {
+
+    private final int versao;
+    private final DefinicaoRegras definicao;
+
+    // Faixas de valor em ordem crescente; busca binária pela maior atingida
+    private final double[] limitesValor;
+    private final boolean[] valorInclusivo;
+    private final double[] pontosValor;
+
+    private final double[] pontosHora = new double[24];
+    private final double[] pontosTipo = new double[TipoTransacao.values().length];
+    private final double[] pontosDia = new double[7]; // DayOfWeek.ordinal(): segunda = 0
+
+    private final DefinicaoRegras.Comportamento comportamento;
+    private final DefinicaoRegras.Rede rede; // null = rede não pontua
+
+    private final double limiteBloqueio;
+    private final double limiteRevisao;
+    private final double pesoRegras;
+    private final double pesoMl;
+
+    private ConjuntoRegras(DefinicaoRegras def, int versao) {
+        this.versao = versao;
+        this.definicao = def;
+
+        List<DefinicaoRegras.FaixaValor> faixas = new ArrayList<>(def.valor() != null ? def.valor() : List.of());
+        // Mesmo mínimo: a faixa inclusiva vem antes da exclusiva para manter a busca monotônica
+        faixas.sort(Comparator.comparingDouble(DefinicaoRegras.FaixaValor::minimo)
+                .thenComparing(f -> !f.inclusivo()));
+        limitesValor = new double[faixas.size()];
+        valorInclusivo = new boolean[faixas.size()];
+        pontosValor = new double[faixas.size()];
+        for (int i = 0; i < faixas.size(); i++) {
+            DefinicaoRegras.FaixaValor f = faixas.get(i);
+            if (f.minimo() < 0) throw new RequisicaoInvalidaException("Faixa de valor com mínimo negativo: " + f.minimo());
+            limitesValor[i] = f.minimo();
+            valorInclusivo[i] = f.inclusivo();
+            pontosValor[i] = f.pontos();
+        }
+
+        if (def.horario() != null) {
+            for (DefinicaoRegras.FaixaHorario f : def.horario()) {
+                if (f.de() < 0 || f.ate() > 24 || f.de() >= f.ate())
+                    throw new RequisicaoInvalidaException("Faixa de horário inválida: " + f.de() + "-" + f.ate());
+                for (int h = f.de(); h < f.ate(); h++) {
+                    pontosHora[h] = f.pontos();
+                }
+            }
+        }
+
+        if (def.tipo() != null) {
+            for (Map.Entry<String, Double> e : def.tipo().entrySet()) {
+                TipoTransacao tipo = TipoTransacao.deCodigo(e.getKey());
+                if (tipo == null) throw new RequisicaoInvalidaException("Tipo desconhecido: " + e.getKey());
+                pontosTipo[tipo.ordinal()] = e.getValue();
+            }
+        }
+
+        if (def.diaSemana() != null) {
+            for (Map.Entry<DayOfWeek, Double> e : def.diaSemana().entrySet()) {
+                pontosDia[e.getKey().ordinal()] = e.getValue();
+            }
+        }
+
+        if (def.comportamento() == null) throw new RequisicaoInvalidaException("Seção 'comportamento' ausente");
+        comportamento = def.comportamento();
+        rede = def.rede();
+        if (rede != null && (rede.lequeEntrada() < 1 || rede.lequeSaida() < 1 || rede.compartilhados() < 1))
+            throw new RequisicaoInvalidaException("Limites da seção 'rede' devem ser >= 1");
+
+        DefinicaoRegras.Decisao decisao = def.decisao();
+        if (decisao == null) throw new RequisicaoInvalidaException("Seção 'decisao' ausente");
+        if (decisao.limiteRevisao() > decisao.limiteBloqueio())
+            throw new RequisicaoInvalidaException("limiteRevisao maior que limiteBloqueio");
+        if (decisao.pesoRegras() < 0 || decisao.pesoMl() < 0)
+            throw new RequisicaoInvalidaException("Pesos da combinação não podem ser negativos");
+        limiteBloqueio = decisao.limiteBloqueio();
+        limiteRevisao = decisao.limiteRevisao();
+        pesoRegras = decisao.pesoRegras();
+        pesoMl = decisao.pesoMl();
+    }
+
+    // Valida e monta as tabelas. A versão só anda para frente: vale a da
+    // definição quando for maior que a mínima sugerida pelo motor
+    public static ConjuntoRegras compilar(DefinicaoRegras definicao, int versaoMinima) {
+        if (definicao == null) throw new RequisicaoInvalidaException("Definição de regras vazia");
+        int versao = definicao.versao() != null ? Math.max(definicao.versao(), versaoMinima) : versaoMinima;
+        return new ConjuntoRegras(definicao, versao);
+    }
+
+    public int versao() {
+        return versao;
+    }
+
+    public DefinicaoRegras definicao() {
+        return definicao;
+    }
+
+    public double pontosValor(double valor) {
+        if (!(valor > 0)) return 0; // também descarta NaN
+        int lo = 0, hi = limitesValor.length - 1, achou = -1;
+        while (lo <= hi) {
+            int meio = (lo + hi) >>> 1;
+            boolean atingiu = valorInclusivo[meio] ? valor >= limitesValor[meio] : valor > limitesValor[meio];
+            if (atingiu) {
+                achou = meio;
+                lo = meio + 1;
+            } else {
+                hi = meio - 1;
+            }
+        }
+        return achou < 0 ? 0 : pontosValor[achou];
+    }
+
+    public double pontosHora(int hora) {
+        return pontosHora[hora];
+    }
+
+    public double pontosTipo(TipoTransacao tipo) {
+        return tipo == null ? 0 : pontosTipo[tipo.ordinal()];
+    }
+
+    public double pontosDia(DayOfWeek dia) {
+        return dia == null ? 0 : pontosDia[dia.ordinal()];
+    }
+
+    // Velocidade e desvio do padrão do usuário (limitado ao teto)
+    public double pontosComportamento(double valor, CaracteristicasUsuario c) {
+        if (c == null) return 0;
+        return pontosComportamento(valor,
+                c.getQtdUltimoMinuto() != null ? c.getQtdUltimoMinuto() : 0,
+                c.getQtdUltimaHora() != null ? c.getQtdUltimaHora() : -1,
+                c.getValorHabitual() != null ? c.getValorHabitual() : Double.NaN,
+                c.getSegundosDesdeUltima() != null ? c.getSegundosDesdeUltima() : Long.MAX_VALUE);
+    }
+
+    // Mesma conta com as características já em primitivos (backtest). Ausentes:
+    // qtdUltimaHora -1, valorHabitual NaN, segundosDesdeUltima Long.MAX_VALUE
+    public double pontosComportamento(double valor, int qtdUltimoMinuto, int qtdUltimaHora,
+                                      double valorHabitual, long segundosDesdeUltima) {
+        DefinicaoRegras.Comportamento r = comportamento;
+        double score = 0;
+
+        // Rajada: várias transações no último minuto
+        if (qtdUltimoMinuto >= r.rajadaForte()) score += r.pontosRajadaForte();
+        else if (qtdUltimoMinuto >= r.rajadaMedia()) score += r.pontosRajadaMedia();
+
+        // Volume alto na última hora
+        if (qtdUltimaHora >= 0 && qtdUltimaHora >= r.volumeHora()) score += r.pontosVolumeHora();
+
+        // Valor muito acima do habitual do usuário (NaN nunca passa na comparação)
+        if (valor >= r.valorMinimoHabitual() && valor > valorHabitual * r.multiploHabitual())
+            score += r.pontosValorHabitual();
+
+        // Intervalo curto desde a transação anterior
+        if (segundosDesdeUltima != Long.MAX_VALUE && segundosDesdeUltima < r.intervaloCurtoSegundos())
+            score += r.pontosIntervaloCurto();
+
+        return Math.min(score, r.teto());
+    }
+
+    // Vizinhança do remetente e do beneficiário no grafo (limitado ao teto)
+    public double pontosRede(VizinhancaRede v) {
+        DefinicaoRegras.Rede r = rede;
+        if (r == null || v == null) return 0;
+        double score = 0;
+        if (v.lequeEntradaBeneficiario() >= r.lequeEntrada()) score += r.pontosLequeEntrada();
+        if (v.lequeSaidaRemetente() >= r.lequeSaida()) score += r.pontosLequeSaida();
+        if (v.remetentesCompartilhados() >= r.compartilhados()) score += r.pontosCompartilhados();
+        if (v.anelSuspeito()) score += r.pontosAnel();
+        return Math.min(score, r.teto());
+    }
+
+    public String decidir(double score) {
+        if (score >= limiteBloqueio) return AnalisadorRiscoService.BLOQUEADA;
+        if (score >= limiteRevisao) return AnalisadorRiscoService.REVISAO;
+        return AnalisadorRiscoService.APROVADA;
+    }
+
+    // Mesmo corte do decidir como índice (0 = APROVADA, 1 = REVISAO, 2 = BLOQUEADA),
+    // para contar decisões em arrays
+    public int indiceDecisao(double score) {
+        if (score >= limiteBloqueio) return 2;
+        if (score >= limiteRevisao) return 1;
+        return 0;
+    }
+
+    public boolean zonaCinzenta(double score) {
+        return score >= limiteRevisao && score < limiteBloqueio;
+    }
+
+    // Score final da zona cinzenta: regras e probabilidade do ML ponderados
+    public double combinar(double scoreRegras, double probFraude) {
+        return scoreRegras * pesoRegras + probFraude * 100 * pesoMl;
+    }
+}
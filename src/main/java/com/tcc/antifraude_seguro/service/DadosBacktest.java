@@ -0,0 +1,89 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.TipoTransacao;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+
+// Histórico carregado para o backtest em colunas primitivas: só o que o score
+// das regras usa, já decodificado (hora, dia, tipo), mais o rótulo e a
+// probabilidade do ML. Cada configuração avaliada lê as mesmas colunas.
+final class DadosBacktest {
+
+    static final byte LEGITIMA = 0;
+    static final byte FRAUDE = 1;
+    static final byte SEM_ROTULO = 2;
+    // qtdUltimoMinuto = SEM_CARACTERISTICAS: transação gravada sem o retrato do usuário
+    static final int SEM_CARACTERISTICAS = Integer.MIN_VALUE;
+
+    private static final DayOfWeek[] DIAS = DayOfWeek.values();
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    int linhas;
+    double[] valor = new double[1024];
+    byte[] hora = new byte[1024];
+    byte[] dia = new byte[1024];
+    byte[] tipo = new byte[1024];
+    int[] qtdUltimoMinuto = new int[1024];
+    int[] qtdUltimaHora = new int[1024];
+    double[] valorHabitual = new double[1024];
+    long[] segundosDesdeUltima = new long[1024];
+    byte[] rotulo = new byte[1024];
+    // Pontos de rede gravados na decisão (0 quando não havia)
+    double[] pontosRede = new double[1024];
+    // NaN = sem probabilidade (ML desligado ou indisponível)
+    double[] probabilidade = new double[1024];
+
+    // tipo: ordinal de TipoTransacao, -1 = desconhecido
+    void adicionar(double valor, int hora, int dia, int tipo, int qtdUltimoMinuto, int qtdUltimaHora,
+                   double valorHabitual, long segundosDesdeUltima, double pontosRede, byte rotulo) {
+        if (linhas == this.valor.length) {
+            crescer();
+        }
+        int i = linhas++;
+        this.valor[i] = valor;
+        this.hora[i] = (byte) hora;
+        this.dia[i] = (byte) dia;
+        this.tipo[i] = (byte) tipo;
+        this.qtdUltimoMinuto[i] = qtdUltimoMinuto;
+        this.qtdUltimaHora[i] = qtdUltimaHora;
+        this.valorHabitual[i] = valorHabitual;
+        this.segundosDesdeUltima[i] = segundosDesdeUltima;
+        this.pontosRede[i] = pontosRede;
+        this.rotulo[i] = rotulo;
+        this.probabilidade[i] = Double.NaN;
+    }
+
+    // Mesma soma, na mesma ordem, do AnalisadorRiscoService.calcularScore:
+    // o score sai idêntico ao da decisão original com as mesmas regras (a rede
+    // entra com os pontos da decisão, já que o grafo da época não existe mais)
+    double pontuar(ConjuntoRegras regras, int i) {
+        double v = valor[i];
+        double score = 0;
+        score += regras.pontosValor(v);
+        score += regras.pontosHora(hora[i]);
+        score += regras.pontosDia(DIAS[dia[i]]);
+        score += regras.pontosTipo(tipo[i] >= 0 ? TIPOS[tipo[i]] : null);
+        int minuto = qtdUltimoMinuto[i];
+        if (minuto != SEM_CARACTERISTICAS) {
+            score += regras.pontosComportamento(v, minuto, qtdUltimaHora[i], valorHabitual[i], segundosDesdeUltima[i]);
+        }
+        score += pontosRede[i];
+        return Math.min(score, 100.0);
+    }
+
+    private void crescer() {
+        int n = valor.length * 2;
+        valor = Arrays.copyOf(valor, n);
+        hora = Arrays.copyOf(hora, n);
+        dia = Arrays.copyOf(dia, n);
+        tipo = Arrays.copyOf(tipo, n);
+        qtdUltimoMinuto = Arrays.copyOf(qtdUltimoMinuto, n);
+        qtdUltimaHora = Arrays.copyOf(qtdUltimaHora, n);
+        valorHabitual = Arrays.copyOf(valorHabitual, n);
+        segundosDesdeUltima = Arrays.copyOf(segundosDesdeUltima, n);
+        pontosRede = Arrays.copyOf(pontosRede, n);
+        rotulo = Arrays.copyOf(rotulo, n);
+        probabilidade = Arrays.copyOf(probabilidade, n);
+    }
+}
@@ -0,0 +1,105 @@
+package com.tcc.antifraude_seguro.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Só no modo threads virtuais: escuta o evento JFR jdk.VirtualThreadPinned
+// (thread virtual que bloqueou presa à carrier, ex.: dentro de synchronized
+// ou em código nativo) e agrupa por ponto de origem no nosso código/bibliotecas.
+// Cada ponto novo vai para o log com a pilha; depois só é contado.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DiagnosticoPinagem {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticoPinagem.class);
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final int FRAMES_NO_LOG = 12;
+
+    private final Duration limite;
+    private final Map<String, LongAdder> porOrigem = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private RecordingStream stream;
+
+    public DiagnosticoPinagem(@Value("${antifraude.pinagem.limite:20ms}") Duration limite) {
+        this.limite = limite;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(limite).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+        log.info("Diagnóstico de pinagem ativo (eventos acima de {} ms)", limite.toMillis());
+    }
+
+    private void registrar(RecordedEvent evento) {
+        total.increment();
+        String origem = origem(evento.getStackTrace());
+        LongAdder contador = porOrigem.computeIfAbsent(origem, o -> new LongAdder());
+        contador.increment();
+        if (contador.sum() == 1) {
+            log.warn("Thread virtual presa à carrier por {} ms em {}\n{}",
+                    evento.getDuration().toMillis(), origem, pilha(evento.getStackTrace()));
+        }
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public Map<String, Long> porOrigem() {
+        Map<String, Long> resumo = new TreeMap<>();
+        porOrigem.forEach((origem, n) -> resumo.put(origem, n.sum()));
+        return resumo;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (stream != null) {
+            stream.close();
+        }
+        if (total.sum() > 0) {
+            log.info("Pinagens registradas: {}", porOrigem());
+        }
+    }
+
+    // Primeiro frame fora do JDK: é lá que está o synchronized/nativo a trocar
+    private static String origem(RecordedStackTrace pilha) {
+        if (pilha == null) return "desconhecida";
+        for (RecordedFrame frame : pilha.getFrames()) {
+            String classe = frame.getMethod().getType().getName();
+            if (!classe.startsWith("java.") && !classe.startsWith("jdk.") && !classe.startsWith("sun.")) {
+                return classe + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "jdk";
+    }
+
+    private static String pilha(RecordedStackTrace pilha) {
+        if (pilha == null) return "";
+        StringBuilder sb = new StringBuilder();
+        int n = Math.min(FRAMES_NO_LOG, pilha.getFrames().size());
+        for (int i = 0; i < n; i++) {
+            RecordedFrame frame = pilha.getFrames().get(i);
+            sb.append("    at ").append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Diário append-only das transações aceitas pela gravação diferida.
+// Segmentos diario-<n>.log com registros [tamanho][crc32][dados]; o
+// checkpoint aponta até onde tudo já está no banco e os segmentos
+// anteriores a ele são apagados. Na subida, o que vem depois do checkpoint
+// é devolvido por recuperar(); um registro cortado no fim (queda no meio
+// da escrita) é detectado pelo tamanho/CRC e descartado.
+// anexar() não é thread-safe: quem chama serializa as escritas.
+final class DiarioTransacoes implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioTransacoes.class);
+    private static final Pattern NOME_SEGMENTO = Pattern.compile("diario-(\\d+)\\.log");
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int CABECALHO = 8;
+
+    record Posicao(long segmento, long offset) {}
+
+    private final Path diretorio;
+    private final long tamanhoSegmento;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream dados = new DataOutputStream(bytes);
+    private final CRC32 crc = new CRC32();
+
+    private long segmento;
+    private FileChannel canal;
+    private long tamanhoAtual;
+
+    DiarioTransacoes(Path diretorio, long tamanhoSegmento) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        Files.createDirectories(diretorio);
+        List<Long> existentes = segmentos();
+        segmento = existentes.isEmpty() ? 0 : existentes.get(existentes.size() - 1);
+    }
+
+    // Registros depois do checkpoint, em ordem de escrita
+    List<Transacao> recuperar() throws IOException {
+        Posicao checkpoint = lerCheckpoint();
+        List<Transacao> pendentes = new ArrayList<>();
+        for (long s : segmentos()) {
+            if (s < checkpoint.segmento()) continue;
+            long inicio = s == checkpoint.segmento() ? checkpoint.offset() : 0;
+            lerSegmento(s, inicio, pendentes);
+        }
+        return pendentes;
+    }
+
+    // Tudo recuperado já foi para o banco: zera o diário e abre um segmento novo
+    void descartarTudo() throws IOException {
+        for (long s : segmentos()) {
+            Files.deleteIfExists(arquivo(s));
+        }
+        abrirSegmento(segmento + 1);
+        gravarCheckpoint(new Posicao(segmento, 0));
+    }
+
+    Posicao anexar(Transacao t) throws IOException {
+        bytes.reset();
+        CodecTransacao.escrever(dados, t);
+        dados.flush();
+        crc.reset();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+
+        if (tamanhoAtual >= tamanhoSegmento) {
+            abrirSegmento(segmento + 1);
+        }
+        ByteBuffer registro = ByteBuffer.allocate(CABECALHO + bytes.size());
+        registro.putInt(bytes.size()).putInt((int) crc.getValue()).put(bytes.toByteArray()).flip();
+        while (registro.hasRemaining()) {
+            canal.write(registro);
+        }
+        tamanhoAtual += registro.limit();
+        return new Posicao(segmento, tamanhoAtual);
+    }
+
+    // fsync do segmento atual (os anteriores já foram sincronizados na troca)
+    void forcar() throws IOException {
+        FileChannel atual = canal;
+        try {
+            atual.force(false);
+        } catch (ClosedChannelException e) {
+            // trocou de segmento no meio; o antigo foi sincronizado antes de fechar
+        }
+    }
+
+    // Tudo até "posicao" está no banco
+    void checkpoint(Posicao posicao) throws IOException {
+        gravarCheckpoint(posicao);
+        for (long s : segmentos()) {
+            if (s >= posicao.segmento()) break;
+            Files.deleteIfExists(arquivo(s));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+        segmento = numero;
+        canal = FileChannel.open(arquivo(numero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        tamanhoAtual = canal.size();
+    }
+
+    private void lerSegmento(long s, long inicio, List<Transacao> destino) throws IOException {
+        byte[] conteudo = Files.readAllBytes(arquivo(s));
+        ByteBuffer buffer = ByteBuffer.wrap(conteudo);
+        buffer.position((int) Math.min(inicio, conteudo.length));
+        while (buffer.remaining() >= CABECALHO) {
+            int tamanho = buffer.getInt();
+            int esperado = buffer.getInt();
+            if (tamanho < 0 || tamanho > buffer.remaining()) {
+                log.warn("Diário {}: registro incompleto no offset {}, descartando o final", s, buffer.position() - CABECALHO);
+                return;
+            }
+            crc.reset();
+            crc.update(conteudo, buffer.position(), tamanho);
+            if ((int) crc.getValue() != esperado) {
+                log.warn("Diário {}: CRC inválido no offset {}, descartando o final", s, buffer.position() - CABECALHO);
+                return;
+            }
+            try (InputStream in = new ByteArrayInputStream(conteudo, buffer.position(), tamanho)) {
+                destino.add(CodecTransacao.ler(new DataInputStream(in)));
+            }
+            buffer.position(buffer.position() + tamanho);
+        }
+    }
+
+    private Posicao lerCheckpoint() throws IOException {
+        Path arquivo = diretorio.resolve(CHECKPOINT);
+        if (!Files.exists(arquivo)) {
+            return new Posicao(0, 0);
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(arquivo))) {
+            return new Posicao(in.readLong(), in.readLong());
+        } catch (EOFException e) {
+            log.warn("Checkpoint do diário corrompido, relendo todos os segmentos");
+            return new Posicao(0, 0);
+        }
+    }
+
+    // Escreve num temporário e troca de uma vez: nunca fica meio checkpoint no disco
+    private void gravarCheckpoint(Posicao posicao) throws IOException {
+        Path temporario = diretorio.resolve(CHECKPOINT + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(posicao.segmento()).putLong(posicao.offset()).flip();
+        try (FileChannel c = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            c.write(buffer);
+        }
+        Files.move(temporario, diretorio.resolve(CHECKPOINT),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Long> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(p -> NOME_SEGMENTO.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Long.parseLong(m.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path arquivo(long numero) {
+        return diretorio.resolve("diario-" + numero + ".log");
+    }
+}
@@ -0,0 +1,74 @@
+package com.tcc.antifraude_seguro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Circuit breaker simples e sem locks.
+//   FECHADO     -> chamadas passam; N falhas seguidas abrem o disjuntor
+//   ABERTO      -> nenhuma chamada passa até vencer a espera
+//   MEIO_ABERTO -> passa uma única chamada de teste; sucesso fecha, falha reabre
+public class Disjuntor {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private static final Logger log = LoggerFactory.getLogger(Disjuntor.class);
+    private static final long FECHADO = Long.MIN_VALUE;
+
+    private final String nome;
+    private final int falhasParaAbrir;
+    private final long esperaNanos;
+
+    private final AtomicInteger falhasSeguidas = new AtomicInteger();
+    private final AtomicLong abertoDesde = new AtomicLong(FECHADO);
+    private final AtomicBoolean testeEmAndamento = new AtomicBoolean();
+
+    public Disjuntor(String nome, int falhasParaAbrir, Duration espera) {
+        this.nome = nome;
+        this.falhasParaAbrir = falhasParaAbrir;
+        this.esperaNanos = espera.toNanos();
+    }
+
+    // Quem recebe true deve sempre chamar registrarSucesso ou registrarFalha
+    public boolean permitir() {
+        long desde = abertoDesde.get();
+        if (desde == FECHADO) {
+            return true;
+        }
+        if (System.nanoTime() - desde < esperaNanos) {
+            return false;
+        }
+        return testeEmAndamento.compareAndSet(false, true);
+    }
+
+    public void registrarSucesso() {
+        falhasSeguidas.set(0);
+        if (abertoDesde.getAndSet(FECHADO) != FECHADO) {
+            log.info("Disjuntor {} fechado: serviço respondeu de novo", nome);
+        }
+        testeEmAndamento.set(false);
+    }
+
+    public void registrarFalha() {
+        if (abertoDesde.get() != FECHADO) {
+            // Falhou a chamada de teste: volta a esperar
+            abertoDesde.set(System.nanoTime());
+            testeEmAndamento.set(false);
+            return;
+        }
+        if (falhasSeguidas.incrementAndGet() >= falhasParaAbrir
+                && abertoDesde.compareAndSet(FECHADO, System.nanoTime())) {
+            log.warn("Disjuntor {} aberto após {} falhas seguidas", nome, falhasParaAbrir);
+        }
+    }
+
+    public Estado estado() {
+        long desde = abertoDesde.get();
+        if (desde == FECHADO) return Estado.FECHADO;
+        return System.nanoTime() - desde < esperaNanos ? Estado.ABERTO : Estado.MEIO_ABERTO;
+    }
+}
@@ -0,0 +1,201 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Junta as linhas de um segmento em arrays primitivos e grava uma coluna por
+// arquivo. A codificação de cada coluna é escolhida depois de ver o segmento:
+//   - id e dataHora: base (mínimo) + deslocamento de 4 bytes, se couber; senão 8
+//   - valor e score: centésimos em int de 4 bytes se todos forem exatos; senão double
+//   - tipo e status: 1 byte, código no dicionário do segmento (0 = null)
+//   - usuário: id do dicionário global, 2 bytes enquanto houver até 65536 usuários
+final class EscritorSegmento {
+
+    static final int VERSAO = 1;
+    static final int NULO_ESCALADO = Integer.MIN_VALUE;
+    static final int ESCALA = 100;
+
+    private final long[] ids;
+    private final long[] datas;
+    private final double[] valores;
+    private final double[] scores;
+    private final byte[] tipos;
+    private final byte[] status;
+    private final int[] usuarios;
+    private final Map<String, Byte> codigosTipo = new HashMap<>();
+    private final List<String> dicionarioTipo = new ArrayList<>();
+    private final Map<String, Byte> codigosStatus = new HashMap<>();
+    private final List<String> dicionarioStatus = new ArrayList<>();
+
+    private int linhas;
+    private LocalDateTime ultimaDataHora;
+
+    EscritorSegmento(int capacidade) {
+        ids = new long[capacidade];
+        datas = new long[capacidade];
+        valores = new double[capacidade];
+        scores = new double[capacidade];
+        tipos = new byte[capacidade];
+        status = new byte[capacidade];
+        usuarios = new int[capacidade];
+    }
+
+    int linhas() {
+        return linhas;
+    }
+
+    boolean cheio() {
+        return linhas == ids.length;
+    }
+
+    long ultimoId() {
+        return ids[linhas - 1];
+    }
+
+    LocalDateTime ultimaDataHora() {
+        return ultimaDataHora;
+    }
+
+    // valor/score NaN = null. Chamado na ordem (dataHora, id)
+    void adicionar(long id, int usuario, LocalDateTime dataHora, long dataHoraMs,
+                   double valor, double score, String tipo, String situacao) {
+        ids[linhas] = id;
+        usuarios[linhas] = usuario;
+        datas[linhas] = dataHoraMs;
+        valores[linhas] = valor;
+        scores[linhas] = score;
+        tipos[linhas] = codigo(tipo, codigosTipo, dicionarioTipo);
+        status[linhas] = codigo(situacao, codigosStatus, dicionarioStatus);
+        ultimaDataHora = dataHora;
+        linhas++;
+    }
+
+    void limpar() {
+        linhas = 0;
+        codigosTipo.clear();
+        dicionarioTipo.clear();
+        codigosStatus.clear();
+        dicionarioStatus.clear();
+    }
+
+    // "usuariosNoDicionario": tamanho do dicionário global já gravado, que
+    // decide a largura da coluna de usuário
+    void gravar(Path diretorio, int usuariosNoDicionario) throws IOException {
+        Files.createDirectories(diretorio);
+        Properties meta = new Properties();
+        meta.setProperty("versao", String.valueOf(VERSAO));
+        meta.setProperty("linhas", String.valueOf(linhas));
+
+        gravarInteiros(diretorio, "id", ids, meta);
+        gravarInteiros(diretorio, "dataHora", datas, meta);
+        gravarDecimais(diretorio, "valor", valores, meta);
+        gravarDecimais(diretorio, "score", scores, meta);
+        gravarBytes(diretorio.resolve("tipo.col"), tipos);
+        gravarBytes(diretorio.resolve("status.col"), status);
+        meta.setProperty("tipo.dicionario", String.join(",", dicionarioTipo));
+        meta.setProperty("status.dicionario", String.join(",", dicionarioStatus));
+
+        int largura = usuariosNoDicionario <= 0x10000 ? 2 : 4;
+        ByteBuffer usuario = buffer(largura);
+        for (int i = 0; i < linhas; i++) {
+            if (largura == 2) usuario.putShort((short) usuarios[i]);
+            else usuario.putInt(usuarios[i]);
+        }
+        gravar(diretorio.resolve("usuario.col"), usuario);
+        meta.setProperty("usuario.largura", String.valueOf(largura));
+
+        meta.setProperty("cursor.dataHora", ultimaDataHora.toString());
+        meta.setProperty("cursor.id", String.valueOf(ultimoId()));
+        try (OutputStream out = Files.newOutputStream(diretorio.resolve("meta.properties"))) {
+            meta.store(out, "segmento do arquivo colunar");
+        }
+    }
+
+    private void gravarInteiros(Path diretorio, String nome, long[] coluna, Properties meta) throws IOException {
+        long minimo = Long.MAX_VALUE, maximo = Long.MIN_VALUE;
+        for (int i = 0; i < linhas; i++) {
+            minimo = Math.min(minimo, coluna[i]);
+            maximo = Math.max(maximo, coluna[i]);
+        }
+        int largura = maximo - minimo <= 0xFFFFFFFFL ? 4 : 8;
+        ByteBuffer dados = buffer(largura);
+        for (int i = 0; i < linhas; i++) {
+            if (largura == 4) dados.putInt((int) (coluna[i] - minimo));
+            else dados.putLong(coluna[i]);
+        }
+        gravar(diretorio.resolve(nome + ".col"), dados);
+        meta.setProperty(nome + ".base", String.valueOf(largura == 4 ? minimo : 0));
+        meta.setProperty(nome + ".largura", String.valueOf(largura));
+        meta.setProperty(nome + ".minimo", String.valueOf(minimo));
+        meta.setProperty(nome + ".maximo", String.valueOf(maximo));
+    }
+
+    private void gravarDecimais(Path diretorio, String nome, double[] coluna, Properties meta) throws IOException {
+        boolean escalado = true;
+        for (int i = 0; i < linhas && escalado; i++) {
+            escalado = Double.isNaN(coluna[i]) || centesimosExatos(coluna[i]);
+        }
+        ByteBuffer dados = buffer(escalado ? 4 : 8);
+        for (int i = 0; i < linhas; i++) {
+            double v = coluna[i];
+            if (!escalado) dados.putDouble(v);
+            else dados.putInt(Double.isNaN(v) ? NULO_ESCALADO : (int) Math.round(v * ESCALA));
+        }
+        gravar(diretorio.resolve(nome + ".col"), dados);
+        meta.setProperty(nome + ".escala", String.valueOf(escalado ? ESCALA : 0));
+    }
+
+    private void gravarBytes(Path arquivo, byte[] coluna) throws IOException {
+        gravar(arquivo, ByteBuffer.wrap(coluna, 0, linhas));
+    }
+
+    private ByteBuffer buffer(int largura) {
+        return ByteBuffer.allocate(linhas * largura).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void gravar(Path arquivo, ByteBuffer dados) throws IOException {
+        if (dados.position() > 0) dados.flip();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (dados.hasRemaining()) {
+                canal.write(dados);
+            }
+            canal.force(false);
+        }
+    }
+
+    // Valores em reais com até 2 casas (o caso comum) viram int sem perda
+    private static boolean centesimosExatos(double v) {
+        double escalado = v * ESCALA;
+        if (Math.abs(escalado) >= Integer.MAX_VALUE) return false;
+        return Math.round(escalado) / (double) ESCALA == v;
+    }
+
+    private static byte codigo(String valor, Map<String, Byte> codigos, List<String> dicionario) {
+        if (valor == null) return 0;
+        Byte codigo = codigos.get(valor);
+        if (codigo == null) {
+            if (dicionario.size() == 255) {
+                throw new IllegalStateException("Mais de 255 valores distintos numa coluna de dicionário: " + valor);
+            }
+            if (valor.indexOf(',') >= 0) {
+                throw new IllegalArgumentException("Valor com vírgula não cabe no dicionário do segmento: " + valor);
+            }
+            dicionario.add(valor);
+            codigo = (byte) dicionario.size();
+            codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+}
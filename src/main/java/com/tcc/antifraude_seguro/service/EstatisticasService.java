@@ -0,0 +1,139 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.ResumoAgregado;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.tcc.antifraude_seguro.service.AnalisadorRiscoService.*;
+
+// Estatísticas mantidas em memória e atualizadas a cada decisão.
+// LongAdder/DoubleAdder espalham as escritas em células por thread,
+// então várias requisições simultâneas não disputam o mesmo contador.
+// Cada decisão também alimenta as séries temporais (janelas recentes).
+@Service
+public class EstatisticasService {
+
+    private static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+
+    private final TransacaoRepository repository;
+    private final SeriesTemporais series;
+
+    private final LongAdder total = new LongAdder();
+    private final DoubleAdder valorTotal = new DoubleAdder();
+    private final DoubleAdder somaScore = new DoubleAdder();
+    private final Map<String, Contador> porStatus = new ConcurrentHashMap<>();
+    private final Map<String, Contador> porTipo = new ConcurrentHashMap<>();
+
+    public EstatisticasService(TransacaoRepository repository) {
+        this(repository, null);
+    }
+
+    @Autowired
+    public EstatisticasService(TransacaoRepository repository, SeriesTemporais series) {
+        this.repository = repository;
+        this.series = series;
+        for (String status : new String[]{APROVADA, REVISAO, BLOQUEADA}) {
+            porStatus.put(status, new Contador());
+        }
+        for (String tipo : TIPOS) {
+            porTipo.put(tipo, new Contador());
+        }
+    }
+
+    // Na subida, recarrega os totais a partir de um GROUP BY no banco
+    @PostConstruct
+    public void reconstruir() {
+        zerar();
+        for (ResumoAgregado resumo : repository.agregarPorStatusETipo()) {
+            total.add(resumo.getQuantidade());
+            valorTotal.add(resumo.getValor());
+            somaScore.add(resumo.getSomaScore());
+            contador(porStatus, resumo.getStatus()).somar(resumo.getQuantidade(), resumo.getValor());
+            contador(porTipo, resumo.getTipo()).somar(resumo.getQuantidade(), resumo.getValor());
+        }
+    }
+
+    // Chamado depois que a transação já foi decidida e salva
+    public void registrar(Transacao transacao) {
+        double valor = transacao.getValor() != null ? transacao.getValor() : 0;
+        double score = transacao.getScoreRisco() != null ? transacao.getScoreRisco() : 0;
+
+        total.increment();
+        valorTotal.add(valor);
+        somaScore.add(score);
+        contador(porStatus, transacao.getStatus()).somar(1, valor);
+        contador(porTipo, transacao.getTipo()).somar(1, valor);
+        if (series != null) {
+            series.registrar(transacao);
+        }
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public long quantidade(String status) {
+        Contador c = porStatus.get(status);
+        return c != null ? c.quantidade.sum() : 0;
+    }
+
+    public double valor(String status) {
+        Contador c = porStatus.get(status);
+        return c != null ? c.valor.sum() : 0;
+    }
+
+    public double valorTotal() {
+        return valorTotal.sum();
+    }
+
+    public double scoreMedio() {
+        long n = total.sum();
+        return n > 0 ? somaScore.sum() / n : 0.0;
+    }
+
+    // Quantidade e valor por tipo
+    public Map<String, Map<String, Object>> resumoPorTipo() {
+        Map<String, Map<String, Object>> resumo = new TreeMap<>();
+        porTipo.forEach((tipo, c) -> resumo.put(tipo, Map.of(
+                "quantidade", c.quantidade.sum(),
+                "valor", String.format("R$ %.2f", c.valor.sum())
+        )));
+        return resumo;
+    }
+
+    private void zerar() {
+        total.reset();
+        valorTotal.reset();
+        somaScore.reset();
+        porStatus.values().forEach(Contador::zerar);
+        porTipo.values().forEach(Contador::zerar);
+    }
+
+    private static Contador contador(Map<String, Contador> mapa, String chave) {
+        return mapa.computeIfAbsent(chave != null ? chave : "DESCONHECIDO", k -> new Contador());
+    }
+
+    private static final class Contador {
+        final LongAdder quantidade = new LongAdder();
+        final DoubleAdder valor = new DoubleAdder();
+
+        void somar(long n, double v) {
+            quantidade.add(n);
+            valor.add(v);
+        }
+
+        void zerar() {
+            quantidade.reset();
+            valor.reset();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Exporta transações em NDJSON (um JSON por linha) lendo do cursor do banco.
+// Cada entidade é escrita e desanexada em seguida, então a memória usada
+// não cresce com o tamanho da tabela.
+@Service
+public class ExportacaoService {
+
+    private final TransacaoRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+
+    public ExportacaoService(TransacaoRepository repository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writerFor(Transacao.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportar(FiltroTransacoes filtro, OutputStream saida) {
+        long linhas = 0;
+        try (Stream<Transacao> stream = repository.streamFiltradas(
+                     filtro.usuarioId(), filtro.status(), filtro.tipo(), filtro.de(), filtro.ate());
+             SequenceWriter sequencia = writer.writeValues(saida)) {
+            Iterator<Transacao> it = stream.iterator();
+            while (it.hasNext()) {
+                Transacao t = it.next();
+                sequencia.write(t);
+                entityManager.detach(t);
+                linhas++;
+            }
+            if (linhas > 0) {
+                sequencia.flush();
+                saida.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Filtro de Bloom dividido no tempo: cada partição cobre um período de
+// duracaoParticaoMs e o slot é reaproveitado (zerado) quando o período
+// passa da janela. "Não contém" é certeza; "talvez contenha" erra na taxa
+// configurada. Bits em AtomicLongArray: adicionar e consultar não travam;
+// só a troca de período de um slot passa pelo lock.
+final class FiltroBloomParticionado {
+
+    private final int particoes;
+    private final long duracaoParticaoMs;
+    private final long bits;
+    private final int funcoes;
+    private final AtomicLongArray[] slots;
+    // Período que cada slot guarda hoje (-1 = vazio)
+    private final AtomicLongArray periodos;
+    private final ReentrantLock lockRotacao = new ReentrantLock();
+
+    FiltroBloomParticionado(int particoes, long duracaoParticaoMs, int chavesPorParticao, double taxaFalsoPositivo) {
+        if (particoes < 1 || duracaoParticaoMs < 1 || chavesPorParticao < 1
+                || !(taxaFalsoPositivo > 0 && taxaFalsoPositivo < 1)) {
+            throw new IllegalArgumentException("Parâmetros inválidos para o filtro de Bloom");
+        }
+        this.particoes = particoes;
+        this.duracaoParticaoMs = duracaoParticaoMs;
+        // m = -n ln p / (ln 2)^2 e k = m/n ln 2
+        double ln2 = Math.log(2);
+        this.bits = Math.max(64, (long) Math.ceil(-chavesPorParticao * Math.log(taxaFalsoPositivo) / (ln2 * ln2)));
+        this.funcoes = Math.max(1, (int) Math.round((double) bits / chavesPorParticao * ln2));
+        this.slots = new AtomicLongArray[particoes];
+        int palavras = (int) ((bits + 63) / 64);
+        for (int i = 0; i < particoes; i++) {
+            slots[i] = new AtomicLongArray(palavras);
+        }
+        this.periodos = new AtomicLongArray(particoes);
+        for (int i = 0; i < particoes; i++) {
+            periodos.set(i, -1);
+        }
+    }
+
+    void adicionar(String chave, long instanteMs) {
+        long periodo = instanteMs / duracaoParticaoMs;
+        int slot = (int) (periodo % particoes);
+        if (periodos.get(slot) != periodo && !assumir(slot, periodo)) {
+            return; // período já saiu da janela
+        }
+        AtomicLongArray palavras = slots[slot];
+        long h1 = hash(chave);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            if ((palavras.get(palavra) & mascara) == 0) {
+                palavras.getAndAccumulate(palavra, mascara, (atual, m) -> atual | m);
+            }
+        }
+    }
+
+    // Consulta as partições ainda dentro da janela que termina em agoraMs
+    boolean talvezContenha(String chave, long agoraMs) {
+        long atual = agoraMs / duracaoParticaoMs;
+        long h1 = hash(chave);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int slot = 0; slot < particoes; slot++) {
+            long periodo = periodos.get(slot);
+            if (periodo < 0 || periodo <= atual - particoes || periodo > atual) {
+                continue;
+            }
+            if (contem(slots[slot], h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contem(AtomicLongArray palavras, long h1, long h2) {
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Zera o slot para um período mais novo; um período mais velho que o do
+    // slot já está fora da janela e é descartado
+    private boolean assumir(int slot, long periodo) {
+        lockRotacao.lock();
+        try {
+            long anterior = periodos.get(slot);
+            if (anterior == periodo) return true;
+            if (anterior > periodo) return false;
+            AtomicLongArray palavras = slots[slot];
+            for (int i = 0; i < palavras.length(); i++) {
+                palavras.set(i, 0);
+            }
+            periodos.set(slot, periodo);
+            return true;
+        } finally {
+            lockRotacao.unlock();
+        }
+    }
+
+    // FNV-1a de 64 bits + finalizador do SplitMix64 (espalha os bits baixos)
+    private static long hash(String chave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < chave.length(); i++) {
+            h ^= chave.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return misturar(h);
+    }
+
+    private static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,147 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Random Forest exportado do scikit-learn (export_model.py) avaliado na JVM.
+//
+// Todas as árvores ficam concatenadas em arrays primitivos paralelos
+// (feature, limiar, filhos, probabilidade), com os filhos já em índice
+// absoluto. Avaliar é só percorrer índices: não aloca nada.
+public final class FlorestaAleatoria {
+
+    private static final int MAGIC = 0x52464231; // "RFB1"
+    private static final int FORMATO = 1;
+
+    private final String versao;
+    private final int numFeatures;
+    private final int[] raizes;
+    private final int[] feature;
+    private final double[] limiar;
+    private final int[] esquerda;
+    private final int[] direita;
+    private final double[] probabilidade;
+
+    private FlorestaAleatoria(String versao, int numFeatures, int[] raizes, int[] feature, double[] limiar,
+                              int[] esquerda, int[] direita, double[] probabilidade) {
+        this.versao = versao;
+        this.numFeatures = numFeatures;
+        this.raizes = raizes;
+        this.feature = feature;
+        this.limiar = limiar;
+        this.esquerda = esquerda;
+        this.direita = direita;
+        this.probabilidade = probabilidade;
+    }
+
+    public static FlorestaAleatoria carregar(InputStream entrada) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(entrada));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Arquivo não é um modelo RFB");
+        }
+        int formato = in.readInt();
+        if (formato != FORMATO) {
+            throw new IOException("Versão de formato não suportada: " + formato);
+        }
+        int numFeatures = in.readInt();
+        int numArvores = in.readInt();
+        byte[] v = new byte[in.readUnsignedShort()];
+        in.readFully(v);
+        String versao = new String(v, StandardCharsets.UTF_8);
+
+        int[] raizes = new int[numArvores];
+        int capacidade = 1024;
+        int[] feature = new int[capacidade];
+        double[] limiar = new double[capacidade];
+        int[] esquerda = new int[capacidade];
+        int[] direita = new int[capacidade];
+        double[] probabilidade = new double[capacidade];
+        int total = 0;
+
+        for (int a = 0; a < numArvores; a++) {
+            int nos = in.readInt();
+            if (total + nos > capacidade) {
+                capacidade = Math.max(capacidade * 2, total + nos);
+                feature = Arrays.copyOf(feature, capacidade);
+                limiar = Arrays.copyOf(limiar, capacidade);
+                esquerda = Arrays.copyOf(esquerda, capacidade);
+                direita = Arrays.copyOf(direita, capacidade);
+                probabilidade = Arrays.copyOf(probabilidade, capacidade);
+            }
+            raizes[a] = total;
+            for (int i = 0; i < nos; i++) {
+                int f = in.readInt();
+                if (f >= numFeatures) {
+                    throw new IOException("Feature fora do intervalo na árvore " + a + ": " + f);
+                }
+                feature[total + i] = f;
+            }
+            for (int i = 0; i < nos; i++) limiar[total + i] = in.readDouble();
+            // filhos vêm com índice local da árvore; guarda em índice absoluto
+            for (int i = 0; i < nos; i++) esquerda[total + i] = total + in.readInt();
+            for (int i = 0; i < nos; i++) direita[total + i] = total + in.readInt();
+            for (int i = 0; i < nos; i++) probabilidade[total + i] = in.readDouble();
+            total += nos;
+        }
+
+        return new FlorestaAleatoria(versao, numFeatures, raizes,
+                Arrays.copyOf(feature, total), Arrays.copyOf(limiar, total),
+                Arrays.copyOf(esquerda, total), Arrays.copyOf(direita, total),
+                Arrays.copyOf(probabilidade, total));
+    }
+
+    // Probabilidade de fraude para um vetor completo de features
+    public double probabilidade(double[] x) {
+        if (x.length != numFeatures) {
+            throw new IllegalArgumentException("Esperava " + numFeatures + " features, recebeu " + x.length);
+        }
+        double soma = 0;
+        for (int raiz : raizes) {
+            int no = raiz;
+            int f;
+            while ((f = feature[no]) >= 0) {
+                // o scikit-learn converte X para float32 antes de comparar com o limiar
+                no = (float) x[f] <= limiar[no] ? esquerda[no] : direita[no];
+            }
+            soma += probabilidade[no];
+        }
+        return soma / raizes.length;
+    }
+
+    // Atalho para o vetor que o backend usa (todas as features zeradas menos uma),
+    // sem montar o array
+    public double probabilidadeSoUmaFeature(int indice, double valor) {
+        float v = (float) valor;
+        double soma = 0;
+        for (int raiz : raizes) {
+            int no = raiz;
+            int f;
+            while ((f = feature[no]) >= 0) {
+                float xf = f == indice ? v : 0f;
+                no = xf <= limiar[no] ? esquerda[no] : direita[no];
+            }
+            soma += probabilidade[no];
+        }
+        return soma / raizes.length;
+    }
+
+    public String versao() {
+        return versao;
+    }
+
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    public int numArvores() {
+        return raizes.length;
+    }
+
+    public int numNos() {
+        return feature.length;
+    }
+}
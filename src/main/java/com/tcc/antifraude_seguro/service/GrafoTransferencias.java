@@ -0,0 +1,539 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.config.GrafoProperties;
+import com.tcc.antifraude_seguro.dto.AnaliseAneis;
+import com.tcc.antifraude_seguro.dto.AnelSuspeito;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.model.VizinhancaRede;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.repository.TransferenciaUsuario;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Grafo das transferências recentes entre usuários (remetente -> beneficiário).
+//
+// Cada conta vira um id int (internado num HashMap; o id volta para uso
+// quando a conta sai do grafo) e as ligações ficam em listas primitivas por
+// conta e sentido: o vizinho e o minuto da última transferência entre os
+// dois. Ligações mais velhas que a janela saem quando a lista é lida e, na
+// compactação periódica, as contas sem ligação são liberadas.
+//
+// observar() lê a vizinhança das duas pontas e registra a ligação sob um
+// lock único: cada operação mexe em poucas listas curtas. A tarefa periódica
+// copia as ligações sob o lock e calcula os componentes conexos fora dele
+// (union-find paralelo); os agrupamentos pequenos e com ciclo ficam marcados
+// até a próxima passada.
+@Service
+@ConditionalOnProperty(name = "antifraude.grafo.habilitado", havingValue = "true", matchIfMissing = true)
+public class GrafoTransferencias {
+
+    private static final Logger log = LoggerFactory.getLogger(GrafoTransferencias.class);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final int MEMBROS_LISTADOS = 50;
+    private static final int ANEIS_LISTADOS = 100;
+
+    private final GrafoProperties props;
+    private final LongSupplier relogioMs;
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int janelaMinutos;
+    private final LongAdder descartadas = new LongAdder();
+
+    // Tudo abaixo só com o lock. ReentrantLock pelo mesmo motivo do
+    // ComportamentoUsuarioService (threads virtuais não prendem a carrier)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] nomes = new String[CAPACIDADE_INICIAL];
+    private final Lado saida = new Lado(CAPACIDADE_INICIAL);
+    private final Lado entrada = new Lado(CAPACIDADE_INICIAL);
+    private int[] livres = new int[64];
+    private int qtdLivres;
+    private int proximoId;
+    // Marcas por geração: evita limpar o array a cada consulta
+    private int[] visitado = new int[CAPACIDADE_INICIAL];
+    private int geracao;
+
+    // Publicados pela tarefa periódica (conta -> tamanho do anel)
+    private volatile Map<String, Integer> marcadas = Map.of();
+    private volatile AnaliseAneis ultimaAnalise;
+
+    private ScheduledExecutorService agendador;
+    // Criado na primeira análise: quem só observa (ex.: os testes) não abre threads
+    private ForkJoinPool pool;
+
+    @Autowired
+    public GrafoTransferencias(GrafoProperties props, TransacaoRepository repository,
+                               TransactionTemplate transactionTemplate) {
+        this(props, System::currentTimeMillis, repository, transactionTemplate);
+    }
+
+    // Relógio injetável e sem banco para os testes, que chamam detectarAneis() à mão
+    public GrafoTransferencias(GrafoProperties props, LongSupplier relogioMs) {
+        this(props, relogioMs, null, null);
+    }
+
+    private GrafoTransferencias(GrafoProperties props, LongSupplier relogioMs, TransacaoRepository repository,
+                                TransactionTemplate transactionTemplate) {
+        this.props = props;
+        this.relogioMs = relogioMs;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.janelaMinutos = (int) props.janela().toMinutes();
+    }
+
+    @PostConstruct
+    void iniciar() {
+        // Banco indisponível não impede a subida: o grafo começa vazio e se
+        // preenche com as decisões seguintes
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconstruir o grafo de transferências; começando vazio", e);
+            lock.lock();
+            try {
+                compactar(Integer.MAX_VALUE);
+            } finally {
+                lock.unlock();
+            }
+        }
+        long intervalo = props.intervaloAneis().toMillis();
+        if (intervalo > 0) {
+            agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "grafo");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleWithFixedDelay(this::detectarComLog, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    synchronized void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // Na subida, reaplica as transferências da janela na ordem em que aconteceram
+    private void reconstruir() {
+        if (repository == null) {
+            return;
+        }
+        LocalDateTime desde = LocalDateTime.now().minus(props.janela());
+        long total = transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<TransferenciaUsuario> stream = repository.streamTransferenciasDesde(desde)) {
+                for (TransferenciaUsuario t : (Iterable<TransferenciaUsuario>) stream::iterator) {
+                    if (t.getUsuarioId() != null && t.getDataHora() != null
+                            && !t.getUsuarioId().equals(t.getBeneficiarioId())) {
+                        lock.lock();
+                        try {
+                            ligar(t.getUsuarioId(), t.getBeneficiarioId(), minuto(t.getDataHora()));
+                        } finally {
+                            lock.unlock();
+                        }
+                        n++;
+                    }
+                }
+            }
+            return n;
+        });
+        log.info("Grafo de transferências reconstruído com {} transferências ({} contas)", total, contas());
+    }
+
+    // Vizinhança ANTES desta transação; a ligação remetente -> beneficiário já
+    // fica registrada. Sem beneficiário só o lado do remetente conta
+    public VizinhancaRede observar(Transacao transacao) {
+        String remetente = transacao.getUsuarioId();
+        String beneficiario = transacao.getBeneficiarioId();
+        if (remetente == null) {
+            return VizinhancaRede.VAZIA;
+        }
+        Map<String, Integer> aneis = marcadas;
+        boolean anel = aneis.containsKey(remetente) || (beneficiario != null && aneis.containsKey(beneficiario));
+        int minuto = minuto(transacao.getDataHora());
+        int desde = minuto - janelaMinutos;
+
+        lock.lock();
+        try {
+            int r = ids.getOrDefault(remetente, -1);
+            int b = beneficiario != null ? ids.getOrDefault(beneficiario, -1) : -1;
+            int saidas = r >= 0 ? saida.expirar(r, desde) : 0;
+            int entradas = b >= 0 ? entrada.expirar(b, desde) : 0;
+            int compartilhados = r >= 0 || b >= 0 ? compartilhados(r, b, desde) : 0;
+            if (beneficiario != null && !beneficiario.equals(remetente)) {
+                ligar(remetente, beneficiario, minuto);
+            }
+            return new VizinhancaRede(saidas, entradas, compartilhados, anel);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Compacta, copia as ligações e calcula os componentes conexos. Público
+    // para os testes e para o endpoint de administração
+    public AnaliseAneis detectarAneis() {
+        long inicio = System.nanoTime();
+        long agora = relogioMs.getAsLong();
+        int desde = (int) Math.floorDiv(agora, 60_000L) - janelaMinutos;
+
+        int n;
+        String[] contas;
+        int[] origem;
+        int[] destino;
+        lock.lock();
+        try {
+            compactar(desde);
+            n = proximoId;
+            contas = Arrays.copyOf(nomes, n);
+            int total = 0;
+            for (int c = 0; c < n; c++) {
+                total += saida.grau[c];
+            }
+            origem = new int[total];
+            destino = new int[total];
+            int k = 0;
+            for (int c = 0; c < n; c++) {
+                int[] v = saida.vizinhos[c];
+                for (int i = 0; i < saida.grau[c]; i++, k++) {
+                    origem[k] = c;
+                    destino[k] = v[i];
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        int ligacoes = origem.length;
+        AtomicIntegerArray pai = new AtomicIntegerArray(n);
+        int[] raiz = new int[n];
+        pool().submit(() -> {
+            IntStream.range(0, n).parallel().forEach(i -> pai.set(i, i));
+            IntStream.range(0, ligacoes).parallel().forEach(e -> unir(pai, origem[e], destino[e]));
+            IntStream.range(0, n).parallel().forEach(i -> raiz[i] = encontrar(pai, i));
+        }).join();
+
+        // Tamanhos por componente: uma passada em contas e outra em ligações
+        int[] qtdContas = new int[n];
+        int[] qtdLigacoes = new int[n];
+        int vivas = 0, componentes = 0;
+        for (int c = 0; c < n; c++) {
+            if (contas[c] != null) {
+                vivas++;
+                if (qtdContas[raiz[c]]++ == 0) componentes++;
+            }
+        }
+        for (int e = 0; e < ligacoes; e++) {
+            qtdLigacoes[raiz[origem[e]]]++;
+        }
+
+        Map<String, Integer> novas = new HashMap<>();
+        Map<Integer, List<String>> membros = new HashMap<>();
+        for (int c = 0; c < n; c++) {
+            int rz = raiz[c];
+            if (contas[c] != null && suspeito(qtdContas[rz], qtdLigacoes[rz])) {
+                novas.put(contas[c], qtdContas[rz]);
+                List<String> lista = membros.computeIfAbsent(rz, k -> new ArrayList<>());
+                if (lista.size() < MEMBROS_LISTADOS) lista.add(contas[c]);
+            }
+        }
+        List<AnelSuspeito> aneis = membros.entrySet().stream()
+                .map(e -> new AnelSuspeito(qtdContas[e.getKey()], qtdLigacoes[e.getKey()], e.getValue()))
+                .sorted(Comparator.comparingInt(AnelSuspeito::contas).reversed())
+                .limit(ANEIS_LISTADOS)
+                .toList();
+
+        marcadas = Map.copyOf(novas);
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        AnaliseAneis analise = new AnaliseAneis(LocalDateTime.ofInstant(Instant.ofEpochMilli(agora), ZONA),
+                vivas, ligacoes, componentes, duracaoMs, aneis);
+        ultimaAnalise = analise;
+        if (!membros.isEmpty()) {
+            log.info("Grafo: {} agrupamentos suspeitos ({} contas, {} ligações, {} ms)",
+                    membros.size(), vivas, ligacoes, duracaoMs);
+        }
+        return analise;
+    }
+
+    // null antes da primeira passada
+    public AnaliseAneis ultimaAnalise() {
+        return ultimaAnalise;
+    }
+
+    public int contas() {
+        lock.lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Transferências que não entraram no grafo por falta de espaço
+    public long descartadas() {
+        return descartadas.sum();
+    }
+
+    private void detectarComLog() {
+        try {
+            detectarAneis();
+        } catch (RuntimeException e) {
+            log.error("Falha ao procurar anéis no grafo de transferências", e);
+        }
+    }
+
+    // Pequeno (um componente gigante é a economia normal) e com ciclo
+    private boolean suspeito(int contas, int ligacoes) {
+        return contas >= props.minimoAnel() && contas <= props.maximoAnel() && ligacoes >= contas;
+    }
+
+    // Outros remetentes que pagaram o beneficiário ou algum beneficiário do
+    // remetente na janela, lendo no máximo limiteVarredura ligações
+    private int compartilhados(int r, int b, int desde) {
+        int marca = novaMarca();
+        if (r >= 0) visitado[r] = marca;
+        int n = 0, lidas = 0;
+        if (b >= 0) {
+            n += remetentes(b, desde, marca);
+            lidas += entrada.grau[b];
+        }
+        if (r >= 0) {
+            int[] v = saida.vizinhos[r];
+            for (int i = 0; i < saida.grau[r] && lidas < props.limiteVarredura(); i++) {
+                if (v[i] != b) {
+                    n += remetentes(v[i], desde, marca);
+                    lidas += entrada.grau[v[i]];
+                }
+            }
+        }
+        return n;
+    }
+
+    private int remetentes(int conta, int desde, int marca) {
+        int[] v = entrada.vizinhos[conta];
+        int[] m = entrada.minutos[conta];
+        int n = 0;
+        for (int i = 0; i < entrada.grau[conta]; i++) {
+            if (m[i] >= desde && visitado[v[i]] != marca) {
+                visitado[v[i]] = marca;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private void ligar(String remetente, String beneficiario, int minuto) {
+        int r = internar(remetente);
+        int b = internar(beneficiario);
+        if (r < 0 || b < 0) {
+            descartadas.increment();
+            return;
+        }
+        saida.ligar(r, b, minuto, props.maximoVizinhos());
+        entrada.ligar(b, r, minuto, props.maximoVizinhos());
+    }
+
+    private int internar(String conta) {
+        Integer id = ids.get(conta);
+        if (id != null) {
+            return id;
+        }
+        int novo;
+        if (qtdLivres > 0) {
+            novo = livres[--qtdLivres];
+        } else if (proximoId < props.maximoContas()) {
+            novo = proximoId++;
+            if (novo == nomes.length) crescer();
+        } else {
+            return -1;
+        }
+        ids.put(conta, novo);
+        nomes[novo] = conta;
+        return novo;
+    }
+
+    private void crescer() {
+        int n = (int) Math.min((long) nomes.length * 2, props.maximoContas());
+        nomes = Arrays.copyOf(nomes, n);
+        visitado = Arrays.copyOf(visitado, n);
+        saida.crescer(n);
+        entrada.crescer(n);
+    }
+
+    // Tira as ligações velhas e libera as contas que ficaram sem nenhuma e
+    // que nenhuma lista cita (as listas de cada sentido são limitadas em
+    // separado, então uma conta pode sumir de um lado e continuar no outro)
+    private void compactar(int desde) {
+        for (int c = 0; c < proximoId; c++) {
+            if (nomes[c] != null) {
+                saida.expirar(c, desde);
+                entrada.expirar(c, desde);
+            }
+        }
+        int marca = novaMarca();
+        for (int c = 0; c < proximoId; c++) {
+            for (int i = 0; i < saida.grau[c]; i++) visitado[saida.vizinhos[c][i]] = marca;
+            for (int i = 0; i < entrada.grau[c]; i++) visitado[entrada.vizinhos[c][i]] = marca;
+        }
+        for (int c = 0; c < proximoId; c++) {
+            if (nomes[c] != null && saida.grau[c] == 0 && entrada.grau[c] == 0 && visitado[c] != marca) {
+                ids.remove(nomes[c]);
+                nomes[c] = null;
+                saida.limpar(c);
+                entrada.limpar(c);
+                if (qtdLivres == livres.length) livres = Arrays.copyOf(livres, livres.length * 2);
+                livres[qtdLivres++] = c;
+            }
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(props.paralelismo() > 0
+                    ? props.paralelismo() : Runtime.getRuntime().availableProcessors());
+        }
+        return pool;
+    }
+
+    private int novaMarca() {
+        if (++geracao == Integer.MAX_VALUE) {
+            Arrays.fill(visitado, 0);
+            geracao = 1;
+        }
+        return geracao;
+    }
+
+    private int minuto(LocalDateTime dataHora) {
+        long ms = dataHora != null ? dataHora.atZone(ZONA).toInstant().toEpochMilli() : relogioMs.getAsLong();
+        return (int) Math.floorDiv(ms, 60_000L);
+    }
+
+    // Union-find sem lock: a raiz maior sempre passa a apontar para a menor,
+    // então nenhuma corrida cria ciclo; o CAS falha se a raiz mudou no meio
+    private static void unir(AtomicIntegerArray pai, int a, int b) {
+        while (true) {
+            a = encontrar(pai, a);
+            b = encontrar(pai, b);
+            if (a == b) return;
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (pai.compareAndSet(a, a, b)) return;
+        }
+    }
+
+    // Com compressão pela metade do caminho (cada nó passa a apontar para o avô)
+    private static int encontrar(AtomicIntegerArray pai, int x) {
+        while (true) {
+            int p = pai.get(x);
+            if (p == x) return x;
+            int avo = pai.get(p);
+            if (avo != p) pai.compareAndSet(x, p, avo);
+            x = avo;
+        }
+    }
+
+    // Listas de um sentido: vizinhos[c][0..grau[c]) e o minuto da última
+    // transferência com cada um
+    private static final class Lado {
+        int[][] vizinhos;
+        int[][] minutos;
+        int[] grau;
+
+        Lado(int capacidade) {
+            vizinhos = new int[capacidade][];
+            minutos = new int[capacidade][];
+            grau = new int[capacidade];
+        }
+
+        void crescer(int capacidade) {
+            vizinhos = Arrays.copyOf(vizinhos, capacidade);
+            minutos = Arrays.copyOf(minutos, capacidade);
+            grau = Arrays.copyOf(grau, capacidade);
+        }
+
+        // Tira as ligações anteriores a "desde" (no lugar); devolve quantas sobraram
+        int expirar(int c, int desde) {
+            int[] v = vizinhos[c];
+            int[] m = minutos[c];
+            int k = 0;
+            for (int i = 0; i < grau[c]; i++) {
+                if (m[i] >= desde) {
+                    v[k] = v[i];
+                    m[k] = m[i];
+                    k++;
+                }
+            }
+            grau[c] = k;
+            return k;
+        }
+
+        // Registra ou renova a ligação c -> outro; cheia, troca a mais antiga
+        void ligar(int c, int outro, int minuto, int maximo) {
+            int[] v = vizinhos[c];
+            int[] m = minutos[c];
+            int g = grau[c];
+            for (int i = 0; i < g; i++) {
+                if (v[i] == outro) {
+                    if (minuto > m[i]) m[i] = minuto;
+                    return;
+                }
+            }
+            if (g == maximo) {
+                int velha = 0;
+                for (int i = 1; i < g; i++) {
+                    if (m[i] < m[velha]) velha = i;
+                }
+                v[velha] = outro;
+                m[velha] = minuto;
+                return;
+            }
+            if (v == null || g == v.length) {
+                int n = v == null ? Math.min(4, maximo) : Math.min(v.length * 2, maximo);
+                vizinhos[c] = v = v == null ? new int[n] : Arrays.copyOf(v, n);
+                minutos[c] = m = m == null ? new int[n] : Arrays.copyOf(m, n);
+            }
+            v[g] = outro;
+            m[g] = minuto;
+            grau[c] = g + 1;
+        }
+
+        void limpar(int c) {
+            vizinhos[c] = null;
+            minutos[c] = null;
+            grau[c] = 0;
+        }
+    }
+}
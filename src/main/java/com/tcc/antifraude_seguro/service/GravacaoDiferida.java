@@ -0,0 +1,275 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.config.GravacaoProperties;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoJdbc;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind: a requisição recebe a decisão assim que ela é calculada.
+//   1. id da sequence (blocos locais, sem ida ao banco na maioria das vezes)
+//   2. registro no diário local (sobrevive a uma queda do processo)
+//   3. fila limitada; cheia = SobrecargaException (503)
+// Uma única thread esvazia a fila em lotes: fsync do diário, INSERTs em um
+// executeBatch, um commit por lote, e só então o checkpoint do diário.
+// As vagas da fila só voltam depois do commit, então o limite vale também
+// para o lote que está sendo gravado.
+@Service
+@ConditionalOnProperty(name = "antifraude.gravacao.modo", havingValue = "diferida")
+public class GravacaoDiferida implements GravadorTransacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(GravacaoDiferida.class);
+    private static final long ESPERA_MAXIMA_RETENTATIVA_MS = 5_000;
+
+    private record Pendente(Transacao transacao, DiarioTransacoes.Posicao posicao) {}
+
+    private final TransacaoJdbc jdbc;
+    private final TransactionTemplate transacao;
+    private final EstatisticasService estatisticas;
+    private final GravacaoProperties props;
+    private final ObjectMapper mapper;
+    private final MetricasDecisao metricas;
+
+    private final BlockingQueue<Pendente> fila;
+    private final Semaphore vagas;
+    private final AlocadorIds ids;
+    // Serializa diário + fila: a ordem na fila é a ordem no diário
+    private final ReentrantLock lockDiario = new ReentrantLock();
+
+    private DiarioTransacoes diario;
+    private Thread gravador;
+    private volatile boolean aceitando;
+
+    public GravacaoDiferida(TransacaoJdbc jdbc,
+                            TransactionTemplate transacao,
+                            EstatisticasService estatisticas,
+                            GravacaoProperties props,
+                            ObjectMapper mapper,
+                            MetricasDecisao metricas) {
+        this.jdbc = jdbc;
+        this.transacao = transacao;
+        this.estatisticas = estatisticas;
+        this.props = props;
+        this.mapper = mapper;
+        this.metricas = metricas;
+        this.fila = new ArrayBlockingQueue<>(props.capacidadeFila());
+        this.vagas = new Semaphore(props.capacidadeFila());
+        this.ids = new AlocadorIds(jdbc::proximoValorSequencia, Transacao.TAMANHO_ALOCACAO_ID);
+    }
+
+    // As estatísticas já foram reconstruídas do banco (são dependência deste
+    // bean), então o que vier do diário entra nelas sem contar duas vezes
+    @PostConstruct
+    void iniciar() throws IOException {
+        diario = new DiarioTransacoes(props.diretorioDiario(), props.tamanhoSegmento().toBytes());
+        recuperar(diario.recuperar());
+        diario.descartarTudo();
+        ids.iniciar();
+
+        metricas.registrarGauge("antifraude.gravacao.pendentes",
+                "Transações aceitas e ainda não gravadas no banco", this, GravacaoDiferida::pendentes);
+
+        aceitando = true;
+        gravador = new Thread(this::esvaziar, "gravacao-diferida");
+        gravador.start();
+        log.info("Gravação diferida ativa (fila de {}, lotes de até {}, diário em {})",
+                props.capacidadeFila(), props.loteMaximo(), props.diretorioDiario());
+    }
+
+    @Override
+    public Transacao gravar(Transacao t) {
+        long inicio = System.nanoTime();
+        if (!vagas.tryAcquire()) {
+            throw new SobrecargaException("Fila de gravação cheia, tente novamente");
+        }
+        try {
+            t.setId(ids.proximo());
+            lockDiario.lock();
+            try {
+                if (!aceitando) {
+                    throw new SobrecargaException("Serviço encerrando");
+                }
+                fila.add(new Pendente(t, diario.anexar(t)));
+            } finally {
+                lockDiario.unlock();
+            }
+        } catch (IOException e) {
+            vagas.release();
+            throw new UncheckedIOException("Falha ao registrar no diário", e);
+        } catch (RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+        metricas.gravacao(System.nanoTime() - inicio);
+        estatisticas.registrar(t);
+        return t;
+    }
+
+    public int pendentes() {
+        return props.capacidadeFila() - vagas.availablePermits();
+    }
+
+    private void esvaziar() {
+        List<Pendente> lote = new ArrayList<>(props.loteMaximo());
+        List<Transacao> transacoes = new ArrayList<>(props.loteMaximo());
+        while (true) {
+            Pendente primeiro;
+            try {
+                primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return; // desligamento forçado: o que sobrou continua no diário
+            }
+            if (primeiro == null) {
+                if (!aceitando && fila.isEmpty()) return;
+                continue;
+            }
+            lote.add(primeiro);
+            fila.drainTo(lote, props.loteMaximo() - 1);
+            for (Pendente p : lote) {
+                transacoes.add(p.transacao());
+            }
+
+            if (!gravarComRetentativa(transacoes)) {
+                return;
+            }
+            try {
+                diario.checkpoint(lote.get(lote.size() - 1).posicao());
+            } catch (IOException e) {
+                // sem checkpoint o lote só é relido (e ignorado como duplicado) na subida
+                log.warn("Falha ao gravar o checkpoint do diário: {}", e.getMessage());
+            }
+            vagas.release(lote.size());
+            lote.clear();
+            transacoes.clear();
+        }
+    }
+
+    // Banco fora do ar: tenta de novo com espera crescente, sem perder nada
+    // (a fila enche e as requisições passam a receber 503). Só desiste se a
+    // thread for interrompida no desligamento; aí o lote fica no diário.
+    private boolean gravarComRetentativa(List<Transacao> lote) {
+        long espera = 100;
+        while (true) {
+            try {
+                long inicio = System.nanoTime();
+                diario.forcar();
+                inserir(lote);
+                metricas.gravacaoLote(System.nanoTime() - inicio);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                log.error("Falha ao gravar lote de {} transações, nova tentativa em {} ms: {}",
+                        lote.size(), espera, e.getMessage());
+            }
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_RETENTATIVA_MS);
+        }
+    }
+
+    // Um commit por lote. Se algum registro viola restrição do banco, o lote
+    // vai linha a linha: o mesmo id já no banco (lote regravado depois de uma
+    // falha) é ignorado; o resto, inclusive a chave de idempotência gravada
+    // por outra transação, vai para rejeitadas.ndjson no diretório do diário,
+    // sem travar a fila.
+    private void inserir(List<Transacao> lote) {
+        try {
+            transacao.executeWithoutResult(status -> jdbc.inserir(lote));
+        } catch (DataIntegrityViolationException e) {
+            for (Transacao t : lote) {
+                try {
+                    transacao.executeWithoutResult(status -> jdbc.inserir(List.of(t)));
+                } catch (DuplicateKeyException duplicada) {
+                    if (!jdbc.idsExistentes(t.getId(), t.getId()).contains(t.getId())) {
+                        // outra transação (outra instância, reenvio fora da janela) já usou a chave
+                        log.warn("Chave de idempotência {} já gravada por outra transação", t.getChaveIdempotencia());
+                        rejeitar(t, duplicada);
+                    }
+                } catch (DataIntegrityViolationException invalida) {
+                    rejeitar(t, invalida);
+                }
+            }
+        }
+    }
+
+    private void rejeitar(Transacao t, RuntimeException erro) {
+        log.error("Transação {} rejeitada pelo banco: {}", t.getId(), erro.getMessage());
+        try {
+            Files.writeString(props.diretorioDiario().resolve("rejeitadas.ndjson"),
+                    mapper.writeValueAsString(t) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Não foi possível guardar a transação rejeitada {}", t.getId(), e);
+        }
+    }
+
+    // Reaplica o que ficou no diário depois do último checkpoint
+    private void recuperar(List<Transacao> pendentes) {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        long menor = Long.MAX_VALUE, maior = 0;
+        for (Transacao t : pendentes) {
+            menor = Math.min(menor, t.getId());
+            maior = Math.max(maior, t.getId());
+        }
+        Set<Long> existentes = jdbc.idsExistentes(menor, maior);
+        List<Transacao> faltando = pendentes.stream().filter(t -> !existentes.contains(t.getId())).toList();
+        for (int i = 0; i < faltando.size(); i += props.loteMaximo()) {
+            inserir(faltando.subList(i, Math.min(i + props.loteMaximo(), faltando.size())));
+        }
+        faltando.forEach(estatisticas::registrar);
+
+        // A sequence não pode voltar a entregar ids que estavam no diário
+        // (ex.: H2 em memória recriado do zero)
+        long proximo = jdbc.proximoValorSequencia();
+        if (proximo - Transacao.TAMANHO_ALOCACAO_ID < maior) {
+            jdbc.reiniciarSequencia(maior + Transacao.TAMANHO_ALOCACAO_ID);
+        }
+        log.info("Diário: {} transações recuperadas, {} já estavam no banco",
+                faltando.size(), pendentes.size() - faltando.size());
+    }
+
+    // Para de aceitar, espera a fila esvaziar (até esperaEncerramento) e fecha o diário
+    @PreDestroy
+    void encerrar() throws IOException, InterruptedException {
+        lockDiario.lock();
+        try {
+            aceitando = false;
+        } finally {
+            lockDiario.unlock();
+        }
+        gravador.join(props.esperaEncerramento().toMillis());
+        if (gravador.isAlive()) {
+            log.warn("Gravação diferida: {} transações não gravadas a tempo, ficam no diário", pendentes());
+            gravador.interrupt();
+            gravador.join();
+        }
+        diario.close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Padrão: save na própria requisição, um commit por transação
+@Service
+@ConditionalOnProperty(name = "antifraude.gravacao.modo", havingValue = "sincrona", matchIfMissing = true)
+public class GravacaoSincrona implements GravadorTransacoes {
+
+    private final TransacaoRepository repository;
+    private final EstatisticasService estatisticas;
+    private final MetricasDecisao metricas;
+
+    public GravacaoSincrona(TransacaoRepository repository, EstatisticasService estatisticas,
+                            MetricasDecisao metricas) {
+        this.repository = repository;
+        this.estatisticas = estatisticas;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public Transacao gravar(Transacao transacao) {
+        long inicio = System.nanoTime();
+        Transacao salva = repository.save(transacao);
+        metricas.gravacao(System.nanoTime() - inicio);
+        estatisticas.registrar(salva);
+        return salva;
+    }
+}
@@ -0,0 +1,11 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+
+// Persistência de uma transação já decidida (POST /api/transacoes).
+// Implementação escolhida por antifraude.gravacao.modo.
+public interface GravadorTransacoes {
+
+    // Devolve a transação com id; a decisão já conta nas estatísticas
+    Transacao gravar(Transacao transacao);
+}
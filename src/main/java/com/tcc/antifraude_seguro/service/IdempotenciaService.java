@@ -0,0 +1,159 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcc.antifraude_seguro.config.IdempotenciaProperties;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.ChaveIdempotencia;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Reenvios do POST /api/transacoes com a mesma chave de idempotência recebem
+// a decisão original, sem nova análise (nem nova entrada nas janelas do usuário).
+//   1. mapa exato das chaves recentes: guarda o futuro da análise, então um
+//      reenvio que chega durante a primeira tentativa espera por ela
+//   2. filtro de Bloom particionado no tempo (janela de 24h por padrão):
+//      "não viu" dispensa o banco; "talvez" confere no banco pela chave
+//   3. restrição única no banco, para o que escapar dos dois (fora da janela)
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricasDecisao metricas;
+    private final IdempotenciaProperties props;
+    private final ConcurrentMap<String, CompletableFuture<Transacao>> recentes;
+    private final FiltroBloomParticionado vistas;
+
+    public IdempotenciaService(TransacaoRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               MetricasDecisao metricas,
+                               IdempotenciaProperties props) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.metricas = metricas;
+        this.props = props;
+        Cache<String, CompletableFuture<Transacao>> cache = Caffeine.newBuilder()
+                .maximumSize(props.recentesMaximo())
+                .expireAfterWrite(props.recentesValidade())
+                .build();
+        this.recentes = cache.asMap();
+        this.vistas = new FiltroBloomParticionado(props.particoes(),
+                props.janela().toMillis() / props.particoes(), props.chavesPorParticao(), props.taxaFalsoPositivo());
+    }
+
+    // Chaves gravadas dentro da janela voltam para o filtro
+    @PostConstruct
+    public void reconstruir() {
+        LocalDateTime desde = LocalDateTime.now().minus(props.janela());
+        long total = transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<ChaveIdempotencia> stream = repository.streamChavesDesde(desde)) {
+                for (ChaveIdempotencia c : (Iterable<ChaveIdempotencia>) stream::iterator) {
+                    vistas.adicionar(c.getChave(), c.getDataHora().atZone(ZONA).toInstant().toEpochMilli());
+                    n++;
+                }
+            }
+            return n;
+        });
+        log.info("Índice de idempotência reconstruído com {} chaves", total);
+    }
+
+    // "processar" analisa e grava; só roda para chave nova (ou sem chave)
+    public CompletableFuture<Transacao> executar(Transacao transacao,
+                                                 Supplier<CompletableFuture<Transacao>> processar) {
+        String chave = transacao.getChaveIdempotencia();
+        if (chave == null) {
+            return processar.get();
+        }
+
+        CompletableFuture<Transacao> resultado = new CompletableFuture<>();
+        CompletableFuture<Transacao> anterior = recentes.putIfAbsent(chave, resultado);
+        if (anterior != null) {
+            metricas.idempotencia(MetricasDecisao.REENVIO_RECENTE);
+            return anterior;
+        }
+
+        long agora = System.currentTimeMillis();
+        if (vistas.talvezContenha(chave, agora)) {
+            Optional<Transacao> gravada;
+            try {
+                gravada = repository.findByChaveIdempotencia(chave);
+            } catch (RuntimeException e) {
+                // Banco fora do ar: quem já pegou "resultado" (reenvio
+                // concorrente) também recebe o erro, e o próximo tenta de novo
+                falhar(chave, resultado, e);
+                throw e;
+            }
+            if (gravada.isPresent()) {
+                metricas.idempotencia(MetricasDecisao.REENVIO_BANCO);
+                resultado.complete(gravada.get());
+                return resultado;
+            }
+            metricas.idempotencia(MetricasDecisao.FALSO_POSITIVO);
+        }
+
+        CompletableFuture<Transacao> processamento;
+        try {
+            processamento = processar.get();
+        } catch (RuntimeException e) {
+            // ex.: fila de gravação cheia; o próximo reenvio tenta de novo
+            falhar(chave, resultado, e);
+            throw e;
+        }
+        processamento.whenComplete((gravada, erro) -> {
+            if (erro == null) {
+                vistas.adicionar(chave, agora);
+                resultado.complete(gravada);
+            } else {
+                concluirComErro(chave, resultado, erro);
+            }
+        });
+        return resultado;
+    }
+
+    // A restrição única barrou: outra instância (ou um reenvio fora da janela)
+    // gravou antes, e vale a decisão que está no banco
+    private void concluirComErro(String chave, CompletableFuture<Transacao> resultado, Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof DataIntegrityViolationException) {
+            Optional<Transacao> gravada;
+            try {
+                gravada = repository.findByChaveIdempotencia(chave);
+            } catch (RuntimeException e) {
+                // Roda num callback: sem isso a exceção some e a requisição fica pendurada
+                log.warn("Falha ao buscar a decisão gravada da chave {}: {}", chave, e.getMessage());
+                gravada = Optional.empty();
+            }
+            if (gravada.isPresent()) {
+                metricas.idempotencia(MetricasDecisao.REENVIO_RESTRICAO);
+                resultado.complete(gravada.get());
+                return;
+            }
+        }
+        falhar(chave, resultado, causa);
+    }
+
+    // Tira a chave de "recentes" e completa o futuro com o erro
+    private void falhar(String chave, CompletableFuture<Transacao> resultado, Throwable causa) {
+        recentes.remove(chave, resultado);
+        resultado.completeExceptionally(causa);
+    }
+}
@@ -0,0 +1,439 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tcc.antifraude_seguro.config.IngestaoLogProperties;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoJdbc;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Ingestão por log local, sem broker: transações publicadas num log
+// append-only particionado por hash do usuarioId. Cada partição tem um
+// consumidor (uma thread) que lê em lotes, na ordem do log:
+//   regras (na ordem: as janelas do usuário veem os eventos na sequência certa)
+//   -> ML agrupado para a zona cinzenta -> INSERT em lote (um commit)
+//   -> decisões no log de saída da mesma partição -> checkpoint do offset.
+// Usuários diferentes caem em partições diferentes e andam em paralelo.
+// Entrega ao menos uma vez: depois de uma queda o último lote é relido; o que
+// já estava no banco (pela chave de idempotência) não é analisado de novo.
+@Service
+@ConditionalOnProperty(name = "antifraude.ingestao.habilitada", havingValue = "true")
+public class IngestaoLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaoLogService.class);
+    private static final String CONSUMIDOR = "analisador";
+    private static final long ESPERA_INICIAL_RETENTATIVA_MS = 100;
+    private static final long ESPERA_MAXIMA_RETENTATIVA_MS = 5_000;
+
+    public record EstadoParticao(int particao, long fimEntrada, long processado, long fimSaida) {}
+
+    private final IngestaoLogProperties props;
+    private final AnalisadorRiscoService analisador;
+    private final TransacaoJdbc jdbc;
+    private final TransacaoRepository repository;
+    private final TransactionTemplate transacao;
+    private final EstatisticasService estatisticas;
+    private final Validator validator;
+    private final MetricasDecisao metricas;
+    private final ObjectReader leitor;
+    private final ObjectWriter escritor;
+    private final AlocadorIds ids;
+
+    private String idLog;
+    private LogSegmentado[] entrada;
+    private LogSegmentado[] saida;
+    private AtomicLongArray processados;
+    private Thread[] consumidores;
+    private volatile boolean ativo;
+
+    // antifraude.cluster.habilitado: não combina com a ingestão, ver iniciar()
+    @Autowired(required = false)
+    private ClusterService cluster;
+
+    public IngestaoLogService(IngestaoLogProperties props,
+                              AnalisadorRiscoService analisador,
+                              TransacaoJdbc jdbc,
+                              TransacaoRepository repository,
+                              TransactionTemplate transacao,
+                              EstatisticasService estatisticas,
+                              Validator validator,
+                              ObjectMapper mapper,
+                              MetricasDecisao metricas) {
+        this.props = props;
+        this.analisador = analisador;
+        this.jdbc = jdbc;
+        this.repository = repository;
+        this.transacao = transacao;
+        this.estatisticas = estatisticas;
+        this.validator = validator;
+        this.metricas = metricas;
+        this.leitor = mapper.readerFor(Transacao.class);
+        this.escritor = mapper.writerFor(Transacao.class);
+        this.ids = new AlocadorIds(jdbc::proximoValorSequencia, Transacao.TAMANHO_ALOCACAO_ID);
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        // As partições do log são por hash do usuário neste nó, não pelo anel do
+        // cluster: cada nó consumiria eventos de usuários alheios e o
+        // comportamento deles se dividiria entre os nós
+        if (cluster != null) {
+            throw new IllegalStateException(
+                    "antifraude.ingestao.habilitada não pode ser usada com antifraude.cluster.habilitado");
+        }
+        int particoes = lerOuCriarMeta();
+        entrada = new LogSegmentado[particoes];
+        saida = new LogSegmentado[particoes];
+        processados = new AtomicLongArray(particoes);
+        long segmento = props.tamanhoSegmento().toBytes();
+        for (int p = 0; p < particoes; p++) {
+            entrada[p] = new LogSegmentado(props.diretorio().resolve("entrada").resolve(String.valueOf(p)), segmento);
+            saida[p] = new LogSegmentado(props.diretorio().resolve("saida").resolve(String.valueOf(p)), segmento);
+            processados.set(p, entrada[p].lerCheckpoint(CONSUMIDOR));
+        }
+        ids.iniciar();
+        metricas.registrarGauge("antifraude.ingestao.atraso", "Bytes publicados no log e ainda não processados",
+                this, IngestaoLogService::atraso);
+
+        ativo = true;
+        consumidores = new Thread[particoes];
+        for (int p = 0; p < particoes; p++) {
+            int particao = p;
+            consumidores[p] = new Thread(() -> consumir(particao), "ingestao-p" + p);
+            consumidores[p].start();
+        }
+        log.info("Ingestão por log ativa: {} partições em {}", particoes, props.diretorio());
+    }
+
+    // Erros de validação da transação; vazio = pode publicar
+    public List<String> validar(Transacao t) {
+        List<String> erros = new ArrayList<>();
+        for (ConstraintViolation<Transacao> v : validator.validate(t)) {
+            erros.add(v.getPropertyPath() + ": " + v.getMessage());
+        }
+        return erros;
+    }
+
+    // Anexa ao log da partição do usuário; a análise acontece depois, no consumidor
+    public void publicar(Transacao t) {
+        if (t.getDataHora() == null) {
+            t.setDataHora(LocalDateTime.now());
+        }
+        int p = particao(t.getUsuarioId());
+        try {
+            entrada[p].anexar(escritor.writeValueAsBytes(t));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao publicar no log", e);
+        }
+        LockSupport.unpark(consumidores[p]);
+    }
+
+    // fsync das partições de entrada: chamado ao fim de cada requisição de publicação
+    public void forcar() {
+        try {
+            for (LogSegmentado l : entrada) {
+                l.forcar();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao sincronizar o log", e);
+        }
+    }
+
+    public List<EstadoParticao> estado() {
+        List<EstadoParticao> estado = new ArrayList<>(entrada.length);
+        for (int p = 0; p < entrada.length; p++) {
+            estado.add(new EstadoParticao(p, entrada[p].fim(), processados.get(p), saida[p].fim()));
+        }
+        return estado;
+    }
+
+    public int particao(String usuarioId) {
+        // String.hashCode é definido pela especificação: a mesma partição em qualquer JVM
+        return Math.floorMod(usuarioId.hashCode(), entrada.length);
+    }
+
+    private void consumir(int p) {
+        long offset = processados.get(p);
+        boolean retomada = true;
+        long espera = ESPERA_INICIAL_RETENTATIVA_MS;
+        while (ativo) {
+            List<LogSegmentado.Registro> registros;
+            try {
+                registros = entrada[p].ler(offset, props.loteMaximo());
+            } catch (IOException e) {
+                log.error("Partição {} parada: falha ao ler o log no offset {}", p, offset, e);
+                return;
+            }
+            if (registros.isEmpty()) {
+                LockSupport.parkNanos(props.esperaVazia().toNanos());
+                continue;
+            }
+
+            List<Transacao> decididas;
+            try {
+                decididas = processar(decodificar(p, registros), retomada);
+            } catch (RuntimeException e) {
+                // Ex.: banco fora do ar na consulta da retomada, falha nas regras ou
+                // no ML. O offset não andou: o lote é relido do checkpoint depois da
+                // espera, conferindo pelas chaves o que já tinha chegado ao banco
+                log.error("Partição {}: falha no lote do offset {}, nova tentativa em {} ms",
+                        p, offset, espera, e);
+                retomada = true;
+                if (!dormir(espera)) {
+                    return;
+                }
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_RETENTATIVA_MS);
+                continue;
+            }
+            if (decididas == null) {
+                return; // interrompida no desligamento: o lote é relido na subida
+            }
+            retomada = false;
+            espera = ESPERA_INICIAL_RETENTATIVA_MS;
+            try {
+                for (Transacao t : decididas) {
+                    saida[p].anexar(escritor.writeValueAsBytes(t));
+                }
+                saida[p].forcar();
+                offset = registros.get(registros.size() - 1).proximo();
+                entrada[p].gravarCheckpoint(CONSUMIDOR, offset);
+                entrada[p].apagarAte(offset);
+                // A saída não tem checkpoint de quem a lê: guarda os últimos
+                // retencaoSaida bytes e apaga os segmentos anteriores
+                saida[p].apagarAte(saida[p].fim() - props.retencaoSaida().toBytes());
+                processados.set(p, offset);
+            } catch (IOException e) {
+                log.error("Partição {} parada: falha ao gravar a saída ou o checkpoint", p, e);
+                return;
+            }
+        }
+    }
+
+    // Evento sem chave de idempotência recebe uma derivada da posição no log
+    // (o id do log evita colisão se o diretório for recriado com o banco antigo)
+    private List<Transacao> decodificar(int p, List<LogSegmentado.Registro> registros) {
+        List<Transacao> lote = new ArrayList<>(registros.size());
+        for (LogSegmentado.Registro r : registros) {
+            Transacao t;
+            try {
+                t = leitor.readValue(r.dados());
+            } catch (IOException e) {
+                log.warn("Partição {}, offset {}: evento ilegível, ignorado: {}", p, r.offset(), e.getMessage());
+                continue;
+            }
+            List<String> erros = validar(t);
+            if (!erros.isEmpty()) {
+                log.warn("Partição {}, offset {}: evento inválido, ignorado: {}", p, r.offset(), erros);
+                continue;
+            }
+            t.setId(null);
+            if (t.getDataHora() == null) {
+                t.setDataHora(LocalDateTime.now());
+            }
+            if (t.getChaveIdempotencia() == null) {
+                t.setChaveIdempotencia("log-" + idLog + "-" + p + "-" + r.offset());
+            }
+            lote.add(t);
+        }
+        return lote;
+    }
+
+    // Decide e grava o lote; devolve as decisões na ordem do log
+    private List<Transacao> processar(List<Transacao> lote, boolean retomada) {
+        // Só o primeiro lote depois da subida pode já estar no banco
+        Map<String, Transacao> gravadas = retomada ? jaGravadas(lote) : Map.of();
+        List<Transacao> novas = new ArrayList<>(lote.size());
+        for (Transacao t : lote) {
+            if (!gravadas.containsKey(t.getChaveIdempotencia())) {
+                novas.add(t);
+            }
+        }
+        // Ids (nextval no banco) antes das regras: as regras registram o evento
+        // nas janelas do usuário e no grafo, e um lote que falhasse depois
+        // disso e fosse relido contaria os mesmos eventos de novo
+        for (Transacao t : novas) {
+            t.setId(ids.proximo());
+        }
+        List<Transacao> cinzentas = new ArrayList<>();
+        for (Transacao t : novas) {
+            if (analisador.aplicarRegras(t)) {
+                cinzentas.add(t);
+            }
+        }
+        analisador.decidirZonaCinzenta(cinzentas);
+
+        Map<String, Transacao> duplicadas = gravarComRetentativa(novas);
+        if (duplicadas == null) {
+            return null;
+        }
+        List<Transacao> decididas = new ArrayList<>(lote.size());
+        for (Transacao t : lote) {
+            String chave = t.getChaveIdempotencia();
+            if (gravadas.containsKey(chave)) {
+                decididas.add(gravadas.get(chave));
+            } else if (duplicadas.containsKey(chave)) {
+                Transacao gravada = duplicadas.get(chave);
+                if (gravada != null) decididas.add(gravada); // null = rejeitada pelo banco
+            } else {
+                estatisticas.registrar(t);
+                decididas.add(t);
+            }
+        }
+        return decididas;
+    }
+
+    private Map<String, Transacao> jaGravadas(List<Transacao> lote) {
+        Map<String, Transacao> gravadas = new HashMap<>();
+        List<String> chaves = lote.stream().map(Transacao::getChaveIdempotencia).toList();
+        for (Transacao g : repository.findByChaveIdempotenciaIn(chaves)) {
+            gravadas.put(g.getChaveIdempotencia(), g);
+        }
+        if (!gravadas.isEmpty()) {
+            log.info("Retomada: {} eventos do último lote já estavam no banco", gravadas.size());
+        }
+        return gravadas;
+    }
+
+    // Banco fora do ar: tenta de novo com espera crescente (a partição fica
+    // parada, os eventos esperam no log). null = interrompida no desligamento.
+    private Map<String, Transacao> gravarComRetentativa(List<Transacao> novas) {
+        long espera = ESPERA_INICIAL_RETENTATIVA_MS;
+        while (true) {
+            try {
+                long inicio = System.nanoTime();
+                Map<String, Transacao> duplicadas = inserir(novas);
+                metricas.gravacaoLote(System.nanoTime() - inicio);
+                return duplicadas;
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar lote de {} eventos, nova tentativa em {} ms: {}",
+                        novas.size(), espera, e.getMessage());
+            }
+            if (!dormir(espera)) {
+                return null;
+            }
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_RETENTATIVA_MS);
+        }
+    }
+
+    // false = interrompida no desligamento
+    private static boolean dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    // Um commit por lote. Se a restrição única barrar (a chave já chegou por
+    // outro caminho, ex.: POST /api/transacoes), vai linha a linha e a decisão
+    // que vale é a do banco. Linha inválida para o banco é descartada com log
+    // (fica no mapa com valor null e não vai para a saída).
+    private Map<String, Transacao> inserir(List<Transacao> novas) {
+        if (novas.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            transacao.executeWithoutResult(status -> jdbc.inserir(novas));
+            return Map.of();
+        } catch (DataIntegrityViolationException e) {
+            Map<String, Transacao> duplicadas = new HashMap<>();
+            for (Transacao t : novas) {
+                try {
+                    transacao.executeWithoutResult(status -> jdbc.inserir(List.of(t)));
+                } catch (DuplicateKeyException duplicada) {
+                    repository.findByChaveIdempotencia(t.getChaveIdempotencia())
+                            .ifPresent(g -> duplicadas.put(t.getChaveIdempotencia(), g));
+                } catch (DataIntegrityViolationException invalida) {
+                    log.error("Evento {} rejeitado pelo banco: {}", t.getChaveIdempotencia(), invalida.getMessage());
+                    duplicadas.put(t.getChaveIdempotencia(), null);
+                }
+            }
+            return duplicadas;
+        }
+    }
+
+    // Número de partições e id do log, gravados na primeira subida
+    private int lerOuCriarMeta() throws IOException {
+        Path arquivo = props.diretorio().resolve("log.meta");
+        Properties meta = new Properties();
+        if (Files.exists(arquivo)) {
+            try (InputStream in = Files.newInputStream(arquivo)) {
+                meta.load(in);
+            }
+            int particoes = Integer.parseInt(meta.getProperty("particoes"));
+            if (props.particoes() > 0 && props.particoes() != particoes) {
+                log.warn("Log em {} foi criado com {} partições; antifraude.ingestao.particoes={} ignorado",
+                        props.diretorio(), particoes, props.particoes());
+            }
+            idLog = meta.getProperty("id");
+            return particoes;
+        }
+        int particoes = props.particoes() > 0 ? props.particoes() : Runtime.getRuntime().availableProcessors();
+        idLog = UUID.randomUUID().toString().substring(0, 8);
+        meta.setProperty("particoes", String.valueOf(particoes));
+        meta.setProperty("id", idLog);
+        Files.createDirectories(props.diretorio());
+        try (OutputStream out = Files.newOutputStream(arquivo)) {
+            meta.store(out, "Log de ingestão: não altere o número de partições");
+        }
+        return particoes;
+    }
+
+    private double atraso() {
+        long total = 0;
+        for (int p = 0; p < entrada.length; p++) {
+            total += entrada[p].fim() - processados.get(p);
+        }
+        return total;
+    }
+
+    // Os consumidores terminam o lote corrente; o resto continua no log
+    @PreDestroy
+    void encerrar() throws IOException, InterruptedException {
+        ativo = false;
+        for (Thread t : consumidores) {
+            LockSupport.unpark(t);
+        }
+        for (Thread t : consumidores) {
+            t.join(30_000);
+            if (t.isAlive()) {
+                t.interrupt();
+                t.join();
+            }
+        }
+        for (int p = 0; p < entrada.length; p++) {
+            entrada[p].close();
+            saida[p].close();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.tcc.antifraude_seguro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Uma partição de log append-only em disco. Registros [tamanho][crc32][dados]
+// em segmentos <offset-base>.log; o offset de um registro é a posição lógica
+// em bytes desde o início do log, então segmentos seguidos se emendam.
+// Escrita serializada por um lock; leitura por qualquer thread, até fim()
+// (o que já foi escrito por inteiro). Na abertura, um registro cortado no
+// fim do último segmento (queda no meio da escrita) é descartado.
+// Checkpoints de consumidores ficam em arquivos "<nome>.checkpoint".
+final class LogSegmentado implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSegmentado.class);
+    private static final Pattern NOME_SEGMENTO = Pattern.compile("(\\d{20})\\.log");
+    private static final int CABECALHO = 8;
+
+    record Registro(long offset, long proximo, byte[] dados) {}
+
+    private final Path diretorio;
+    private final long tamanhoSegmento;
+    private final ConcurrentSkipListMap<Long, Path> segmentos = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lockEscrita = new ReentrantLock();
+    private final CRC32 crcEscrita = new CRC32();
+
+    private FileChannel canal;
+    private long baseAtual;
+    private volatile long fim;
+
+    LogSegmentado(Path diretorio, long tamanhoSegmento) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        Files.createDirectories(diretorio);
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.forEach(p -> {
+                Matcher m = NOME_SEGMENTO.matcher(p.getFileName().toString());
+                if (m.matches()) segmentos.put(Long.parseLong(m.group(1)), p);
+            });
+        }
+        if (segmentos.isEmpty()) {
+            abrirSegmento(0);
+        } else {
+            Map.Entry<Long, Path> ultimo = segmentos.lastEntry();
+            long valido = tamanhoValido(ultimo.getValue());
+            baseAtual = ultimo.getKey();
+            canal = FileChannel.open(ultimo.getValue(), StandardOpenOption.WRITE);
+            if (valido < canal.size()) {
+                log.warn("Log {}: registro incompleto no fim de {}, descartado", diretorio, ultimo.getValue().getFileName());
+                canal.truncate(valido);
+            }
+            canal.position(valido);
+            fim = baseAtual + valido;
+        }
+    }
+
+    // Devolve o offset do registro
+    long anexar(byte[] dados) throws IOException {
+        lockEscrita.lock();
+        try {
+            if (fim - baseAtual >= tamanhoSegmento) {
+                abrirSegmento(fim);
+            }
+            crcEscrita.reset();
+            crcEscrita.update(dados);
+            ByteBuffer registro = ByteBuffer.allocate(CABECALHO + dados.length);
+            registro.putInt(dados.length).putInt((int) crcEscrita.getValue()).put(dados).flip();
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            long offset = fim;
+            fim = offset + registro.limit();
+            return offset;
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+
+    void forcar() throws IOException {
+        lockEscrita.lock();
+        try {
+            canal.force(false);
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+
+    long inicio() {
+        return segmentos.firstKey();
+    }
+
+    long fim() {
+        return fim;
+    }
+
+    // Até "maximo" registros a partir de "offset" (que deve ser início de registro)
+    List<Registro> ler(long offset, int maximo) throws IOException {
+        List<Registro> lidos = new ArrayList<>(Math.min(maximo, 1024));
+        long limite = fim;
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+        CRC32 crc = new CRC32();
+        while (offset < limite && lidos.size() < maximo) {
+            Map.Entry<Long, Path> segmento = segmentos.floorEntry(offset);
+            Long proximaBase = segmentos.higherKey(offset);
+            long fimSegmento = proximaBase != null ? proximaBase : limite;
+            if (offset >= fimSegmento) {
+                offset = proximaBase;
+                continue;
+            }
+            try (FileChannel leitura = FileChannel.open(segmento.getValue(), StandardOpenOption.READ)) {
+                long posicao = offset - segmento.getKey();
+                while (offset < fimSegmento && lidos.size() < maximo) {
+                    cabecalho.clear();
+                    lerTudo(leitura, cabecalho, posicao);
+                    cabecalho.flip();
+                    int tamanho = cabecalho.getInt();
+                    int esperado = cabecalho.getInt();
+                    // offset que não é início de registro: não confia no tamanho lido
+                    if (tamanho < 0 || offset + CABECALHO + tamanho > fimSegmento) {
+                        throw new IOException("Log " + diretorio + ": registro inválido no offset " + offset);
+                    }
+                    ByteBuffer dados = ByteBuffer.allocate(tamanho);
+                    lerTudo(leitura, dados, posicao + CABECALHO);
+                    crc.reset();
+                    crc.update(dados.array());
+                    if ((int) crc.getValue() != esperado) {
+                        throw new IOException("Log " + diretorio + ": CRC inválido no offset " + offset);
+                    }
+                    long proximo = offset + CABECALHO + tamanho;
+                    lidos.add(new Registro(offset, proximo, dados.array()));
+                    posicao += CABECALHO + tamanho;
+                    offset = proximo;
+                }
+            }
+        }
+        return lidos;
+    }
+
+    long lerCheckpoint(String consumidor) throws IOException {
+        Path arquivo = diretorio.resolve(consumidor + ".checkpoint");
+        if (!Files.exists(arquivo)) {
+            return inicio();
+        }
+        byte[] conteudo = Files.readAllBytes(arquivo);
+        if (conteudo.length < 8) {
+            log.warn("Checkpoint {} corrompido, relendo desde o início do log", arquivo);
+            return inicio();
+        }
+        return Math.max(inicio(), ByteBuffer.wrap(conteudo).getLong());
+    }
+
+    // Temporário + troca atômica: nunca fica meio checkpoint no disco
+    void gravarCheckpoint(String consumidor, long offset) throws IOException {
+        Path temporario = diretorio.resolve(consumidor + ".checkpoint.tmp");
+        try (FileChannel c = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            c.write(ByteBuffer.allocate(8).putLong(offset).flip());
+        }
+        Files.move(temporario, diretorio.resolve(consumidor + ".checkpoint"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Apaga os segmentos inteiramente antes de "offset" (nunca o atual)
+    void apagarAte(long offset) throws IOException {
+        for (Map.Entry<Long, Path> s : segmentos.headMap(baseAtual).entrySet()) {
+            Long proximaBase = segmentos.higherKey(s.getKey());
+            if (proximaBase == null || proximaBase > offset) break;
+            segmentos.remove(s.getKey());
+            Files.deleteIfExists(s.getValue());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lockEscrita.lock();
+        try {
+            canal.force(false);
+            canal.close();
+        } finally {
+            lockEscrita.unlock();
+        }
+    }
+
+    private void abrirSegmento(long base) throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+        Path arquivo = diretorio.resolve(String.format("%020d.log", base));
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.position(canal.size());
+        baseAtual = base;
+        segmentos.put(base, arquivo);
+    }
+
+    // Bytes do segmento até o último registro íntegro
+    private static long tamanhoValido(Path arquivo) throws IOException {
+        byte[] conteudo = Files.readAllBytes(arquivo);
+        ByteBuffer buffer = ByteBuffer.wrap(conteudo);
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= CABECALHO) {
+            int inicio = buffer.position();
+            int tamanho = buffer.getInt();
+            int esperado = buffer.getInt();
+            if (tamanho < 0 || tamanho > buffer.remaining()) {
+                return inicio;
+            }
+            crc.reset();
+            crc.update(conteudo, buffer.position(), tamanho);
+            if ((int) crc.getValue() != esperado) {
+                return inicio;
+            }
+            buffer.position(buffer.position() + tamanho);
+        }
+        return buffer.position();
+    }
+
+    private static void lerTudo(FileChannel canal, ByteBuffer destino, long posicao) throws IOException {
+        while (destino.hasRemaining()) {
+            int n = canal.read(destino, posicao);
+            if (n < 0) throw new IOException("Fim inesperado do segmento");
+            posicao += n;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tcc.antifraude_seguro.cliente.FormatoBinario;
+import com.tcc.antifraude_seguro.dto.RespostaLote;
+import com.tcc.antifraude_seguro.dto.ResultadoLote;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// Processamento de lotes em três estágios encadeados por bloco:
+//   1. validação + regras (thread da requisição)
+//   2. ML só para a zona cinzenta, em requisições agrupadas
+//   3. gravação com INSERTs em lote JDBC (uma thread, na ordem dos blocos)
+// Enquanto o bloco N está sendo gravado, o bloco N+1 já está passando pelas regras/ML.
+// Chave de idempotência já gravada (lote reenviado) devolve a decisão do banco
+// sem passar pelas regras, como no POST /transacoes. No modo cluster, as linhas
+// de usuários de outro nó são encaminhadas ao dono uma a uma.
+@Service
+public class LoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoteService.class);
+
+    private static final int TAMANHO_BLOCO = 500;
+    // O erro do banco (SQL, nomes de restrição) fica no log, não na resposta
+    private static final List<String> ERRO_GRAVACAO = List.of("Falha ao gravar a transação");
+    // Blocos em andamento ao mesmo tempo: limita a memória para corpos NDJSON grandes
+    private static final int BLOCOS_EM_VOO = 4;
+
+    private final AnalisadorRiscoService analisador;
+    private final TransacaoRepository repository;
+    private final EstatisticasService estatisticas;
+    private final Validator validator;
+    private final ObjectReader leitorNdjson;
+    private final MetricasDecisao metricas;
+
+    private final ExecutorService estagioMl = Executors.newFixedThreadPool(2, threads("lote-ml"));
+    private final ExecutorService estagioGravacao = Executors.newSingleThreadExecutor(threads("lote-gravacao"));
+
+    // antifraude.cluster.habilitado
+    @Autowired(required = false)
+    private ClusterService cluster;
+
+    public LoteService(AnalisadorRiscoService analisador,
+                       TransacaoRepository repository,
+                       EstatisticasService estatisticas,
+                       Validator validator,
+                       ObjectMapper objectMapper,
+                       MetricasDecisao metricas) {
+        this.analisador = analisador;
+        this.repository = repository;
+        this.estatisticas = estatisticas;
+        this.validator = validator;
+        this.leitorNdjson = objectMapper.readerFor(Transacao.class);
+        this.metricas = metricas;
+    }
+
+    public RespostaLote processarNdjson(InputStream corpo) throws IOException {
+        try (MappingIterator<Transacao> linhas = leitorNdjson.readValues(corpo)) {
+            return processar(linhas);
+        }
+    }
+
+    // Corpo no FormatoBinario: cada quadro é lido inteiro para um ByteBuffer,
+    // decodificado sem Jackson (CodecLoteBinario), validado à mão
+    // (ValidadorTransacao) e processado como um lote. A resposta de cada quadro
+    // sai assim que ele termina. Quadro malformado: se for o primeiro, 400;
+    // depois disso a resposta já começou e termina com um quadro de erro.
+    public void processarBinario(InputStream corpo, OutputStream saida) throws IOException {
+        ReadableByteChannel entrada = Channels.newChannel(corpo);
+        WritableByteChannel resposta = Channels.newChannel(saida);
+        ByteBuffer tamanho = ByteBuffer.allocate(4);
+        boolean primeiro = true;
+        while (true) {
+            List<Transacao> pedidos;
+            try {
+                if (!preencher(entrada, tamanho.clear())) {
+                    return;
+                }
+                int bytes = tamanho.getInt(0);
+                if (bytes < FormatoBinario.CABECALHO_QUADRO || bytes > FormatoBinario.TAMANHO_MAXIMO_QUADRO) {
+                    throw new RequisicaoInvalidaException("Quadro binário inválido: tamanho " + bytes);
+                }
+                ByteBuffer quadro = ByteBuffer.allocate(bytes);
+                if (!preencher(entrada, quadro)) {
+                    throw new RequisicaoInvalidaException("Quadro binário inválido: corpo terminou no meio do quadro");
+                }
+                pedidos = CodecLoteBinario.lerPedidos(quadro.flip());
+            } catch (IllegalArgumentException e) {
+                if (primeiro) {
+                    throw e;
+                }
+                escrever(resposta, CodecLoteBinario.quadroInvalido(e.getMessage()));
+                return;
+            }
+            RespostaLote lote = processar(pedidos.iterator(), ValidadorTransacao::validar);
+            escrever(resposta, CodecLoteBinario.escreverDecisoes(lote.resultados()));
+            saida.flush();
+            primeiro = false;
+        }
+    }
+
+    public RespostaLote processar(Iterator<Transacao> entrada) {
+        return processar(entrada, this::validar);
+    }
+
+    // validador: erros da transação como "campo: mensagem"; vazio = válida
+    public RespostaLote processar(Iterator<Transacao> entrada, Function<Transacao, List<String>> validador) {
+        long inicio = System.nanoTime();
+        Queue<ResultadoLote> resultados = new ConcurrentLinkedQueue<>();
+        Semaphore emVoo = new Semaphore(BLOCOS_EM_VOO);
+        CompletableFuture<Void> gravado = CompletableFuture.completedFuture(null);
+        // Marcada antes de a vaga do bloco com falha voltar: quem pega essa vaga já vê a falha
+        AtomicBoolean falhou = new AtomicBoolean();
+        // Primeira linha de cada chave nesta requisição e, depois de gravada, o resultado dela
+        Map<String, Transacao> chavesDoLote = new HashMap<>();
+        Map<String, ResultadoLote> porChave = new ConcurrentHashMap<>();
+        int indice = 0;
+
+        while (entrada.hasNext()) {
+            emVoo.acquireUninterruptibly();
+            // Um estágio falhou: os blocos seguintes não seriam gravados
+            if (falhou.get()) {
+                break;
+            }
+            Bloco bloco = new Bloco();
+            LocalDateTime agora = LocalDateTime.now();
+
+            // Estágio 1: validação, chaves já gravadas e regras. As chaves são
+            // resolvidas antes das regras: um reenvio não pode contar de novo
+            // nas janelas do usuário
+            List<Integer> indicesValidas = new ArrayList<>(TAMANHO_BLOCO);
+            List<Transacao> validas = new ArrayList<>(TAMANHO_BLOCO);
+            while (entrada.hasNext() && validas.size() + bloco.encaminhadas.size() < TAMANHO_BLOCO) {
+                int i = indice++;
+                Transacao t = entrada.next();
+                long inicioValidacao = System.nanoTime();
+                List<String> erros = validador.apply(t);
+                metricas.validacao(System.nanoTime() - inicioValidacao);
+                if (!erros.isEmpty()) {
+                    resultados.add(ResultadoLote.rejeitada(i, erros));
+                    continue;
+                }
+                if (cluster != null && !cluster.local(t.getUsuarioId())) {
+                    // O dono decide e confere a chave, como no POST /transacoes
+                    bloco.encaminhadas.add(new Encaminhada(i, cluster.encaminhar(t)));
+                    continue;
+                }
+                indicesValidas.add(i);
+                validas.add(t);
+            }
+            Map<String, Transacao> gravadas = jaGravadas(validas);
+            for (int k = 0; k < validas.size(); k++) {
+                int i = indicesValidas.get(k);
+                Transacao t = validas.get(k);
+                String chave = t.getChaveIdempotencia();
+                if (chave != null) {
+                    Transacao primeira = chavesDoLote.putIfAbsent(chave, t);
+                    if (primeira != null) {
+                        // Repetida na mesma requisição: recebe o resultado da primeira
+                        bloco.repetidas.add(new Repetida(i, chave));
+                        continue;
+                    }
+                    Transacao gravada = gravadas.get(chave);
+                    if (gravada != null) {
+                        metricas.idempotencia(MetricasDecisao.REENVIO_BANCO);
+                        registrar(aceita(i, gravada), gravada, resultados, porChave);
+                        continue;
+                    }
+                }
+                t.setId(null);
+                t.setDataHora(agora);
+                if (analisador.aplicarRegras(t)) {
+                    bloco.cinzentas.add(t);
+                }
+                bloco.indices.add(i);
+                bloco.transacoes.add(t);
+            }
+
+            // Estágio 2: ML agrupado para a zona cinzenta
+            CompletableFuture<Bloco> decidido = CompletableFuture.supplyAsync(() -> {
+                analisador.decidirZonaCinzenta(bloco.cinzentas);
+                return bloco;
+            }, estagioMl);
+
+            // Estágio 3: gravação, sempre depois do bloco anterior. A vaga volta
+            // quando este bloco termina, mesmo que ele ou um anterior tenha falhado
+            gravado = gravado.thenCombineAsync(decidido, (anterior, b) -> {
+                gravar(b, resultados, porChave);
+                return null;
+            }, estagioGravacao);
+            gravado.whenComplete((r, e) -> {
+                if (e != null) {
+                    falhou.set(true);
+                }
+                emVoo.release();
+            });
+        }
+        try {
+            gravado.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+
+        List<ResultadoLote> ordenados = new ArrayList<>(resultados);
+        ordenados.sort(Comparator.comparingInt(ResultadoLote::indice));
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        int aceitas = 0;
+        for (ResultadoLote r : ordenados) {
+            if (r.id() != null) aceitas++;
+        }
+        return new RespostaLote(indice, aceitas, indice - aceitas, duracaoMs, ordenados);
+    }
+
+    private void gravar(Bloco bloco, Queue<ResultadoLote> resultados, Map<String, ResultadoLote> porChave) {
+        if (!bloco.transacoes.isEmpty()) {
+            try {
+                // saveAll roda numa transação só; com a sequence + hibernate.jdbc.batch_size
+                // os INSERTs saem agrupados no flush
+                long inicio = System.nanoTime();
+                List<Transacao> salvas = repository.saveAll(bloco.transacoes);
+                metricas.gravacaoLote(System.nanoTime() - inicio);
+                for (int i = 0; i < salvas.size(); i++) {
+                    Transacao t = salvas.get(i);
+                    estatisticas.registrar(t);
+                    registrar(aceita(bloco.indices.get(i), t), t, resultados, porChave);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Uma linha barrou o bloco inteiro (ex.: a chave foi gravada por
+                // outra requisição depois da consulta): linha a linha
+                gravarLinhaALinha(bloco, resultados, porChave);
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar bloco de {} transações do lote", bloco.transacoes.size(), e);
+                for (Integer i : bloco.indices) {
+                    resultados.add(ResultadoLote.rejeitada(i, ERRO_GRAVACAO));
+                }
+            }
+        }
+        // Depois do bloco: a primeira linha da chave já foi gravada (neste ou num anterior)
+        for (Repetida r : bloco.repetidas) {
+            ResultadoLote primeira = porChave.get(r.chave());
+            resultados.add(primeira != null
+                    ? ResultadoLote.aceita(r.indice(), primeira.id(), primeira.status(), primeira.scoreRisco())
+                    : ResultadoLote.rejeitada(r.indice(), ERRO_GRAVACAO));
+        }
+        for (Encaminhada e : bloco.encaminhadas) {
+            resultados.add(encaminhada(e));
+        }
+    }
+
+    private ResultadoLote encaminhada(Encaminhada e) {
+        try {
+            return aceita(e.indice(), e.decisao().join());
+        } catch (CompletionException erro) {
+            Throwable causa = erro.getCause() != null ? erro.getCause() : erro;
+            // Dono ocupado ou sem resposta: o cliente reenvia a linha com a mesma chave
+            if (causa instanceof SobrecargaException || causa instanceof IllegalArgumentException) {
+                return ResultadoLote.rejeitada(e.indice(), List.of(causa.getMessage()));
+            }
+            log.error("Falha na transação do lote encaminhada ao dono", causa);
+            return ResultadoLote.rejeitada(e.indice(), ERRO_GRAVACAO);
+        }
+    }
+
+    private void gravarLinhaALinha(Bloco bloco, Queue<ResultadoLote> resultados, Map<String, ResultadoLote> porChave) {
+        for (int k = 0; k < bloco.transacoes.size(); k++) {
+            int i = bloco.indices.get(k);
+            Transacao t = bloco.transacoes.get(k);
+            // O saveAll desfeito já tinha dado um id da sequence à entidade
+            t.setId(null);
+            try {
+                Transacao salva = repository.save(t);
+                estatisticas.registrar(salva);
+                registrar(aceita(i, salva), salva, resultados, porChave);
+            } catch (DataIntegrityViolationException e) {
+                Optional<Transacao> gravada = t.getChaveIdempotencia() == null
+                        ? Optional.empty() : repository.findByChaveIdempotencia(t.getChaveIdempotencia());
+                if (gravada.isPresent()) {
+                    metricas.idempotencia(MetricasDecisao.REENVIO_RESTRICAO);
+                    registrar(aceita(i, gravada.get()), t, resultados, porChave);
+                } else {
+                    log.warn("Transação do lote rejeitada pelo banco: {}", e.getMessage());
+                    resultados.add(ResultadoLote.rejeitada(i, ERRO_GRAVACAO));
+                }
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar transação do lote", e);
+                resultados.add(ResultadoLote.rejeitada(i, ERRO_GRAVACAO));
+            }
+        }
+    }
+
+    private static void registrar(ResultadoLote resultado, Transacao t, Queue<ResultadoLote> resultados,
+                                  Map<String, ResultadoLote> porChave) {
+        resultados.add(resultado);
+        if (t.getChaveIdempotencia() != null) {
+            porChave.put(t.getChaveIdempotencia(), resultado);
+        }
+    }
+
+    private static ResultadoLote aceita(int indice, Transacao t) {
+        return ResultadoLote.aceita(indice, t.getId(), t.getStatus(), t.getScoreRisco());
+    }
+
+    // Uma consulta por bloco para as chaves que já estão no banco
+    private Map<String, Transacao> jaGravadas(List<Transacao> validas) {
+        List<String> chaves = new ArrayList<>();
+        for (Transacao t : validas) {
+            if (t.getChaveIdempotencia() != null) {
+                chaves.add(t.getChaveIdempotencia());
+            }
+        }
+        if (chaves.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Transacao> gravadas = new HashMap<>();
+        for (Transacao g : repository.findByChaveIdempotenciaIn(chaves)) {
+            gravadas.put(g.getChaveIdempotencia(), g);
+        }
+        return gravadas;
+    }
+
+    private List<String> validar(Transacao t) {
+        List<String> erros = new ArrayList<>();
+        for (ConstraintViolation<Transacao> v : validator.validate(t)) {
+            erros.add(v.getPropertyPath() + ": " + v.getMessage());
+        }
+        return erros;
+    }
+
+    // false se o corpo acabou antes do primeiro byte; no meio do buffer é quadro truncado
+    private static boolean preencher(ReadableByteChannel entrada, ByteBuffer destino) throws IOException {
+        while (destino.hasRemaining()) {
+            if (entrada.read(destino) < 0) {
+                if (destino.position() == 0) {
+                    return false;
+                }
+                throw new RequisicaoInvalidaException("Quadro binário inválido: corpo terminou no meio do quadro");
+            }
+        }
+        return true;
+    }
+
+    private static void escrever(WritableByteChannel saida, ByteBuffer quadro) throws IOException {
+        while (quadro.hasRemaining()) {
+            saida.write(quadro);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        estagioMl.shutdown();
+        estagioGravacao.shutdown();
+    }
+
+    private static ThreadFactory threads(String nome) {
+        return r -> {
+            Thread t = new Thread(r, nome);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record Repetida(int indice, String chave) {}
+
+    private record Encaminhada(int indice, CompletableFuture<Transacao> decisao) {}
+
+    private static final class Bloco {
+        final List<Integer> indices = new ArrayList<>(TAMANHO_BLOCO);
+        final List<Transacao> transacoes = new ArrayList<>(TAMANHO_BLOCO);
+        final List<Transacao> cinzentas = new ArrayList<>();
+        final List<Repetida> repetidas = new ArrayList<>();
+        final List<Encaminhada> encaminhadas = new ArrayList<>();
+    }
+}
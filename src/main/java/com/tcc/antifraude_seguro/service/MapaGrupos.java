@@ -0,0 +1,116 @@
+package com.tcc.antifraude_seguro.service;
+
+// Acumuladores por chave long (endereçamento aberto em arrays primitivos):
+// a agregação sobre o arquivo colunar não aloca nada por linha.
+// No modo direto as chaves são índices de 0 a tamanho-1 (códigos de dicionário)
+final class MapaGrupos {
+
+    private final boolean direto;
+
+    private long[] chaves;
+    private boolean[] ocupados;
+    private long[] quantidade;
+    private double[] valorTotal;
+    private double[] valorMinimo;
+    private double[] valorMaximo;
+    private double[] somaScore;
+    private long[] quantidadeScore;
+    private int tamanho;
+
+    MapaGrupos() {
+        this(16, false);
+    }
+
+    private MapaGrupos(int capacidade, boolean direto) {
+        this.direto = direto;
+        alocar(capacidade);
+    }
+
+    static MapaGrupos direto(int tamanho) {
+        return new MapaGrupos(tamanho, true);
+    }
+
+    // valor/score NaN (null) contam na quantidade, mas não nas somas
+    void somar(long chave, double valor, double score) {
+        int i = direto ? (int) chave : posicao(chave);
+        if (!ocupados[i]) {
+            if (!direto && tamanho + 1 > chaves.length >> 1) {
+                crescer();
+                i = posicao(chave);
+            }
+            ocupados[i] = true;
+            chaves[i] = chave;
+            valorMinimo[i] = Double.POSITIVE_INFINITY;
+            valorMaximo[i] = Double.NEGATIVE_INFINITY;
+            tamanho++;
+        }
+        quantidade[i]++;
+        if (!Double.isNaN(valor)) {
+            valorTotal[i] += valor;
+            if (valor < valorMinimo[i]) valorMinimo[i] = valor;
+            if (valor > valorMaximo[i]) valorMaximo[i] = valor;
+        }
+        if (!Double.isNaN(score)) {
+            somaScore[i] += score;
+            quantidadeScore[i]++;
+        }
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    interface Visitante {
+        void grupo(long chave, long quantidade, double valorTotal, double valorMinimo,
+                   double valorMaximo, double somaScore, long quantidadeScore);
+    }
+
+    void percorrer(Visitante visitante) {
+        for (int i = 0; i < chaves.length; i++) {
+            if (ocupados[i]) {
+                visitante.grupo(chaves[i], quantidade[i], valorTotal[i], valorMinimo[i],
+                        valorMaximo[i], somaScore[i], quantidadeScore[i]);
+            }
+        }
+    }
+
+    private int posicao(long chave) {
+        int mascara = chaves.length - 1;
+        long x = chave * 0x9E3779B97F4A7C15L;
+        int i = (int) (x ^ (x >>> 32)) & mascara;
+        while (ocupados[i] && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private void crescer() {
+        long[] c = chaves, q = quantidade, qs = quantidadeScore;
+        boolean[] o = ocupados;
+        double[] vt = valorTotal, vmin = valorMinimo, vmax = valorMaximo, ss = somaScore;
+        alocar(c.length << 1);
+        for (int j = 0; j < c.length; j++) {
+            if (!o[j]) continue;
+            int i = posicao(c[j]);
+            ocupados[i] = true;
+            chaves[i] = c[j];
+            quantidade[i] = q[j];
+            valorTotal[i] = vt[j];
+            valorMinimo[i] = vmin[j];
+            valorMaximo[i] = vmax[j];
+            somaScore[i] = ss[j];
+            quantidadeScore[i] = qs[j];
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        ocupados = new boolean[capacidade];
+        quantidade = new long[capacidade];
+        valorTotal = new double[capacidade];
+        valorMinimo = new double[capacidade];
+        valorMaximo = new double[capacidade];
+        somaScore = new double[capacidade];
+        quantidadeScore = new long[capacidade];
+    }
+}
@@ -0,0 +1,300 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Métricas do pipeline de decisão (expostas em /actuator/prometheus).
+// Todos os medidores são criados aqui, uma vez; no caminho quente só há
+// System.nanoTime() e record()/increment() em objetos já prontos, sem
+// lookup por nome/tag nem alocação. Os timers dos componentes das regras
+// recebem só 1 em AMOSTRA_REGRAS transações (os contadores recebem todas).
+@Component
+public class MetricasDecisao {
+
+    // Sem Spring (testes, benchmarks): medidores sem registro, não fazem nada
+    public static final MetricasDecisao NOOP = new MetricasDecisao(new CompositeMeterRegistry());
+
+    private static final String ETAPA = "antifraude.etapa";
+    private static final int AMOSTRA_REGRAS = 64;
+
+    // Reenvios reconhecidos pelo IdempotenciaService, por onde foram pegos
+    public static final String REENVIO_RECENTE = "recente";
+    public static final String REENVIO_BANCO = "banco";
+    public static final String REENVIO_RESTRICAO = "restricao";
+    public static final String FALSO_POSITIVO = "falso_positivo";
+
+    private final MeterRegistry registry;
+
+    private final Timer validacao;
+    private final Timer regraValor;
+    private final Timer regraHorario;
+    private final Timer regraTipo;
+    private final Timer regraDia;
+    private final Timer regraComportamento;
+    private final Timer ml;
+    private final Timer gravacao;
+    private final Timer gravacaoLote;
+
+    private final Counter aprovadas;
+    private final Counter revisao;
+    private final Counter bloqueadas;
+    private final Counter zonaCinzenta;
+    private final Counter decisaoMl;
+    private final Counter decisaoFallback;
+
+    private final Counter mlSucesso;
+    private final Counter mlTimeout;
+    private final Counter mlErro;
+    private final Counter mlBulkhead;
+    private final Counter mlDisjuntor;
+
+    private final Counter reenvioRecente;
+    private final Counter reenvioBanco;
+    private final Counter reenvioRestricao;
+    private final Counter falsoPositivo;
+
+    private final Counter clusterEncaminhadas;
+    private final Counter clusterFalhas;
+    private final Counter clusterRecebidas;
+
+    private final Counter sombraAvaliadas;
+    private final Counter sombraDescartadas;
+    private final Counter sombraDivergencias;
+
+    public MetricasDecisao(MeterRegistry registry) {
+        this.registry = registry;
+        validacao = etapa(registry, "validacao", Duration.ofNanos(500), Duration.ofMillis(10));
+        regraValor = etapa(registry, "regra.valor", Duration.ofNanos(10), Duration.ofMillis(1));
+        regraHorario = etapa(registry, "regra.horario", Duration.ofNanos(10), Duration.ofMillis(1));
+        regraTipo = etapa(registry, "regra.tipo", Duration.ofNanos(10), Duration.ofMillis(1));
+        regraDia = etapa(registry, "regra.dia", Duration.ofNanos(10), Duration.ofMillis(1));
+        regraComportamento = etapa(registry, "regra.comportamento", Duration.ofNanos(10), Duration.ofMillis(1));
+        ml = etapa(registry, "ml", Duration.ofMillis(1), Duration.ofSeconds(10));
+        gravacao = etapa(registry, "gravacao", Duration.ofNanos(10_000), Duration.ofSeconds(10));
+        gravacaoLote = etapa(registry, "gravacao.lote", Duration.ofNanos(100_000), Duration.ofSeconds(30));
+
+        aprovadas = decisao(registry, AnalisadorRiscoService.APROVADA);
+        revisao = decisao(registry, AnalisadorRiscoService.REVISAO);
+        bloqueadas = decisao(registry, AnalisadorRiscoService.BLOQUEADA);
+
+        zonaCinzenta = Counter.builder("antifraude.zona.cinzenta")
+                .description("Transações que caíram na zona cinzenta e dependem do ML")
+                .register(registry);
+        decisaoMl = Counter.builder("antifraude.zona.cinzenta.decididas")
+                .tag("origem", "ml").register(registry);
+        decisaoFallback = Counter.builder("antifraude.zona.cinzenta.decididas")
+                .tag("origem", "fallback").register(registry);
+        Gauge.builder("antifraude.zona.cinzenta.razao", this, MetricasDecisao::razaoZonaCinzenta)
+                .description("Fração das decisões que passaram pela zona cinzenta")
+                .register(registry);
+
+        mlSucesso = consultaMl(registry, "sucesso");
+        mlTimeout = consultaMl(registry, "timeout");
+        mlErro = consultaMl(registry, "erro");
+        mlBulkhead = consultaMl(registry, "bulkhead");
+        mlDisjuntor = consultaMl(registry, "disjuntor");
+
+        reenvioRecente = idempotencia(registry, REENVIO_RECENTE);
+        reenvioBanco = idempotencia(registry, REENVIO_BANCO);
+        reenvioRestricao = idempotencia(registry, REENVIO_RESTRICAO);
+        falsoPositivo = idempotencia(registry, FALSO_POSITIVO);
+
+        clusterEncaminhadas = cluster(registry, "encaminhada");
+        clusterFalhas = cluster(registry, "falha");
+        clusterRecebidas = cluster(registry, "recebida");
+
+        sombraAvaliadas = sombra(registry, "avaliada");
+        sombraDescartadas = sombra(registry, "descartada");
+        sombraDivergencias = Counter.builder("antifraude.sombra.divergencias")
+                .description("Decisões de desafiantes diferentes da decisão do campeão (soma de todos)")
+                .register(registry);
+    }
+
+    // ---- etapas ----
+
+    public void validacao(long nanos) {
+        validacao.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean amostrarRegras() {
+        return ThreadLocalRandom.current().nextInt(AMOSTRA_REGRAS) == 0;
+    }
+
+    // Os cinco componentes do score de uma vez (um nanoTime entre cada um)
+    public void regras(long valor, long horario, long tipo, long dia, long comportamento) {
+        regraValor.record(valor, TimeUnit.NANOSECONDS);
+        regraHorario.record(horario, TimeUnit.NANOSECONDS);
+        regraTipo.record(tipo, TimeUnit.NANOSECONDS);
+        regraDia.record(dia, TimeUnit.NANOSECONDS);
+        regraComportamento.record(comportamento, TimeUnit.NANOSECONDS);
+    }
+
+    public void ml(long nanos) {
+        ml.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gravacao(long nanos) {
+        gravacao.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gravacaoLote(long nanos) {
+        gravacaoLote.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ---- decisões ----
+
+    public void decisao(String status) {
+        switch (status) {
+            case AnalisadorRiscoService.APROVADA -> aprovadas.increment();
+            case AnalisadorRiscoService.REVISAO -> revisao.increment();
+            case AnalisadorRiscoService.BLOQUEADA -> bloqueadas.increment();
+            default -> { }
+        }
+    }
+
+    public void zonaCinzenta() {
+        zonaCinzenta.increment();
+    }
+
+    // Zona cinzenta resolvida: com a probabilidade do modelo ou no fallback (REVISAO)
+    public void decididaPeloMl(boolean comModelo) {
+        (comModelo ? decisaoMl : decisaoFallback).increment();
+    }
+
+    // ---- cliente ML (HTTP) ----
+
+    public void mlSucesso() {
+        mlSucesso.increment();
+    }
+
+    public void mlTimeout() {
+        mlTimeout.increment();
+    }
+
+    public void mlErro() {
+        mlErro.increment();
+    }
+
+    public void mlBulkhead() {
+        mlBulkhead.increment();
+    }
+
+    public void mlDisjuntor() {
+        mlDisjuntor.increment();
+    }
+
+    // ---- idempotência ----
+
+    public void idempotencia(String resultado) {
+        switch (resultado) {
+            case REENVIO_RECENTE -> reenvioRecente.increment();
+            case REENVIO_BANCO -> reenvioBanco.increment();
+            case REENVIO_RESTRICAO -> reenvioRestricao.increment();
+            case FALSO_POSITIVO -> falsoPositivo.increment();
+            default -> { }
+        }
+    }
+
+    // ---- cluster ----
+
+    // Transação de usuário de outro nó: decidida pelo dono ou, com o dono
+    // fora do ar, aqui mesmo (falha)
+    public void clusterEncaminhada(boolean ok) {
+        (ok ? clusterEncaminhadas : clusterFalhas).increment();
+    }
+
+    public void clusterRecebida() {
+        clusterRecebidas.increment();
+    }
+
+    // ---- modo sombra ----
+
+    // Decisão copiada para os desafiantes ou descartada com a fila cheia
+    public void sombra(boolean avaliada) {
+        (avaliada ? sombraAvaliadas : sombraDescartadas).increment();
+    }
+
+    public void sombraDivergencia() {
+        sombraDivergencias.increment();
+    }
+
+    // Gauges de estado lidos no scrape (fila da gravação diferida, disjuntor do ML)
+    public <T> void registrarGauge(String nome, String descricao, T dono, ToDoubleFunction<T> leitura) {
+        Gauge.builder(nome, dono, leitura).description(descricao).register(registry);
+    }
+
+    // Caffeine: tamanho, acertos/faltas e expulsões (cache_*{cache=nome}) e a
+    // razão de acertos já calculada, para não depender de PromQL no painel
+    public void registrarCache(String nome, AsyncCache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, nome);
+        // sem nenhuma consulta o Caffeine diz 1.0; aqui fica 0
+        Gauge.builder("antifraude.cache.razao.acertos", cache, c -> {
+                    CacheStats stats = c.synchronous().stats();
+                    return stats.requestCount() > 0 ? stats.hitRate() : 0;
+                })
+                .description("Fração das consultas atendidas pelo cache")
+                .tag("cache", nome)
+                .register(registry);
+    }
+
+    private double razaoZonaCinzenta() {
+        double total = aprovadas.count() + revisao.count() + bloqueadas.count();
+        return total > 0 ? zonaCinzenta.count() / total : 0;
+    }
+
+    private static Timer etapa(MeterRegistry registry, String etapa, Duration minimo, Duration maximo) {
+        return Timer.builder(ETAPA)
+                .tag("etapa", etapa)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(minimo)
+                .maximumExpectedValue(maximo)
+                .register(registry);
+    }
+
+    private static Counter decisao(MeterRegistry registry, String status) {
+        return Counter.builder("antifraude.decisoes")
+                .description("Decisões finais por status")
+                .tag("status", status)
+                .register(registry);
+    }
+
+    private static Counter idempotencia(MeterRegistry registry, String resultado) {
+        return Counter.builder("antifraude.idempotencia")
+                .description("Reenvios devolvidos com a decisão original e falsos positivos do filtro de Bloom")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    private static Counter cluster(MeterRegistry registry, String resultado) {
+        return Counter.builder("antifraude.cluster.transacoes")
+                .description("Transações encaminhadas ao nó dono, recebidas de outro nó e decididas localmente por falha do dono")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    private static Counter sombra(MeterRegistry registry, String resultado) {
+        return Counter.builder("antifraude.sombra.amostras")
+                .description("Decisões avaliadas pelos desafiantes do modo sombra ou descartadas com a fila cheia")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    private static Counter consultaMl(MeterRegistry registry, String resultado) {
+        return Counter.builder("antifraude.ml.consultas")
+                .description("Consultas ao serviço ML por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -1,38 +1,254 @@
 package com.tcc.antifraude_seguro.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.config.MlProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+// Cliente assíncrono do serviço ML (Flask).
+//   - HttpClient do JDK com conexões keep-alive reaproveitadas
+//   - orçamento de latência por consulta: estourou, devolve null (fallback)
+//   - disjuntor: com o serviço fora, nem tenta e devolve null na hora
+//   - bulkhead: no máximo N consultas simultâneas, o excesso vai direto pro fallback
+// Os métodos nunca completam com exceção: null sempre significa "use o fallback".
+// É o classificador padrão (antifraude.ml.modo=http).
+// O HttpClient e o pool dele só são criados na primeira consulta: a subida
+// não paga as classes de rede nem as threads, e réplicas que nunca chegam
+// à zona cinzenta nem os criam.
 @Service
-public class MlFraudeClient {
+@ConditionalOnProperty(name = "antifraude.ml.modo", havingValue = "http", matchIfMissing = true)
+public class MlFraudeClient implements ClassificadorFraude {
+
+    private static final Logger log = LoggerFactory.getLogger(MlFraudeClient.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final MlProperties props;
+    private final boolean threadsVirtuais;
+    private volatile Conexao conexao;
+    private final URI urlPredict;
+    private final URI urlLote;
+    private final Duration orcamento;
+    private final Duration orcamentoLote;
+    private final Disjuntor disjuntor;
+    private final Semaphore bulkhead;
+    private final MetricasDecisao metricas;
+
+    // Última versão informada pelo serviço nas respostas
+    private volatile String versaoModelo = "desconhecida";
+
+    public MlFraudeClient(MlProperties props) {
+        this(props, false, MetricasDecisao.NOOP);
+    }
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String ML_URL = "http://localhost:5001/predict";
+    // Com spring.threads.virtual.enabled o HttpClient também roda em threads
+    // virtuais (uma por tarefa) em vez do pool fixo de props.threads()
+    @Autowired
+    public MlFraudeClient(MlProperties props,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais,
+                          MetricasDecisao metricas) {
+        this.metricas = metricas;
+        this.props = props;
+        this.threadsVirtuais = threadsVirtuais;
+        this.urlPredict = URI.create(props.url() + "/predict");
+        this.urlLote = URI.create(props.url() + "/predict_batch");
+        this.orcamento = props.orcamento();
+        this.orcamentoLote = props.orcamentoLote();
+        this.disjuntor = new Disjuntor("ml", props.falhasParaAbrir(), props.esperaAberto());
+        this.bulkhead = new Semaphore(props.maxConcorrentes());
+        // 0 = fechado, 1 = meio-aberto, 2 = aberto
+        metricas.registrarGauge("antifraude.ml.disjuntor", "Estado do disjuntor do serviço ML", disjuntor,
+                d -> switch (d.estado()) {
+                    case FECHADO -> 0;
+                    case MEIO_ABERTO -> 1;
+                    case ABERTO -> 2;
+                });
+    }
 
+    // Versão bloqueante, limitada pelo orçamento de latência
+    @Override
     public Double obterProbabilidadeFraude(double valor) {
-        try {
-            // Monta vetor de 29 features (V1-V28 zerados + Amount)
-            Double[] features = new Double[29];
-            for (int i = 0; i < 28; i++) features[i] = 0.0;
-            features[28] = valor;
-
-            Map<String, Object> body = Map.of("features", features);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    ML_URL, request, Map.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return ((Number) response.getBody().get("fraud_probability")).doubleValue();
+        return obterProbabilidadeFraudeAsync(valor).join();
+    }
+
+    @Override
+    public CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor) {
+        byte[] corpo = serializar(Map.of("features", vetorFeatures(valor)));
+        return consultar(urlPredict, corpo, orcamento, resposta -> {
+            JsonNode prob = resposta.get("fraud_probability");
+            return prob != null && prob.isNumber() ? prob.doubleValue() : null;
+        });
+    }
+
+    // Uma requisição para várias transações; null se o serviço falhar
+    @Override
+    public double[] obterProbabilidadesFraude(double[] valores) {
+        return obterProbabilidadesFraudeAsync(valores).join();
+    }
+
+    public CompletableFuture<double[]> obterProbabilidadesFraudeAsync(double[] valores) {
+        double[][] instancias = new double[valores.length][];
+        for (int i = 0; i < valores.length; i++) {
+            instancias[i] = vetorFeatures(valores[i]);
+        }
+        byte[] corpo = serializar(Map.of("instances", instancias));
+        return consultar(urlLote, corpo, orcamentoLote, resposta -> {
+            JsonNode probs = resposta.get("fraud_probabilities");
+            if (probs == null || !probs.isArray() || probs.size() != valores.length) {
+                return null;
             }
-        } catch (Exception e) {
-            System.out.println("ML service indisponivel, usando fallback: " + e.getMessage());
+            double[] resultado = new double[valores.length];
+            for (int i = 0; i < resultado.length; i++) {
+                resultado[i] = probs.get(i).doubleValue();
+            }
+            return resultado;
+        });
+    }
+
+    @Override
+    public String versaoModelo() {
+        return versaoModelo;
+    }
+
+    public Disjuntor.Estado estadoDisjuntor() {
+        return disjuntor.estado();
+    }
+
+    // Cria o HttpClient já, sem consultar o serviço (usado pelo aquecimento)
+    public void abrirConexao() {
+        conexao();
+    }
+
+    private record Conexao(HttpClient http, ExecutorService executor) {}
+
+    private Conexao conexao() {
+        Conexao c = conexao;
+        if (c == null) {
+            synchronized (this) {
+                c = conexao;
+                if (c == null) {
+                    conexao = c = abrir();
+                }
+            }
+        }
+        return c;
+    }
+
+    private Conexao abrir() {
+        ExecutorService executor = threadsVirtuais
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ml-cliente-", 0).factory())
+                : Executors.newFixedThreadPool(props.threads(), r -> {
+                    Thread t = new Thread(r, "ml-cliente");
+                    t.setDaemon(true);
+                    return t;
+                });
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(props.timeoutConexao())
+                .executor(executor)
+                .build();
+        return new Conexao(http, executor);
+    }
+
+    private <T> CompletableFuture<T> consultar(URI url, byte[] corpo, Duration limite, Leitor<T> leitor) {
+        if (!bulkhead.tryAcquire()) {
+            log.debug("ML: limite de consultas simultâneas atingido, usando fallback");
+            metricas.mlBulkhead();
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!disjuntor.permitir()) {
+            bulkhead.release();
+            metricas.mlDisjuntor();
+            return CompletableFuture.completedFuture(null);
         }
-        return null; // null = fallback para regras
+
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(limite)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(corpo))
+                .build();
+
+        return conexao().http().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(limite.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((resposta, erro) -> {
+                    bulkhead.release();
+                    T resultado = null;
+                    if (erro == null && resposta.statusCode() == 200) {
+                        try {
+                            JsonNode json = JSON.readTree(resposta.body());
+                            JsonNode versao = json.get("model_version");
+                            if (versao != null && versao.isTextual()) {
+                                versaoModelo = versao.asText();
+                            }
+                            resultado = leitor.ler(json);
+                        } catch (IOException e) {
+                            erro = e;
+                        }
+                    }
+                    if (resultado != null) {
+                        disjuntor.registrarSucesso();
+                        metricas.mlSucesso();
+                    } else {
+                        disjuntor.registrarFalha();
+                        if (estourouTempo(erro)) metricas.mlTimeout();
+                        else metricas.mlErro();
+                        log.debug("ML indisponível, usando fallback: {}",
+                                erro != null ? erro.toString() : "HTTP " + resposta.statusCode());
+                    }
+                    return resultado;
+                });
+    }
+
+    private static boolean estourouTempo(Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        return causa instanceof TimeoutException || causa instanceof HttpTimeoutException;
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        if (conexao != null) {
+            conexao.executor().shutdownNow();
+        }
+    }
+
+    // 29 features: V1-V28 zerados + Amount
+    private static double[] vetorFeatures(double valor) {
+        double[] features = new double[29];
+        features[28] = valor;
+        return features;
+    }
+
+    private static byte[] serializar(Object corpo) {
+        try {
+            return JSON.writeValueAsBytes(corpo);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Leitor<T> {
+        T ler(JsonNode resposta) throws IOException;
     }
-}
\ No newline at end of file
+}
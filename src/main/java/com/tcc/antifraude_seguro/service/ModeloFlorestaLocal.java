@@ -0,0 +1,67 @@
+package com.tcc.antifraude_seguro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+// Inferência na própria JVM com o modelo exportado (antifraude.ml.modo=local).
+// Sem salto HTTP nem processo Python na zona cinzenta.
+@Service
+@ConditionalOnProperty(name = "antifraude.ml.modo", havingValue = "local")
+public class ModeloFlorestaLocal implements ClassificadorFraude {
+
+    private static final Logger log = LoggerFactory.getLogger(ModeloFlorestaLocal.class);
+
+    // Posição do Amount no vetor V1-V28 + Amount
+    private static final int INDICE_VALOR = 28;
+
+    private final FlorestaAleatoria floresta;
+
+    @Autowired
+    public ModeloFlorestaLocal(@Value("${antifraude.ml.arquivo-modelo:src/ml-service/fraud_model.rfb}") Path arquivo) {
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            this.floresta = FlorestaAleatoria.carregar(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível carregar o modelo " + arquivo, e);
+        }
+        log.info("Modelo {} carregado: {} árvores, {} nós", floresta.versao(), floresta.numArvores(), floresta.numNos());
+    }
+
+    public ModeloFlorestaLocal(FlorestaAleatoria floresta) {
+        this.floresta = floresta;
+    }
+
+    @Override
+    public Double obterProbabilidadeFraude(double valor) {
+        return floresta.probabilidadeSoUmaFeature(INDICE_VALOR, valor);
+    }
+
+    @Override
+    public CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor) {
+        return CompletableFuture.completedFuture(obterProbabilidadeFraude(valor));
+    }
+
+    @Override
+    public double[] obterProbabilidadesFraude(double[] valores) {
+        double[] resultado = new double[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            resultado[i] = floresta.probabilidadeSoUmaFeature(INDICE_VALOR, valores[i]);
+        }
+        return resultado;
+    }
+
+    @Override
+    public String versaoModelo() {
+        return floresta.versao();
+    }
+}
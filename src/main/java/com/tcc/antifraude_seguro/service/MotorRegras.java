@@ -0,0 +1,83 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Guarda o conjunto de regras em uso. Trocar as regras é compilar uma
+// definição nova e publicar a referência de uma vez (sem redeploy)
+@Service
+public class MotorRegras {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorRegras.class);
+
+    static final String ARQUIVO_PADRAO = "classpath:regras.json";
+
+    private final ObjectMapper mapper;
+    private final ResourceLoader resourceLoader;
+    private final String arquivo;
+    private final AtomicReference<ConjuntoRegras> atual = new AtomicReference<>();
+    // PUT /regras, recarregar e a promoção da sombra podem publicar ao mesmo
+    // tempo: versão lida, compilação e troca juntas, senão duas saem com a mesma versão
+    private final ReentrantLock lockPublicacao = new ReentrantLock();
+
+    public MotorRegras(ObjectMapper mapper, ResourceLoader resourceLoader,
+                       @Value("${antifraude.regras.arquivo:" + ARQUIVO_PADRAO + "}") String arquivo) {
+        this.mapper = mapper;
+        this.resourceLoader = resourceLoader;
+        this.arquivo = arquivo;
+        atual.set(ConjuntoRegras.compilar(ler(arquivo), 1));
+        log.info("Regras v{} carregadas de {}", atual.get().versao(), arquivo);
+    }
+
+    public ConjuntoRegras atual() {
+        return atual.get();
+    }
+
+    // Compila antes de trocar: definição inválida lança RequisicaoInvalidaException
+    // e o conjunto em uso continua o mesmo
+    public ConjuntoRegras publicar(DefinicaoRegras definicao) {
+        lockPublicacao.lock();
+        try {
+            ConjuntoRegras anterior = atual.get();
+            ConjuntoRegras novo = ConjuntoRegras.compilar(definicao, anterior.versao() + 1);
+            atual.set(novo);
+            log.info("Regras v{} publicadas (antes v{})", novo.versao(), anterior.versao());
+            return novo;
+        } finally {
+            lockPublicacao.unlock();
+        }
+    }
+
+    // Relê o arquivo configurado (útil quando ele fica fora do jar)
+    public ConjuntoRegras recarregar() {
+        return publicar(ler(arquivo));
+    }
+
+    private DefinicaoRegras ler(String local) {
+        try (InputStream in = resourceLoader.getResource(local).getInputStream()) {
+            return mapper.readValue(in, DefinicaoRegras.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler as regras de " + local, e);
+        }
+    }
+
+    // Regras do regras.json empacotado, para quem roda fora do Spring (testes, benchmarks)
+    static ConjuntoRegras padrao() {
+        try (InputStream in = MotorRegras.class.getResourceAsStream("/regras.json")) {
+            return ConjuntoRegras.compilar(new ObjectMapper().readValue(in, DefinicaoRegras.class), 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
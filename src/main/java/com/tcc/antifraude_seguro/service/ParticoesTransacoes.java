@@ -0,0 +1,78 @@
+package com.tcc.antifraude_seguro.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Perfil prod (PostgreSQL): garante as partições mensais de transacoes do mês
+// atual até alguns meses adiante, na subida e depois uma vez por dia (uma
+// aplicação que fica no ar meses não pode depender de reiniciar). Sem isso as
+// linhas de um mês sem partição caem na partição padrão. A função vem das
+// migrações V1/V4 e move para o mês novo o que já estava na padrão.
+@Service
+@ConditionalOnProperty(name = "antifraude.particoes.habilitada", havingValue = "true")
+public class ParticoesTransacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticoesTransacoes.class);
+
+    private final JdbcTemplate jdbc;
+    private final int mesesAFrente;
+
+    private ScheduledExecutorService agendador;
+
+    public ParticoesTransacoes(JdbcTemplate jdbc,
+                               @Value("${antifraude.particoes.meses-a-frente:3}") int mesesAFrente) {
+        this.jdbc = jdbc;
+        this.mesesAFrente = mesesAFrente;
+    }
+
+    // Falha aqui não impede a subida: a partição padrão recebe as linhas e a
+    // próxima execução tenta de novo
+    @PostConstruct
+    void iniciar() {
+        garantirComLog();
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "particoes");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(this::garantirComLog, 1, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    public void garantir() {
+        Integer criadas = jdbc.queryForObject("SELECT criar_particoes_transacoes(?)", Integer.class, mesesAFrente);
+        if (criadas != null && criadas > 0) {
+            log.info("{} partições de transacoes criadas", criadas);
+        }
+        // O que sobra na padrão está fora da janela de partições (histórico
+        // antigo, relógio errado) e não sai por DETACH/DROP com os meses
+        Long naPadrao = jdbc.queryForObject("SELECT count(*) FROM transacoes_padrao", Long.class);
+        if (naPadrao != null && naPadrao > 0) {
+            log.warn("{} linhas em transacoes_padrao, fora das partições mensais", naPadrao);
+        }
+    }
+
+    private void garantirComLog() {
+        try {
+            garantir();
+        } catch (RuntimeException e) {
+            log.error("Falha ao criar as partições mensais de transacoes", e);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.config.SombraProperties;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.DivergenciaSombra;
+import com.tcc.antifraude_seguro.dto.EstadoSombra;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.ExplicacaoDecisao;
+import com.tcc.antifraude_seguro.model.TipoTransacao;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.model.VizinhancaRede;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.STATUS;
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.TIPOS;
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.codigoStatus;
+import static com.tcc.antifraude_seguro.cliente.FormatoBinario.codigoTipo;
+
+// Campeão x desafiantes. A decisão final do AnalisadorRiscoService (o
+// campeão) é copiada numa Amostra e entregue a um pool pequeno com fila
+// limitada; na requisição fica só essa cópia e um offer. Fila cheia = a
+// amostra é descartada (nunca espera nem lança). Cada desafiante refaz o
+// score com as próprias regras sobre o que o campeão viu (comportamento e
+// vizinhança de antes da transação) e a decisão entra numa matriz 3x3 por
+// desafiante; as divergências vão para um log binário compacto.
+// Na zona cinzenta o desafiante combina com a probabilidade que o campeão
+// recebeu do ML: o modo sombra não consulta o modelo. Sem ela (o campeão
+// não passou pela zona cinzenta ou o ML não respondeu) fica em REVISAO,
+// como no fallback, e conta em semMl.
+@Service
+@ConditionalOnProperty(name = "antifraude.sombra.habilitado", havingValue = "true")
+public class PontuacaoSombra {
+
+    private static final Logger log = LoggerFactory.getLogger(PontuacaoSombra.class);
+    private static final Pattern NOME = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+
+    // Registro do log: [long dataHora (ms, UTC)][double valor][byte tipo]
+    // [byte status campeão][byte status desafiante][byte marcas]
+    // [short score campeão][short score desafiante] (centésimos)
+    // [byte bytes desafiante][byte bytes usuarioId][desafiante][usuarioId]
+    private static final int FIXO = 8 + 8 + 1 + 1 + 1 + 1 + 2 + 2 + 1 + 1;
+    private static final byte SEM_CODIGO = (byte) 0xFF;
+    private static final byte MARCA_SEM_ML = 1;
+
+    // Cópia do que o campeão viu e decidiu: a Transacao segue com a requisição
+    record Amostra(String usuarioId, double valor, String tipo, LocalDateTime dataHora,
+                   CaracteristicasUsuario caracteristicas, VizinhancaRede rede,
+                   Double probabilidadeMl, double score, int status) {}
+
+    private static final class Desafiante {
+        final String nome;
+        final byte[] nomeUtf8;
+        final ConjuntoRegras regras;
+        final LocalDateTime desde = LocalDateTime.now();
+        // [campeão * 3 + desafiante], índices do ConjuntoRegras.indiceDecisao
+        final LongAdder[] matriz = new LongAdder[9];
+        final LongAdder semMl = new LongAdder();
+
+        Desafiante(String nome, ConjuntoRegras regras) {
+            this.nome = nome;
+            this.nomeUtf8 = nome.getBytes(StandardCharsets.UTF_8);
+            this.regras = regras;
+            for (int i = 0; i < matriz.length; i++) {
+                matriz[i] = new LongAdder();
+            }
+        }
+    }
+
+    private final SombraProperties props;
+    private final MotorRegras motorRegras;
+    private final MetricasDecisao metricas;
+    private final ObjectMapper mapper;
+    private final ResourceLoader resourceLoader;
+
+    private final ConcurrentSkipListMap<String, Desafiante> desafiantes = new ConcurrentSkipListMap<>();
+    private final ThreadPoolExecutor executor;
+    private final LongAdder avaliadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder divergencias = new LongAdder();
+
+    private LogSegmentado registro;
+
+    public PontuacaoSombra(SombraProperties props,
+                           MotorRegras motorRegras,
+                           MetricasDecisao metricas,
+                           ObjectMapper mapper,
+                           ResourceLoader resourceLoader) {
+        this.props = props;
+        this.motorRegras = motorRegras;
+        this.metricas = metricas;
+        this.mapper = mapper;
+        this.resourceLoader = resourceLoader;
+        this.executor = new ThreadPoolExecutor(props.threads(), props.threads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(props.capacidadeFila()),
+                Thread.ofPlatform().name("sombra-", 0).daemon(true).factory(),
+                (tarefa, pool) -> {
+                    descartadas.increment();
+                    metricas.sombra(false);
+                });
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        registro = new LogSegmentado(props.diretorio(), props.tamanhoSegmento().toBytes());
+        props.desafiantes().forEach((nome, local) -> registrar(nome, ler(local)));
+        metricas.registrarGauge("antifraude.sombra.fila", "Decisões esperando os desafiantes",
+                executor, e -> e.getQueue().size());
+        log.info("Modo sombra com {} desafiante(s), log de divergências em {}",
+                desafiantes.size(), props.diretorio());
+    }
+
+    @PreDestroy
+    void parar() throws IOException, InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        registro.close();
+    }
+
+    // Chamado na decisão final, na thread da requisição
+    public void submeter(Transacao t) {
+        int status = codigoStatus(t.getStatus());
+        if (desafiantes.isEmpty() || status < 0) {
+            return;
+        }
+        ExplicacaoDecisao e = t.getExplicacao();
+        Double probabilidade = e != null ? e.getProbabilidadeMl() : null;
+        double score = e != null && e.getScoreCombinado() != null ? e.getScoreCombinado() : t.getScoreRisco();
+        Amostra amostra = new Amostra(t.getUsuarioId(), t.getValor() != null ? t.getValor() : 0, t.getTipo(),
+                t.getDataHora(), t.getCaracteristicas(), t.getRede(), probabilidade, score, status);
+        executor.execute(() -> avaliar(amostra));
+    }
+
+    // Cria ou substitui (zerando os contadores); definição inválida lança
+    // RequisicaoInvalidaException e nada muda
+    public EstadoSombra.Desafiante registrar(String nome, DefinicaoRegras definicao) {
+        if (nome == null || !NOME.matcher(nome).matches()) {
+            throw new RequisicaoInvalidaException("Nome de desafiante inválido (letras, dígitos, '_', '.', '-', até 64)");
+        }
+        Desafiante d = new Desafiante(nome, ConjuntoRegras.compilar(definicao, 1));
+        desafiantes.put(nome, d);
+        log.info("Desafiante {} registrado", nome);
+        return estado(d);
+    }
+
+    public void remover(String nome) {
+        if (desafiantes.remove(nome) == null) {
+            throw new RequisicaoInvalidaException("Desafiante não encontrado: " + nome);
+        }
+        log.info("Desafiante {} removido", nome);
+    }
+
+    public DefinicaoRegras definicao(String nome) {
+        return buscar(nome).regras.definicao();
+    }
+
+    // As regras do desafiante passam a decidir; ele sai da sombra
+    public ConjuntoRegras promover(String nome) {
+        Desafiante d = buscar(nome);
+        ConjuntoRegras publicado = motorRegras.publicar(d.regras.definicao());
+        desafiantes.remove(nome, d);
+        log.info("Desafiante {} promovido a regras v{}", nome, publicado.versao());
+        return publicado;
+    }
+
+    public EstadoSombra estado() {
+        List<EstadoSombra.Desafiante> lista = new ArrayList<>(desafiantes.size());
+        for (Desafiante d : desafiantes.values()) {
+            lista.add(estado(d));
+        }
+        return new EstadoSombra(avaliadas.sum(), descartadas.sum(), executor.getQueue().size(),
+                divergencias.sum(), lista);
+    }
+
+    // Até "limite" divergências a partir de "desde" (0 = a mais antiga
+    // ainda no disco; senão o "proximo" de uma leitura anterior)
+    public List<DivergenciaSombra> divergencias(long desde, int limite) {
+        try {
+            List<LogSegmentado.Registro> lidos = registro.ler(Math.max(desde, registro.inicio()), limite);
+            List<DivergenciaSombra> lista = new ArrayList<>(lidos.size());
+            for (LogSegmentado.Registro r : lidos) {
+                lista.add(decodificar(r));
+            }
+            return lista;
+        } catch (IOException e) {
+            throw new RequisicaoInvalidaException("Offset " + desde + " não é início de registro do log de divergências");
+        }
+    }
+
+    private void avaliar(Amostra a) {
+        avaliadas.increment();
+        metricas.sombra(true);
+        TipoTransacao tipo = TipoTransacao.deCodigo(a.tipo());
+        for (Desafiante d : desafiantes.values()) {
+            ConjuntoRegras r = d.regras;
+            double score = score(r, a, tipo);
+            boolean semMl = false;
+            if (r.zonaCinzenta(score)) {
+                if (a.probabilidadeMl() != null) {
+                    score = r.combinar(score, a.probabilidadeMl());
+                } else {
+                    semMl = true;
+                    d.semMl.increment();
+                }
+            }
+            int status = r.indiceDecisao(score);
+            d.matriz[a.status() * 3 + status].increment();
+            if (status != a.status()) {
+                divergencias.increment();
+                metricas.sombraDivergencia();
+                gravar(d, a, status, score, semMl);
+            }
+        }
+    }
+
+    // Mesma soma do AnalisadorRiscoService.calcularScore
+    private static double score(ConjuntoRegras r, Amostra a, TipoTransacao tipo) {
+        double pontos = r.pontosValor(a.valor()) + r.pontosTipo(tipo)
+                + r.pontosComportamento(a.valor(), a.caracteristicas()) + r.pontosRede(a.rede());
+        if (a.dataHora() != null) {
+            pontos += r.pontosHora(a.dataHora().getHour()) + r.pontosDia(a.dataHora().getDayOfWeek());
+        }
+        return Math.min(pontos, 100.0);
+    }
+
+    private void gravar(Desafiante d, Amostra a, int status, double score, boolean semMl) {
+        byte[] usuario = a.usuarioId() != null ? a.usuarioId().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int bytesUsuario = Math.min(usuario.length, 255);
+        int tipo = codigoTipo(a.tipo());
+        ByteBuffer b = ByteBuffer.allocate(FIXO + d.nomeUtf8.length + bytesUsuario);
+        b.putLong(a.dataHora() != null ? a.dataHora().toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE)
+                .putDouble(a.valor())
+                .put(tipo >= 0 ? (byte) tipo : SEM_CODIGO)
+                .put((byte) a.status())
+                .put((byte) status)
+                .put(semMl ? MARCA_SEM_ML : 0)
+                .putShort((short) Math.round(a.score() * 100))
+                .putShort((short) Math.round(score * 100))
+                .put((byte) d.nomeUtf8.length)
+                .put((byte) bytesUsuario)
+                .put(d.nomeUtf8)
+                .put(usuario, 0, bytesUsuario);
+        try {
+            registro.anexar(b.array());
+            long excesso = registro.fim() - registro.inicio() - props.retencao().toBytes();
+            if (excesso > 0) {
+                registro.apagarAte(registro.inicio() + excesso);
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao gravar divergência do desafiante {}: {}", d.nome, e.getMessage());
+        }
+    }
+
+    private static DivergenciaSombra decodificar(LogSegmentado.Registro r) {
+        ByteBuffer b = ByteBuffer.wrap(r.dados());
+        long dataHora = b.getLong();
+        double valor = b.getDouble();
+        int tipo = b.get() & 0xFF;
+        int statusCampeao = b.get();
+        int statusDesafiante = b.get();
+        boolean semMl = (b.get() & MARCA_SEM_ML) != 0;
+        double scoreCampeao = b.getShort() / 100.0;
+        double scoreDesafiante = b.getShort() / 100.0;
+        int bytesNome = b.get() & 0xFF;
+        int bytesUsuario = b.get() & 0xFF;
+        String nome = new String(r.dados(), b.position(), bytesNome, StandardCharsets.UTF_8);
+        String usuario = new String(r.dados(), b.position() + bytesNome, bytesUsuario, StandardCharsets.UTF_8);
+        return new DivergenciaSombra(r.offset(), r.proximo(), nome, usuario, valor,
+                tipo < TIPOS.size() ? TIPOS.get(tipo) : null,
+                dataHora != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(Math.floorDiv(dataHora, 1000),
+                        (int) Math.floorMod(dataHora, 1000) * 1_000_000, ZoneOffset.UTC) : null,
+                STATUS.get(statusCampeao), scoreCampeao, STATUS.get(statusDesafiante), scoreDesafiante, semMl);
+    }
+
+    private EstadoSombra.Desafiante estado(Desafiante d) {
+        Map<String, Map<String, Long>> matriz = new LinkedHashMap<>();
+        long comparadas = 0, concordancias = 0;
+        for (int c = 0; c < 3; c++) {
+            Map<String, Long> linha = new LinkedHashMap<>();
+            for (int s = 0; s < 3; s++) {
+                long n = d.matriz[c * 3 + s].sum();
+                linha.put(STATUS.get(s), n);
+                comparadas += n;
+                if (c == s) concordancias += n;
+            }
+            matriz.put(STATUS.get(c), linha);
+        }
+        return new EstadoSombra.Desafiante(d.nome, d.desde, comparadas, concordancias,
+                comparadas > 0 ? (double) concordancias / comparadas : 0, d.semMl.sum(), matriz);
+    }
+
+    private Desafiante buscar(String nome) {
+        Desafiante d = desafiantes.get(nome);
+        if (d == null) {
+            throw new RequisicaoInvalidaException("Desafiante não encontrado: " + nome);
+        }
+        return d;
+    }
+
+    private DefinicaoRegras ler(String local) {
+        try (InputStream in = resourceLoader.getResource(local).getInputStream()) {
+            return mapper.readValue(in, DefinicaoRegras.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o desafiante de " + local, e);
+        }
+    }
+}
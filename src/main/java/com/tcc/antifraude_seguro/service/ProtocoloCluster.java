@@ -0,0 +1,165 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Protocolo interno entre nós do cluster, em cima de TCP: quadros
+// [tamanho int][tipo byte][carga], carga em DataOutput (big-endian, strings em
+// UTF modificado). Cada conexão atende um pedido por vez (pedido -> resposta);
+// o paralelismo vem do pool de conexões por nó.
+final class ProtocoloCluster {
+
+    // Pedidos
+    static final byte ANALISAR = 1;
+    static final byte EVENTOS = 2;
+    static final byte MEMBROS = 3;
+    // Respostas
+    static final byte DECISAO = 10;
+    static final byte OK = 11;
+    static final byte ERRO = 12;
+
+    // Códigos do ERRO, para o nó de entrada devolver o mesmo status HTTP
+    static final byte ERRO_REQUISICAO = 1;
+    static final byte ERRO_SOBRECARGA = 2;
+    static final byte ERRO_INTERNO = 3;
+
+    // Quadro maior que isso é corrupção ou outro protocolo na porta
+    static final int TAMANHO_MAXIMO = 16 * 1024 * 1024;
+
+    record Quadro(byte tipo, byte[] carga) {
+        DataInputStream leitor() {
+            return new DataInputStream(new ByteArrayInputStream(carga));
+        }
+    }
+
+    // Evento de comportamento de um usuário (rebalanceamento)
+    record Evento(String usuarioId, long instanteMs, double valor) {
+    }
+
+    record Membros(long versao, List<String> membros) {
+    }
+
+    record Erro(byte codigo, String mensagem) {
+    }
+
+    @FunctionalInterface
+    interface Escrita {
+        void escrever(DataOutputStream dados) throws IOException;
+    }
+
+    private ProtocoloCluster() {
+    }
+
+    static void enviar(DataOutputStream out, byte tipo, byte[] carga) throws IOException {
+        out.writeInt(carga.length + 1);
+        out.writeByte(tipo);
+        out.write(carga);
+        out.flush();
+    }
+
+    static Quadro receber(DataInputStream in) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO) {
+            throw new IOException("Quadro com tamanho inválido: " + tamanho);
+        }
+        byte tipo = in.readByte();
+        byte[] carga = new byte[tamanho - 1];
+        in.readFully(carga);
+        return new Quadro(tipo, carga);
+    }
+
+    static byte[] carga(Escrita escrita) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream dados = new DataOutputStream(bytes)) {
+            escrita.escrever(dados);
+        } catch (IOException e) {
+            // ByteArrayOutputStream não lança
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ANALISAR: só o que o cliente mandou; o dono faz o resto
+    static void escreverPedido(DataOutputStream dados, Transacao t) throws IOException {
+        dados.writeUTF(t.getUsuarioId());
+        dados.writeDouble(t.getValor());
+        dados.writeUTF(t.getTipo());
+        escreverOpcional(dados, t.getBeneficiarioId());
+        escreverOpcional(dados, t.getChaveIdempotencia());
+    }
+
+    static Transacao lerPedido(DataInputStream dados) throws IOException {
+        Transacao t = new Transacao();
+        t.setUsuarioId(dados.readUTF());
+        t.setValor(dados.readDouble());
+        t.setTipo(dados.readUTF());
+        t.setBeneficiarioId(lerOpcional(dados));
+        t.setChaveIdempotencia(lerOpcional(dados));
+        return t;
+    }
+
+    static void escreverEventos(DataOutputStream dados, List<Evento> eventos) throws IOException {
+        dados.writeInt(eventos.size());
+        for (Evento e : eventos) {
+            dados.writeUTF(e.usuarioId());
+            dados.writeLong(e.instanteMs());
+            dados.writeDouble(e.valor());
+        }
+    }
+
+    static List<Evento> lerEventos(DataInputStream dados) throws IOException {
+        int n = dados.readInt();
+        List<Evento> eventos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            eventos.add(new Evento(dados.readUTF(), dados.readLong(), dados.readDouble()));
+        }
+        return eventos;
+    }
+
+    static void escreverMembros(DataOutputStream dados, long versao, List<String> membros) throws IOException {
+        dados.writeLong(versao);
+        dados.writeInt(membros.size());
+        for (String m : membros) {
+            dados.writeUTF(m);
+        }
+    }
+
+    static Membros lerMembros(DataInputStream dados) throws IOException {
+        long versao = dados.readLong();
+        int n = dados.readInt();
+        List<String> membros = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            membros.add(dados.readUTF());
+        }
+        return new Membros(versao, membros);
+    }
+
+    static byte[] erro(byte codigo, String mensagem) {
+        return carga(d -> {
+            d.writeByte(codigo);
+            d.writeUTF(mensagem != null ? mensagem : "");
+        });
+    }
+
+    static Erro lerErro(DataInputStream dados) throws IOException {
+        return new Erro(dados.readByte(), dados.readUTF());
+    }
+
+    private static void escreverOpcional(DataOutputStream dados, String valor) throws IOException {
+        dados.writeBoolean(valor != null);
+        if (valor != null) {
+            dados.writeUTF(valor);
+        }
+    }
+
+    private static String lerOpcional(DataInputStream dados) throws IOException {
+        return dados.readBoolean() ? dados.readUTF() : null;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tcc.antifraude_seguro.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+// Leitura de um segmento gravado pelo EscritorSegmento. Cada coluna é um
+// arquivo mapeado em memória (somente leitura): a varredura lê direto do
+// page cache, sem copiar para o heap nem criar objeto por linha.
+// As linhas estão na ordem (dataHora, id).
+final class SegmentoColunar {
+
+    final Path diretorio;
+    final int linhas;
+    final long dataMinima;
+    final long dataMaxima;
+    final LocalDateTime cursorDataHora;
+    final long cursorId;
+
+    private final ByteBuffer ids;
+    private final ByteBuffer datas;
+    private final ByteBuffer valores;
+    private final ByteBuffer scores;
+    private final ByteBuffer tipos;
+    private final ByteBuffer status;
+    private final ByteBuffer usuarios;
+    private final long baseId;
+    private final long baseData;
+    private final boolean idCompacto;
+    private final boolean dataCompacta;
+    private final boolean valorEscalado;
+    private final boolean scoreEscalado;
+    private final boolean usuarioCompacto;
+    private final String[] dicionarioTipo;
+    private final String[] dicionarioStatus;
+    private final long bytes;
+
+    SegmentoColunar(Path diretorio) throws IOException {
+        this.diretorio = diretorio;
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(diretorio.resolve("meta.properties"))) {
+            meta.load(in);
+        }
+        int versao = Integer.parseInt(meta.getProperty("versao"));
+        if (versao != EscritorSegmento.VERSAO) {
+            throw new IOException("Segmento " + diretorio + " na versão " + versao + ", esperada " + EscritorSegmento.VERSAO);
+        }
+        linhas = Integer.parseInt(meta.getProperty("linhas"));
+        baseId = Long.parseLong(meta.getProperty("id.base"));
+        idCompacto = "4".equals(meta.getProperty("id.largura"));
+        baseData = Long.parseLong(meta.getProperty("dataHora.base"));
+        dataCompacta = "4".equals(meta.getProperty("dataHora.largura"));
+        dataMinima = Long.parseLong(meta.getProperty("dataHora.minimo"));
+        dataMaxima = Long.parseLong(meta.getProperty("dataHora.maximo"));
+        valorEscalado = !"0".equals(meta.getProperty("valor.escala"));
+        scoreEscalado = !"0".equals(meta.getProperty("score.escala"));
+        usuarioCompacto = "2".equals(meta.getProperty("usuario.largura"));
+        dicionarioTipo = dicionario(meta.getProperty("tipo.dicionario"));
+        dicionarioStatus = dicionario(meta.getProperty("status.dicionario"));
+        cursorDataHora = LocalDateTime.parse(meta.getProperty("cursor.dataHora"));
+        cursorId = Long.parseLong(meta.getProperty("cursor.id"));
+
+        ids = mapear("id.col");
+        datas = mapear("dataHora.col");
+        valores = mapear("valor.col");
+        scores = mapear("score.col");
+        tipos = mapear("tipo.col");
+        status = mapear("status.col");
+        usuarios = mapear("usuario.col");
+        bytes = (long) ids.capacity() + datas.capacity() + valores.capacity() + scores.capacity()
+                + tipos.capacity() + status.capacity() + usuarios.capacity();
+    }
+
+    long id(int i) {
+        return idCompacto ? baseId + (ids.getInt(i << 2) & 0xFFFFFFFFL) : ids.getLong(i << 3);
+    }
+
+    long dataHora(int i) {
+        return dataCompacta ? baseData + (datas.getInt(i << 2) & 0xFFFFFFFFL) : datas.getLong(i << 3);
+    }
+
+    // NaN = null
+    double valor(int i) {
+        return decimal(valores, valorEscalado, i);
+    }
+
+    double score(int i) {
+        return decimal(scores, scoreEscalado, i);
+    }
+
+    int usuario(int i) {
+        return usuarioCompacto ? usuarios.getShort(i << 1) & 0xFFFF : usuarios.getInt(i << 2);
+    }
+
+    // Código no dicionário do segmento (0 = null)
+    int tipo(int i) {
+        return tipos.get(i) & 0xFF;
+    }
+
+    int status(int i) {
+        return status.get(i) & 0xFF;
+    }
+
+    String nomeTipo(int codigo) {
+        return dicionarioTipo[codigo];
+    }
+
+    String nomeStatus(int codigo) {
+        return dicionarioStatus[codigo];
+    }
+
+    // -1 se o valor não aparece no segmento
+    int codigoTipo(String tipo) {
+        return codigo(dicionarioTipo, tipo);
+    }
+
+    int codigoStatus(String status) {
+        return codigo(dicionarioStatus, status);
+    }
+
+    int tamanhoDicionarioTipo() {
+        return dicionarioTipo.length;
+    }
+
+    int tamanhoDicionarioStatus() {
+        return dicionarioStatus.length;
+    }
+
+    // Primeira linha com dataHora >= ms (busca binária: a coluna está ordenada)
+    int primeiraLinhaDesde(long ms) {
+        int baixo = 0, alto = linhas;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (dataHora(meio) < ms) baixo = meio + 1;
+            else alto = meio;
+        }
+        return baixo;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    private ByteBuffer mapear(String coluna) throws IOException {
+        try (FileChannel canal = FileChannel.open(diretorio.resolve(coluna), StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static double decimal(ByteBuffer coluna, boolean escalado, int i) {
+        if (!escalado) return coluna.getDouble(i << 3);
+        int v = coluna.getInt(i << 2);
+        return v == EscritorSegmento.NULO_ESCALADO ? Double.NaN : v / (double) EscritorSegmento.ESCALA;
+    }
+
+    private static String[] dicionario(String valores) {
+        String[] nomes = valores == null || valores.isEmpty() ? new String[0] : valores.split(",");
+        String[] dicionario = new String[nomes.length + 1];
+        System.arraycopy(nomes, 0, dicionario, 1, nomes.length);
+        return dicionario;
+    }
+
+    private static int codigo(String[] dicionario, String valor) {
+        for (int i = 1; i < dicionario.length; i++) {
+            if (dicionario[i].equals(valor)) return i;
+        }
+        return -1;
+    }
+}
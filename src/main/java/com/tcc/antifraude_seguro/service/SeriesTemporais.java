@@ -0,0 +1,444 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.config.SeriesProperties;
+import com.tcc.antifraude_seguro.dto.GrupoJanela;
+import com.tcc.antifraude_seguro.dto.JanelaEstatisticas;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static com.tcc.antifraude_seguro.service.AnalisadorRiscoService.*;
+
+// Séries temporais das decisões em memória, por status x tipo: quantidade,
+// soma dos valores, soma dos scores e histograma do score (10 faixas).
+//   - segundos: anel por segundo, escrito pelas decisões sem lock (só
+//     getAndAdd no AtomicLongArray da célula)
+//   - minutos e horas: consolidados pela thread "series" a partir da camada
+//     de baixo quando o período fecha; só ela escreve nessas camadas
+// A mesma thread prepara (zera) os segundos um pouco à frente do relógio, e a
+// decisão só escreve se o slot já for do segundo atual. Se a thread atrasar
+// mais que isso, a decisão fica fora da série (contada em descartadas).
+// A cada segundo fechado, o delta vai para a fila de cada assinante (stream
+// SSE), limitada; cada fila é esvaziada por uma tarefa própria no publicador.
+// Um cliente lento só atrasa a si mesmo e, com a fila cheia, é desligado (os
+// deltas são somados pelo painel: pular um deixaria os totais errados).
+@Service
+public class SeriesTemporais {
+
+    private static final Logger log = LoggerFactory.getLogger(SeriesTemporais.class);
+
+    public enum Agrupamento { NENHUM, STATUS, TIPO, STATUS_TIPO }
+
+    static final String[] STATUS = {APROVADA, REVISAO, BLOQUEADA};
+    static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+    private static final int CELULAS = STATUS.length * TIPOS.length;
+    // quantidade, valor em centavos, score em centésimos, 10 faixas de score
+    private static final int FAIXAS = 10;
+    private static final int CAMPOS = 3 + FAIXAS;
+    // segundos preparados à frente do relógio e de folga antes de fechar um
+    // segundo (decisões que leram o relógio pouco antes da virada)
+    private static final int ADIANTE = 3;
+    private static final int FOLGA = 2;
+
+    private final SeriesProperties props;
+    private final LongSupplier relogioMs;
+    private final Camada segundos;
+    private final Camada minutos;
+    private final Camada horas;
+    private final LongAdder descartadas = new LongAdder();
+    private final List<Assinatura> assinantes = new CopyOnWriteArrayList<>();
+
+    // Só a thread de consolidação mexe nestes: primeiro minuto/hora ainda não
+    // consolidados e último segundo publicado. Voláteis para as consultas.
+    private volatile long minutosAte;
+    private volatile long horasAte;
+    private long publicadoAte;
+
+    private final Executor publicador;
+    private ScheduledExecutorService relogio;
+
+    // Uma thread virtual por entrega: um send bloqueado não segura os outros
+    @Autowired
+    public SeriesTemporais(SeriesProperties props) {
+        this(props, System::currentTimeMillis,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("series-assinante-", 0).factory()));
+    }
+
+    // Relógio e publicador injetáveis para os testes, que chamam rolar() à mão
+    public SeriesTemporais(SeriesProperties props, LongSupplier relogioMs, Executor publicador) {
+        this.props = props;
+        this.relogioMs = relogioMs;
+        this.publicador = publicador;
+        this.segundos = new Camada(props.segundos());
+        this.minutos = new Camada(props.minutos());
+        this.horas = new Camada(props.horas());
+        long agora = agora();
+        this.minutosAte = Math.floorDiv(agora, 60);
+        this.horasAte = Math.floorDiv(minutosAte, 60);
+        this.publicadoAte = agora - FOLGA;
+        rolar();
+    }
+
+    @PostConstruct
+    void iniciar() {
+        relogio = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "series");
+            t.setDaemon(true);
+            return t;
+        });
+        relogio.scheduleAtFixedRate(this::rolarComLog, 0, 250, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        relogio.shutdownNow();
+        if (publicador instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Chamado pelo EstatisticasService a cada decisão registrada
+    public void registrar(Transacao t) {
+        int celula = celula(t.getStatus(), t.getTipo());
+        if (celula < 0) {
+            return;
+        }
+        long s = agora();
+        int slot = segundos.slot(s);
+        if (segundos.epocas.get(slot) != s) {
+            descartadas.increment();
+            return;
+        }
+        double valor = t.getValor() != null ? t.getValor() : 0;
+        double score = t.getScoreRisco() != null ? t.getScoreRisco() : 0;
+        int base = segundos.base(slot, celula);
+        segundos.dados.getAndIncrement(base);
+        segundos.dados.getAndAdd(base + 1, Math.round(valor * 100));
+        segundos.dados.getAndAdd(base + 2, Math.round(score * 100));
+        segundos.dados.getAndIncrement(base + 3 + faixa(score));
+    }
+
+    // Decisões que chegaram com a thread de consolidação atrasada
+    public long descartadas() {
+        return descartadas.sum();
+    }
+
+    // Últimos "janela" até agora (inclui o segundo corrente, ainda aberto)
+    public JanelaEstatisticas consultar(Duration janela, Agrupamento por) {
+        long fim = agora() + 1;
+        long inicio = fim - Math.max(1, janela.toSeconds());
+        long limite = (horasAte - props.horas() + 1) * 3600;
+        if (inicio < limite) {
+            throw new RequisicaoInvalidaException("Janela maior que a retenção das séries ("
+                    + Duration.ofSeconds(fim - limite) + ")");
+        }
+        long[] soma = new long[CELULAS * CAMPOS];
+        long desde = somar(inicio, fim, soma);
+        return janela(desde, fim, soma, por, false);
+    }
+
+    // Recebe o delta de cada segundo fechado, no publicador, em ordem
+    public void assinar(Consumer<JanelaEstatisticas> assinante) {
+        assinar(assinante, () -> { });
+    }
+
+    // "desligado" roda (no publicador) quando a fila do assinante enche e ele é cancelado
+    public void assinar(Consumer<JanelaEstatisticas> assinante, Runnable desligado) {
+        if (assinantes.size() >= props.maximoAssinantes()) {
+            throw new SobrecargaException("Limite de " + props.maximoAssinantes() + " assinantes do stream atingido");
+        }
+        assinantes.add(new Assinatura(assinante, desligado, props.filaAssinante()));
+    }
+
+    public void cancelar(Consumer<JanelaEstatisticas> assinante) {
+        assinantes.removeIf(a -> a.consumidor == assinante);
+    }
+
+    private void rolarComLog() {
+        try {
+            rolar();
+        } catch (RuntimeException e) {
+            log.error("Falha ao consolidar as séries temporais", e);
+        }
+    }
+
+    // Prepara os próximos segundos, consolida minutos e horas fechados e
+    // publica os segundos fechados. Público para os testes.
+    public synchronized void rolar() {
+        long agora = agora();
+        for (long s = agora; s <= agora + ADIANTE; s++) {
+            segundos.preparar(s);
+        }
+        // minuto m fecha quando o último segundo dele passou da folga
+        while ((minutosAte + 1) * 60 + FOLGA <= agora) {
+            consolidar(segundos, minutos, minutosAte);
+            minutosAte++;
+        }
+        while ((horasAte + 1) * 60 <= minutosAte) {
+            consolidar(minutos, horas, horasAte);
+            horasAte++;
+        }
+        publicar(agora - FOLGA);
+    }
+
+    // Soma os 60 períodos de baixo no período p da camada de cima
+    private static void consolidar(Camada baixo, Camada cima, long p) {
+        int slot = cima.slot(p);
+        cima.zerar(slot);
+        int destino = cima.base(slot, 0);
+        for (long q = p * 60; q < (p + 1) * 60; q++) {
+            int origem = baixo.slotSe(q);
+            if (origem < 0) continue;
+            int base = baixo.base(origem, 0);
+            for (int i = 0; i < CELULAS * CAMPOS; i++) {
+                long v = baixo.dados.get(base + i);
+                if (v != 0) cima.dados.getAndAdd(destino + i, v);
+            }
+        }
+        cima.epocas.set(slot, p);
+    }
+
+    private void publicar(long fechado) {
+        if (publicadoAte >= fechado) {
+            return;
+        }
+        if (assinantes.isEmpty()) {
+            publicadoAte = fechado;
+            return;
+        }
+        // depois de uma pausa longa, só os segundos que ainda estão no anel
+        long de = Math.max(publicadoAte + 1, fechado - props.segundos() + ADIANTE + 1);
+        List<JanelaEstatisticas> deltas = new ArrayList<>();
+        for (long s = de; s <= fechado; s++) {
+            long[] soma = new long[CELULAS * CAMPOS];
+            acumular(segundos, s, s + 1, soma);
+            deltas.add(janela(s, s + 1, soma, Agrupamento.STATUS_TIPO, true));
+        }
+        publicadoAte = fechado;
+        for (Assinatura assinatura : assinantes) {
+            assinatura.oferecer(deltas);
+        }
+    }
+
+    // Soma [inicio, fim) em segundos usando a camada mais fina que ainda
+    // guarda cada trecho; devolve o início efetivo (arredondado para baixo)
+    private long somar(long inicio, long fim, long[] soma) {
+        long minutosConsolidados = minutosAte;
+        long horasConsolidadas = horasAte;
+
+        long retidoSegundos = fim - 1 - (props.segundos() - ADIANTE - 1);
+        long corte = inicio >= retidoSegundos ? inicio : minutosConsolidados * 60;
+        acumular(segundos, corte, fim, soma);
+        if (corte <= inicio) {
+            return inicio;
+        }
+
+        long inicioMinuto = Math.floorDiv(inicio, 60);
+        long retidoMinutos = minutosConsolidados - props.minutos() + 1;
+        long corteMinuto = inicioMinuto >= retidoMinutos ? inicioMinuto : horasConsolidadas * 60;
+        acumular(minutos, corteMinuto, corte / 60, soma);
+        if (corteMinuto <= inicioMinuto) {
+            return inicioMinuto * 60;
+        }
+
+        long inicioHora = Math.floorDiv(inicioMinuto, 60);
+        acumular(horas, inicioHora, corteMinuto / 60, soma);
+        return inicioHora * 3600;
+    }
+
+    // Períodos [de, ate) da camada; slot de outro período conta como vazio
+    private static void acumular(Camada camada, long de, long ate, long[] soma) {
+        for (long p = de; p < ate; p++) {
+            int slot = camada.slotSe(p);
+            if (slot < 0) continue;
+            int base = camada.base(slot, 0);
+            for (int i = 0; i < soma.length; i++) {
+                soma[i] += camada.dados.get(base + i);
+            }
+        }
+    }
+
+    private static JanelaEstatisticas janela(long desde, long ate, long[] soma, Agrupamento por,
+                                             boolean soComDecisoes) {
+        int nStatus = por == Agrupamento.STATUS || por == Agrupamento.STATUS_TIPO ? STATUS.length : 1;
+        int nTipos = por == Agrupamento.TIPO || por == Agrupamento.STATUS_TIPO ? TIPOS.length : 1;
+        List<GrupoJanela> grupos = new ArrayList<>(nStatus * nTipos);
+        for (int gs = 0; gs < nStatus; gs++) {
+            for (int gt = 0; gt < nTipos; gt++) {
+                long quantidade = 0, centavos = 0, somaScore = 0;
+                long[] faixas = new long[FAIXAS];
+                for (int s = 0; s < STATUS.length; s++) {
+                    if (nStatus > 1 && s != gs) continue;
+                    for (int t = 0; t < TIPOS.length; t++) {
+                        if (nTipos > 1 && t != gt) continue;
+                        int base = (s * TIPOS.length + t) * CAMPOS;
+                        quantidade += soma[base];
+                        centavos += soma[base + 1];
+                        somaScore += soma[base + 2];
+                        for (int f = 0; f < FAIXAS; f++) {
+                            faixas[f] += soma[base + 3 + f];
+                        }
+                    }
+                }
+                if (soComDecisoes && quantidade == 0) continue;
+                grupos.add(new GrupoJanela(nStatus > 1 ? STATUS[gs] : null, nTipos > 1 ? TIPOS[gt] : null,
+                        quantidade, centavos / 100.0, quantidade > 0 ? somaScore / 100.0 / quantidade : null,
+                        faixas));
+            }
+        }
+        return new JanelaEstatisticas(data(desde), data(ate), grupos);
+    }
+
+    private long agora() {
+        return Math.floorDiv(relogioMs.getAsLong(), 1000);
+    }
+
+    private static LocalDateTime data(long segundo) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(segundo), ZoneId.systemDefault());
+    }
+
+    private static int celula(String status, String tipo) {
+        int s = indice(STATUS, status);
+        int t = indice(TIPOS, tipo);
+        return s < 0 || t < 0 ? -1 : s * TIPOS.length + t;
+    }
+
+    private static int indice(String[] valores, String valor) {
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i].equals(valor)) return i;
+        }
+        return -1;
+    }
+
+    private static int faixa(double score) {
+        return Math.max(0, Math.min(FAIXAS - 1, (int) (score / 10)));
+    }
+
+    // Anel de períodos de uma granularidade; epocas[slot] diz de qual período
+    // são os dados do slot (-1 = nenhum)
+    private static final class Camada {
+        final int capacidade;
+        final AtomicLongArray dados;
+        final AtomicLongArray epocas;
+
+        Camada(int capacidade) {
+            this.capacidade = capacidade;
+            this.dados = new AtomicLongArray(capacidade * CELULAS * CAMPOS);
+            this.epocas = new AtomicLongArray(capacidade);
+            for (int i = 0; i < capacidade; i++) {
+                epocas.set(i, -1);
+            }
+        }
+
+        int slot(long periodo) {
+            return (int) Math.floorMod(periodo, (long) capacidade);
+        }
+
+        // Slot do período, ou -1 se ele já foi sobrescrito (ou nunca existiu)
+        int slotSe(long periodo) {
+            int slot = slot(periodo);
+            return epocas.get(slot) == periodo ? slot : -1;
+        }
+
+        int base(int slot, int celula) {
+            return (slot * CELULAS + celula) * CAMPOS;
+        }
+
+        void preparar(long periodo) {
+            int slot = slot(periodo);
+            if (epocas.get(slot) != periodo) {
+                zerar(slot);
+                epocas.set(slot, periodo);
+            }
+        }
+
+        void zerar(int slot) {
+            int base = base(slot, 0);
+            for (int i = 0; i < CELULAS * CAMPOS; i++) {
+                dados.set(base + i, 0);
+            }
+        }
+    }
+
+    // Fila limitada de um assinante. Só uma entrega por vez no publicador
+    // ("agendada"), então os deltas chegam na ordem; a thread de consolidação
+    // só faz offer e nunca espera pelo cliente.
+    private final class Assinatura {
+
+        final Consumer<JanelaEstatisticas> consumidor;
+        private final Runnable desligado;
+        private final BlockingQueue<JanelaEstatisticas> fila;
+        private final AtomicBoolean agendada = new AtomicBoolean();
+
+        Assinatura(Consumer<JanelaEstatisticas> consumidor, Runnable desligado, int capacidade) {
+            this.consumidor = consumidor;
+            this.desligado = desligado;
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+        }
+
+        void oferecer(List<JanelaEstatisticas> deltas) {
+            for (JanelaEstatisticas delta : deltas) {
+                if (!fila.offer(delta)) {
+                    desligar();
+                    return;
+                }
+            }
+            if (agendada.compareAndSet(false, true)) {
+                executar(this::entregar);
+            }
+        }
+
+        private void entregar() {
+            do {
+                JanelaEstatisticas delta;
+                while ((delta = fila.poll()) != null && assinantes.contains(this)) {
+                    consumidor.accept(delta);
+                }
+                agendada.set(false);
+            } while (!fila.isEmpty() && assinantes.contains(this) && agendada.compareAndSet(false, true));
+        }
+
+        private void desligar() {
+            if (assinantes.remove(this)) {
+                log.warn("Assinante do stream desligado: {} deltas na fila sem entrega", fila.size());
+                fila.clear();
+                executar(desligado);
+            }
+        }
+    }
+
+    private void executar(Runnable tarefa) {
+        try {
+            publicador.execute(tarefa);
+        } catch (RejectedExecutionException e) {
+            // encerrando
+        }
+    }
+}
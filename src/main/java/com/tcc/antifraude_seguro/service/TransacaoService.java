@@ -0,0 +1,79 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Criação de uma transação (POST /api/transacoes e encaminhamentos do cluster):
+// idempotência -> análise -> gravação. No modo cluster, a transação de um
+// usuário de outro nó vai para o dono dele.
+@Service
+public class TransacaoService {
+
+    private final AnalisadorRiscoService analisador;
+    private final GravadorTransacoes gravador;
+    private final IdempotenciaService idempotencia;
+    private final Executor executor;
+    private final boolean bloqueante;
+
+    // antifraude.cluster.habilitado
+    @Autowired(required = false)
+    private ClusterService cluster;
+
+    public TransacaoService(AnalisadorRiscoService analisador,
+                            GravadorTransacoes gravador,
+                            IdempotenciaService idempotencia,
+                            @Qualifier("applicationTaskExecutor") Executor executor,
+                            @Value("${antifraude.execucao.bloqueante:${spring.threads.virtual.enabled:false}}")
+                            boolean bloqueante) {
+        this.analisador = analisador;
+        this.gravador = gravador;
+        this.idempotencia = idempotencia;
+        this.executor = executor;
+        this.bloqueante = bloqueante;
+    }
+
+    public CompletableFuture<Transacao> criar(Transacao transacao) {
+        if (cluster != null && !cluster.local(transacao.getUsuarioId())) {
+            return cluster.encaminhar(transacao);
+        }
+        return criarLocal(transacao);
+    }
+
+    // Um reenvio com a mesma chave devolve a transação já decidida, sem analisar de novo
+    public CompletableFuture<Transacao> criarLocal(Transacao transacao) {
+        return idempotencia.executar(transacao, () -> analisarESalvar(transacao));
+    }
+
+    private CompletableFuture<Transacao> analisarESalvar(Transacao transacao) {
+        // Define data/hora atual
+        transacao.setDataHora(LocalDateTime.now());
+
+        if (bloqueante) {
+            // Modo threads virtuais: esperar o ML e o JDBC na própria thread da
+            // requisição é barato, ela desmonta da carrier enquanto bloqueia
+            analisador.analisar(transacao);
+            return CompletableFuture.completedFuture(salvar(transacao));
+        }
+
+        // Analisa fraude. Na zona cinzenta a thread do Tomcat é liberada
+        // enquanto o ML responde e a gravação continua no executor da aplicação.
+        CompletableFuture<Transacao> analise = analisador.analisarAsync(transacao);
+        if (analise.isDone()) {
+            return CompletableFuture.completedFuture(salvar(analise.join()));
+        }
+        return analise.thenApplyAsync(this::salvar, executor);
+    }
+
+    // Grava (na hora ou pela fila do write-behind, conforme antifraude.gravacao.modo)
+    // e atualiza as estatísticas
+    private Transacao salvar(Transacao transacao) {
+        return gravador.gravar(transacao);
+    }
+}
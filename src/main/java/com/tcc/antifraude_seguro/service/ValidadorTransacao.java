@@ -0,0 +1,95 @@
+package com.tcc.antifraude_seguro.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// As anotações de Transacao escritas à mão, para o caminho binário: sem
+// reflexão nem metadados do Bean Validation por chamada, e sem alocar nada
+// quando a transação é válida. Mesmos campos e mensagens ("campo: mensagem")
+// que o LoteService monta a partir do Validator. Anotação nova em Transacao
+// precisa entrar aqui também.
+public final class ValidadorTransacao {
+
+    private static final int MINIMO_ID = 3;
+    private static final int MAXIMO_ID = 50;
+    private static final double VALOR_MAXIMO = 1_000_000;
+    private static final int MAXIMO_CHAVE = 64;
+
+    private ValidadorTransacao() {
+    }
+
+    public static List<String> validar(Transacao t) {
+        List<String> erros = null;
+
+        String usuario = t.getUsuarioId();
+        if (branco(usuario)) {
+            erros = erro(erros, "usuarioId: Usuário ID é obrigatório");
+        }
+        if (usuario != null && (usuario.length() < MINIMO_ID || usuario.length() > MAXIMO_ID)) {
+            erros = erro(erros, "usuarioId: Usuário ID deve ter entre 3 e 50 caracteres");
+        }
+
+        String beneficiario = t.getBeneficiarioId();
+        if (beneficiario != null && (beneficiario.length() < MINIMO_ID || beneficiario.length() > MAXIMO_ID)) {
+            erros = erro(erros, "beneficiarioId: Beneficiário ID deve ter entre 3 e 50 caracteres");
+        }
+
+        Double valor = t.getValor();
+        if (valor == null) {
+            erros = erro(erros, "valor: Valor é obrigatório");
+        } else {
+            if (!(valor > 0)) {
+                erros = erro(erros, "valor: Valor deve ser positivo");
+            }
+            if (valor > VALOR_MAXIMO) {
+                erros = erro(erros, "valor: Valor não pode exceder R$ 1.000.000");
+            }
+        }
+
+        String tipo = t.getTipo();
+        if (branco(tipo)) {
+            erros = erro(erros, "tipo: Tipo é obrigatório");
+        }
+        if (tipo != null && !tipoValido(tipo)) {
+            erros = erro(erros, "tipo: Tipo deve ser: PIX, TED, DOC, BOLETO ou CARTAO");
+        }
+
+        Double score = t.getScoreRisco();
+        if (score != null && score < 0) {
+            erros = erro(erros, "scoreRisco: Score de risco não pode ser negativo");
+        }
+        if (score != null && score > 100) {
+            erros = erro(erros, "scoreRisco: Score de risco não pode exceder 100");
+        }
+
+        String chave = t.getChaveIdempotencia();
+        if (chave != null && chave.length() > MAXIMO_CHAVE) {
+            erros = erro(erros, "chaveIdempotencia: Chave de idempotência deve ter até 64 caracteres");
+        }
+
+        return erros != null ? erros : List.of();
+    }
+
+    // @Pattern(regexp = "PIX|TED|DOC|BOLETO|CARTAO")
+    private static boolean tipoValido(String tipo) {
+        return switch (tipo) {
+            case "PIX", "TED", "DOC", "BOLETO", "CARTAO" -> true;
+            default -> false;
+        };
+    }
+
+    // @NotBlank do Hibernate Validator: nulo ou vazio depois do trim()
+    private static boolean branco(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private static List<String> erro(List<String> erros, String mensagem) {
+        if (erros == null) {
+            erros = new ArrayList<>(2);
+        }
+        erros.add(mensagem);
+        return erros;
+    }
+}
@@ -0,0 +1,40 @@
+-- Mesmo esquema do db/migration/postgresql para o H2 em MODE=PostgreSQL, que
+-- serve de substituto nos testes do perfil prod. O H2 não tem particionamento
+-- nem PL/pgSQL: a tabela é uma só e a chave de idempotência é UNIQUE direto.
+
+CREATE SEQUENCE transacoes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE transacoes (
+    id                    bigint           NOT NULL,
+    usuario_id            varchar(50),
+    valor                 double precision,
+    tipo                  varchar(255),
+    data_hora             timestamp(6)     NOT NULL,
+    status                varchar(255),
+    score_risco           double precision,
+    chave_idempotencia    varchar(64),
+    qtd_ultimo_minuto     integer,
+    qtd_ultima_hora       integer,
+    qtd_ultimas_24h       integer,
+    valor_ultima_hora     double precision,
+    valor_ultimas_24h     double precision,
+    valor_habitual        double precision,
+    segundos_desde_ultima bigint,
+    pontos_valor          double precision,
+    pontos_horario        double precision,
+    pontos_dia            double precision,
+    pontos_tipo           double precision,
+    pontos_comportamento  double precision,
+    versao_regras         integer,
+    probabilidade_ml      double precision,
+    score_combinado       double precision,
+    versao_modelo         varchar(64),
+    fraude_confirmada     boolean,
+    CONSTRAINT pk_transacoes PRIMARY KEY (id),
+    CONSTRAINT uk_transacoes_chave_idempotencia UNIQUE (chave_idempotencia)
+);
+
+CREATE INDEX idx_transacoes_usuario_id ON transacoes (usuario_id, id);
+CREATE INDEX idx_transacoes_status_id ON transacoes (status, id);
+CREATE INDEX idx_transacoes_tipo_id ON transacoes (tipo, id);
+CREATE INDEX idx_transacoes_data_hora ON transacoes (data_hora);
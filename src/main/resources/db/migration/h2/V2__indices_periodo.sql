@@ -0,0 +1,3 @@
+-- Igual ao V2 do PostgreSQL
+CREATE INDEX idx_transacoes_usuario_data ON transacoes (usuario_id, data_hora);
+CREATE INDEX idx_transacoes_status_data ON transacoes (status, data_hora);
@@ -0,0 +1,3 @@
+-- Igual ao V3 do PostgreSQL
+ALTER TABLE transacoes ADD COLUMN beneficiario_id varchar(50);
+ALTER TABLE transacoes ADD COLUMN pontos_rede double precision;
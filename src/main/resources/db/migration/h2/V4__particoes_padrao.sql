@@ -0,0 +1,3 @@
+-- No PostgreSQL o V4 troca a função que cria as partições mensais; o H2 não
+-- tem partições, então nada muda aqui (só mantém as versões alinhadas)
+SELECT 1;
@@ -0,0 +1,93 @@
+-- Esquema inicial do perfil prod (PostgreSQL 13+).
+-- transacoes é particionada por mês em data_hora: consultas por período só
+-- abrem as partições do intervalo e o histórico antigo sai com DETACH/DROP
+-- da partição em vez de DELETE. A chave primária precisa incluir data_hora.
+
+CREATE SEQUENCE transacoes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE transacoes (
+    id                    bigint           NOT NULL,
+    usuario_id            varchar(50),
+    valor                 double precision,
+    tipo                  varchar(255),
+    data_hora             timestamp(6)     NOT NULL,
+    status                varchar(255),
+    score_risco           double precision,
+    chave_idempotencia    varchar(64),
+    qtd_ultimo_minuto     integer,
+    qtd_ultima_hora       integer,
+    qtd_ultimas_24h       integer,
+    valor_ultima_hora     double precision,
+    valor_ultimas_24h     double precision,
+    valor_habitual        double precision,
+    segundos_desde_ultima bigint,
+    pontos_valor          double precision,
+    pontos_horario        double precision,
+    pontos_dia            double precision,
+    pontos_tipo           double precision,
+    pontos_comportamento  double precision,
+    versao_regras         integer,
+    probabilidade_ml      double precision,
+    score_combinado       double precision,
+    versao_modelo         varchar(64),
+    fraude_confirmada     boolean,
+    CONSTRAINT pk_transacoes PRIMARY KEY (id, data_hora)
+) PARTITION BY RANGE (data_hora);
+
+-- Linhas fora das partições mensais (carga de histórico antigo, relógio errado).
+-- Uma partição nova não pode cobrir um período que já tenha linhas aqui.
+CREATE TABLE transacoes_padrao PARTITION OF transacoes DEFAULT;
+
+-- Cria as partições do mês atual até "meses_a_frente" meses adiante; as que
+-- já existem ficam como estão. Chamada na subida da aplicação (ParticoesTransacoes).
+CREATE FUNCTION criar_particoes_transacoes(meses_a_frente integer) RETURNS integer AS $$
+DECLARE
+    inicio  date := date_trunc('month', now())::date;
+    de      date;
+    nome    text;
+    criadas integer := 0;
+BEGIN
+    FOR i IN 0..meses_a_frente LOOP
+        de := (inicio + make_interval(months => i))::date;
+        nome := 'transacoes_' || to_char(de, 'YYYY_MM');
+        IF to_regclass(nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF transacoes FOR VALUES FROM (%L) TO (%L)',
+                           nome, de, (de + interval '1 month')::date);
+            criadas := criadas + 1;
+        END IF;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT criar_particoes_transacoes(3);
+
+-- Numa tabela particionada o UNIQUE teria de incluir data_hora, o que deixaria
+-- repetir a chave em meses diferentes. A unicidade global da chave de
+-- idempotência fica numa tabela à parte, mantida pelo gatilho de INSERT
+-- (mesmo nome de restrição do esquema gerado pelo Hibernate).
+CREATE TABLE transacoes_chaves (
+    chave         varchar(64) NOT NULL,
+    transacao_id  bigint      NOT NULL,
+    CONSTRAINT uk_transacoes_chave_idempotencia PRIMARY KEY (chave)
+);
+
+CREATE FUNCTION registrar_chave_idempotencia() RETURNS trigger AS $$
+BEGIN
+    IF NEW.chave_idempotencia IS NOT NULL THEN
+        INSERT INTO transacoes_chaves (chave, transacao_id) VALUES (NEW.chave_idempotencia, NEW.id);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transacoes_chave_idempotencia
+    BEFORE INSERT ON transacoes
+    FOR EACH ROW EXECUTE FUNCTION registrar_chave_idempotencia();
+
+-- Os mesmos índices declarados na entidade (paginação por cursor e filtros)
+CREATE INDEX idx_transacoes_usuario_id ON transacoes (usuario_id, id);
+CREATE INDEX idx_transacoes_status_id ON transacoes (status, id);
+CREATE INDEX idx_transacoes_tipo_id ON transacoes (tipo, id);
+CREATE INDEX idx_transacoes_data_hora ON transacoes (data_hora);
+CREATE INDEX idx_transacoes_chave_idempotencia ON transacoes (chave_idempotencia);
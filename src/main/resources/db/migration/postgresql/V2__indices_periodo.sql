@@ -0,0 +1,7 @@
+-- Consultas por usuário ou por status dentro de um período (histórico do
+-- usuário, revisão pendente do dia, estatísticas por janela). Com o índice
+-- (usuario_id, id) o banco filtra o período linha a linha; com data_hora
+-- na segunda coluna ele lê só a faixa do intervalo.
+-- Em tabela particionada o índice é criado em cada partição.
+CREATE INDEX idx_transacoes_usuario_data ON transacoes (usuario_id, data_hora);
+CREATE INDEX idx_transacoes_status_data ON transacoes (status, data_hora);
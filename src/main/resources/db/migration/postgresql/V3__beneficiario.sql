@@ -0,0 +1,6 @@
+-- Conta de destino das transferências (grafo de transferências entre
+-- usuários) e a pontuação da vizinhança dela na decisão. Colunas novas e
+-- nulas: o ALTER na tabela particionada vale para todas as partições e não
+-- reescreve as linhas existentes.
+ALTER TABLE transacoes ADD COLUMN beneficiario_id varchar(50);
+ALTER TABLE transacoes ADD COLUMN pontos_rede double precision;
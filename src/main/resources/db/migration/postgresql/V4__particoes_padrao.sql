@@ -0,0 +1,39 @@
+-- Uma partição nova não pode cobrir um período que já tenha linhas em
+-- transacoes_padrao (o CREATE ... PARTITION OF falha). A função passa a criar
+-- o mês como tabela solta, mover para ela as linhas do período que estão na
+-- padrão e só então anexar, tudo na mesma transação. Índices, chave primária
+-- e o gatilho da chave de idempotência vêm da tabela pai no ATTACH.
+CREATE OR REPLACE FUNCTION criar_particoes_transacoes(meses_a_frente integer) RETURNS integer AS $$
+DECLARE
+    inicio  date := date_trunc('month', now())::date;
+    de      date;
+    ate     date;
+    nome    text;
+    criadas integer := 0;
+    movidas bigint;
+BEGIN
+    FOR i IN 0..meses_a_frente LOOP
+        de := (inicio + make_interval(months => i))::date;
+        ate := (de + interval '1 month')::date;
+        nome := 'transacoes_' || to_char(de, 'YYYY_MM');
+        IF to_regclass(nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE transacoes INCLUDING DEFAULTS)', nome);
+            -- As chaves já estão em transacoes_chaves: a tabela solta não tem o gatilho
+            EXECUTE format('WITH m AS (DELETE FROM transacoes_padrao WHERE data_hora >= %L AND data_hora < %L '
+                           'RETURNING *) INSERT INTO %I SELECT * FROM m', de, ate, nome);
+            GET DIAGNOSTICS movidas = ROW_COUNT;
+            IF movidas > 0 THEN
+                RAISE NOTICE '% linhas de transacoes_padrao movidas para %', movidas, nome;
+            END IF;
+            -- A restrição evita que o ATTACH varra a tabela para conferir o intervalo
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (data_hora >= %L AND data_hora < %L)',
+                           nome, nome || '_intervalo', de, ate);
+            EXECUTE format('ALTER TABLE transacoes ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           nome, de, ate);
+            EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', nome, nome || '_intervalo');
+            criadas := criadas + 1;
+        END IF;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
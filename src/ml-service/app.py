@@ -2,6 +2,7 @@ from flask import Flask, request, jsonify
 import joblib
 import numpy as np
 import json
+import hashlib
 
 
 
@@ -9,11 +10,14 @@ app = Flask(__name__)
 
 print("Carregando modelo...")
 model = joblib.load("fraud_model.pkl")
-print("Modelo carregado.")
+# Versão = hash do arquivo treinado (o export_model.py grava a mesma no .rfb)
+with open("fraud_model.pkl", "rb") as f:
+    MODEL_VERSION = hashlib.sha256(f.read()).hexdigest()[:12]
+print(f"Modelo carregado (versao {MODEL_VERSION}).")
 
 @app.route("/health", methods=["GET"])
 def health():
-    return jsonify({"status": "online", "model": "RandomForest"})
+    return jsonify({"status": "online", "model": "RandomForest", "model_version": MODEL_VERSION})
 
 @app.route("/predict", methods=["POST"])
 def predict():
@@ -26,7 +30,25 @@ def predict():
         return jsonify({
             "fraud_probability": round(float(probability), 4),
             "is_fraud": bool(prediction),
-            "model": "RandomForest"
+            "model": "RandomForest",
+            "model_version": MODEL_VERSION
+        })
+    except Exception as e:
+        return jsonify({"error": str(e)}), 400
+
+@app.route("/predict_batch", methods=["POST"])
+def predict_batch():
+    # Várias transações numa chamada só (usado por POST /api/transacoes/lote)
+    try:
+        data = request.get_json()
+        instances = np.array(data["instances"], dtype=float)  # N x 29
+        if instances.size == 0:
+            return jsonify({"fraud_probabilities": [], "model": "RandomForest", "model_version": MODEL_VERSION})
+        probabilities = model.predict_proba(instances)[:, 1]
+        return jsonify({
+            "fraud_probabilities": [round(float(p), 4) for p in probabilities],
+            "model": "RandomForest",
+            "model_version": MODEL_VERSION
         })
     except Exception as e:
         return jsonify({"error": str(e)}), 400
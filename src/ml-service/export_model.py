@@ -0,0 +1,87 @@
+"""
+Exporta o Random Forest treinado (fraud_model.pkl) para o formato binário
+compacto lido pelo motor de inferência em Java (FlorestaAleatoria).
+
+Formato (big-endian, igual ao DataInputStream do Java):
+    "RFB1"                        magic
+    int32   versão do formato (1)
+    int32   número de features
+    int32   número de árvores
+    int16 + bytes UTF-8           versão do modelo
+    para cada árvore:
+        int32     número de nós (n)
+        int32[n]  feature do nó (-1 = folha)
+        float64[n] limiar
+        int32[n]  filho da esquerda (índice local na árvore)
+        int32[n]  filho da direita
+        float64[n] probabilidade de fraude no nó (usada só nas folhas)
+
+Também grava paridade.json com entradas de exemplo e as probabilidades do
+scikit-learn, usado pelo teste de paridade do lado Java.
+"""
+import hashlib
+import json
+import os
+import struct
+
+import joblib
+import numpy as np
+
+MODELO = "fraud_model.pkl"
+SAIDA = "fraud_model.rfb"
+PARIDADE = "paridade.json"
+
+
+def versao_modelo(caminho):
+    # Mesmo critério do app.py: hash do arquivo treinado
+    with open(caminho, "rb") as f:
+        return hashlib.sha256(f.read()).hexdigest()[:12]
+
+
+def exportar(modelo, versao, caminho):
+    with open(caminho, "wb") as f:
+        f.write(b"RFB1")
+        f.write(struct.pack(">iii", 1, modelo.n_features_in_, len(modelo.estimators_)))
+        v = versao.encode("utf-8")
+        f.write(struct.pack(">h", len(v)))
+        f.write(v)
+        for arvore in modelo.estimators_:
+            t = arvore.tree_
+            n = t.node_count
+            # value: (nós, saídas, classes); normaliza para probabilidade da classe 1
+            valores = t.value[:, 0, :]
+            totais = valores.sum(axis=1)
+            prob = np.divide(valores[:, 1], totais, out=np.zeros(n), where=totais > 0)
+            feature = np.where(t.children_left == -1, -1, t.feature)
+
+            f.write(struct.pack(">i", n))
+            f.write(np.asarray(feature, dtype=">i4").tobytes())
+            f.write(np.asarray(t.threshold, dtype=">f8").tobytes())
+            f.write(np.asarray(t.children_left, dtype=">i4").tobytes())
+            f.write(np.asarray(t.children_right, dtype=">i4").tobytes())
+            f.write(np.asarray(prob, dtype=">f8").tobytes())
+
+
+def gerar_paridade(modelo, caminho, n=200):
+    rng = np.random.default_rng(42)
+    entradas = []
+    if os.path.exists("creditcard.csv"):
+        import pandas as pd
+        df = pd.read_csv("creditcard.csv").drop(columns=["Class", "Time"])
+        entradas.extend(df.sample(n // 2, random_state=42).to_numpy().tolist())
+    # Vetores como os que o backend envia: V1-V28 zerados + Amount
+    for valor in rng.uniform(0, 25000, n - len(entradas)):
+        entradas.append([0.0] * 28 + [round(float(valor), 2)])
+    probs = modelo.predict_proba(np.array(entradas))[:, 1]
+    with open(caminho, "w") as f:
+        json.dump({"entradas": entradas, "probabilidades": [float(p) for p in probs]}, f)
+
+
+if __name__ == "__main__":
+    print("Carregando modelo...")
+    modelo = joblib.load(MODELO)
+    versao = versao_modelo(MODELO)
+    exportar(modelo, versao, SAIDA)
+    print(f"Modelo {versao} exportado em {SAIDA} ({os.path.getsize(SAIDA)} bytes)")
+    gerar_paridade(modelo, PARIDADE)
+    print(f"Entradas de paridade gravadas em {PARIDADE}")
@@ -0,0 +1,183 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.config.ArquivoColunarProperties;
+import com.tcc.antifraude_seguro.dto.FiltroTransacoes;
+import com.tcc.antifraude_seguro.dto.GrupoArquivo;
+import com.tcc.antifraude_seguro.dto.LinhaArquivo;
+import com.tcc.antifraude_seguro.dto.PaginaArquivo;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoJdbc;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.ArquivoColunar;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ArquivoColunarTest {
+
+    private static final String[] STATUS = {"APROVADA", "REVISAO", "BLOQUEADA"};
+    private static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Agregações com filtro batem com o cálculo direto sobre as transações")
+    void testAgregacoes() throws Exception {
+        List<Transacao> transacoes = gerar(30_000);
+        ArquivoColunar arquivo = arquivo(7_000);
+        assertEquals(30_000, arquivo.arquivar(transacoes));
+        assertEquals(5, arquivo.resumo().get("segmentos"));
+
+        LocalDateTime de = transacoes.get(5_000).getDataHora();
+        LocalDateTime ate = transacoes.get(25_000).getDataHora();
+        FiltroTransacoes filtro = new FiltroTransacoes(null, null, "PIX", de, ate);
+        List<Transacao> esperadas = transacoes.stream()
+                .filter(t -> t.getTipo().equals("PIX"))
+                .filter(t -> !t.getDataHora().isBefore(de) && t.getDataHora().isBefore(ate))
+                .toList();
+
+        List<GrupoArquivo> porStatus = arquivo.agregar(filtro, ArquivoColunar.Agrupamento.STATUS, 10);
+        Map<String, List<Transacao>> esperadoPorStatus = esperadas.stream()
+                .collect(Collectors.groupingBy(Transacao::getStatus));
+        assertEquals(esperadoPorStatus.size(), porStatus.size());
+        for (GrupoArquivo g : porStatus) {
+            conferir(esperadoPorStatus.get(g.grupo()), g);
+        }
+
+        List<GrupoArquivo> porUsuario = arquivo.agregar(filtro, ArquivoColunar.Agrupamento.USUARIO, 1_000);
+        Map<String, List<Transacao>> esperadoPorUsuario = esperadas.stream()
+                .collect(Collectors.groupingBy(Transacao::getUsuarioId));
+        assertEquals(esperadoPorUsuario.size(), porUsuario.size());
+        for (GrupoArquivo g : porUsuario) {
+            conferir(esperadoPorUsuario.get(g.grupo()), g);
+        }
+        // do maior para o menor
+        assertTrue(porUsuario.get(0).quantidade() >= porUsuario.get(porUsuario.size() - 1).quantidade());
+    }
+
+    @Test
+    @DisplayName("Reaberto do disco, o arquivo pagina a busca na ordem e recusa linhas fora de ordem")
+    void testReaberturaEBusca() throws Exception {
+        List<Transacao> transacoes = gerar(10_000);
+        arquivo(3_000).arquivar(transacoes);
+
+        ArquivoColunar reaberto = arquivo(3_000);
+        FiltroTransacoes filtro = new FiltroTransacoes("user7", "BLOQUEADA", null, null, null);
+        List<LinhaArquivo> lidas = new ArrayList<>();
+        long apos = 0;
+        do {
+            PaginaArquivo pagina = reaberto.buscar(filtro, apos, 7);
+            lidas.addAll(pagina.itens());
+            apos = pagina.proximoCursor() != null ? pagina.proximoCursor() : -1;
+        } while (apos >= 0);
+
+        List<Transacao> esperadas = transacoes.stream()
+                .filter(t -> t.getUsuarioId().equals("user7") && t.getStatus().equals("BLOQUEADA"))
+                .toList();
+        assertEquals(esperadas.size(), lidas.size());
+        for (int i = 0; i < lidas.size(); i++) {
+            Transacao t = esperadas.get(i);
+            LinhaArquivo l = lidas.get(i);
+            assertEquals(t.getId(), l.id());
+            assertEquals(t.getValor(), l.valor());
+            assertEquals(t.getScoreRisco(), l.scoreRisco());
+            assertEquals(t.getTipo(), l.tipo());
+            assertEquals(t.getDataHora().truncatedTo(ChronoUnit.MILLIS), l.dataHora());
+        }
+
+        Transacao atrasada = transacoes.get(0);
+        assertThrows(IllegalArgumentException.class, () -> reaberto.arquivar(List.of(atrasada)));
+        assertEquals(10_000L, reaberto.linhas());
+    }
+
+    @Test
+    @DisplayName("A exportação do banco é incremental e respeita a margem")
+    void testExportacaoIncremental() {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:arquivo",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--antifraude.arquivo.diretorio=" + dir.resolve("exportado"),
+                        "--antifraude.arquivo.linhas-por-segmento=100")) {
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+            ArquivoColunar arquivo = ctx.getBean(ArquivoColunar.class);
+            LocalDateTime antiga = LocalDateTime.now().minusHours(5);
+
+            repository.saveAll(gerar(250, antiga));
+            assertEquals(250, arquivo.exportarDoBanco());
+            assertEquals(0, arquivo.exportarDoBanco());
+
+            // dentro da margem (1 min) ainda não vai
+            Transacao recente = gerar(1, LocalDateTime.now()).get(0);
+            repository.saveAll(gerar(40, antiga.plusHours(3)));
+            repository.save(recente);
+            assertEquals(40, arquivo.exportarDoBanco());
+            assertEquals(290L, arquivo.linhas());
+            assertEquals(4, arquivo.resumo().get("segmentos"));
+        }
+    }
+
+    private ArquivoColunar arquivo(int linhasPorSegmento) throws Exception {
+        ArquivoColunar arquivo = new ArquivoColunar(
+                new ArquivoColunarProperties(dir, linhasPorSegmento, Duration.ofMinutes(1)),
+                mock(TransacaoJdbc.class), new TransactionTemplate());
+        arquivo.abrir();
+        return arquivo;
+    }
+
+    private static void conferir(List<Transacao> esperadas, GrupoArquivo g) {
+        assertNotNull(esperadas, g.grupo());
+        assertEquals(esperadas.size(), g.quantidade());
+        assertEquals(esperadas.stream().mapToDouble(Transacao::getValor).sum(), g.valorTotal(), 1e-6);
+        assertEquals(esperadas.stream().mapToDouble(Transacao::getValor).min().orElse(0), g.valorMinimo());
+        assertEquals(esperadas.stream().mapToDouble(Transacao::getValor).max().orElse(0), g.valorMaximo());
+    }
+
+    private static List<Transacao> gerar(int quantidade) {
+        List<Transacao> transacoes = gerar(quantidade, LocalDateTime.of(2026, 3, 1, 0, 0));
+        for (int i = 0; i < transacoes.size(); i++) {
+            transacoes.get(i).setId(i + 1L);
+        }
+        return transacoes;
+    }
+
+    // Na ordem (dataHora, id); um trecho com valores de 3 casas força a coluna em double
+    private static List<Transacao> gerar(int quantidade, LocalDateTime inicio) {
+        Random random = new Random(42);
+        List<Transacao> transacoes = new ArrayList<>();
+        LocalDateTime dataHora = inicio;
+        for (int i = 0; i < quantidade; i++) {
+            dataHora = dataHora.plusNanos(random.nextInt(30_000) * 1_000_000L + 1_000);
+            Transacao t = new Transacao();
+            t.setUsuarioId("user" + random.nextInt(40));
+            double centavos = 100 + random.nextInt(500_000);
+            t.setValor(i >= 12_000 && i < 14_000 ? centavos / 1000 : centavos / 100);
+            t.setTipo(TIPOS[random.nextInt(TIPOS.length)]);
+            t.setStatus(STATUS[random.nextInt(STATUS.length)]);
+            t.setScoreRisco(i % 10 == 0 ? null : (double) random.nextInt(101));
+            t.setDataHora(dataHora);
+            transacoes.add(t);
+        }
+        return transacoes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.RequisicaoBacktest;
+import com.tcc.antifraude_seguro.dto.RespostaBacktest;
+import com.tcc.antifraude_seguro.dto.ResultadoBacktest;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.BacktestService;
+import com.tcc.antifraude_seguro.service.LoteService;
+import com.tcc.antifraude_seguro.service.MotorRegras;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktestServiceTest {
+
+    private static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+
+    private static MlStubServer ml;
+    private static ConfigurableApplicationContext ctx;
+    private static BacktestService backtest;
+    private static List<Transacao> salvas;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        ml = new MlStubServer().probabilidade(0.8);
+        ctx = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:backtest",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--antifraude.ml.url=" + ml.url(),
+                        "--antifraude.ml.orcamento=2s",
+                        "--antifraude.backtest.paralelismo=4",
+                        "--antifraude.backtest.tamanho-bloco=256");
+        backtest = ctx.getBean(BacktestService.class);
+
+        Random random = new Random(11);
+        List<Transacao> entrada = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Transacao t = new Transacao();
+            t.setUsuarioId("user" + random.nextInt(60));
+            t.setValor((100 + random.nextInt(2_500_000)) / 100.0);
+            t.setTipo(TIPOS[random.nextInt(TIPOS.length)]);
+            entrada.add(t);
+        }
+        ctx.getBean(LoteService.class).processar(entrada.iterator());
+        salvas = ctx.getBean(TransacaoRepository.class).findAll();
+        assertEquals(3_000, salvas.size());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        ctx.close();
+        ml.close();
+    }
+
+    @Test
+    @DisplayName("Com a configuração em uso, o backtest reproduz as decisões gravadas")
+    void testReproduzDecisoes() {
+        // rótulo = decisão gravada: a configuração atual acerta todos os bloqueios
+        List<Long> fraudes = new ArrayList<>();
+        List<Long> legitimas = new ArrayList<>();
+        for (Transacao t : salvas) {
+            (t.getStatus().equals("BLOQUEADA") ? fraudes : legitimas).add(t.getId());
+        }
+        assertEquals(3_000, backtest.rotular(fraudes, legitimas));
+
+        RespostaBacktest resposta = backtest.executar(new RequisicaoBacktest(null, null, null, null, null, null));
+        assertTrue(resposta.ml());
+        assertEquals(3_000, resposta.linhas());
+        assertEquals(3_000, resposta.rotuladas());
+        ResultadoBacktest r = resposta.resultados().get(0);
+        assertEquals("base", r.origem());
+        assertEquals(contar("APROVADA"), r.aprovadas());
+        assertEquals(contar("REVISAO"), r.revisao());
+        assertEquals(contar("BLOQUEADA"), r.bloqueadas());
+        assertEquals(fraudes.size(), r.matriz().verdadeirosPositivos());
+        assertEquals(0, r.matriz().falsosPositivos());
+        assertEquals(1.0, r.recall());
+        double valorBloqueado = salvas.stream().filter(t -> t.getStatus().equals("BLOQUEADA"))
+                .mapToDouble(Transacao::getValor).sum();
+        assertEquals(valorBloqueado, r.valorBloqueado(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Na grade, subir o corte de bloqueio nunca bloqueia mais")
+    void testGradeMonotonica() {
+        RequisicaoBacktest.Grade grade = new RequisicaoBacktest.Grade(
+                List.of(50.0, 60.0, 70.0, 80.0, 90.0), List.of(30.0, 40.0), null, List.of(0.2, 0.4));
+        RespostaBacktest resposta = backtest.executar(new RequisicaoBacktest(null, null, false, null, grade, null));
+        assertFalse(resposta.ml());
+        assertEquals(5 * 2 * 2, resposta.resultados().size());
+
+        // ordem da grade: bloqueio > revisão > pesoRegras > pesoMl
+        for (int i = 4; i < resposta.resultados().size(); i++) {
+            ResultadoBacktest atual = resposta.resultados().get(i);
+            ResultadoBacktest anterior = resposta.resultados().get(i - 4);
+            assertTrue(atual.decisao().limiteBloqueio() > anterior.decisao().limiteBloqueio());
+            assertTrue(atual.bloqueadas() <= anterior.bloqueadas());
+            assertEquals(3_000, atual.aprovadas() + atual.revisao() + atual.bloqueadas());
+        }
+    }
+
+    @Test
+    @DisplayName("Candidato inválido é rejeitado com o índice na mensagem")
+    void testCandidatoInvalido() {
+        DefinicaoRegras atual = ctx.getBean(MotorRegras.class).atual().definicao();
+        DefinicaoRegras invalida = new DefinicaoRegras(null, atual.valor(), atual.horario(),
+                atual.tipo(), atual.diaSemana(), atual.comportamento(), atual.rede(),
+                new DefinicaoRegras.Decisao(40, 70, 0.6, 0.4));
+
+        RequisicaoInvalidaException e = assertThrows(RequisicaoInvalidaException.class, () -> backtest.executar(
+                new RequisicaoBacktest(null, null, false, null, null, List.of(atual, invalida))));
+        assertTrue(e.getMessage().startsWith("Candidato 1"));
+    }
+
+    private static long contar(String status) {
+        return salvas.stream().filter(t -> t.getStatus().equals(status)).count();
+    }
+}
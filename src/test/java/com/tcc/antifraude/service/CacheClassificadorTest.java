@@ -0,0 +1,116 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.config.CacheMlProperties;
+import com.tcc.antifraude_seguro.service.CacheClassificador;
+import com.tcc.antifraude_seguro.service.ClassificadorFraude;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheClassificadorTest {
+
+    private ModeloFalso modelo;
+    private SimpleMeterRegistry registry;
+    private CacheClassificador cache;
+
+    @BeforeEach
+    void setUp() {
+        modelo = new ModeloFalso();
+        registry = new SimpleMeterRegistry();
+        cache = new CacheClassificador(modelo, new CacheMlProperties(true, 1.0, 1000, Duration.ofMinutes(10)),
+                new MetricasDecisao(registry));
+    }
+
+    @Test
+    @DisplayName("Consultas simultâneas da mesma faixa de valor viram uma única chamada ao modelo")
+    void testConsultaUnica() {
+        modelo.pendente = new CompletableFuture<>();
+
+        List<CompletableFuture<Double>> futuros = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futuros.add(cache.obterProbabilidadeFraudeAsync(3000.0 + (i % 5) * 0.1)); // 3000,0 a 3000,4
+        }
+        modelo.pendente.complete(0.7);
+
+        for (CompletableFuture<Double> f : futuros) {
+            assertEquals(0.7, f.join());
+        }
+        assertEquals(1, modelo.chamadas.get());
+        assertEquals(List.of(3000.0), modelo.valores); // o modelo recebe o valor da faixa
+        assertEquals(49.0 / 50, registry.get("antifraude.cache.razao.acertos").gauge().value(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Fallback não fica no cache e a troca de modelo descarta as previsões")
+    void testFallbackEVersao() {
+        modelo.resposta = null;
+        assertNull(cache.obterProbabilidadeFraude(500.0));
+        modelo.resposta = 0.2;
+        assertEquals(0.2, cache.obterProbabilidadeFraude(500.0));
+        assertEquals(0.2, cache.obterProbabilidadeFraude(500.0));
+        assertEquals(2, modelo.chamadas.get());
+
+        modelo.versao = "v2";
+        modelo.resposta = 0.4;
+        assertEquals(0.4, cache.obterProbabilidadeFraude(500.0));
+        assertEquals(3, modelo.chamadas.get());
+    }
+
+    @Test
+    @DisplayName("Em lote, só as faixas que faltam vão ao modelo, numa única consulta")
+    void testLote() {
+        modelo.resposta = 0.3;
+        cache.obterProbabilidadeFraude(100.0);
+
+        double[] resultado = cache.obterProbabilidadesFraude(new double[]{100.0, 200.0, 200.2, 300.0});
+
+        assertArrayEquals(new double[]{0.3, 0.3, 0.3, 0.3}, resultado);
+        assertEquals(2, modelo.chamadas.get());
+        assertEquals(List.of(100.0, 200.0, 300.0), modelo.valores.stream().sorted().toList());
+
+        modelo.resposta = null; // ML fora: o grupo todo vai para o fallback
+        assertNull(cache.obterProbabilidadesFraude(new double[]{100.0, 400.0}));
+    }
+
+    private static class ModeloFalso implements ClassificadorFraude {
+        final AtomicInteger chamadas = new AtomicInteger();
+        final List<Double> valores = new ArrayList<>();
+        volatile CompletableFuture<Double> pendente;
+        volatile Double resposta = 0.5;
+        volatile String versao = "v1";
+
+        @Override
+        public CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor) {
+            chamadas.incrementAndGet();
+            valores.add(valor);
+            return pendente != null ? pendente : CompletableFuture.completedFuture(resposta);
+        }
+
+        @Override
+        public double[] obterProbabilidadesFraude(double[] lote) {
+            chamadas.incrementAndGet();
+            if (resposta == null) return null;
+            double[] r = new double[lote.length];
+            for (int i = 0; i < lote.length; i++) {
+                valores.add(lote[i]);
+                r[i] = resposta;
+            }
+            return r;
+        }
+
+        @Override
+        public String versaoModelo() {
+            return versao;
+        }
+    }
+}
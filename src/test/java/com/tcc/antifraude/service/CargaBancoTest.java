@@ -0,0 +1,120 @@
+package com.tcc.antifraude.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Latência de INSERT e de consultas por período no esquema das migrações, no
+// H2 em MODE=PostgreSQL (substituto do PostgreSQL):
+//   v1: só os índices da entidade (filtro + id, data_hora)
+//   v2: + (usuario_id, data_hora) e (status, data_hora)
+// Fora do build normal: ./mvnw test -Pcarga
+@Tag("carga")
+class CargaBancoTest {
+
+    private static final int LINHAS = 300_000;
+    private static final int LOTE = 500;
+    private static final int USUARIOS = 100;
+    private static final int CONSULTAS = 2_000;
+    private static final String[] STATUS = {"APROVADA", "APROVADA", "APROVADA", "REVISAO", "BLOQUEADA"};
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static final String INSERT = """
+            INSERT INTO transacoes (id, usuario_id, valor, tipo, data_hora, status, score_risco)
+            VALUES (?, ?, ?, 'PIX', ?, ?, ?)
+            """;
+    private static final String POR_USUARIO = """
+            SELECT COUNT(*), SUM(valor) FROM transacoes
+            WHERE usuario_id = ? AND data_hora >= ? AND data_hora < ?
+            """;
+    private static final String POR_STATUS = """
+            SELECT COUNT(*), SUM(valor) FROM transacoes
+            WHERE status = ? AND data_hora >= ? AND data_hora < ?
+            """;
+
+    @Test
+    @DisplayName("Índices por período: consultas mais rápidas, INSERT um pouco mais caro")
+    void testIndicesPorPeriodo() {
+        Resultado v1 = medir("1");
+        Resultado v2 = medir("2");
+
+        System.out.printf("%-4s %14s %14s %18s %18s%n",
+                "", "insert p50 ms", "insert p99 ms", "usuario+dia us", "status+hora us");
+        for (Resultado r : List.of(v1, v2)) {
+            System.out.printf("v%-3s %14.2f %14.2f %18.1f %18.1f%n",
+                    r.versao, r.insertP50Ms, r.insertP99Ms, r.usuarioUs, r.statusUs);
+        }
+        assertTrue(v2.usuarioUs < v1.usuarioUs, "usuário + período não melhorou");
+        assertTrue(v2.statusUs < v1.statusUs, "status + período não melhorou");
+    }
+
+    private record Resultado(String versao, double insertP50Ms, double insertP99Ms,
+                             double usuarioUs, double statusUs) {}
+
+    private static Resultado medir(String versao) {
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(
+                "jdbc:h2:mem:carga" + versao + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE", "sa", "", true);
+        try {
+            Flyway.configure().dataSource(ds).locations("classpath:db/migration/h2").target(versao).load().migrate();
+            JdbcTemplate jdbc = new JdbcTemplate(ds);
+
+            // ~2,6 s entre transações: os 300 mil cobrem uns 9 dias
+            Random random = new Random(3);
+            long[] lotes = new long[LINHAS / LOTE];
+            long id = 1;
+            LocalDateTime dataHora = INICIO;
+            for (int l = 0; l < lotes.length; l++) {
+                List<Object[]> linhas = new ArrayList<>(LOTE);
+                for (int i = 0; i < LOTE; i++) {
+                    dataHora = dataHora.plusNanos(1_000_000L * random.nextInt(5_200));
+                    linhas.add(new Object[]{id++, "user" + random.nextInt(USUARIOS),
+                            (100 + random.nextInt(500_000)) / 100.0, Timestamp.valueOf(dataHora),
+                            STATUS[random.nextInt(STATUS.length)], (double) random.nextInt(101)});
+                }
+                long inicio = System.nanoTime();
+                jdbc.batchUpdate(INSERT, linhas);
+                lotes[l] = System.nanoTime() - inicio;
+            }
+            Arrays.sort(lotes);
+            LocalDateTime fim = dataHora;
+
+            // aquecimento + medição, janelas sorteadas dentro do período gravado
+            long segundos = java.time.Duration.between(INICIO, fim).toSeconds();
+            double usuario = 0, status = 0;
+            for (int rodada = 0; rodada < 2; rodada++) {
+                Random consultas = new Random(5);
+                long t0 = System.nanoTime();
+                for (int i = 0; i < CONSULTAS; i++) {
+                    LocalDateTime de = INICIO.plusSeconds(consultas.nextLong(segundos - 86_400));
+                    jdbc.queryForList(POR_USUARIO, "user" + consultas.nextInt(USUARIOS),
+                            Timestamp.valueOf(de), Timestamp.valueOf(de.plusDays(1)));
+                }
+                long t1 = System.nanoTime();
+                for (int i = 0; i < CONSULTAS; i++) {
+                    LocalDateTime de = INICIO.plusSeconds(consultas.nextLong(segundos - 3_600));
+                    jdbc.queryForList(POR_STATUS, STATUS[3 + consultas.nextInt(2)],
+                            Timestamp.valueOf(de), Timestamp.valueOf(de.plusHours(1)));
+                }
+                long t2 = System.nanoTime();
+                usuario = (t1 - t0) / 1_000.0 / CONSULTAS;
+                status = (t2 - t1) / 1_000.0 / CONSULTAS;
+            }
+            return new Resultado(versao, lotes[lotes.length / 2] / 1e6, lotes[lotes.length * 99 / 100] / 1e6,
+                    usuario, status);
+        } finally {
+            ds.destroy();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.service.DiagnosticoPinagem;
+import com.tcc.antifraude_seguro.service.MotorRegras;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Comparação de carga do POST /api/transacoes com o ML lento (stub com 200 ms):
+//   plataforma-bloqueante: threads do Tomcat esperam ML e JDBC (o clássico)
+//   plataforma-async:      padrão da aplicação, thread do Tomcat liberada durante o ML
+//   virtual:               perfil "virtual", bloqueante em threads virtuais
+// Todas as transações caem na zona cinzenta. Fora do build normal: ./mvnw test -Pcarga
+@Tag("carga")
+class CargaThreadsVirtuaisTest {
+
+    private static final int ATRASO_ML_MS = 200;
+    private static final int EM_VOO = 1000;
+    private static final int TOTAL = 4000;
+    private static final int AQUECIMENTO = 500;
+
+    @Test
+    @DisplayName("Threads virtuais sustentam mais vazão que o pool de plataforma com ML lento")
+    void testComparacao() throws Exception {
+        try (MlStubServer ml = new MlStubServer().atraso(ATRASO_ML_MS).probabilidade(0.1)) {
+            Resultado bloqueante = medir("plataforma-bloqueante", ml, "antifraude.execucao.bloqueante=true");
+            Resultado async = medir("plataforma-async", ml);
+            Resultado virtual = medir("virtual", ml, "spring.profiles.active=virtual");
+
+            System.out.println();
+            System.out.printf("ML com %d ms, %d requisições em voo, %d medidas%n", ATRASO_ML_MS, EM_VOO, TOTAL);
+            System.out.printf("%-24s %10s %10s %10s %8s %8s%n", "modo", "req/s", "p50 ms", "p99 ms", "erros", "pinagem");
+            for (Resultado r : List.of(bloqueante, async, virtual)) {
+                System.out.printf("%-24s %10.0f %10.1f %10.1f %8d %8s%n",
+                        r.modo, r.vazao, r.p50, r.p99, r.erros, r.pinagens < 0 ? "-" : r.pinagens);
+            }
+
+            assertEquals(0, virtual.erros);
+            assertTrue(virtual.vazao > bloqueante.vazao,
+                    "threads virtuais deveriam superar o pool de plataforma bloqueante");
+        }
+    }
+
+    private Resultado medir(String modo, MlStubServer ml, String... extras) throws Exception {
+        List<String> props = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:carga-" + modo,
+                "spring.datasource.hikari.maximum-pool-size=20",
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "logging.level.root=WARN",
+                "antifraude.ml.url=" + ml.url(),
+                "antifraude.ml.orcamento=5s",
+                "antifraude.ml.cache.habilitado=false", // todas têm o mesmo valor: sem cache, toda requisição vai ao ML
+                "antifraude.ml.max-concorrentes=" + (EM_VOO * 2)));
+        props.addAll(List.of(extras));
+
+        // Como argumentos de linha de comando para valerem por cima do application-virtual.properties
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(DemoApplication.class)
+                .run(props.stream().map(p -> "--" + p).toArray(String[]::new));
+        try {
+            zonaCinzentaParaTudo(contexto.getBean(MotorRegras.class));
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            URI url = URI.create("http://127.0.0.1:" + porta + "/api/transacoes");
+
+            try (HttpClient cliente = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build()) {
+                disparar(cliente, url, AQUECIMENTO, new long[AQUECIMENTO], new AtomicInteger());
+
+                long[] latencias = new long[TOTAL];
+                AtomicInteger erros = new AtomicInteger();
+                long inicio = System.nanoTime();
+                disparar(cliente, url, TOTAL, latencias, erros);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+
+                Arrays.sort(latencias);
+                DiagnosticoPinagem pinagem = contexto.getBeanProvider(DiagnosticoPinagem.class).getIfAvailable();
+                return new Resultado(modo, TOTAL / segundos,
+                        latencias[TOTAL / 2] / 1e6, latencias[(int) (TOTAL * 0.99)] / 1e6,
+                        erros.get(), pinagem != null ? pinagem.total() : -1);
+            }
+        } finally {
+            contexto.close();
+        }
+    }
+
+    // No máximo EM_VOO requisições abertas ao mesmo tempo (carga em malha fechada)
+    private static void disparar(HttpClient cliente, URI url, int quantidade,
+                                 long[] latencias, AtomicInteger erros) throws InterruptedException {
+        Semaphore vagas = new Semaphore(EM_VOO);
+        List<CompletableFuture<?>> pendentes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            vagas.acquire();
+            int indice = i;
+            String corpo = "{\"usuarioId\":\"carga" + (i % 2000) + "\",\"valor\":750.0,\"tipo\":\"TED\"}";
+            HttpRequest request = HttpRequest.newBuilder(url)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                    .build();
+            long inicio = System.nanoTime();
+            pendentes.add(cliente.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((resposta, erro) -> {
+                        latencias[indice] = System.nanoTime() - inicio;
+                        if (erro != null || resposta.statusCode() != 200) erros.incrementAndGet();
+                        vagas.release();
+                    }));
+        }
+        CompletableFuture.allOf(pendentes.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+    }
+
+    // Revisão a partir de 0 e bloqueio acima de 100: toda transação consulta o ML
+    private static void zonaCinzentaParaTudo(MotorRegras motor) {
+        DefinicaoRegras d = motor.atual().definicao();
+        motor.publicar(new DefinicaoRegras(null, d.valor(), d.horario(), d.tipo(), d.diaSemana(),
+                d.comportamento(), d.rede(), new DefinicaoRegras.Decisao(101, 0, 0.6, 0.4)));
+    }
+
+    private record Resultado(String modo, double vazao, double p50, double p99, int erros, long pinagens) {}
+}
@@ -0,0 +1,216 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.dto.EstadoCluster;
+import com.tcc.antifraude_seguro.dto.RespostaLote;
+import com.tcc.antifraude_seguro.dto.ResultadoLote;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.ClusterService;
+import com.tcc.antifraude_seguro.service.ComportamentoUsuarioService;
+import com.tcc.antifraude_seguro.service.LoteService;
+import com.tcc.antifraude_seguro.service.TransacaoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dois nós na mesma máquina, cada um com seu H2 em memória, falando pelo
+// protocolo interno em portas livres do localhost
+class ClusterTest {
+
+    @Test
+    @DisplayName("Transação de usuário de outro nó é decidida e gravada pelo dono")
+    void testEncaminhamento() throws Exception {
+        try (ConfigurableApplicationContext a = iniciar("a");
+             ConfigurableApplicationContext b = iniciar("b")) {
+            cluster(a).atualizarMembros(List.of(membro("a", a), membro("b", b)));
+            assertEquals(1, cluster(b).estado().versao());
+
+            String usuario = usuarioDe(cluster(a), "b");
+            HttpResponse<String> resposta = postar(a, usuario);
+            assertEquals(200, resposta.statusCode(), resposta.body());
+            // id do banco do dono: a primeira transação gravada lá
+            assertTrue(resposta.body().startsWith("{\"id\":1,\"usuarioId\":\"" + usuario + "\""), resposta.body());
+
+            // Gravada e observada só no dono
+            assertEquals(0, a.getBean(TransacaoRepository.class).count());
+            assertEquals(1, b.getBean(TransacaoRepository.class).count());
+            assertTrue(a.getBean(ComportamentoUsuarioService.class).usuarios().isEmpty());
+            assertEquals(Set.of(usuario), b.getBean(ComportamentoUsuarioService.class).usuarios());
+        }
+    }
+
+    @Test
+    @DisplayName("Linhas do lote de usuários de outro nó são decididas pelo dono")
+    void testLoteEncaminhado() {
+        try (ConfigurableApplicationContext a = iniciar("a");
+             ConfigurableApplicationContext b = iniciar("b")) {
+            cluster(a).atualizarMembros(List.of(membro("a", a), membro("b", b)));
+            String local = usuarioDe(cluster(a), "a");
+            String alheio = usuarioDe(cluster(a), "b");
+
+            RespostaLote resposta = a.getBean(LoteService.class).processar(List.of(
+                    transacao(local, 100.0), transacao(alheio, 100.0), transacao(alheio, 200.0)).iterator());
+            assertEquals(3, resposta.aceitas(), resposta.toString());
+            assertEquals(List.of(0, 1, 2), resposta.resultados().stream().map(ResultadoLote::indice).toList());
+
+            assertEquals(1, a.getBean(TransacaoRepository.class).count());
+            assertEquals(2, b.getBean(TransacaoRepository.class).count());
+            assertEquals(Set.of(local), a.getBean(ComportamentoUsuarioService.class).usuarios());
+            assertEquals(Set.of(alheio), b.getBean(ComportamentoUsuarioService.class).usuarios());
+        }
+    }
+
+    @Test
+    @DisplayName("Dono que recebeu o pedido e não respondeu dá 503; dono inalcançável cai na decisão local")
+    void testFalhaDoDono() throws Exception {
+        // Aceita a conexão (backlog do SO) e nunca responde
+        try (ServerSocket mudo = new ServerSocket(0);
+             ConfigurableApplicationContext a = iniciar("a")) {
+            cluster(a).atualizarMembros(List.of(membro("a", a), "b=127.0.0.1:" + mudo.getLocalPort()));
+            String usuario = usuarioDe(cluster(a), "b");
+
+            // O pedido saiu: decidir aqui também poderia gravar a transação duas vezes
+            HttpResponse<String> resposta = postar(a, usuario);
+            assertEquals(503, resposta.statusCode(), resposta.body());
+            assertTrue(resposta.headers().firstValue("Retry-After").isPresent());
+            assertEquals(0, a.getBean(TransacaoRepository.class).count());
+
+            // Porta fechada: nada foi enviado, a transação é decidida e gravada aqui
+            mudo.close();
+            resposta = postar(a, usuario);
+            assertEquals(200, resposta.statusCode(), resposta.body());
+            assertEquals(1, a.getBean(TransacaoRepository.class).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Sem conexão livre para o dono dá 503 em vez de decidir localmente")
+    void testPoolEsgotado() throws Exception {
+        try (ConfigurableApplicationContext a = iniciar("a");
+             ConfigurableApplicationContext b = iniciar("b")) {
+            cluster(a).atualizarMembros(List.of(membro("a", a), membro("b", b)));
+            String usuario = usuarioDe(cluster(a), "b");
+            assertEquals(200, postar(a, usuario).statusCode());
+
+            // Todas as conexões com o dono ocupadas
+            Map<?, ?> pools = (Map<?, ?>) ReflectionTestUtils.getField(cluster(a), "pools");
+            Semaphore vagas = (Semaphore) ReflectionTestUtils.getField(pools.values().iterator().next(), "vagas");
+            int ocupadas = vagas.drainPermits();
+
+            HttpResponse<String> resposta = postar(a, usuario);
+            assertEquals(503, resposta.statusCode(), resposta.body());
+            assertTrue(resposta.headers().firstValue("Retry-After").isPresent());
+            assertEquals(0, a.getBean(TransacaoRepository.class).count());
+            assertTrue(a.getBean(ComportamentoUsuarioService.class).usuarios().isEmpty());
+
+            vagas.release(ocupadas);
+            assertEquals(200, postar(a, usuario).statusCode());
+            assertEquals(2, b.getBean(TransacaoRepository.class).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Nó novo recebe o comportamento dos usuários que passam a ser dele")
+    void testRebalanceamento() throws Exception {
+        try (ConfigurableApplicationContext a = iniciar("a")) {
+            TransacaoService transacoes = a.getBean(TransacaoService.class);
+            for (int i = 0; i < 3; i++) {
+                for (int u = 0; u < 40; u++) {
+                    transacoes.criar(transacao("usuario" + u, 100.0)).join();
+                }
+            }
+            ComportamentoUsuarioService comportamentoA = a.getBean(ComportamentoUsuarioService.class);
+            assertEquals(40, comportamentoA.usuarios().size());
+
+            try (ConfigurableApplicationContext b = iniciar("b")) {
+                cluster(a).atualizarMembros(List.of(membro("a", a), membro("b", b)));
+
+                ComportamentoUsuarioService comportamentoB = b.getBean(ComportamentoUsuarioService.class);
+                long fim = System.currentTimeMillis() + 10_000;
+                while (comportamentoA.usuarios().size() + comportamentoB.usuarios().size() > 40
+                        || cluster(a).estado().usuariosTransferidos() == 0) {
+                    assertTrue(System.currentTimeMillis() < fim, "rebalanceamento não terminou");
+                    Thread.sleep(20);
+                }
+
+                assertFalse(comportamentoB.usuarios().isEmpty());
+                assertEquals(40, comportamentoA.usuarios().size() + comportamentoB.usuarios().size());
+                for (String u : comportamentoA.usuarios()) {
+                    assertTrue(cluster(a).local(u), u);
+                }
+                for (String u : comportamentoB.usuarios()) {
+                    assertTrue(cluster(b).local(u), u);
+                    assertEquals(3, comportamentoB.consultar(u, LocalDateTime.now()).getQtdUltimas24h(), u);
+                }
+            }
+        }
+    }
+
+    private static HttpResponse<String> postar(ConfigurableApplicationContext ctx, String usuario) throws Exception {
+        try (HttpClient cliente = HttpClient.newHttpClient()) {
+            return cliente.send(HttpRequest.newBuilder(URI.create(url(ctx, "/api/transacoes")))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"usuarioId\":\"" + usuario + "\",\"valor\":150.0,\"tipo\":\"PIX\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private static String usuarioDe(ClusterService cluster, String no) {
+        for (int i = 0; ; i++) {
+            if (cluster.dono("usuario" + i).startsWith(no + "=")) {
+                return "usuario" + i;
+            }
+        }
+    }
+
+    private static Transacao transacao(String usuario, double valor) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(usuario);
+        t.setValor(valor);
+        t.setTipo("BOLETO");
+        return t;
+    }
+
+    private static ClusterService cluster(ConfigurableApplicationContext ctx) {
+        return ctx.getBean(ClusterService.class);
+    }
+
+    private static String membro(String no, ConfigurableApplicationContext ctx) {
+        EstadoCluster estado = cluster(ctx).estado();
+        return no + "=127.0.0.1:" + estado.porta();
+    }
+
+    private static String url(ConfigurableApplicationContext ctx, String caminho) {
+        return "http://127.0.0.1:" + ((WebServerApplicationContext) ctx).getWebServer().getPort() + caminho;
+    }
+
+    private static ConfigurableApplicationContext iniciar(String no) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cluster-" + no,
+                        "--antifraude.cluster.habilitado=true",
+                        "--antifraude.cluster.no=" + no,
+                        "--antifraude.cluster.porta=0",
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--logging.level.root=WARN");
+    }
+}
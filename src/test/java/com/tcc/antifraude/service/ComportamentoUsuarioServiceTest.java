@@ -0,0 +1,92 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.model.CaracteristicasUsuario;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.ComportamentoUsuarioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class ComportamentoUsuarioServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 1, 13, 14, 0);
+
+    private ComportamentoUsuarioService comportamento;
+
+    @BeforeEach
+    void setUp() {
+        comportamento = new ComportamentoUsuarioService(
+                mock(TransacaoRepository.class), new TransactionTemplate(), 1000);
+    }
+
+    @Test
+    @DisplayName("Primeira transação do usuário não tem histórico")
+    void testPrimeiraTransacao() {
+        CaracteristicasUsuario c = comportamento.observar(transacao("ana", 100.0, INICIO));
+
+        assertEquals(0, c.getQtdUltimoMinuto());
+        assertEquals(0, c.getQtdUltimas24h());
+        assertNull(c.getValorHabitual());
+        assertNull(c.getSegundosDesdeUltima());
+    }
+
+    @Test
+    @DisplayName("Conta as transações anteriores dentro de cada janela")
+    void testJanelas() {
+        for (int i = 0; i < 5; i++) {
+            comportamento.observar(transacao("ana", 100.0, INICIO.plusSeconds(i * 10)));
+        }
+        comportamento.observar(transacao("bia", 100.0, INICIO.plusSeconds(41)));
+
+        CaracteristicasUsuario agora = comportamento.observar(transacao("ana", 100.0, INICIO.plusSeconds(45)));
+        assertEquals(5, agora.getQtdUltimoMinuto());
+        assertEquals(5, agora.getQtdUltimaHora());
+        assertEquals(500.0, agora.getValorUltimaHora());
+        assertEquals(100.0, agora.getValorHabitual());
+        assertEquals(5L, agora.getSegundosDesdeUltima());
+
+        CaracteristicasUsuario depois = comportamento.consultar("ana", INICIO.plusMinutes(10));
+        assertEquals(0, depois.getQtdUltimoMinuto());
+        assertEquals(6, depois.getQtdUltimaHora());
+
+        CaracteristicasUsuario amanha = comportamento.consultar("ana", INICIO.plusHours(25));
+        assertEquals(0, amanha.getQtdUltimas24h());
+    }
+
+    @Test
+    @DisplayName("Rajada de PIX no mesmo minuto aumenta o score")
+    void testRajadaNoScore() {
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "comportamento", comportamento);
+
+        Transacao t = null;
+        for (int i = 0; i < 6; i++) {
+            t = transacao("joao", 100.0, INICIO.plusSeconds(i * 5));
+            t.setTipo("PIX");
+            analisador.analisar(t);
+        }
+
+        // 25 (PIX) + 25 (5 anteriores no minuto) + 10 (5s desde a anterior)
+        assertEquals(60.0, t.getScoreRisco());
+        assertEquals(35.0, analisador.explicar(t).componentes().comportamento());
+    }
+
+    private static Transacao transacao(String usuario, double valor, LocalDateTime dataHora) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(usuario);
+        t.setValor(valor);
+        t.setTipo("BOLETO");
+        t.setDataHora(dataHora);
+        return t;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.ResumoAgregado;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.EstatisticasService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EstatisticasServiceTest {
+
+    @Test
+    @DisplayName("Reconstrói os totais a partir do agregado do banco")
+    void testReconstruir() {
+        TransacaoRepository repository = mock(TransacaoRepository.class);
+        when(repository.agregarPorStatusETipo()).thenReturn(List.of(
+                resumo("BLOQUEADA", "PIX", 2, 30000.0, 150.0),
+                resumo("APROVADA", "BOLETO", 3, 300.0, 15.0)
+        ));
+
+        EstatisticasService estatisticas = new EstatisticasService(repository);
+        estatisticas.reconstruir();
+
+        assertEquals(5, estatisticas.total());
+        assertEquals(2, estatisticas.quantidade("BLOQUEADA"));
+        assertEquals(3, estatisticas.quantidade("APROVADA"));
+        assertEquals(30000.0, estatisticas.valor("BLOQUEADA"));
+        assertEquals(30300.0, estatisticas.valorTotal());
+        assertEquals(33.0, estatisticas.scoreMedio());
+    }
+
+    @Test
+    @DisplayName("Cada decisão registrada atualiza os contadores do seu status")
+    void testRegistrar() {
+        TransacaoRepository repository = mock(TransacaoRepository.class);
+        EstatisticasService estatisticas = new EstatisticasService(repository);
+
+        estatisticas.registrar(transacao("BLOQUEADA", "PIX", 20000.0, 75.0));
+        estatisticas.registrar(transacao("REVISAO", "TED", 8000.0, 55.0));
+        estatisticas.registrar(transacao("APROVADA", "BOLETO", 300.0, 5.0));
+
+        assertEquals(3, estatisticas.total());
+        assertEquals(1, estatisticas.quantidade("BLOQUEADA"));
+        assertEquals(1, estatisticas.quantidade("REVISAO"));
+        assertEquals(1, estatisticas.quantidade("APROVADA"));
+        assertEquals(20000.0, estatisticas.valor("BLOQUEADA"));
+        assertEquals(45.0, estatisticas.scoreMedio());
+    }
+
+    private static Transacao transacao(String status, String tipo, double valor, double score) {
+        Transacao t = new Transacao();
+        t.setStatus(status);
+        t.setTipo(tipo);
+        t.setValor(valor);
+        t.setScoreRisco(score);
+        return t;
+    }
+
+    private static ResumoAgregado resumo(String status, String tipo, long qtd, double valor, double somaScore) {
+        return new ResumoAgregado() {
+            public String getStatus() { return status; }
+            public String getTipo() { return tipo; }
+            public long getQuantidade() { return qtd; }
+            public double getValor() { return valor; }
+            public double getSomaScore() { return somaScore; }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.tcc.antifraude.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.service.FlorestaAleatoria;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FlorestaAleatoriaTest {
+
+    private static FlorestaAleatoria floresta;
+
+    // Duas árvores sobre 3 features:
+    //   A: x2 <= 100 ? 0.1 : (x0 <= 0.1 ? 0.6 : 1.0)
+    //   B: folha única 0.2
+    @BeforeAll
+    static void montarFloresta() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write("RFB1".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(1);
+        out.writeInt(3);
+        out.writeInt(2);
+        out.writeShort(4);
+        out.write("test".getBytes(StandardCharsets.UTF_8));
+
+        escreverArvore(out,
+                new int[]{2, -1, 0, -1, -1},
+                new double[]{100.0, -2, 0.1, -2, -2},
+                new int[]{1, -1, 3, -1, -1},
+                new int[]{2, -1, 4, -1, -1},
+                new double[]{0.5, 0.1, 0.8, 0.6, 1.0});
+        escreverArvore(out,
+                new int[]{-1}, new double[]{-2}, new int[]{-1}, new int[]{-1}, new double[]{0.2});
+
+        floresta = FlorestaAleatoria.carregar(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Média das probabilidades das folhas de cada árvore")
+    void testProbabilidade() {
+        assertEquals("test", floresta.versao());
+        assertEquals(0.15, floresta.probabilidade(new double[]{0, 0, 50}), 1e-12);
+        assertEquals(0.4, floresta.probabilidade(new double[]{0, 0, 150}), 1e-12);
+        assertEquals(0.6, floresta.probabilidade(new double[]{1, 0, 150}), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Atalho de uma feature só dá o mesmo resultado do vetor completo")
+    void testSoUmaFeature() {
+        assertEquals(floresta.probabilidade(new double[]{0, 0, 150}),
+                floresta.probabilidadeSoUmaFeature(2, 150), 0);
+        assertEquals(floresta.probabilidade(new double[]{0, 0, 100}),
+                floresta.probabilidadeSoUmaFeature(2, 100), 0);
+    }
+
+    @Test
+    @DisplayName("Compara em float32 como o scikit-learn")
+    void testComparacaoFloat32() {
+        // (float) 0.1 é um pouco maior que o double 0.1, então vai para a direita
+        assertEquals(0.6, floresta.probabilidade(new double[]{0.1, 0, 150}), 1e-12);
+    }
+
+    @Test
+    @DisplayName("PARIDADE: mesmas probabilidades do modelo Python (requer export_model.py)")
+    void testParidadeComPython() throws IOException {
+        Path modelo = Path.of("src/ml-service/fraud_model.rfb");
+        Path paridade = Path.of("src/ml-service/paridade.json");
+        assumeTrue(Files.exists(modelo) && Files.exists(paridade),
+                "rode src/ml-service/export_model.py para gerar o modelo exportado");
+
+        FlorestaAleatoria exportada;
+        try (InputStream in = Files.newInputStream(modelo)) {
+            exportada = FlorestaAleatoria.carregar(in);
+        }
+        JsonNode json = new ObjectMapper().readTree(paridade.toFile());
+        JsonNode entradas = json.get("entradas");
+        JsonNode esperadas = json.get("probabilidades");
+
+        for (int i = 0; i < entradas.size(); i++) {
+            double[] x = new double[entradas.get(i).size()];
+            for (int j = 0; j < x.length; j++) {
+                x[j] = entradas.get(i).get(j).doubleValue();
+            }
+            assertEquals(esperadas.get(i).doubleValue(), exportada.probabilidade(x), 1e-9, "entrada " + i);
+        }
+    }
+
+    private static void escreverArvore(DataOutputStream out, int[] feature, double[] limiar,
+                                       int[] esquerda, int[] direita, double[] prob) throws IOException {
+        out.writeInt(feature.length);
+        for (int f : feature) out.writeInt(f);
+        for (double l : limiar) out.writeDouble(l);
+        for (int e : esquerda) out.writeInt(e);
+        for (int d : direita) out.writeInt(d);
+        for (double p : prob) out.writeDouble(p);
+    }
+}
@@ -0,0 +1,195 @@
+package com.tcc.antifraude.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga em malha aberta para a API: as requisições saem no horário
+// planejado (taxa fixa), tenham ou não voltado as anteriores. A latência é
+// contada desse horário e não do envio, então atraso do próprio gerador ou fila
+// no servidor entram na conta (sem "coordinated omission").
+// Histogramas HDR por operação, de 1 µs a 60 s com 3 dígitos significativos.
+public class GeradorCarga implements AutoCloseable {
+
+    public enum Operacao { CRIAR, ESTATISTICAS, EXPLICACAO }
+
+    // Pesos de cada operação no sorteio
+    public record Mistura(int criar, int estatisticas, int explicacao) {}
+
+    public record Resultado(Map<Operacao, Histogram> latencias, Map<Operacao, Long> erros,
+                            long enviadas, double taxaReal, long maiorAtrasoEnvioUs, String primeiroErro) {}
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String[] TIPOS = {"PIX", "CARTAO", "BOLETO", "TED", "DOC"};
+    private static final long MAXIMO_NS = TimeUnit.SECONDS.toNanos(60);
+    private static final int IDS_RECENTES = 4096;
+    private static final String[] CAMPOS_ENTRADA = {"usuarioId", "valor", "tipo"};
+
+    private final HttpClient http;
+    private final URI criar;
+    private final URI estatisticas;
+    private final String base;
+    private final List<String> corpos;
+
+    // Ids devolvidos pelos POSTs, para as consultas de explicação
+    private final AtomicLongArray ids = new AtomicLongArray(IDS_RECENTES);
+    private final AtomicLong criadas = new AtomicLong();
+
+    public GeradorCarga(String base, List<String> corpos) {
+        this.base = base;
+        this.criar = URI.create(base + "/api/transacoes");
+        this.estatisticas = URI.create(base + "/api/transacoes/estatisticas");
+        this.corpos = corpos;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    // Mistura sintética: 70% de valores baixos, o resto espalhado até 25 mil,
+    // tipos e usuários sorteados
+    public static List<String> sintetica(int quantidade, long semente) {
+        SplittableRandom r = new SplittableRandom(semente);
+        List<String> corpos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            double valor = r.nextInt(100) < 70 ? 10 + r.nextDouble() * 490 : 500 + r.nextDouble() * 24_500;
+            corpos.add(String.format(Locale.ROOT, "{\"usuarioId\":\"carga%d\",\"valor\":%.2f,\"tipo\":\"%s\"}",
+                    r.nextInt(2_000), valor, TIPOS[r.nextInt(TIPOS.length)]));
+        }
+        return corpos;
+    }
+
+    // Mistura gravada: NDJSON com uma transação por linha (o formato do
+    // /api/transacoes/exportar e do /lote), reenviada na ordem do arquivo.
+    // Só os campos de entrada seguem: id, status e score vêm da decisão original.
+    public static List<String> gravada(Path arquivo) throws IOException {
+        List<String> corpos = new ArrayList<>();
+        for (String linha : Files.readAllLines(arquivo)) {
+            if (linha.isBlank()) continue;
+            JsonNode t = JSON.readTree(linha);
+            ObjectNode entrada = JSON.createObjectNode();
+            for (String campo : CAMPOS_ENTRADA) {
+                if (t.hasNonNull(campo)) entrada.set(campo, t.get(campo));
+            }
+            corpos.add(JSON.writeValueAsString(entrada));
+        }
+        return corpos;
+    }
+
+    // Dispara a taxa por segundo durante a duração e espera as respostas
+    public Resultado executar(double taxa, Duration duracao, Mistura mistura, long semente) {
+        Map<Operacao, Histogram> latencias = new EnumMap<>(Operacao.class);
+        Map<Operacao, LongAdder> erros = new EnumMap<>(Operacao.class);
+        for (Operacao op : Operacao.values()) {
+            latencias.put(op, new ConcurrentHistogram(MAXIMO_NS, 3));
+            erros.put(op, new LongAdder());
+        }
+        AtomicReference<String> primeiroErro = new AtomicReference<>();
+        SplittableRandom r = new SplittableRandom(semente);
+        int pesoTotal = mistura.criar() + mistura.estatisticas() + mistura.explicacao();
+        long intervalo = (long) (1e9 / taxa);
+        long total = (long) (duracao.toNanos() / (double) intervalo);
+        long maiorAtraso = 0;
+
+        List<CompletableFuture<?>> pendentes = new ArrayList<>((int) total);
+        long inicio = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long planejado = inicio + i * intervalo;
+            long espera;
+            while ((espera = planejado - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            maiorAtraso = Math.max(maiorAtraso, -espera);
+
+            Operacao sorteada = sortear(r.nextInt(pesoTotal), mistura);
+            long id = sorteada == Operacao.EXPLICACAO ? idRecente(r) : 0;
+            // explicação antes do primeiro POST voltar: vira consulta de estatísticas
+            Operacao op = sorteada == Operacao.EXPLICACAO && id == 0 ? Operacao.ESTATISTICAS : sorteada;
+            HttpRequest request = requisicao(op, i, id);
+            pendentes.add(http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((resposta, erro) -> {
+                        latencias.get(op).recordValue(Math.min(System.nanoTime() - planejado, MAXIMO_NS));
+                        if (erro != null || resposta.statusCode() != 200) {
+                            erros.get(op).increment();
+                            primeiroErro.compareAndSet(null, op + ": " + (erro != null ? erro
+                                    : resposta.statusCode() + " " + resposta.body()));
+                        } else if (op == Operacao.CRIAR) {
+                            guardarId(resposta.body());
+                        }
+                    }));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        CompletableFuture.allOf(pendentes.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+
+        Map<Operacao, Long> totalErros = new EnumMap<>(Operacao.class);
+        erros.forEach((op, n) -> totalErros.put(op, n.sum()));
+        return new Resultado(latencias, totalErros, total, total / segundos, maiorAtraso / 1_000,
+                primeiroErro.get());
+    }
+
+    private static Operacao sortear(int sorteio, Mistura mistura) {
+        if (sorteio < mistura.criar()) return Operacao.CRIAR;
+        if (sorteio < mistura.criar() + mistura.estatisticas()) return Operacao.ESTATISTICAS;
+        return Operacao.EXPLICACAO;
+    }
+
+    // Um dos últimos ids criados; 0 se ainda não voltou nenhum
+    private long idRecente(SplittableRandom r) {
+        long n = criadas.get();
+        return n == 0 ? 0 : ids.get((int) r.nextLong(Math.min(n, IDS_RECENTES)));
+    }
+
+    private HttpRequest requisicao(Operacao op, long i, long id) {
+        return switch (op) {
+            case CRIAR -> HttpRequest.newBuilder(criar)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpos.get((int) (i % corpos.size()))))
+                    .build();
+            case ESTATISTICAS -> HttpRequest.newBuilder(estatisticas).timeout(Duration.ofSeconds(60)).GET().build();
+            case EXPLICACAO -> HttpRequest.newBuilder(URI.create(base + "/api/transacoes/" + id + "/explicacao"))
+                    .timeout(Duration.ofSeconds(60)).GET().build();
+        };
+    }
+
+    private void guardarId(String corpo) {
+        try {
+            JsonNode id = JSON.readTree(corpo).get("id");
+            if (id != null && id.canConvertToLong()) {
+                ids.set((int) (criadas.getAndIncrement() % IDS_RECENTES), id.asLong());
+            }
+        } catch (IOException e) {
+            // resposta sem JSON: fica sem id para a explicação
+        }
+    }
+
+    @Override
+    public void close() {
+        http.close();
+    }
+}
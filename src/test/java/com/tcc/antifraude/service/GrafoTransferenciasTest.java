@@ -0,0 +1,174 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.config.GrafoProperties;
+import com.tcc.antifraude_seguro.dto.AnaliseAneis;
+import com.tcc.antifraude_seguro.dto.AnelSuspeito;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.model.VizinhancaRede;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.repository.TransferenciaUsuario;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.GrafoTransferencias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GrafoTransferenciasTest {
+
+    // 2026-01-06 (terça) 12:00 UTC
+    private static final long INICIO_MS = 1_767_700_800_000L;
+
+    private final AtomicLong relogio = new AtomicLong(INICIO_MS);
+    private final GrafoTransferencias grafo = new GrafoTransferencias(
+            new GrafoProperties(Duration.ofHours(24), 10_000, 100, 2000, Duration.ZERO, 4, 3, 50),
+            relogio::get);
+
+    @AfterEach
+    void encerrar() {
+        ReflectionTestUtils.invokeMethod(grafo, "encerrar");
+    }
+
+    @Test
+    @DisplayName("Vizinhança conta leques e remetentes compartilhados dentro da janela")
+    void testVizinhanca() {
+        // 9 contas pagam a mesma mula; uma delas também paga outra conta
+        for (int i = 1; i <= 9; i++) {
+            grafo.observar(transferencia("pagador" + i, "mula"));
+        }
+        grafo.observar(transferencia("pagador1", "loja"));
+
+        VizinhancaRede v = grafo.observar(transferencia("pagador1", "mula"));
+        assertEquals(2, v.lequeSaidaRemetente());       // mula e loja
+        assertEquals(9, v.lequeEntradaBeneficiario());  // inclui o próprio pagador1
+        assertEquals(8, v.remetentesCompartilhados());  // os outros pagadores da mula
+        assertFalse(v.anelSuspeito());
+
+        // Depois da janela nada sobra, e a compactação libera as contas
+        avancar(Duration.ofHours(25));
+        assertEquals(VizinhancaRede.VAZIA, grafo.observar(transferencia("pagador2", "mula")));
+        avancar(Duration.ofHours(25));
+        grafo.detectarAneis();
+        assertEquals(0, grafo.contas());
+    }
+
+    @Test
+    @DisplayName("Componentes pequenos e com ciclo são marcados como anel")
+    void testAneis() {
+        // 60 anéis de 5 contas (a0 -> a1 -> ... -> a4 -> a0)
+        for (int a = 0; a < 60; a++) {
+            for (int i = 0; i < 5; i++) {
+                grafo.observar(transferencia("anel" + a + "-" + i, "anel" + a + "-" + (i + 1) % 5));
+            }
+        }
+        // Estrela sem ciclo: 20 clientes pagando a mesma loja
+        for (int i = 0; i < 20; i++) {
+            grafo.observar(transferencia("cliente" + i, "loja"));
+        }
+        // Ciclo grande demais para ser anel (60 contas)
+        for (int i = 0; i < 60; i++) {
+            grafo.observar(transferencia("conta" + i, "conta" + (i + 1) % 60));
+        }
+
+        AnaliseAneis analise = grafo.detectarAneis();
+        assertEquals(300 + 21 + 60, analise.contas());
+        assertEquals(300 + 20 + 60, analise.ligacoes());
+        assertEquals(62, analise.componentes());
+        assertEquals(60, analise.aneis().size());
+        for (AnelSuspeito anel : analise.aneis()) {
+            assertEquals(5, anel.contas());
+            assertEquals(5, anel.ligacoes());
+            Set<String> prefixos = anel.membros().stream()
+                    .map(m -> m.substring(0, m.indexOf('-'))).collect(Collectors.toSet());
+            assertEquals(1, prefixos.size(), anel.membros().toString());
+        }
+
+        assertTrue(grafo.observar(transferencia("fora", "anel7-3")).anelSuspeito());
+        assertFalse(grafo.observar(transferencia("cliente3", "loja")).anelSuspeito());
+    }
+
+    @Test
+    @DisplayName("Pontos de rede entram no score e na explicação")
+    void testPontosNoScore() {
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "grafo", grafo);
+        for (int i = 0; i < 8; i++) {
+            grafo.observar(transferencia("origem" + i, "mula"));
+        }
+
+        // 100 em BOLETO numa terça ao meio-dia: só os pontos de tipo (5)
+        Transacao t = transferencia("origem9", "mula");
+        t.setValor(100.0);
+        t.setTipo("BOLETO");
+        analisador.analisar(t);
+
+        // leque de entrada 8 (15) + 8 remetentes compartilhados (10) pelo regras.json
+        assertEquals(25.0, analisador.explicar(t).componentes().rede());
+        assertEquals(30.0, t.getScoreRisco());
+    }
+
+    @Test
+    @DisplayName("Falha do banco na reconstrução não impede a subida e o grafo começa vazio")
+    void testReconstrucaoComFalha() {
+        TransferenciaUsuario lida = mock(TransferenciaUsuario.class);
+        when(lida.getUsuarioId()).thenReturn("pagador");
+        when(lida.getBeneficiarioId()).thenReturn("mula");
+        when(lida.getDataHora()).thenReturn(LocalDateTime.now());
+        TransacaoRepository repository = mock(TransacaoRepository.class);
+        // A primeira linha entra no grafo e o cursor cai no meio da leitura
+        when(repository.streamTransferenciasDesde(any())).thenReturn(Stream.of(lida, lida).map(new Function<>() {
+            private int lidas;
+
+            @Override
+            public TransferenciaUsuario apply(TransferenciaUsuario t) {
+                if (lidas++ > 0) throw new DataAccessResourceFailureException("conexão perdida");
+                return t;
+            }
+        }));
+        TransactionTemplate transacao = mock(TransactionTemplate.class);
+        when(transacao.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        GrafoTransferencias reconstruido = new GrafoTransferencias(
+                new GrafoProperties(Duration.ofHours(24), 10_000, 100, 2000, Duration.ZERO, 4, 3, 50),
+                repository, transacao);
+        ReflectionTestUtils.invokeMethod(reconstruido, "iniciar");
+
+        assertEquals(0, reconstruido.contas());
+        // Segue funcionando: a "mula" lida antes da falha não ficou no grafo
+        reconstruido.observar(transferencia("pagador", "loja"));
+        assertEquals(1, reconstruido.observar(transferencia("pagador", "loja")).lequeSaidaRemetente());
+        ReflectionTestUtils.invokeMethod(reconstruido, "encerrar");
+    }
+
+    private void avancar(Duration d) {
+        relogio.addAndGet(d.toMillis());
+    }
+
+    private Transacao transferencia(String remetente, String beneficiario) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(remetente);
+        t.setBeneficiarioId(beneficiario);
+        t.setValor(50.0);
+        t.setTipo("PIX");
+        t.setDataHora(LocalDateTime.ofInstant(Instant.ofEpochMilli(relogio.get()), ZoneId.systemDefault()));
+        return t;
+    }
+}
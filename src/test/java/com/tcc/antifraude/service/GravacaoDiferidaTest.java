@@ -0,0 +1,142 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.GravacaoDiferida;
+import com.tcc.antifraude_seguro.service.GravadorTransacoes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sobe a aplicação sem web, com H2 em arquivo para o banco sobreviver entre contextos
+class GravacaoDiferidaTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Encerramento esvazia a fila: tudo que foi aceito chega ao banco")
+    void testDrenaNoEncerramento() {
+        Set<Long> ids = new HashSet<>();
+        try (ConfigurableApplicationContext ctx = iniciar("diferida", 10_000)) {
+            GravadorTransacoes gravador = ctx.getBean(GravadorTransacoes.class);
+            for (int i = 0; i < 2_000; i++) {
+                ids.add(gravador.gravar(transacao(i)).getId());
+            }
+        }
+        assertEquals(2_000, ids.size()); // ids únicos já na resposta
+
+        try (ConfigurableApplicationContext ctx = iniciar("sincrona", 10_000)) {
+            assertEquals(2_000, ctx.getBean(TransacaoRepository.class).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Transações aceitas e não gravadas voltam do diário na próxima subida")
+    void testRecuperaDoDiario() {
+        try (ConfigurableApplicationContext ctx = iniciar("diferida", 10_000)) {
+            pararGravador(ctx); // simula a queda: nada sai da fila
+            GravadorTransacoes gravador = ctx.getBean(GravadorTransacoes.class);
+            for (int i = 0; i < 300; i++) {
+                gravador.gravar(transacao(i));
+            }
+            assertEquals(300, ((GravacaoDiferida) gravador).pendentes());
+        }
+
+        try (ConfigurableApplicationContext ctx = iniciar("diferida", 10_000)) {
+            assertEquals(300, ctx.getBean(TransacaoRepository.class).count());
+            // a sequence andou para depois dos ids recuperados
+            Transacao nova = ctx.getBean(GravadorTransacoes.class).gravar(transacao(0));
+            assertTrue(nova.getId() > 300);
+        }
+    }
+
+    @Test
+    @DisplayName("Fila cheia recusa com SobrecargaException (503)")
+    void testBackpressure() {
+        try (ConfigurableApplicationContext ctx = iniciar("diferida", 10)) {
+            pararGravador(ctx);
+            GravadorTransacoes gravador = ctx.getBean(GravadorTransacoes.class);
+            for (int i = 0; i < 10; i++) {
+                gravador.gravar(transacao(i));
+            }
+            assertThrows(SobrecargaException.class, () -> gravador.gravar(transacao(10)));
+        }
+    }
+
+    @Test
+    @DisplayName("Chave de idempotência já usada por outra transação vai para rejeitadas, não some")
+    void testChaveDeOutraTransacao() throws Exception {
+        Transacao repetida;
+        try (ConfigurableApplicationContext ctx = iniciar("diferida", 10_000)) {
+            GravadorTransacoes gravador = ctx.getBean(GravadorTransacoes.class);
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+            Transacao primeira = transacao(0);
+            primeira.setChaveIdempotencia("k1");
+            gravador.gravar(primeira);
+            while (repository.count() < 1) {
+                Thread.sleep(10);
+            }
+            repetida = transacao(1);
+            repetida.setChaveIdempotencia("k1");
+            gravador.gravar(repetida);
+            gravador.gravar(transacao(2));
+        }
+
+        try (ConfigurableApplicationContext ctx = iniciar("sincrona", 10_000)) {
+            assertEquals(2, ctx.getBean(TransacaoRepository.class).count());
+        }
+        String rejeitadas = Files.readString(dir.resolve("diario").resolve("rejeitadas.ndjson"));
+        assertTrue(rejeitadas.contains("\"id\":" + repetida.getId()));
+    }
+
+    private ConfigurableApplicationContext iniciar(String modo, int capacidade) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + dir.resolve("banco"),
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--antifraude.gravacao.modo=" + modo,
+                        "--antifraude.gravacao.capacidade-fila=" + capacidade,
+                        "--antifraude.gravacao.diretorio-diario=" + dir.resolve("diario"));
+    }
+
+    private static void pararGravador(ConfigurableApplicationContext ctx) {
+        Thread gravador = (Thread) ReflectionTestUtils.getField(ctx.getBean(GravacaoDiferida.class), "gravador");
+        gravador.interrupt();
+        try {
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Transacao transacao(int i) {
+        Transacao t = new Transacao();
+        t.setUsuarioId("user" + (i % 50));
+        t.setValor(100.0 + i);
+        t.setTipo("PIX");
+        t.setDataHora(LocalDateTime.of(2026, 1, 13, 14, 0).plusSeconds(i));
+        t.setStatus(AnalisadorRiscoService.APROVADA);
+        t.setScoreRisco(25.0);
+        return t;
+    }
+}
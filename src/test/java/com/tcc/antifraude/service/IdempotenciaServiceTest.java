@@ -0,0 +1,178 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.config.IdempotenciaProperties;
+import com.tcc.antifraude_seguro.exception.SobrecargaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.IdempotenciaService;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotenciaServiceTest {
+
+    private TransacaoRepository repository;
+    private SimpleMeterRegistry registry;
+    private AtomicInteger processadas;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TransacaoRepository.class);
+        when(repository.findByChaveIdempotencia(anyString())).thenReturn(Optional.empty());
+        registry = new SimpleMeterRegistry();
+        processadas = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Reenvio durante a primeira tentativa espera por ela e recebe a mesma decisão")
+    void testReenvioEmAndamento() {
+        IdempotenciaService servico = servico(20_000, Duration.ofMinutes(10));
+        CompletableFuture<Transacao> analise = new CompletableFuture<>();
+
+        CompletableFuture<Transacao> primeira = servico.executar(transacao("k1"), () -> {
+            processadas.incrementAndGet();
+            return analise;
+        });
+        CompletableFuture<Transacao> reenvio = servico.executar(transacao("k1"), this::processar);
+        assertFalse(reenvio.isDone());
+
+        Transacao decidida = transacao("k1");
+        decidida.setId(7L);
+        decidida.setStatus("BLOQUEADA");
+        analise.complete(decidida);
+
+        assertSame(decidida, primeira.join());
+        assertSame(decidida, reenvio.join());
+        assertEquals(1, processadas.get());
+        assertEquals(1, contador(MetricasDecisao.REENVIO_RECENTE));
+    }
+
+    @Test
+    @DisplayName("Fora do mapa de recentes, o filtro de Bloom manda conferir no banco e devolve o gravado")
+    void testReenvioPeloBanco() {
+        // mapa de recentes que expira na hora: só sobra o filtro
+        IdempotenciaService servico = servico(20_000, Duration.ofNanos(1));
+        Transacao gravada = transacao("k2");
+        gravada.setId(42L);
+        when(repository.findByChaveIdempotencia("k2")).thenReturn(Optional.of(gravada));
+
+        servico.executar(transacao("k2"), this::processar).join();
+        Transacao reenvio = servico.executar(transacao("k2"), this::processar).join();
+
+        assertEquals(42L, reenvio.getId());
+        assertEquals(1, processadas.get());
+        assertEquals(1, contador(MetricasDecisao.REENVIO_BANCO));
+    }
+
+    @Test
+    @DisplayName("Falha na primeira tentativa não prende a chave: o reenvio é processado")
+    void testFalhaLiberaChave() {
+        IdempotenciaService servico = servico(20_000, Duration.ofMinutes(10));
+
+        assertThrows(SobrecargaException.class, () -> servico.executar(transacao("k3"), () -> {
+            throw new SobrecargaException("Fila de gravação cheia, tente novamente");
+        }));
+        servico.executar(transacao("k3"), this::processar).join();
+
+        assertEquals(1, processadas.get());
+    }
+
+    @Test
+    @DisplayName("Banco fora do ar na conferência da chave não deixa o reenvio pendurado")
+    void testFalhaNaConferencia() {
+        IdempotenciaService servico = servico(20_000, Duration.ofMinutes(10));
+        servico.executar(transacao("k4"), this::processar).join();
+        // Simula a saída de "recentes": só o filtro de Bloom lembra da chave
+        ((Map<?, ?>) ReflectionTestUtils.getField(servico, "recentes")).clear();
+
+        when(repository.findByChaveIdempotencia("k4")).thenThrow(new DataAccessResourceFailureException("banco fora do ar"));
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> servico.executar(transacao("k4"), this::processar));
+
+        Transacao gravada = transacao("k4");
+        gravada.setId(9L);
+        doReturn(Optional.of(gravada)).when(repository).findByChaveIdempotencia("k4");
+        CompletableFuture<Transacao> reenvio = servico.executar(transacao("k4"), this::processar);
+        assertTrue(reenvio.isDone());
+        assertEquals(9L, reenvio.join().getId());
+        assertEquals(1, processadas.get());
+    }
+
+    @Test
+    @DisplayName("Restrição única com o banco fora do ar na busca termina com o erro original e libera a chave")
+    void testFalhaNaBuscaDepoisDaRestricao() {
+        IdempotenciaService servico = servico(20_000, Duration.ofMinutes(10));
+        when(repository.findByChaveIdempotencia("k5")).thenThrow(new DataAccessResourceFailureException("banco fora do ar"));
+        DataIntegrityViolationException restricao = new DataIntegrityViolationException("uk_transacoes_chave_idempotencia");
+
+        CompletableFuture<Transacao> primeira = servico.executar(transacao("k5"),
+                () -> CompletableFuture.failedFuture(restricao));
+        assertTrue(primeira.isCompletedExceptionally());
+        CompletionException erro = assertThrows(CompletionException.class, primeira::join);
+        assertSame(restricao, erro.getCause());
+
+        servico.executar(transacao("k5"), this::processar).join();
+        assertEquals(1, processadas.get());
+    }
+
+    @Test
+    @DisplayName("Chaves novas quase nunca vão ao banco (falsos positivos perto da taxa configurada)")
+    void testTaxaFalsoPositivo() {
+        int chaves = 20_000;
+        // as novas também entram no filtro: capacidade para as duas levas
+        IdempotenciaService servico = servico(2 * chaves, Duration.ofNanos(1));
+        for (int i = 0; i < chaves; i++) {
+            servico.executar(transacao("antiga-" + i), this::processar).join();
+        }
+        for (int i = 0; i < chaves; i++) {
+            servico.executar(transacao("nova-" + i), this::processar).join();
+        }
+
+        double taxa = contador(MetricasDecisao.FALSO_POSITIVO) / chaves;
+        assertTrue(taxa < 0.02, "falsos positivos: " + taxa);
+        assertEquals(2 * chaves, processadas.get());
+    }
+
+    private IdempotenciaService servico(int chavesPorParticao, Duration validadeRecentes) {
+        IdempotenciaProperties props = new IdempotenciaProperties(
+                Duration.ofHours(24), 4, chavesPorParticao, 0.01, 50_000, validadeRecentes);
+        return new IdempotenciaService(repository, new TransactionTemplate(), new MetricasDecisao(registry), props);
+    }
+
+    private CompletableFuture<Transacao> processar() {
+        processadas.incrementAndGet();
+        return CompletableFuture.completedFuture(new Transacao());
+    }
+
+    private double contador(String resultado) {
+        return registry.get("antifraude.idempotencia").tag("resultado", resultado).counter().count();
+    }
+
+    private static Transacao transacao(String chave) {
+        Transacao t = new Transacao();
+        t.setUsuarioId("ana");
+        t.setValor(100.0);
+        t.setTipo("PIX");
+        t.setChaveIdempotencia(chave);
+        return t;
+    }
+}
@@ -0,0 +1,236 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.GrafoTransferencias;
+import com.tcc.antifraude_seguro.service.IngestaoLogService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Aplicação sem web, H2 em arquivo e o log num diretório temporário
+class IngestaoLogTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.now().minusHours(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Eventos de cada usuário são analisados na ordem do log, com partições em paralelo")
+    void testOrdemPorUsuario() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar()) {
+            IngestaoLogService ingestao = ctx.getBean(IngestaoLogService.class);
+            for (int i = 0; i < 2_000; i++) {
+                ingestao.publicar(evento("user" + (i % 20), i));
+            }
+            ingestao.forcar();
+            aguardarProcessamento(ingestao);
+
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+            assertEquals(2_000, repository.count());
+            // A janela de 24h de cada usuário cresce um a um, na ordem publicada
+            List<Transacao> doUsuario = repository.findAll().stream()
+                    .filter(t -> t.getUsuarioId().equals("user7"))
+                    .sorted(Comparator.comparing(Transacao::getDataHora))
+                    .toList();
+            assertEquals(100, doUsuario.size());
+            for (int i = 0; i < doUsuario.size(); i++) {
+                assertEquals(i, doUsuario.get(i).getCaracteristicas().getQtdUltimas24h());
+            }
+            assertEquals(4, ingestao.estado().size());
+            ingestao.estado().forEach(p -> assertTrue(p.fimSaida() > 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Sem checkpoint, o lote relido na subida não grava nada de novo")
+    void testRetomadaSemDuplicar() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar()) {
+            IngestaoLogService ingestao = ctx.getBean(IngestaoLogService.class);
+            for (int i = 0; i < 300; i++) {
+                ingestao.publicar(evento("user" + (i % 7), i));
+            }
+            ingestao.forcar();
+            aguardarProcessamento(ingestao);
+        }
+        // simula uma queda entre o commit e o checkpoint
+        try (Stream<Path> arquivos = Files.walk(dir.resolve("ingestao"))) {
+            for (Path p : arquivos.filter(p -> p.toString().endsWith(".checkpoint")).toList()) {
+                Files.delete(p);
+            }
+        }
+
+        try (ConfigurableApplicationContext ctx = iniciar()) {
+            aguardarProcessamento(ctx.getBean(IngestaoLogService.class));
+            assertEquals(300, ctx.getBean(TransacaoRepository.class).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Falha no meio do lote não derruba a partição: ela espera e relê do checkpoint")
+    void testFalhaNoLote() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar()) {
+            IngestaoLogService ingestao = ctx.getBean(IngestaoLogService.class);
+            AnalisadorRiscoService original = ctx.getBean(AnalisadorRiscoService.class);
+            AtomicInteger falhas = new AtomicInteger(3);
+            AnalisadorRiscoService instavel = new AnalisadorRiscoService() {
+                @Override
+                public boolean aplicarRegras(Transacao t) {
+                    if (falhas.getAndDecrement() > 0) {
+                        throw new IllegalStateException("regras indisponíveis");
+                    }
+                    return original.aplicarRegras(t);
+                }
+
+                @Override
+                public void decidirZonaCinzenta(List<Transacao> cinzentas) {
+                    original.decidirZonaCinzenta(cinzentas);
+                }
+            };
+            ReflectionTestUtils.setField(ingestao, "analisador", instavel);
+
+            for (int i = 0; i < 300; i++) {
+                ingestao.publicar(evento("user" + (i % 7), i));
+            }
+            ingestao.forcar();
+            aguardarProcessamento(ingestao);
+
+            assertTrue(falhas.get() < 0);
+            assertEquals(300, ctx.getBean(TransacaoRepository.class).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Lote relido depois de falha no nextval não conta os eventos de novo nas janelas nem no grafo")
+    void testFalhaNoNextval() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar()) {
+            IngestaoLogService ingestao = ctx.getBean(IngestaoLogService.class);
+            // O próximo nextval falha uma vez (o bloco atual é dado como esgotado)
+            Object ids = ReflectionTestUtils.getField(ingestao, "ids");
+            LongSupplier sequencia = (LongSupplier) ReflectionTestUtils.getField(ids, "proximoValor");
+            AtomicBoolean falhou = new AtomicBoolean();
+            ReflectionTestUtils.setField(ids, "proximoValor", (LongSupplier) () -> {
+                if (falhou.compareAndSet(false, true)) {
+                    throw new DataAccessResourceFailureException("sequence indisponível");
+                }
+                return sequencia.getAsLong();
+            });
+            ReflectionTestUtils.setField(ids, "limite", 0L);
+
+            for (int i = 0; i < 5; i++) {
+                Transacao t = evento("pagador", i);
+                t.setBeneficiarioId("recebedor" + i);
+                ingestao.publicar(t);
+            }
+            ingestao.forcar();
+            aguardarProcessamento(ingestao);
+
+            assertTrue(falhou.get());
+            List<Transacao> gravadas = ctx.getBean(TransacaoRepository.class).findAll().stream()
+                    .sorted(Comparator.comparing(Transacao::getDataHora))
+                    .toList();
+            assertEquals(5, gravadas.size());
+            for (int i = 0; i < gravadas.size(); i++) {
+                assertEquals(i, gravadas.get(i).getCaracteristicas().getQtdUltimoMinuto());
+            }
+            Transacao outra = evento("pagador", 10);
+            outra.setBeneficiarioId("recebedor0");
+            assertEquals(5, ctx.getBean(GrafoTransferencias.class).observar(outra).lequeSaidaRemetente());
+        }
+    }
+
+    @Test
+    @DisplayName("O log de saída guarda só os últimos bytes configurados por partição")
+    void testRetencaoSaida() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar("--antifraude.ingestao.tamanho-segmento=4KB",
+                "--antifraude.ingestao.retencao-saida=8KB")) {
+            IngestaoLogService ingestao = ctx.getBean(IngestaoLogService.class);
+            for (int i = 0; i < 2_000; i++) {
+                ingestao.publicar(evento("user" + (i % 20), i));
+            }
+            ingestao.forcar();
+            aguardarProcessamento(ingestao);
+
+            for (IngestaoLogService.EstadoParticao p : ingestao.estado()) {
+                Path saida = dir.resolve("ingestao").resolve("saida").resolve(String.valueOf(p.particao()));
+                long bytes;
+                try (Stream<Path> segmentos = Files.list(saida)) {
+                    bytes = segmentos.filter(s -> s.toString().endsWith(".log")).mapToLong(s -> s.toFile().length()).sum();
+                }
+                // retenção + o segmento corrente
+                assertTrue(p.fimSaida() > 100 * 1024, "partição com pouca saída: " + p);
+                assertTrue(bytes < 40 * 1024, "saída da partição " + p.particao() + " com " + bytes + " bytes");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Ingestão por log não sobe junto com o modo cluster")
+    void testRecusaModoCluster() {
+        Exception erro = assertThrows(Exception.class, () -> iniciar("--antifraude.cluster.habilitado=true",
+                "--antifraude.cluster.no=a", "--antifraude.cluster.porta=0").close());
+        Throwable causa = erro;
+        while (causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        assertTrue(causa.getMessage().contains("antifraude.cluster.habilitado"), causa.getMessage());
+    }
+
+    private ConfigurableApplicationContext iniciar(String... extras) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + dir.resolve("banco"),
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--antifraude.ml.cache.habilitado=false",
+                "--antifraude.ml.orcamento=1ms",
+                "--antifraude.ingestao.habilitada=true",
+                "--antifraude.ingestao.particoes=4",
+                "--antifraude.ingestao.lote-maximo=1000",
+                "--antifraude.ingestao.diretorio=" + dir.resolve("ingestao")));
+        argumentos.addAll(List.of(extras));
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(argumentos.toArray(String[]::new));
+    }
+
+    private static void aguardarProcessamento(IngestaoLogService ingestao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        while (ingestao.estado().stream().anyMatch(p -> p.processado() < p.fimEntrada())) {
+            assertTrue(System.currentTimeMillis() < limite, "ingestão não terminou: " + ingestao.estado());
+            Thread.sleep(20);
+        }
+    }
+
+    private static Transacao evento(String usuario, int i) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(usuario);
+        t.setValor(100.0 + i);
+        t.setTipo("PIX");
+        t.setDataHora(INICIO.plusNanos(i * 1_000_000L));
+        return t;
+    }
+}
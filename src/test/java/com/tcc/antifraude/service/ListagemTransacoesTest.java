@@ -0,0 +1,176 @@
+package com.tcc.antifraude.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// GET /api/transacoes (cursor) e GET /api/transacoes/exportar (NDJSON) sobre
+// um conjunto conhecido, gravado direto no repositório
+class ListagemTransacoesTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 5, 1, 0, 0);
+    private static final String[] STATUS = {"APROVADA", "REVISAO", "BLOQUEADA"};
+    private static final String[] TIPOS = {"PIX", "TED", "DOC", "BOLETO", "CARTAO"};
+
+    private static ConfigurableApplicationContext ctx;
+    private static HttpClient http;
+    private static ObjectMapper mapper;
+    private static List<Transacao> gravadas;
+
+    @BeforeAll
+    static void iniciar() {
+        ctx = new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:listagem",
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--logging.level.root=WARN");
+        http = HttpClient.newHttpClient();
+        mapper = ctx.getBean(ObjectMapper.class);
+
+        List<Transacao> novas = new ArrayList<>();
+        for (int i = 0; i < 47; i++) {
+            Transacao t = new Transacao();
+            t.setUsuarioId("usuario" + (i % 4));
+            t.setValor(10.0 + i);
+            t.setTipo(TIPOS[i % TIPOS.length]);
+            t.setStatus(STATUS[i % STATUS.length]);
+            t.setScoreRisco((double) i);
+            t.setDataHora(BASE.plusHours(i));
+            novas.add(t);
+        }
+        gravadas = ctx.getBean(TransacaoRepository.class).saveAll(novas);
+    }
+
+    @AfterAll
+    static void parar() {
+        http.close();
+        ctx.close();
+    }
+
+    @Test
+    @DisplayName("Cursor percorre todas as transações em ordem de id, sem repetir nem pular")
+    void testPaginacaoCompleta() throws Exception {
+        List<Long> vistos = new ArrayList<>();
+        long cursor = 0;
+        int paginas = 0;
+        while (true) {
+            JsonNode pagina = get("/api/transacoes?limite=10&aposId=" + cursor);
+            pagina.get("itens").forEach(t -> vistos.add(t.get("id").asLong()));
+            paginas++;
+            if (pagina.get("proximoCursor").isNull()) {
+                assertEquals(7, pagina.get("itens").size());
+                break;
+            }
+            assertEquals(10, pagina.get("itens").size());
+            cursor = pagina.get("proximoCursor").asLong();
+            assertEquals(vistos.get(vistos.size() - 1), cursor);
+        }
+        assertEquals(5, paginas);
+        assertEquals(gravadas.stream().map(Transacao::getId).sorted().toList(), vistos);
+    }
+
+    @Test
+    @DisplayName("Página exata no limite não deixa cursor para uma página vazia")
+    void testUltimaPaginaExata() throws Exception {
+        JsonNode pagina = get("/api/transacoes?limite=47");
+        assertEquals(47, pagina.get("itens").size());
+        assertTrue(pagina.get("proximoCursor").isNull());
+
+        long ultimo = gravadas.get(gravadas.size() - 1).getId();
+        JsonNode vazia = get("/api/transacoes?aposId=" + ultimo);
+        assertEquals(0, vazia.get("itens").size());
+        assertTrue(vazia.get("proximoCursor").isNull());
+    }
+
+    @Test
+    @DisplayName("Cada filtro e o intervalo de datas (de inclusivo, ate exclusivo) restringem a listagem")
+    void testFiltros() throws Exception {
+        assertFiltro("usuarioId=usuario2", t -> t.getUsuarioId().equals("usuario2"));
+        assertFiltro("status=BLOQUEADA", t -> t.getStatus().equals("BLOQUEADA"));
+        assertFiltro("tipo=BOLETO", t -> t.getTipo().equals("BOLETO"));
+        LocalDateTime de = BASE.plusHours(10);
+        LocalDateTime ate = BASE.plusHours(20);
+        assertFiltro("de=" + de + "&ate=" + ate,
+                t -> !t.getDataHora().isBefore(de) && t.getDataHora().isBefore(ate));
+        assertFiltro("usuarioId=usuario1&status=APROVADA&de=" + de,
+                t -> t.getUsuarioId().equals("usuario1") && t.getStatus().equals("APROVADA")
+                        && !t.getDataHora().isBefore(de));
+    }
+
+    @Test
+    @DisplayName("Exportação NDJSON traz uma transação por linha, em ordem, com os mesmos filtros")
+    void testExportacao() throws Exception {
+        List<JsonNode> todas = exportar("");
+        assertEquals(gravadas.stream().map(Transacao::getId).sorted().toList(),
+                todas.stream().map(t -> t.get("id").asLong()).toList());
+        assertEquals("usuario0", todas.get(0).get("usuarioId").asText());
+
+        List<JsonNode> filtradas = exportar("?tipo=PIX&status=APROVADA");
+        List<Long> esperadas = gravadas.stream()
+                .filter(t -> t.getTipo().equals("PIX") && t.getStatus().equals("APROVADA"))
+                .map(Transacao::getId).sorted().toList();
+        assertFalse(esperadas.isEmpty());
+        assertEquals(esperadas, filtradas.stream().map(t -> t.get("id").asLong()).toList());
+
+        assertTrue(exportar("?usuarioId=ninguem").isEmpty());
+    }
+
+    // Página a página, com cursor, deve dar exatamente o conjunto filtrado
+    private static void assertFiltro(String filtro, Predicate<Transacao> esperado) throws Exception {
+        List<Long> esperadas = gravadas.stream().filter(esperado).map(Transacao::getId).sorted().toList();
+        assertFalse(esperadas.isEmpty(), filtro);
+        List<Long> vistos = new ArrayList<>();
+        Long cursor = 0L;
+        while (cursor != null) {
+            JsonNode pagina = get("/api/transacoes?limite=3&aposId=" + cursor + "&" + filtro);
+            pagina.get("itens").forEach(t -> vistos.add(t.get("id").asLong()));
+            cursor = pagina.get("proximoCursor").isNull() ? null : pagina.get("proximoCursor").asLong();
+        }
+        assertEquals(esperadas, vistos, filtro);
+    }
+
+    private static JsonNode get(String caminho) throws Exception {
+        HttpResponse<String> resposta = http.send(requisicao(caminho), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resposta.statusCode(), resposta.body());
+        return mapper.readTree(resposta.body());
+    }
+
+    private static List<JsonNode> exportar(String parametros) throws Exception {
+        HttpResponse<String> resposta = http.send(requisicao("/api/transacoes/exportar" + parametros),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resposta.statusCode(), resposta.body());
+        assertTrue(resposta.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : resposta.body().split("\n")) {
+            if (!linha.isEmpty()) {
+                linhas.add(mapper.readTree(linha));
+            }
+        }
+        return linhas;
+    }
+
+    private static HttpRequest requisicao(String caminho) {
+        int porta = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + porta + caminho)).GET().build();
+    }
+}
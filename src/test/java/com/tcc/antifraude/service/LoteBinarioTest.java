@@ -0,0 +1,163 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.cliente.ClienteAntifraude;
+import com.tcc.antifraude_seguro.cliente.ClienteAntifraude.Decisao;
+import com.tcc.antifraude_seguro.cliente.ClienteAntifraude.Pedido;
+import com.tcc.antifraude_seguro.cliente.FormatoBinario;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.CodecLoteBinario;
+import com.tcc.antifraude_seguro.service.ValidadorTransacao;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoteBinarioTest {
+
+    @Test
+    @DisplayName("Validador escrito à mão dá os mesmos erros que o Bean Validation")
+    void testValidador() {
+        List<Transacao> casos = new ArrayList<>();
+        casos.add(transacao("maria_silva", 1500.0, "PIX"));
+        casos.add(transacao(null, null, null));
+        casos.add(transacao("", 0.0, ""));
+        casos.add(transacao("  ", -1.0, "pix"));
+        casos.add(transacao("ab", 1_000_000.0, "CARTAO"));
+        casos.add(transacao("x".repeat(51), 1_000_000.01, "BOLETO "));
+        casos.add(transacao("joao", Double.POSITIVE_INFINITY, "#9"));
+        casos.add(transacao("joao", Double.NEGATIVE_INFINITY, "TED"));
+        Transacao extras = transacao("ana", 10.0, "DOC");
+        extras.setBeneficiarioId("b");
+        extras.setChaveIdempotencia("k".repeat(65));
+        extras.setScoreRisco(100.5);
+        casos.add(extras);
+        Transacao scoreNegativo = transacao("ana", 10.0, "DOC");
+        scoreNegativo.setBeneficiarioId("b".repeat(50));
+        scoreNegativo.setScoreRisco(-0.1);
+        casos.add(scoreNegativo);
+
+        try (ValidatorFactory fabrica = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = fabrica.getValidator();
+            for (Transacao t : casos) {
+                Set<String> esperado = validator.validate(t).stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .collect(Collectors.toSet());
+                assertEquals(esperado, new HashSet<>(ValidadorTransacao.validar(t)),
+                        t.getUsuarioId() + " / " + t.getValor() + " / " + t.getTipo());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Quadros malformados são recusados e tipo fora do dicionário é rejeitado na posição")
+    void testQuadroInvalido() {
+        byte[] corpo = ClienteAntifraude.codificar(List.of(new Pedido("maria_silva", 10.0, "PIX")), 10);
+        ByteBuffer quadro = ByteBuffer.wrap(corpo, 4, corpo.length - 4).slice();
+
+        // código de tipo 9: decodifica, mas não passa na validação
+        quadro.put(FormatoBinario.CABECALHO_QUADRO + 8, (byte) 9);
+        Transacao t = CodecLoteBinario.lerPedidos(quadro.duplicate()).get(0);
+        assertEquals("maria_silva", t.getUsuarioId());
+        assertEquals(List.of("tipo: Tipo deve ser: PIX, TED, DOC, BOLETO ou CARTAO"), ValidadorTransacao.validar(t));
+
+        assertThrows(RequisicaoInvalidaException.class,
+                () -> CodecLoteBinario.lerPedidos(quadro.duplicate().limit(quadro.limit() - 1)));
+        ByteBuffer sobrando = ByteBuffer.allocate(quadro.limit() + 1).put(quadro.duplicate()).clear();
+        assertThrows(RequisicaoInvalidaException.class, () -> CodecLoteBinario.lerPedidos(sobrando));
+        ByteBuffer outraVersao = ByteBuffer.allocate(quadro.limit()).put(quadro.duplicate()).put(0, (byte) 2).flip();
+        assertThrows(RequisicaoInvalidaException.class, () -> CodecLoteBinario.lerPedidos(outraVersao));
+    }
+
+    @Test
+    @DisplayName("Cliente binário envia vários quadros e recebe as decisões na ordem")
+    void testIdaEVolta() throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:binario",
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--logging.level.root=WARN")) {
+            URI base = URI.create("http://127.0.0.1:" + ((WebServerApplicationContext) ctx).getWebServer().getPort());
+
+            List<Pedido> pedidos = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                pedidos.add(new Pedido("usuário" + (i % 37), 50.0 + i, FormatoBinario.TIPOS.get(i % 5),
+                        i % 3 == 0 ? "beneficiario" + i : null, null));
+            }
+            pedidos.set(7, new Pedido("ab", -3.0, "PIX"));
+
+            List<Decisao> decisoes;
+            try (ClienteAntifraude cliente = new ClienteAntifraude(base, 500, Duration.ofSeconds(60))) {
+                decisoes = cliente.enviar(pedidos);
+            }
+            assertEquals(1200, decisoes.size());
+            assertFalse(decisoes.get(7).aceita());
+            assertTrue(decisoes.get(7).erro().contains("valor: Valor deve ser positivo"), decisoes.get(7).erro());
+            assertTrue(decisoes.get(7).erro().contains("usuarioId: Usuário ID deve ter entre 3 e 50 caracteres"));
+
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+            assertEquals(1199, repository.count());
+            Decisao d = decisoes.get(1199);
+            Transacao gravada = repository.findById(d.id()).orElseThrow();
+            assertEquals("usuário15", gravada.getUsuarioId());
+            assertEquals(1249.0, gravada.getValor());
+            assertEquals("CARTAO", gravada.getTipo());
+            assertEquals(gravada.getStatus(), d.status());
+            assertEquals(gravada.getScoreRisco(), d.scoreRisco(), 0.005);
+            assertEquals("beneficiario1197", repository.findById(decisoes.get(1197).id()).orElseThrow().getBeneficiarioId());
+
+            // Primeiro quadro truncado: 400 antes de qualquer resposta
+            byte[] corpo = ClienteAntifraude.codificar(pedidos.subList(0, 20), 10);
+            try (HttpClient http = HttpClient.newHttpClient()) {
+                HttpResponse<String> truncado = http.send(binario(base, Arrays.copyOf(corpo, 30)),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(400, truncado.statusCode());
+
+                // Segundo quadro truncado: o primeiro é respondido e a resposta termina com quadro de erro
+                HttpResponse<byte[]> parcial = http.send(binario(base, Arrays.copyOf(corpo, corpo.length - 1)),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                assertEquals(200, parcial.statusCode());
+                Exception erro = assertThrows(IOException.class,
+                        () -> ClienteAntifraude.decodificar(ByteBuffer.wrap(parcial.body())));
+                assertTrue(erro.getMessage().contains("10 decisões antes dele"), erro.getMessage());
+            }
+        }
+    }
+
+    private static HttpRequest binario(URI base, byte[] corpo) {
+        return HttpRequest.newBuilder(base.resolve("/api/transacoes/binario"))
+                .header("Content-Type", FormatoBinario.MEDIA)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(corpo))
+                .build();
+    }
+
+    private static Transacao transacao(String usuario, Double valor, String tipo) {
+        Transacao t = new Transacao();
+        t.setUsuarioId(usuario);
+        t.setValor(valor);
+        t.setTipo(tipo);
+        return t;
+    }
+}
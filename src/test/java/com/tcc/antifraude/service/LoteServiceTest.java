@@ -0,0 +1,166 @@
+package com.tcc.antifraude.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.dto.RespostaLote;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.repository.TransacaoRepository;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.EstatisticasService;
+import com.tcc.antifraude_seguro.service.LoteService;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class LoteServiceTest {
+
+    @Test
+    @DisplayName("Falha num estágio do lote encerra a requisição em vez de travar esperando vaga")
+    void testFalhaNoEstagio() {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:lote",
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--logging.level.root=WARN")) {
+            // O ML do segundo bloco falha; com 8 blocos de 500 o laço precisa
+            // de vagas que só voltam se os blocos com falha as devolverem
+            AtomicInteger blocos = new AtomicInteger();
+            AnalisadorRiscoService analisador = new AnalisadorRiscoService() {
+                @Override
+                public void decidirZonaCinzenta(List<Transacao> cinzentas) {
+                    if (blocos.incrementAndGet() == 2) {
+                        throw new IllegalStateException("ML fora do ar");
+                    }
+                    super.decidirZonaCinzenta(cinzentas);
+                }
+            };
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+            LoteService lote = new LoteService(analisador, repository, ctx.getBean(EstatisticasService.class),
+                    ctx.getBean(Validator.class), ctx.getBean(ObjectMapper.class), MetricasDecisao.NOOP);
+            try {
+                List<Transacao> transacoes = new ArrayList<>();
+                for (int i = 0; i < 4000; i++) {
+                    Transacao t = new Transacao();
+                    t.setUsuarioId("usuario" + (i % 10));
+                    t.setValor(100.0 + i);
+                    t.setTipo("PIX");
+                    transacoes.add(t);
+                }
+                IllegalStateException erro = assertTimeoutPreemptively(Duration.ofSeconds(60),
+                        () -> assertThrows(IllegalStateException.class, () -> lote.processar(transacoes.iterator())));
+                assertEquals("ML fora do ar", erro.getMessage());
+                // Só o primeiro bloco chegou ao banco; o laço parou de ler a entrada
+                assertEquals(500, repository.count());
+                assertTrue(blocos.get() < 8, "blocos analisados: " + blocos.get());
+
+                // O mesmo serviço continua atendendo depois da falha
+                RespostaLote resposta = lote.processar(transacoes.subList(0, 600).iterator());
+                assertEquals(600, resposta.aceitas());
+            } finally {
+                lote.encerrar();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Lote reenviado devolve as decisões gravadas sem contar de novo nas janelas do usuário")
+    void testReenvioComChaves() {
+        try (ConfigurableApplicationContext ctx = iniciar("lote-reenvio")) {
+            LoteService lote = ctx.getBean(LoteService.class);
+            TransacaoRepository repository = ctx.getBean(TransacaoRepository.class);
+
+            RespostaLote primeira = lote.processar(comChaves().iterator());
+            assertEquals(6, primeira.aceitas());
+            // A chave repetida na mesma requisição recebe a decisão da primeira linha
+            assertEquals(primeira.resultados().get(0).id(), primeira.resultados().get(5).id());
+            assertEquals(5, repository.count());
+
+            RespostaLote reenvio = lote.processar(comChaves().iterator());
+            assertEquals(6, reenvio.aceitas());
+            for (int i = 0; i < 6; i++) {
+                assertEquals(primeira.resultados().get(i).id(), reenvio.resultados().get(i).id());
+            }
+            assertEquals(5, repository.count());
+
+            Transacao nova = transacao(99);
+            lote.processar(List.of(nova).iterator());
+            assertEquals(5, nova.getCaracteristicas().getQtdUltimoMinuto());
+        }
+    }
+
+    @Test
+    @DisplayName("Chave gravada depois da consulta não derruba o bloco nem expõe o erro do banco")
+    void testRestricaoNoBloco() {
+        try (ConfigurableApplicationContext ctx = iniciar("lote-restricao")) {
+            TransacaoRepository real = ctx.getBean(TransacaoRepository.class);
+            LoteService lote = ctx.getBean(LoteService.class);
+            RespostaLote antes = lote.processar(comChaves().subList(0, 1).iterator());
+
+            // Simula outra requisição gravando a chave entre a consulta e o INSERT
+            TransacaoRepository repository = mock(TransacaoRepository.class, AdditionalAnswers.delegatesTo(real));
+            doReturn(List.of()).when(repository).findByChaveIdempotenciaIn(any());
+            LoteService corrida = new LoteService(new AnalisadorRiscoService(), repository,
+                    ctx.getBean(EstatisticasService.class), ctx.getBean(Validator.class),
+                    ctx.getBean(ObjectMapper.class), MetricasDecisao.NOOP);
+            try {
+                RespostaLote resposta = corrida.processar(comChaves().subList(0, 2).iterator());
+                assertEquals(2, resposta.aceitas());
+                assertEquals(antes.resultados().get(0).id(), resposta.resultados().get(0).id());
+                assertEquals(2, real.count());
+
+                // Restrição sem decisão gravada: erro genérico, sem o SQL
+                DataIntegrityViolationException restricao =
+                        new DataIntegrityViolationException("insert into transacoes (...) values (...)");
+                doThrow(restricao).when(repository).saveAll(any());
+                doThrow(restricao).when(repository).save(any());
+                RespostaLote rejeitada = corrida.processar(List.of(transacao(1)).iterator());
+                assertEquals(List.of("Falha ao gravar a transação"), rejeitada.resultados().get(0).erros());
+            } finally {
+                corrida.encerrar();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciar(String banco) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + banco,
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--logging.level.root=WARN");
+    }
+
+    // Cinco chaves do mesmo usuário e a primeira repetida no fim
+    private static List<Transacao> comChaves() {
+        List<Transacao> transacoes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Transacao t = transacao(i);
+            t.setChaveIdempotencia("chave" + (i % 5));
+            transacoes.add(t);
+        }
+        return transacoes;
+    }
+
+    private static Transacao transacao(int i) {
+        Transacao t = new Transacao();
+        t.setUsuarioId("reenvio");
+        t.setValor(100.0 + i);
+        t.setTipo("PIX");
+        return t;
+    }
+}
@@ -0,0 +1,92 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.ClassificadorFraude;
+import com.tcc.antifraude_seguro.service.MetricasDecisao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricasDecisaoTest {
+
+    private SimpleMeterRegistry registry;
+    private AnalisadorRiscoService analisador;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "metricas", new MetricasDecisao(registry));
+    }
+
+    @Test
+    @DisplayName("Cada decisão conta uma vez no status final, inclusive as da zona cinzenta")
+    void testContadoresDeDecisao() {
+        // ML responde só para valores abaixo de 9.000; acima disso, fallback
+        ReflectionTestUtils.setField(analisador, "classificador", new ClassificadorFraude() {
+            @Override
+            public CompletableFuture<Double> obterProbabilidadeFraudeAsync(double valor) {
+                return CompletableFuture.completedFuture(valor < 9000 ? 0.0 : null);
+            }
+
+            @Override
+            public double[] obterProbabilidadesFraude(double[] valores) {
+                return null;
+            }
+
+            @Override
+            public String versaoModelo() {
+                return "teste";
+            }
+        });
+
+        analisador.analisar(transacao(300.0, "BOLETO", 14));   // 5  -> APROVADA
+        analisador.analisar(transacao(20000.0, "PIX", 14));    // 75 -> BLOQUEADA
+        analisador.analisar(transacao(8000.0, "BOLETO", 14));  // 45 -> ML 0.0 -> APROVADA
+        analisador.analisar(transacao(9500.0, "BOLETO", 14));  // 45 -> fallback REVISAO
+
+        assertEquals(2, contador("antifraude.decisoes", "status", "APROVADA"));
+        assertEquals(1, contador("antifraude.decisoes", "status", "BLOQUEADA"));
+        assertEquals(1, contador("antifraude.decisoes", "status", "REVISAO"));
+        assertEquals(2, registry.get("antifraude.zona.cinzenta").counter().count());
+        assertEquals(1, contador("antifraude.zona.cinzenta.decididas", "origem", "ml"));
+        assertEquals(1, contador("antifraude.zona.cinzenta.decididas", "origem", "fallback"));
+        assertEquals(0.5, registry.get("antifraude.zona.cinzenta.razao").gauge().value());
+        assertEquals(2, registry.get("antifraude.etapa").tag("etapa", "ml").timer().count());
+    }
+
+    @Test
+    @DisplayName("Os componentes das regras são cronometrados por amostragem")
+    void testAmostragemDasRegras() {
+        int total = 20_000;
+        for (int i = 0; i < total; i++) {
+            analisador.analisar(transacao(300.0, "BOLETO", 14));
+        }
+
+        long amostras = registry.get("antifraude.etapa").tag("etapa", "regra.valor").timer().count();
+        assertTrue(amostras > 0 && amostras < total / 10, "amostras: " + amostras);
+        assertEquals(amostras, registry.get("antifraude.etapa").tag("etapa", "regra.comportamento").timer().count());
+        assertEquals(total, contador("antifraude.decisoes", "status", "APROVADA"));
+    }
+
+    private double contador(String nome, String tag, String valor) {
+        return registry.get(nome).tag(tag, valor).counter().count();
+    }
+
+    private static Transacao transacao(double valor, String tipo, int hora) {
+        Transacao t = new Transacao();
+        t.setValor(valor);
+        t.setTipo(tipo);
+        t.setDataHora(LocalDateTime.of(2026, 1, 13, hora, 0));
+        return t;
+    }
+}
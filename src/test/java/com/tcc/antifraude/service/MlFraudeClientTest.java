@@ -0,0 +1,118 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.config.MlProperties;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.Disjuntor;
+import com.tcc.antifraude_seguro.service.MlFraudeClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MlFraudeClientTest {
+
+    private MlStubServer stub;
+    private MlFraudeClient cliente;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new MlStubServer();
+        cliente = new MlFraudeClient(new MlProperties(
+                stub.url(), Duration.ofMillis(200), Duration.ofMillis(100), Duration.ofMillis(500),
+                2, 3, Duration.ofMillis(300), 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cliente.encerrar();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("Devolve a probabilidade do serviço ML")
+    void testSucesso() {
+        assertEquals(0.9, cliente.obterProbabilidadeFraude(3000.0));
+        assertArrayEquals(new double[]{0.9, 0.9, 0.9},
+                cliente.obterProbabilidadesFraude(new double[]{1, 2, 3}));
+    }
+
+    @Test
+    @DisplayName("Resposta lenta estoura o orçamento e cai no fallback")
+    void testOrcamentoDeLatencia() {
+        stub.atraso(1000);
+
+        long inicio = System.nanoTime();
+        assertNull(cliente.obterProbabilidadeFraude(3000.0));
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertTrue(ms < 500, "demorou " + ms + "ms");
+    }
+
+    @Test
+    @DisplayName("Falhas seguidas abrem o disjuntor e as consultas nem chegam ao serviço")
+    void testDisjuntorAbre() throws Exception {
+        stub.status(500);
+        for (int i = 0; i < 3; i++) {
+            assertNull(cliente.obterProbabilidadeFraude(3000.0));
+        }
+        assertEquals(Disjuntor.Estado.ABERTO, cliente.estadoDisjuntor());
+
+        int antes = stub.chamadas();
+        assertNull(cliente.obterProbabilidadeFraude(3000.0));
+        assertEquals(antes, stub.chamadas());
+
+        // Depois da espera, uma chamada de teste com sucesso fecha o disjuntor
+        stub.status(200);
+        Thread.sleep(350);
+        assertEquals(0.9, cliente.obterProbabilidadeFraude(3000.0));
+        assertEquals(Disjuntor.Estado.FECHADO, cliente.estadoDisjuntor());
+    }
+
+    @Test
+    @DisplayName("Acima do limite de consultas simultâneas vai direto para o fallback")
+    void testBulkhead() {
+        MlFraudeClient folgado = new MlFraudeClient(new MlProperties(
+                stub.url(), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(2),
+                2, 3, Duration.ofSeconds(1), 2));
+        stub.atraso(200);
+
+        List<CompletableFuture<Double>> futuros = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futuros.add(folgado.obterProbabilidadeFraudeAsync(3000.0));
+        }
+        // as duas excedentes já nascem resolvidas com o fallback
+        assertTrue(futuros.get(2).isDone());
+        assertTrue(futuros.get(3).isDone());
+
+        long semResposta = futuros.stream().map(CompletableFuture::join).filter(p -> p == null).count();
+        assertEquals(2, semResposta);
+        folgado.encerrar();
+    }
+
+    @Test
+    @DisplayName("Zona cinzenta com ML fora do ar fica em REVISAO")
+    void testFallbackRevisao() {
+        stub.status(503);
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "classificador", cliente);
+
+        Transacao t = new Transacao();
+        t.setValor(8000.0);
+        t.setTipo("PIX");
+        t.setDataHora(LocalDateTime.of(2026, 1, 13, 14, 0));
+        analisador.analisar(t);
+
+        assertEquals(65.0, t.getScoreRisco());
+        assertEquals("REVISAO", t.getStatus());
+    }
+}
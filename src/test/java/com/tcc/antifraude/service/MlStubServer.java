@@ -0,0 +1,90 @@
+package com.tcc.antifraude.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serviço ML falso para testes: responde /predict e /predict_batch com uma
+// probabilidade fixa e permite simular lentidão e erros HTTP
+public class MlStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger chamadas = new AtomicInteger();
+
+    private volatile long atrasoMs;
+    private volatile int statusHttp = 200;
+    private volatile double probabilidade = 0.9;
+
+    public MlStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/predict", this::predict);
+        server.createContext("/predict_batch", this::predictBatch);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor()); // aguenta carga com atraso
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public MlStubServer atraso(long ms) {
+        this.atrasoMs = ms;
+        return this;
+    }
+
+    public MlStubServer status(int status) {
+        this.statusHttp = status;
+        return this;
+    }
+
+    public MlStubServer probabilidade(double p) {
+        this.probabilidade = p;
+        return this;
+    }
+
+    public int chamadas() {
+        return chamadas.get();
+    }
+
+    private void predict(HttpExchange ex) throws IOException {
+        responder(ex, "{\"fraud_probability\": " + probabilidade + ", \"is_fraud\": true, \"model\": \"Stub\"}");
+    }
+
+    private void predictBatch(HttpExchange ex) throws IOException {
+        String corpo = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        // conta os vetores pelo número de "[" internos ao array "instances"
+        int n = Math.max(0, corpo.split("\\[", -1).length - 2);
+        StringBuilder probs = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            probs.append(i > 0 ? "," : "").append(probabilidade);
+        }
+        responder(ex, "{\"fraud_probabilities\": [" + probs + "], \"model\": \"Stub\"}");
+    }
+
+    private void responder(HttpExchange ex, String json) throws IOException {
+        chamadas.incrementAndGet();
+        ex.getRequestBody().readAllBytes();
+        try {
+            if (atrasoMs > 0) Thread.sleep(atrasoMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = statusHttp == 200 ? json.getBytes(StandardCharsets.UTF_8) : "{\"error\": \"stub\"}".getBytes();
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(statusHttp, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,242 @@
+package com.tcc.antifraude.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.ExplicacaoTransacao;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.TipoTransacao;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.ClassificadorFraude;
+import com.tcc.antifraude_seguro.service.ConjuntoRegras;
+import com.tcc.antifraude_seguro.service.MotorRegras;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MotorRegrasTest {
+
+    private MotorRegras motor;
+
+    @BeforeEach
+    void setUp() {
+        motor = new MotorRegras(new ObjectMapper(), new DefaultResourceLoader(), "classpath:regras.json");
+    }
+
+    @Test
+    @DisplayName("Tabelas compiladas do regras.json mantêm as bordas das regras antigas")
+    void testBordasPadrao() {
+        ConjuntoRegras regras = motor.atual();
+
+        assertEquals(0, regras.pontosValor(499.99));
+        assertEquals(10, regras.pontosValor(500));
+        assertEquals(20, regras.pontosValor(1000));
+        assertEquals(20, regras.pontosValor(2000));
+        assertEquals(30, regras.pontosValor(2000.01));
+        assertEquals(40, regras.pontosValor(10000));
+        assertEquals(45, regras.pontosValor(15000));
+        assertEquals(50, regras.pontosValor(15000.01));
+
+        assertEquals(30, regras.pontosHora(5));
+        assertEquals(5, regras.pontosHora(6));
+        assertEquals(0, regras.pontosHora(19));
+        assertEquals(10, regras.pontosHora(21));
+        assertEquals(20, regras.pontosHora(23));
+
+        assertEquals(25, regras.pontosTipo(TipoTransacao.deCodigo("pix")));
+        assertEquals(5, regras.pontosDia(DayOfWeek.FRIDAY));
+    }
+
+    @Test
+    @DisplayName("Publicar regras novas muda a decisão sem recriar o serviço")
+    void testHotReload() {
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "motorRegras", motor);
+
+        Transacao antes = transacao();
+        analisador.analisar(antes);
+        assertEquals(AnalisadorRiscoService.APROVADA, antes.getStatus()); // 10 (valor) + 25 (PIX)
+
+        DefinicaoRegras atual = motor.atual().definicao();
+        ConjuntoRegras novo = motor.publicar(new DefinicaoRegras(null, atual.valor(), atual.horario(),
+                atual.tipo(), atual.diaSemana(), atual.comportamento(), atual.rede(),
+                new DefinicaoRegras.Decisao(70, 30, 0.6, 0.4)));
+        assertEquals(2, novo.versao());
+
+        Transacao depois = transacao();
+        analisador.analisar(depois);
+        assertEquals(AnalisadorRiscoService.REVISAO, depois.getStatus());
+    }
+
+    @Test
+    @DisplayName("A explicação gravada na decisão não muda quando as regras mudam")
+    void testExplicacaoGravada() {
+        ClassificadorFraude modelo = mock(ClassificadorFraude.class);
+        when(modelo.obterProbabilidadeFraudeAsync(anyDouble())).thenReturn(CompletableFuture.completedFuture(0.5));
+        when(modelo.versaoModelo()).thenReturn("abc123");
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "motorRegras", motor);
+        ReflectionTestUtils.setField(analisador, "classificador", modelo);
+
+        // 600 em TED na terça: 10 + 15 = 25 pela padrão; com o corte de revisão
+        // em 20 cai na zona cinzenta e consulta o modelo
+        DefinicaoRegras atual = motor.atual().definicao();
+        motor.publicar(new DefinicaoRegras(null, atual.valor(), atual.horario(), atual.tipo(),
+                atual.diaSemana(), atual.comportamento(), atual.rede(), new DefinicaoRegras.Decisao(70, 20, 0.6, 0.4)));
+        Transacao t = transacao();
+        t.setTipo("TED");
+        analisador.analisar(t);
+
+        motor.publicar(atual);
+        ExplicacaoTransacao explicacao = analisador.explicar(t);
+        assertTrue(explicacao.registradaNaDecisao());
+        assertEquals(2, explicacao.versaoRegras());
+        assertEquals(t.getScoreRisco(), explicacao.componentes().valor() + explicacao.componentes().horario()
+                + explicacao.componentes().dia() + explicacao.componentes().tipo()
+                + explicacao.componentes().comportamento());
+        assertEquals(0.5, explicacao.ml().probabilidade());
+        assertEquals("abc123", explicacao.ml().versaoModelo());
+        assertEquals(t.getScoreRisco() * 0.6 + 50 * 0.4, explicacao.ml().scoreCombinado(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Reload durante a consulta ao ML não muda pesos nem cortes da transação em voo")
+    void testReloadDuranteMl() {
+        CompletableFuture<Double> resposta = new CompletableFuture<>();
+        ClassificadorFraude modelo = mock(ClassificadorFraude.class);
+        when(modelo.obterProbabilidadeFraudeAsync(anyDouble())).thenReturn(resposta);
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "motorRegras", motor);
+        ReflectionTestUtils.setField(analisador, "classificador", modelo);
+
+        // TED de 600 na terça = 25, zona cinzenta com o corte de revisão em 20.
+        // Com a v2: 25 * 0.6 + 90 * 0.4 = 51 -> REVISAO; pela v3 seria 77 -> APROVADA
+        DefinicaoRegras atual = motor.atual().definicao();
+        motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(70, 20, 0.6, 0.4)));
+        Transacao t = transacao();
+        t.setTipo("TED");
+        CompletableFuture<Transacao> decisao = analisador.analisarAsync(t);
+
+        motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(90, 80, 0.2, 0.8)));
+        resposta.complete(0.9);
+        assertEquals(AnalisadorRiscoService.REVISAO, decisao.join().getStatus());
+    }
+
+    @Test
+    @DisplayName("No lote, a zona cinzenta combina com o conjunto que pontuou cada transação")
+    void testReloadDuranteMlEmLote() {
+        ClassificadorFraude modelo = mock(ClassificadorFraude.class);
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "motorRegras", motor);
+        ReflectionTestUtils.setField(analisador, "classificador", modelo);
+
+        DefinicaoRegras atual = motor.atual().definicao();
+        motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(70, 20, 0.6, 0.4)));
+        Transacao t = transacao();
+        t.setTipo("TED");
+        assertTrue(analisador.aplicarRegras(t));
+
+        // O reload chega enquanto o grupo está no ML
+        when(modelo.obterProbabilidadesFraude(any())).thenAnswer(inv -> {
+            motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(90, 80, 0.2, 0.8)));
+            return new double[]{0.9};
+        });
+        analisador.decidirZonaCinzenta(List.of(t));
+        assertEquals(AnalisadorRiscoService.REVISAO, t.getStatus());
+    }
+
+    @Test
+    @DisplayName("Com reload durante o ML, versão e score combinado da explicação vêm do mesmo conjunto")
+    void testExplicacaoComReloadDuranteMl() {
+        CompletableFuture<Double> resposta = new CompletableFuture<>();
+        ClassificadorFraude modelo = mock(ClassificadorFraude.class);
+        when(modelo.obterProbabilidadeFraudeAsync(anyDouble())).thenReturn(resposta);
+        when(modelo.versaoModelo()).thenReturn("abc123");
+        AnalisadorRiscoService analisador = new AnalisadorRiscoService();
+        ReflectionTestUtils.setField(analisador, "motorRegras", motor);
+        ReflectionTestUtils.setField(analisador, "classificador", modelo);
+
+        DefinicaoRegras atual = motor.atual().definicao();
+        ConjuntoRegras v2 = motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(70, 20, 0.6, 0.4)));
+        Transacao t = transacao();
+        t.setTipo("TED");
+        CompletableFuture<Transacao> decisao = analisador.analisarAsync(t);
+
+        motor.publicar(comDecisao(atual, new DefinicaoRegras.Decisao(90, 80, 0.2, 0.8)));
+        resposta.complete(0.9);
+        decisao.join();
+
+        ExplicacaoTransacao explicacao = analisador.explicar(t);
+        assertEquals(v2.versao(), explicacao.versaoRegras());
+        assertEquals(25 * 0.6 + 90 * 0.4, explicacao.ml().scoreCombinado(), 1e-9);
+        assertEquals(v2.decidir(explicacao.ml().scoreCombinado()), explicacao.status());
+    }
+
+    @Test
+    @DisplayName("Definição inválida é rejeitada e o conjunto em uso continua valendo")
+    void testDefinicaoInvalida() {
+        DefinicaoRegras atual = motor.atual().definicao();
+        DefinicaoRegras invalida = new DefinicaoRegras(null, atual.valor(), atual.horario(),
+                atual.tipo(), atual.diaSemana(), atual.comportamento(), atual.rede(),
+                new DefinicaoRegras.Decisao(40, 70, 0.6, 0.4));
+
+        assertThrows(RequisicaoInvalidaException.class, () -> motor.publicar(invalida));
+        assertEquals(1, motor.atual().versao());
+    }
+
+    @Test
+    @DisplayName("Publicações concorrentes saem com versões distintas e em sequência")
+    void testPublicacaoConcorrente() throws Exception {
+        DefinicaoRegras definicao = motor.atual().definicao();
+        Set<Integer> versoes = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 50; j++) {
+                    versoes.add(motor.publicar(definicao).versao());
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(400, versoes.size());
+        assertEquals(IntStream.rangeClosed(2, 401).boxed().collect(Collectors.toSet()), versoes);
+        assertEquals(401, motor.atual().versao());
+    }
+
+    private static Transacao transacao() {
+        Transacao t = new Transacao();
+        t.setUsuarioId("user1");
+        t.setValor(600.0);
+        t.setTipo("PIX");
+        t.setDataHora(LocalDateTime.of(2026, 1, 13, 14, 0)); // terça, horário comercial
+        return t;
+    }
+
+    private static DefinicaoRegras comDecisao(DefinicaoRegras d, DefinicaoRegras.Decisao decisao) {
+        return new DefinicaoRegras(null, d.valor(), d.horario(), d.tipo(), d.diaSemana(),
+                d.comportamento(), d.rede(), decisao);
+    }
+}
@@ -0,0 +1,146 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.DemoApplication;
+import com.tcc.antifraude_seguro.dto.DefinicaoRegras;
+import com.tcc.antifraude_seguro.dto.DivergenciaSombra;
+import com.tcc.antifraude_seguro.dto.EstadoSombra;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.AnalisadorRiscoService;
+import com.tcc.antifraude_seguro.service.MotorRegras;
+import com.tcc.antifraude_seguro.service.PontuacaoSombra;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PontuacaoSombraTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Desafiante igual ao campeão concorda sempre; o permissivo diverge e vai para o log")
+    void testDivergencias() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar("divergencias", 10_000)) {
+            PontuacaoSombra sombra = ctx.getBean(PontuacaoSombra.class);
+            AnalisadorRiscoService analisador = ctx.getBean(AnalisadorRiscoService.class);
+            DefinicaoRegras atual = ctx.getBean(MotorRegras.class).atual().definicao();
+            sombra.registrar("igual", atual);
+            sombra.registrar("permissivo", new DefinicaoRegras(atual.versao(), atual.valor(), atual.horario(),
+                    atual.tipo(), atual.diaSemana(), atual.comportamento(), atual.rede(),
+                    new DefinicaoRegras.Decisao(1000, 1000, 1, 0)));
+
+            // Madrugada, valores altos e rajadas do mesmo usuário: as três decisões aparecem
+            List<Transacao> transacoes = new ArrayList<>();
+            LocalDateTime base = LocalDateTime.of(2026, 3, 7, 2, 0);
+            for (int i = 0; i < 300; i++) {
+                Transacao t = new Transacao();
+                t.setUsuarioId("usuario" + (i % 7));
+                t.setBeneficiarioId(i % 2 == 0 ? "beneficiario" + (i % 5) : null);
+                t.setValor(i % 3 == 0 ? 90_000.0 + i : 40.0 + i);
+                t.setTipo(i % 4 == 0 ? "CARTAO" : "PIX");
+                t.setDataHora(base.plusMinutes(i * 7L));
+                analisador.analisar(t);
+                transacoes.add(t);
+            }
+            esperar(() -> sombra.estado().avaliadas() == transacoes.size());
+
+            EstadoSombra estado = sombra.estado();
+            assertEquals(0, estado.descartadas());
+            EstadoSombra.Desafiante igual = estado.desafiantes().get(0);
+            EstadoSombra.Desafiante permissivo = estado.desafiantes().get(1);
+            assertEquals("igual", igual.nome());
+            assertEquals(transacoes.size(), igual.comparadas());
+            assertEquals(transacoes.size(), igual.concordancias());
+
+            long naoAprovadas = transacoes.stream().filter(t -> !"APROVADA".equals(t.getStatus())).count();
+            assertTrue(naoAprovadas > 0);
+            assertEquals(transacoes.size() - naoAprovadas, permissivo.concordancias());
+            assertEquals(naoAprovadas, estado.divergencias());
+            assertEquals(0, permissivo.matriz().get("REVISAO").get("REVISAO"));
+            assertEquals(0, permissivo.matriz().get("BLOQUEADA").get("BLOQUEADA"));
+
+            // O log tem as divergências na ordem das decisões, e a leitura continua do "proximo"
+            List<DivergenciaSombra> log = sombra.divergencias(0, 1000);
+            assertEquals(naoAprovadas, log.size());
+            List<Transacao> divergentes = transacoes.stream().filter(t -> !"APROVADA".equals(t.getStatus())).toList();
+            for (int i = 0; i < log.size(); i++) {
+                DivergenciaSombra d = log.get(i);
+                Transacao t = divergentes.get(i);
+                assertEquals("permissivo", d.desafiante());
+                assertEquals(t.getUsuarioId(), d.usuarioId());
+                assertEquals(t.getValor(), d.valor());
+                assertEquals(t.getTipo(), d.tipo());
+                assertEquals(t.getDataHora(), d.dataHora());
+                assertEquals(t.getStatus(), d.statusCampeao());
+                assertEquals("APROVADA", d.statusDesafiante());
+            }
+            assertEquals(log.subList(1, log.size()), sombra.divergencias(log.get(0).proximo(), 1000));
+            assertThrows(RequisicaoInvalidaException.class, () -> sombra.divergencias(log.get(0).offset() + 3, 10));
+
+            // Promovido, o desafiante passa a decidir e sai da sombra
+            int versao = sombra.promover("permissivo").versao();
+            assertEquals(versao, ctx.getBean(MotorRegras.class).atual().versao());
+            assertEquals(List.of("igual"), sombra.estado().desafiantes().stream().map(EstadoSombra.Desafiante::nome).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Fila cheia descarta a amostra sem atrasar nem falhar a decisão")
+    void testDescarte() throws Exception {
+        try (ConfigurableApplicationContext ctx = iniciar("descarte", 1)) {
+            PontuacaoSombra sombra = ctx.getBean(PontuacaoSombra.class);
+            DefinicaoRegras atual = ctx.getBean(MotorRegras.class).atual().definicao();
+            for (int i = 0; i < 8; i++) {
+                sombra.registrar("desafiante" + i, atual);
+            }
+            Transacao t = new Transacao();
+            t.setUsuarioId("usuario");
+            t.setValor(5_000.0);
+            t.setTipo("TED");
+            t.setDataHora(LocalDateTime.now());
+            ctx.getBean(AnalisadorRiscoService.class).analisar(t);
+
+            int enviadas = 20_000;
+            for (int i = 0; i < enviadas; i++) {
+                sombra.submeter(t);
+            }
+            esperar(() -> {
+                EstadoSombra e = sombra.estado();
+                return e.avaliadas() + e.descartadas() == enviadas + 1;
+            });
+            EstadoSombra estado = sombra.estado();
+            assertTrue(estado.descartadas() > 0, "nenhuma amostra descartada");
+            assertEquals(0, estado.divergencias());
+        }
+    }
+
+    private ConfigurableApplicationContext iniciar(String nome, int capacidadeFila) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:sombra-" + nome,
+                        "--antifraude.ml.url=http://127.0.0.1:1",
+                        "--antifraude.sombra.habilitado=true",
+                        "--antifraude.sombra.capacidade-fila=" + capacidadeFila,
+                        "--antifraude.sombra.diretorio=" + dir.resolve(nome),
+                        "--logging.level.root=WARN");
+    }
+
+    private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + 30_000_000_000L;
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "tempo esgotado esperando o modo sombra");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude_seguro.config.SeriesProperties;
+import com.tcc.antifraude_seguro.dto.GrupoJanela;
+import com.tcc.antifraude_seguro.dto.JanelaEstatisticas;
+import com.tcc.antifraude_seguro.exception.RequisicaoInvalidaException;
+import com.tcc.antifraude_seguro.model.Transacao;
+import com.tcc.antifraude_seguro.service.SeriesTemporais;
+import com.tcc.antifraude_seguro.service.SeriesTemporais.Agrupamento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeriesTemporaisTest {
+
+    // 2026-01-01 00:00:00 UTC, início de hora
+    private static final long INICIO_MS = 1_767_225_600_000L;
+
+    private final AtomicLong relogio = new AtomicLong(INICIO_MS);
+    private final SeriesTemporais series = new SeriesTemporais(
+            new SeriesProperties(120, 120, 48, 10, 5), relogio::get, Runnable::run);
+
+    @Test
+    @DisplayName("Janela recente por tipo soma só as decisões dentro dela")
+    void testJanelaPorTipo() {
+        series.registrar(transacao("BLOQUEADA", "PIX", 20000.0, 80.0));
+        series.registrar(transacao("BLOQUEADA", "PIX", 10000.0, 90.0));
+        avancar(30);
+        series.registrar(transacao("APROVADA", "BOLETO", 100.0, 5.0));
+
+        GrupoJanela pix = grupo(series.consultar(Duration.ofMinutes(1), Agrupamento.TIPO), null, "PIX");
+        assertEquals(2, pix.quantidade());
+        assertEquals(30000.0, pix.valor());
+        assertEquals(85.0, pix.scoreMedio());
+        assertEquals(1, pix.faixasScore()[8]);
+        assertEquals(1, pix.faixasScore()[9]);
+
+        JanelaEstatisticas recente = series.consultar(Duration.ofSeconds(10), Agrupamento.STATUS_TIPO);
+        assertEquals(15, recente.grupos().size());
+        assertEquals(1, grupo(recente, "APROVADA", "BOLETO").quantidade());
+        assertEquals(0, grupo(recente, "BLOQUEADA", "PIX").quantidade());
+        assertNull(grupo(recente, "BLOQUEADA", "PIX").scoreMedio());
+        assertEquals(0, series.descartadas());
+    }
+
+    @Test
+    @DisplayName("Segundos consolidam em minutos e horas sem perder decisões")
+    void testConsolidacao() {
+        // uma decisão a cada 10 s por 3 horas: 1080 no total
+        for (int i = 0; i < 1080; i++) {
+            series.registrar(transacao("APROVADA", "PIX", 10.0, 20.0));
+            avancar(10);
+        }
+
+        // 1 h: além dos 120 s de segundos, vem dos minutos
+        JanelaEstatisticas hora = series.consultar(Duration.ofHours(1), Agrupamento.NENHUM);
+        assertEquals(360, hora.grupos().get(0).quantidade());
+        assertEquals(3600.0, hora.grupos().get(0).valor());
+
+        // 3 h: além dos 120 min de minutos, vem das horas
+        JanelaEstatisticas tudo = series.consultar(Duration.ofHours(3), Agrupamento.STATUS);
+        assertEquals(1080, grupo(tudo, "APROVADA", null).quantidade());
+        assertEquals(20.0, grupo(tudo, "APROVADA", null).scoreMedio());
+
+        assertThrows(RequisicaoInvalidaException.class, () -> series.consultar(Duration.ofDays(3), Agrupamento.NENHUM));
+    }
+
+    @Test
+    @DisplayName("Assinantes recebem um delta por segundo fechado")
+    void testDeltas() {
+        List<JanelaEstatisticas> deltas = new ArrayList<>();
+        series.assinar(deltas::add);
+
+        series.registrar(transacao("REVISAO", "TED", 5000.0, 55.0));
+        avancar(1);
+        series.registrar(transacao("REVISAO", "TED", 7000.0, 65.0));
+        series.registrar(transacao("BLOQUEADA", "DOC", 9000.0, 75.0));
+        avancar(3);
+
+        long total = deltas.stream().flatMap(d -> d.grupos().stream()).mapToLong(GrupoJanela::quantidade).sum();
+        assertEquals(3, total);
+        assertTrue(deltas.stream().allMatch(d -> d.grupos().stream().allMatch(g -> g.quantidade() > 0)));
+        assertEquals(Duration.ofSeconds(1), Duration.between(deltas.get(0).desde(), deltas.get(0).ate()));
+    }
+
+    @Test
+    @DisplayName("Assinante lento é desligado quando a fila enche, sem segurar a consolidação nem os outros")
+    void testAssinanteLento() throws Exception {
+        ExecutorService publicador = Executors.newVirtualThreadPerTaskExecutor();
+        SeriesTemporais comFila = new SeriesTemporais(new SeriesProperties(120, 120, 48, 10, 5),
+                relogio::get, publicador);
+        try {
+            List<JanelaEstatisticas> rapido = new CopyOnWriteArrayList<>();
+            CountDownLatch travado = new CountDownLatch(1);
+            CountDownLatch desligado = new CountDownLatch(1);
+            comFila.assinar(rapido::add);
+            // Cliente que para de ler: o primeiro send nunca volta
+            comFila.assinar(delta -> {
+                try {
+                    travado.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, desligado::countDown);
+
+            // Um segundo por vez, como o relógio real: o rápido acompanha e o
+            // lento acumula até a fila (5) encher
+            for (int i = 1; i <= 10; i++) {
+                comFila.registrar(transacao("APROVADA", "PIX", 10.0, 5.0));
+                avancar(comFila, 1);
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (rapido.size() < i) {
+                    assertTrue(System.nanoTime() < limite, "assinante rápido parado em " + rapido.size());
+                    Thread.sleep(5);
+                }
+            }
+            assertTrue(desligado.await(10, TimeUnit.SECONDS));
+            assertEquals(10, rapido.size());
+            travado.countDown();
+        } finally {
+            publicador.shutdownNow();
+        }
+    }
+
+    // Avança o relógio segundo a segundo, como a thread de consolidação veria
+    private void avancar(int segundos) {
+        avancar(series, segundos);
+    }
+
+    private void avancar(SeriesTemporais s, int segundos) {
+        for (int i = 0; i < segundos; i++) {
+            relogio.addAndGet(1000);
+            s.rolar();
+        }
+    }
+
+    private static GrupoJanela grupo(JanelaEstatisticas janela, String status, String tipo) {
+        return janela.grupos().stream()
+                .filter(g -> Objects.equals(g.status(), status) && Objects.equals(g.tipo(), tipo))
+                .findFirst().orElseThrow();
+    }
+
+    private static Transacao transacao(String status, String tipo, double valor, double score) {
+        Transacao t = new Transacao();
+        t.setStatus(status);
+        t.setTipo(tipo);
+        t.setValor(valor);
+        t.setScoreRisco(score);
+        return t;
+    }
+}
@@ -0,0 +1,126 @@
+package com.tcc.antifraude.service;
+
+import com.tcc.antifraude.service.GeradorCarga.Mistura;
+import com.tcc.antifraude.service.GeradorCarga.Operacao;
+import com.tcc.antifraude.service.GeradorCarga.Resultado;
+import com.tcc.antifraude_seguro.DemoApplication;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// SLO de latência da API sob carga em malha aberta (GeradorCarga), com o ML
+// substituído pelo stub com atraso fixo. Falha o build se o p99 de alguma
+// operação passar do limite ou se houver respostas diferentes de 200.
+// Fora do build normal: ./mvnw test -Pslo
+// Parâmetros (-D na linha do Maven):
+//   slo.taxa (req/s, 50), slo.duracao (20s), slo.aquecimento (10s),
+//   slo.p99-ms (200; por operação: slo.p99-ms.criar/.estatisticas/.explicacao),
+//   slo.mistura (pesos criar,estatisticas,explicacao: 80,10,10),
+//   slo.ml.atraso-ms (20), slo.arquivo (NDJSON gravado; sem ele, mistura sintética)
+// Os histogramas completos ficam em target/slo/<operacao>.hgrm.
+@Tag("slo")
+class SloLatenciaTest {
+
+    @Test
+    @DisplayName("p99 de criar, estatísticas e explicação dentro do SLO na taxa configurada")
+    void testSlo() throws Exception {
+        double taxa = Double.parseDouble(System.getProperty("slo.taxa", "50"));
+        Duration duracao = Duration.parse("PT" + System.getProperty("slo.duracao", "20s"));
+        Duration aquecimento = Duration.parse("PT" + System.getProperty("slo.aquecimento", "10s"));
+        long atrasoMl = Long.parseLong(System.getProperty("slo.ml.atraso-ms", "20"));
+        String[] pesos = System.getProperty("slo.mistura", "80,10,10").split(",");
+        Mistura mistura = new Mistura(Integer.parseInt(pesos[0].trim()), Integer.parseInt(pesos[1].trim()),
+                Integer.parseInt(pesos[2].trim()));
+        String arquivo = System.getProperty("slo.arquivo");
+        List<String> corpos = arquivo != null
+                ? GeradorCarga.gravada(Path.of(arquivo))
+                : GeradorCarga.sintetica(50_000, 11);
+
+        try (MlStubServer ml = new MlStubServer().atraso(atrasoMl).probabilidade(0.5);
+             ConfigurableApplicationContext contexto = iniciar(ml)) {
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            try (GeradorCarga gerador = new GeradorCarga("http://127.0.0.1:" + porta, corpos)) {
+                // mesma taxa, descartado: JIT, pools e caches
+                gerador.executar(taxa, aquecimento, mistura, 1);
+                Resultado r = gerador.executar(taxa, duracao, mistura, 2);
+
+                imprimir(r, taxa, atrasoMl);
+                gravarHistogramas(r);
+
+                List<Executable> verificacoes = new ArrayList<>();
+                for (Operacao op : Operacao.values()) {
+                    Histogram h = r.latencias().get(op);
+                    double p99 = h.getValueAtPercentile(99) / 1e6;
+                    double limite = Double.parseDouble(System.getProperty(
+                            "slo.p99-ms." + op.name().toLowerCase(Locale.ROOT),
+                            System.getProperty("slo.p99-ms", "200")));
+                    verificacoes.add(() -> assertEquals(0L, r.erros().get(op), op + ": respostas com erro"));
+                    if (h.getTotalCount() > 0) {
+                        verificacoes.add(() -> assertTrue(p99 <= limite,
+                                String.format(Locale.ROOT, "%s: p99 %.1f ms acima do SLO de %.0f ms", op, p99, limite)));
+                    }
+                }
+                assertAll(verificacoes);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciar(MlStubServer ml) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:slo",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--antifraude.ml.url=" + ml.url());
+    }
+
+    private static void imprimir(Resultado r, double taxa, long atrasoMl) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Malha aberta: %.0f req/s planejadas, %.1f req/s reais, %d enviadas, "
+                + "maior atraso de envio %.1f ms, ML com %d ms%n",
+                taxa, r.taxaReal(), r.enviadas(), r.maiorAtrasoEnvioUs() / 1e3, atrasoMl);
+        System.out.printf("%-14s %8s %9s %9s %9s %9s %9s %6s%n",
+                "operacao", "n", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "erros");
+        for (Operacao op : Operacao.values()) {
+            Histogram h = r.latencias().get(op);
+            System.out.printf(Locale.ROOT, "%-14s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %6d%n",
+                    op.name().toLowerCase(Locale.ROOT), h.getTotalCount(),
+                    h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+                    h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6,
+                    h.getMaxValue() / 1e6, r.erros().get(op));
+        }
+        if (r.primeiroErro() != null) {
+            System.out.println("primeiro erro: " + r.primeiroErro());
+        }
+    }
+
+    // Formato do HdrHistogram (abre no plotFiles.html do projeto), em ms
+    private static void gravarHistogramas(Resultado r) throws IOException {
+        Path destino = Files.createDirectories(Path.of("target", "slo"));
+        for (Operacao op : Operacao.values()) {
+            Path arquivo = destino.resolve(op.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream saida = new PrintStream(Files.newOutputStream(arquivo))) {
+                r.latencias().get(op).outputPercentileDistribution(saida, 1e6);
+            }
+        }
+    }
+}